@@ -0,0 +1,136 @@
+/*
+ * Copyright 2016 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.cloud.tools.eclipse.benchmarks;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.nio.file.FileSystem;
+import java.nio.file.FileSystems;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Enumeration;
+import java.util.List;
+import java.util.Random;
+import java.util.jar.JarEntry;
+import java.util.jar.JarFile;
+
+/**
+ * Collects the names of real classes to use as benchmark inputs.
+ */
+final class ClassNameCorpus {
+
+  private static final String CLASS_SUFFIX = ".class";
+
+  private ClassNameCorpus() {
+  }
+
+  /**
+   * @return the fully qualified names of the classes of the running JDK, in a fixed random order
+   */
+  static List<String> jdkClassNames() throws IOException {
+    List<String> classNames = new ArrayList<>();
+    String bootClassPath = System.getProperty("sun.boot.class.path");
+    if (bootClassPath != null) {
+      for (String entry : bootClassPath.split(File.pathSeparator)) {
+        File file = new File(entry);
+        if (file.isFile()) {
+          addClassNames(file, classNames);
+        }
+      }
+    } else {
+      // Java 9 and later have no boot class path; the classes are in the jrt file system
+      FileSystem jrt = FileSystems.getFileSystem(URI.create("jrt:/"));
+      Path modules = jrt.getPath("/modules");
+      addClassNames(modules, 1, classNames);
+    }
+    return shuffle(classNames);
+  }
+
+  /**
+   * @return the fully qualified names of the classes in the jar file or folder that
+   *     <code>type</code> was loaded from, in a fixed random order
+   */
+  static List<String> classNamesNextTo(Class<?> type) throws IOException {
+    try {
+      File location = new File(type.getProtectionDomain().getCodeSource().getLocation().toURI());
+      List<String> classNames = new ArrayList<>();
+      if (location.isFile()) {
+        addClassNames(location, classNames);
+      } else {
+        addClassNames(location.toPath(), 0, classNames);
+      }
+      return shuffle(classNames);
+    } catch (URISyntaxException ex) {
+      throw new IOException(ex);
+    }
+  }
+
+  private static void addClassNames(File jar, List<String> classNames) throws IOException {
+    try (JarFile jarFile = new JarFile(jar)) {
+      for (Enumeration<JarEntry> entries = jarFile.entries(); entries.hasMoreElements();) {
+        String name = entries.nextElement().getName();
+        if (isClass(name)) {
+          classNames.add(toClassName(name));
+        }
+      }
+    }
+  }
+
+  /**
+   * @param skippedSegments number of leading segments below <code>root</code> that are not part
+   *     of the package name, e.g. the module name in the jrt file system
+   */
+  private static void addClassNames(final Path root, final int skippedSegments,
+      final List<String> classNames) throws IOException {
+    Files.walkFileTree(root, new SimpleFileVisitor<Path>() {
+      @Override
+      public FileVisitResult visitFile(Path file, BasicFileAttributes attributes) {
+        Path relative = root.relativize(file);
+        if (relative.getNameCount() > skippedSegments) {
+          String name = relative.subpath(skippedSegments, relative.getNameCount()).toString();
+          if (isClass(name)) {
+            classNames.add(toClassName(name.replace(relative.getFileSystem().getSeparator(), "/")));
+          }
+        }
+        return FileVisitResult.CONTINUE;
+      }
+    });
+  }
+
+  private static boolean isClass(String name) {
+    return name.endsWith(CLASS_SUFFIX)
+        && !name.endsWith("module-info.class")
+        && !name.endsWith("package-info.class");
+  }
+
+  private static String toClassName(String entryName) {
+    return entryName.substring(0, entryName.length() - CLASS_SUFFIX.length()).replace('/', '.');
+  }
+
+  private static List<String> shuffle(List<String> classNames) {
+    // a fixed order avoids favoring whichever names happen to be sorted together
+    Collections.shuffle(classNames, new Random(42));
+    return classNames;
+  }
+}
@@ -0,0 +1,198 @@
+/*
+ * Copyright 2016 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.cloud.tools.eclipse.benchmarks;
+
+import com.google.cloud.tools.eclipse.appengine.libraries.LibraryClasspathContainer;
+import com.google.cloud.tools.eclipse.appengine.libraries.persistence.LibraryClasspathContainerSerializer;
+import com.google.cloud.tools.eclipse.appengine.libraries.persistence.LibraryClasspathContainerSerializer.ArtifactBaseLocationProvider;
+import com.google.cloud.tools.eclipse.appengine.libraries.persistence.LibraryClasspathContainerSerializer.LibraryContainerStateLocationProvider;
+import com.google.cloud.tools.eclipse.util.io.DeleteAllVisitor;
+import com.google.cloud.tools.eclipse.util.io.PathUtil;
+import com.google.common.base.Charsets;
+import com.google.gson.stream.JsonWriter;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.eclipse.core.runtime.CoreException;
+import org.eclipse.core.runtime.IPath;
+import org.eclipse.core.runtime.Path;
+import org.eclipse.jdt.core.IAccessRule;
+import org.eclipse.jdt.core.IClasspathAttribute;
+import org.eclipse.jdt.core.IClasspathEntry;
+import org.eclipse.jdt.core.IJavaProject;
+import org.eclipse.jdt.core.JavaCore;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+/**
+ * Measures loading the library containers of a workspace on startup, where the state file of
+ * every container is read once by a new {@link LibraryClasspathContainerSerializer}. The state
+ * files are either pretty-printed JSON as written by earlier versions or the compact JSON written
+ * by the current version, so the two can be compared.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class ContainerStateColdStartBenchmark {
+
+  private static final String ATTRIBUTE_PREFIX = "com.google.cloud.tools.eclipse.appengine.libraries.";
+
+  @Param({"100"})
+  public int projectCount;
+
+  @Param({"30"})
+  public int entryCount;
+
+  @Param({"pretty", "compact"})
+  public String format;
+
+  private java.nio.file.Path workDirectory;
+  private IPath repository;
+  private IPath containerPath;
+
+  @Setup
+  public void setUp() throws IOException, CoreException {
+    workDirectory = Files.createTempDirectory("container-state-benchmark");
+    repository = new Path(workDirectory.resolve("repository").toString());
+    containerPath = new Path("com.google.cloud.tools.eclipse.appengine.libraries/benchmark");
+    for (int project = 0; project < projectCount; project++) {
+      LibraryClasspathContainer container = createContainer(project);
+      java.nio.file.Path stateFile =
+          Files.createFile(workDirectory.resolve("project" + project + ".container"));
+      if ("pretty".equals(format)) {
+        writePrettyState(stateFile, container);
+      } else {
+        newSerializer(new Path(stateFile.toString())).saveContainer(null, container);
+      }
+    }
+  }
+
+  @TearDown
+  public void tearDown() throws IOException {
+    Files.walkFileTree(workDirectory, new DeleteAllVisitor());
+  }
+
+  @Benchmark
+  public List<LibraryClasspathContainer> loadAllContainers() throws IOException, CoreException {
+    List<LibraryClasspathContainer> containers = new ArrayList<>(projectCount);
+    for (int project = 0; project < projectCount; project++) {
+      IPath stateFile = new Path(workDirectory.resolve("project" + project + ".container").toString());
+      containers.add(newSerializer(stateFile).loadContainer(null, containerPath));
+    }
+    return containers;
+  }
+
+  private LibraryClasspathContainerSerializer newSerializer(final IPath stateFile) {
+    return new LibraryClasspathContainerSerializer(
+        new LibraryContainerStateLocationProvider() {
+          @Override
+          public IPath getContainerStateFile(IJavaProject javaProject, IPath containerPath,
+              boolean create) {
+            return stateFile;
+          }
+        },
+        new ArtifactBaseLocationProvider() {
+          @Override
+          public IPath getBaseLocation() {
+            return repository;
+          }
+        });
+  }
+
+  /**
+   * Writes <code>container</code> as the pretty-printed JSON of earlier versions, which has no
+   * <code>version</code> property, stores the source attachment paths as absolute paths and only
+   * has accessible access rules and exported entries.
+   */
+  private void writePrettyState(java.nio.file.Path stateFile, LibraryClasspathContainer container)
+      throws IOException {
+    try (Writer output = Files.newBufferedWriter(stateFile, Charsets.UTF_8)) {
+      JsonWriter writer = new JsonWriter(output);
+      writer.setIndent("  ");
+      writer.beginObject();
+      writer.name("description").value(container.getDescription());
+      writer.name("path").value(container.getPath().toString());
+      writer.name("entries").beginArray();
+      for (IClasspathEntry entry : container.getClasspathEntries()) {
+        writer.beginObject();
+        writer.name("accessRules").beginArray();
+        for (IAccessRule rule : entry.getAccessRules()) {
+          writer.beginObject();
+          writer.name("ruleKind").value("ACCESSIBLE");
+          writer.name("pattern").value(rule.getPattern().toString());
+          writer.endObject();
+        }
+        writer.endArray();
+        writer.name("sourceAttachmentPath").value(entry.getSourceAttachmentPath().toOSString());
+        writer.name("path").value(
+            PathUtil.relativizePath(entry.getPath(), repository).toString());
+        writer.name("attributes").beginArray();
+        for (IClasspathAttribute attribute : entry.getExtraAttributes()) {
+          writer.beginObject();
+          writer.name("name").value(attribute.getName());
+          writer.name("value").value(attribute.getValue());
+          writer.endObject();
+        }
+        writer.endArray();
+        writer.endObject();
+      }
+      writer.endArray();
+      writer.endObject();
+      writer.flush();
+    }
+  }
+
+  private LibraryClasspathContainer createContainer(int project) {
+    IClasspathEntry[] entries = new IClasspathEntry[entryCount];
+    for (int i = 0; i < entryCount; i++) {
+      String groupId = "com.google.benchmark.group" + (i % 10);
+      String artifactId = "artifact" + i;
+      String version = "1." + (i + project % 3) + ".0";
+      IPath artifactFolder = repository.append(groupId.replace('.', '/'))
+          .append(artifactId).append(version);
+      IAccessRule[] accessRules = {
+          JavaCore.newAccessRule(new Path(groupId.replace('.', '/') + "/**"),
+                                 IAccessRule.K_ACCESSIBLE)
+      };
+      IClasspathAttribute[] attributes = {
+          JavaCore.newClasspathAttribute(ATTRIBUTE_PREFIX + "repository", "central"),
+          JavaCore.newClasspathAttribute(ATTRIBUTE_PREFIX + "groupid", groupId),
+          JavaCore.newClasspathAttribute(ATTRIBUTE_PREFIX + "artifactId", artifactId),
+          JavaCore.newClasspathAttribute(ATTRIBUTE_PREFIX + "type", "jar"),
+          JavaCore.newClasspathAttribute(ATTRIBUTE_PREFIX + "version", version)
+      };
+      entries[i] = JavaCore.newLibraryEntry(
+          artifactFolder.append(artifactId + "-" + version + ".jar"),
+          artifactFolder.append(artifactId + "-" + version + "-sources.jar"),
+          null /* sourceAttachmentRootPath */,
+          accessRules,
+          attributes,
+          true /* isExported */);
+    }
+    return new LibraryClasspathContainer(containerPath, "Benchmark library", entries);
+  }
+}
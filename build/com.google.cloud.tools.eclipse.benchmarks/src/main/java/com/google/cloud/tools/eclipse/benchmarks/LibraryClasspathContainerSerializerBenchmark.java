@@ -0,0 +1,133 @@
+/*
+ * Copyright 2016 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.cloud.tools.eclipse.benchmarks;
+
+import com.google.cloud.tools.eclipse.appengine.libraries.LibraryClasspathContainer;
+import com.google.cloud.tools.eclipse.appengine.libraries.persistence.LibraryClasspathContainerSerializer;
+import com.google.cloud.tools.eclipse.appengine.libraries.persistence.LibraryClasspathContainerSerializer.ArtifactBaseLocationProvider;
+import com.google.cloud.tools.eclipse.appengine.libraries.persistence.LibraryClasspathContainerSerializer.LibraryContainerStateLocationProvider;
+import com.google.cloud.tools.eclipse.util.io.DeleteAllVisitor;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.concurrent.TimeUnit;
+import org.eclipse.core.runtime.CoreException;
+import org.eclipse.core.runtime.IPath;
+import org.eclipse.core.runtime.Path;
+import org.eclipse.jdt.core.IAccessRule;
+import org.eclipse.jdt.core.IClasspathAttribute;
+import org.eclipse.jdt.core.IClasspathEntry;
+import org.eclipse.jdt.core.IJavaProject;
+import org.eclipse.jdt.core.JavaCore;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+/**
+ * Measures saving and loading a {@link LibraryClasspathContainer} with
+ * {@link LibraryClasspathContainerSerializer}. The entries look like the ones created for
+ * libraries resolved from a local Maven repository: a jar and a source jar below the repository,
+ * an access rule and the Maven coordinates as classpath attributes.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class LibraryClasspathContainerSerializerBenchmark {
+
+  private static final String ATTRIBUTE_PREFIX = "com.google.cloud.tools.eclipse.appengine.libraries.";
+
+  @Param({"200"})
+  public int entryCount;
+
+  private java.nio.file.Path workDirectory;
+  private IPath containerPath;
+  private LibraryClasspathContainer container;
+  private LibraryClasspathContainerSerializer serializer;
+
+  @Setup
+  public void setUp() throws IOException, CoreException {
+    workDirectory = Files.createTempDirectory("serializer-benchmark");
+    final IPath repository = new Path(workDirectory.resolve("repository").toString());
+    final IPath stateFile = new Path(
+        Files.createFile(workDirectory.resolve("benchmark.container")).toString());
+    serializer = new LibraryClasspathContainerSerializer(
+        new LibraryContainerStateLocationProvider() {
+          @Override
+          public IPath getContainerStateFile(IJavaProject javaProject, IPath containerPath,
+              boolean create) {
+            return stateFile;
+          }
+        },
+        new ArtifactBaseLocationProvider() {
+          @Override
+          public IPath getBaseLocation() {
+            return repository;
+          }
+        });
+
+    containerPath = new Path("com.google.cloud.tools.eclipse.appengine.libraries/benchmark");
+    IClasspathEntry[] entries = new IClasspathEntry[entryCount];
+    for (int i = 0; i < entryCount; i++) {
+      String groupId = "com.google.benchmark.group" + (i % 10);
+      String artifactId = "artifact" + i;
+      String version = "1." + i + ".0";
+      IPath artifactFolder = repository.append(groupId.replace('.', '/'))
+          .append(artifactId).append(version);
+      IAccessRule[] accessRules = {
+          JavaCore.newAccessRule(new Path(groupId.replace('.', '/') + "/**"),
+                                 IAccessRule.K_ACCESSIBLE),
+          JavaCore.newAccessRule(new Path("**/internal/**"), IAccessRule.K_NON_ACCESSIBLE)
+      };
+      IClasspathAttribute[] attributes = {
+          JavaCore.newClasspathAttribute(ATTRIBUTE_PREFIX + "repository", "central"),
+          JavaCore.newClasspathAttribute(ATTRIBUTE_PREFIX + "groupid", groupId),
+          JavaCore.newClasspathAttribute(ATTRIBUTE_PREFIX + "artifactId", artifactId),
+          JavaCore.newClasspathAttribute(ATTRIBUTE_PREFIX + "type", "jar"),
+          JavaCore.newClasspathAttribute(ATTRIBUTE_PREFIX + "version", version)
+      };
+      entries[i] = JavaCore.newLibraryEntry(
+          artifactFolder.append(artifactId + "-" + version + ".jar"),
+          artifactFolder.append(artifactId + "-" + version + "-sources.jar"),
+          null /* sourceAttachmentRootPath */,
+          accessRules,
+          attributes,
+          true /* isExported */);
+    }
+    container = new LibraryClasspathContainer(containerPath, "Benchmark library", entries);
+    serializer.saveContainer(null, container);
+  }
+
+  @TearDown
+  public void tearDown() throws IOException {
+    Files.walkFileTree(workDirectory, new DeleteAllVisitor());
+  }
+
+  @Benchmark
+  public void saveContainer() throws IOException, CoreException {
+    serializer.saveContainer(null, container);
+  }
+
+  @Benchmark
+  public LibraryClasspathContainer loadContainer() throws IOException, CoreException {
+    return serializer.loadContainer(null, containerPath);
+  }
+}
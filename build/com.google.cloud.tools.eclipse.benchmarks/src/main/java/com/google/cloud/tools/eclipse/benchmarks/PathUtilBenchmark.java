@@ -0,0 +1,94 @@
+/*
+ * Copyright 2016 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.cloud.tools.eclipse.benchmarks;
+
+import com.google.cloud.tools.eclipse.util.io.PathUtil;
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.eclipse.core.runtime.IPath;
+import org.eclipse.core.runtime.Path;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Measures {@link PathUtil#relativizePath(IPath, IPath)} and
+ * {@link PathUtil#makePathAbsolute(IPath, IPath)} over a tree of paths of the given depth below
+ * a base folder, mixed with paths outside of it, as when files of a project are mapped into a
+ * repository or an exploded WAR. The paths do not need to exist.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class PathUtilBenchmark {
+
+  private static final int PATH_COUNT = 1000;
+
+  @Param({"4", "16", "64"})
+  public int depth;
+
+  private IPath basePath;
+  private IPath[] absolutePaths;
+  private IPath[] relativePaths;
+
+  @Setup
+  public void setUp() {
+    String root = new File(System.getProperty("java.io.tmpdir")).getAbsolutePath();
+    basePath = new Path(root).append("benchmark").append("repository");
+    IPath outsidePath = new Path(root).append("benchmark").append("workspace");
+
+    Random random = new Random(42);
+    List<IPath> absolute = new ArrayList<>();
+    List<IPath> relative = new ArrayList<>();
+    for (int i = 0; i < PATH_COUNT; i++) {
+      IPath path = new Path("");
+      int segments = 1 + random.nextInt(depth);
+      for (int segment = 0; segment < segments; segment++) {
+        path = path.append("folder" + random.nextInt(10));
+      }
+      path = path.append("file" + i + ".jar");
+      relative.add(path);
+      // one path in four is outside of the base path and is returned unchanged
+      absolute.add((i % 4 == 0 ? outsidePath : basePath).append(path));
+    }
+    absolutePaths = absolute.toArray(new IPath[PATH_COUNT]);
+    relativePaths = relative.toArray(new IPath[PATH_COUNT]);
+  }
+
+  @Benchmark
+  public void relativizePath(Blackhole blackhole) {
+    for (IPath path : absolutePaths) {
+      blackhole.consume(PathUtil.relativizePath(path, basePath));
+    }
+  }
+
+  @Benchmark
+  public void makePathAbsolute(Blackhole blackhole) {
+    for (IPath path : relativePaths) {
+      blackhole.consume(PathUtil.makePathAbsolute(path, basePath));
+    }
+  }
+}
@@ -0,0 +1,117 @@
+/*
+ * Copyright 2016 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.cloud.tools.eclipse.benchmarks;
+
+import com.google.cloud.tools.eclipse.appengine.whitelist.AppEngineJreWhitelist;
+import com.google.common.base.Preconditions;
+import com.google.gson.Gson;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Measures {@link AppEngineJreWhitelist#contains(String)},
+ * {@link AppEngineJreWhitelist#contains(char[], int, int)} and
+ * {@link AppEngineJreWhitelist#allowsMember(String, String)} over a full corpus of class names.
+ * <p>
+ * The <code>jdk</code> corpus holds every class of the running JDK, so most names fall in
+ * restricted packages. The <code>application</code> corpus adds the classes of a couple of
+ * libraries, so that most names are outside of the JRE, as in a typical project.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class WhitelistBenchmark {
+
+  @Param({"jdk", "application"})
+  public String corpus;
+
+  private final AppEngineJreWhitelist java7Whitelist =
+      AppEngineJreWhitelist.forRuntime(AppEngineJreWhitelist.JAVA7_RUNTIME);
+
+  private String[] classNames;
+
+  // the same names in internal form (java/lang/String) packed in one array, as in a class file
+  private char[] packedNames;
+  private int[] offsets;
+  private int[] lengths;
+
+  @Setup
+  public void setUp() throws IOException {
+    List<String> names = new ArrayList<>();
+    if ("application".equals(corpus)) {
+      names.addAll(ClassNameCorpus.classNamesNextTo(Preconditions.class));
+      names.addAll(ClassNameCorpus.classNamesNextTo(Gson.class));
+      names.addAll(ClassNameCorpus.jdkClassNames().subList(0, names.size() / 4));
+    } else {
+      names.addAll(ClassNameCorpus.jdkClassNames());
+    }
+    classNames = names.toArray(new String[names.size()]);
+
+    StringBuilder packed = new StringBuilder();
+    offsets = new int[classNames.length];
+    lengths = new int[classNames.length];
+    for (int i = 0; i < classNames.length; i++) {
+      offsets[i] = packed.length();
+      lengths[i] = classNames[i].length();
+      packed.append(classNames[i].replace('.', '/'));
+    }
+    packedNames = packed.toString().toCharArray();
+  }
+
+  @Benchmark
+  public int containsString() {
+    int allowed = 0;
+    for (String className : classNames) {
+      if (AppEngineJreWhitelist.contains(className)) {
+        allowed++;
+      }
+    }
+    return allowed;
+  }
+
+  @Benchmark
+  public int containsCharArray() {
+    int allowed = 0;
+    for (int i = 0; i < offsets.length; i++) {
+      if (AppEngineJreWhitelist.contains(packedNames, offsets[i], lengths[i])) {
+        allowed++;
+      }
+    }
+    return allowed;
+  }
+
+  @Benchmark
+  public int allowsMember() {
+    int allowed = 0;
+    for (String className : classNames) {
+      if (java7Whitelist.allowsMember(className, "exec")) {
+        allowed++;
+      }
+    }
+    return allowed;
+  }
+}
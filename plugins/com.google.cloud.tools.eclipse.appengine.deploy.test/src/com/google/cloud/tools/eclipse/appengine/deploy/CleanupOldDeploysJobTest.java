@@ -17,7 +17,9 @@
 package com.google.cloud.tools.eclipse.appengine.deploy;
 
 import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertThat;
+import static org.junit.Assert.assertTrue;
 import static org.mockito.Mockito.mock;
 
 import java.io.File;
@@ -34,34 +36,105 @@ import org.junit.Test;
 
 public class CleanupOldDeploysJobTest {
 
+  // every test directory holds a file of this size
+  private static final int FILE_SIZE = 100;
+
   @Test
   public void testRun_withNoDirectories() throws IOException {
-    testRun(0, new String[0]);
+    testRun(0, 0, new String[0]);
   }
 
   @Test
   public void testRun_withOneDirectory() throws IOException {
-    testRun(1, new String[] {"1"});
+    testRun(1, 1000, new String[] {"1"});
+  }
+
+  @Test
+  public void testRun_withOneDirectoryOverBudget() throws IOException {
+    testRun(1, 10, new String[] {"1"});
   }
 
   @Test
   public void testRun_withTwoDirectories() throws IOException {
-    testRun(2, new String[] {"1", "2"});
+    testRun(2, 1000, new String[] {"1", "2"});
+  }
+
+  @Test
+  public void testRun_withThreeDirectoriesWithinBudget() throws IOException {
+    testRun(3, 300, new String[] {"1", "2", "3"});
+  }
+
+  @Test
+  public void testRun_withThreeDirectoriesOverBudget() throws IOException {
+    testRun(3, 250, new String[] {"1", "2"});
+  }
+
+  @Test
+  public void testRun_hardLinkedFilesCountedOnce() throws IOException {
+    Path tempDirectory = createTempDirectory();
+    createTestDirectories(tempDirectory, 1);
+    long now = System.currentTimeMillis();
+    for (int i = 3; i > 1; --i) {
+      Path path = tempDirectory.resolve(Integer.toString(i));
+      Files.createDirectories(path);
+      Files.createLink(path.resolve("file"), tempDirectory.resolve("1/file"));
+      Files.setLastModifiedTime(path, FileTime.fromMillis(now + i * 1000L));
+    }
+
+    // the newest directory is "3"
+    runJob(tempDirectory, 150);
+    assertDirectoriesKept(tempDirectory, new String[] {"1", "2", "3"});
+  }
+
+  @Test
+  public void testRun_directoryInUseKept() throws IOException {
+    Path tempDirectory = createTempDirectory();
+    createTestDirectories(tempDirectory, 3);
+    IPath inUse = new org.eclipse.core.runtime.Path(
+        tempDirectory.resolve("3").resolve("project").toAbsolutePath().toString());
+    CleanupOldDeploysJob.markInUse(inUse);
+    try {
+      runJob(tempDirectory, 150);
+      assertDirectoriesKept(tempDirectory, new String[] {"1", "3"});
+    } finally {
+      CleanupOldDeploysJob.releaseInUse(inUse);
+    }
   }
 
   @Test
-  public void testRun_withThreeDirectories() throws IOException {
-    testRun(3, new String[] {"1", "2"});
+  public void testIsInUse_untilReleasedByEveryUser() throws IOException {
+    Path directory = createTempDirectory();
+    IPath inUse = new org.eclipse.core.runtime.Path(directory.toAbsolutePath().toString());
+    CleanupOldDeploysJob.markInUse(inUse);
+    CleanupOldDeploysJob.markInUse(inUse);
+    CleanupOldDeploysJob.releaseInUse(inUse);
+    assertTrue(CleanupOldDeploysJob.isInUse(directory.toFile()));
+    CleanupOldDeploysJob.releaseInUse(inUse);
+    assertFalse(CleanupOldDeploysJob.isInUse(directory.toFile()));
   }
 
-  private void testRun(int directoryCount, String[] expectedDirectoriesToKeep) throws IOException {
+  private void testRun(int directoryCount, long maximumSize, String[] expectedDirectoriesToKeep)
+      throws IOException {
+    Path tempDirectory = createTempDirectory();
+    createTestDirectories(tempDirectory, directoryCount);
+    runJob(tempDirectory, maximumSize);
+    assertDirectoriesKept(tempDirectory, expectedDirectoriesToKeep);
+  }
+
+  private static Path createTempDirectory() throws IOException {
     Path tempDirectory = Files.createTempDirectory("cleanupolddeploysjobtest");
     tempDirectory.toFile().deleteOnExit();
-    createTestDirectories(tempDirectory, directoryCount);
+    return tempDirectory;
+  }
 
+  private static void runJob(Path tempDirectory, long maximumSize) {
     IPath tempDirectoryPath = new org.eclipse.core.runtime.Path(tempDirectory.toAbsolutePath().toString());
-    CleanupOldDeploysJob job = new CleanupOldDeploysJob(tempDirectoryPath);
+    CleanupOldDeploysJob job = new CleanupOldDeploysJob(tempDirectoryPath, maximumSize);
     job.run(mock(IProgressMonitor.class));
+  }
+
+  private static void assertDirectoriesKept(Path tempDirectory, String[] expectedDirectoriesToKeep) {
+    IPath tempDirectoryPath = new org.eclipse.core.runtime.Path(tempDirectory.toAbsolutePath().toString());
 
     File[] directoriesKept = tempDirectoryPath.toFile().listFiles();
     Arrays.sort(directoriesKept, new Comparator<File>() {
@@ -83,6 +156,7 @@ public class CleanupOldDeploysJobTest {
     for (int i = count; i > 0; --i) {
       Path path = tempDirectory.resolve(Integer.toString(i));
       Files.createDirectories(path);
+      Files.write(path.resolve("file"), new byte[FILE_SIZE]);
       Files.setLastModifiedTime(path, FileTime.fromMillis(now - i * 1000L)); // to ensure correct ordering
     }
   }
@@ -0,0 +1,136 @@
+/*
+ * Copyright 2016 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.cloud.tools.eclipse.appengine.deploy.standard;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.hamcrest.CoreMatchers;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import com.google.common.base.Charsets;
+
+public class DeployMetricsHistoryTest {
+
+  @Rule public TemporaryFolder tempFolder = new TemporaryFolder();
+
+  @Test
+  public void testAppend_createsFileWithHeader() throws IOException {
+    File file = new File(tempFolder.getRoot(), "metrics/deploy-metrics.tsv");
+    DeployMetricsHistory history = new DeployMetricsHistory(file);
+    history.append("my-project", "OK", metrics(DeployMetrics.EXPORT, DeployMetrics.UPLOAD));
+
+    List<String> lines = Files.readAllLines(file.toPath(), Charsets.UTF_8);
+    assertEquals(3, lines.size());
+    assertEquals(DeployMetricsHistory.HEADER, lines.get(0));
+    String[] fields = lines.get(1).split("\t");
+    assertEquals(8, fields.length);
+    assertEquals("my-project", fields[1]);
+    assertEquals("OK", fields[2]);
+    assertEquals(DeployMetrics.EXPORT, fields[3]);
+    assertEquals("10", fields[6]);
+    assertEquals("100", fields[7]);
+  }
+
+  @Test
+  public void testAppend_addsToExistingRecords() throws IOException {
+    DeployMetricsHistory history = new DeployMetricsHistory(tempFolder.newFile());
+    history.append("first", "OK", metrics(DeployMetrics.EXPORT));
+    history.append("second", "ERROR", metrics(DeployMetrics.EXPORT));
+
+    List<String> records = history.readRecords();
+    assertEquals(2, records.size());
+    assertThat(records.get(0), CoreMatchers.containsString("\tfirst\tOK\t"));
+    assertThat(records.get(1), CoreMatchers.containsString("\tsecond\tERROR\t"));
+  }
+
+  @Test
+  public void testAppend_keepsMostRecentRecords() throws IOException {
+    File file = tempFolder.newFile();
+    DeployMetricsHistory history = new DeployMetricsHistory(file, 3);
+    history.append("first", "OK", metrics(DeployMetrics.EXPORT, DeployMetrics.UPLOAD));
+    history.append("second", "OK", metrics(DeployMetrics.EXPORT, DeployMetrics.UPLOAD));
+
+    List<String> records = history.readRecords();
+    assertEquals(3, records.size());
+    assertThat(records.get(0), CoreMatchers.containsString("\tfirst\tOK\tupload\t"));
+    assertThat(records.get(2), CoreMatchers.containsString("\tsecond\tOK\tupload\t"));
+    assertTrue(Files.readAllLines(file.toPath(), Charsets.UTF_8).get(0).startsWith("#"));
+  }
+
+  @Test
+  public void testAppend_concurrentJobsKeepEveryRecord() throws Exception {
+    final DeployMetricsHistory history = DeployMetricsHistory.forFile(tempFolder.newFile());
+    ExecutorService executor = Executors.newFixedThreadPool(4);
+    try {
+      List<Future<Void>> appends = new ArrayList<>();
+      for (int i = 0; i < 20; i++) {
+        final String projectName = "project-" + i;
+        appends.add(executor.submit(new Callable<Void>() {
+          @Override
+          public Void call() throws IOException {
+            history.append(projectName, "OK",
+                           metrics(DeployMetrics.EXPORT, DeployMetrics.UPLOAD));
+            return null;
+          }
+        }));
+      }
+      for (Future<Void> append : appends) {
+        append.get();
+      }
+    } finally {
+      executor.shutdown();
+    }
+    assertEquals(40, history.readRecords().size());
+  }
+
+  @Test
+  public void testForFile_sharedPerFile() throws IOException {
+    File file = tempFolder.newFile();
+    assertSame(DeployMetricsHistory.forFile(file), DeployMetricsHistory.forFile(file));
+  }
+
+  @Test
+  public void testReadRecords_noFile() throws IOException {
+    File file = new File(tempFolder.getRoot(), "missing.tsv");
+    assertTrue(new DeployMetricsHistory(file).readRecords().isEmpty());
+  }
+
+  private static DeployMetrics metrics(String... phases) {
+    DeployMetrics metrics = new DeployMetrics();
+    for (String phase : phases) {
+      metrics.startPhase(phase);
+      metrics.setOutput(10, 100);
+    }
+    metrics.finishPhase();
+    return metrics;
+  }
+}
@@ -0,0 +1,97 @@
+/*
+ * Copyright 2016 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.cloud.tools.eclipse.appengine.deploy.standard;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.assertTrue;
+
+import java.util.List;
+
+import org.hamcrest.CoreMatchers;
+import org.junit.Test;
+
+public class DeployMetricsTest {
+
+  @Test
+  public void testStartPhase_finishesPreviousPhase() {
+    DeployMetrics metrics = new DeployMetrics();
+    metrics.startPhase(DeployMetrics.EXPORT);
+    metrics.startPhase(DeployMetrics.STAGING);
+
+    List<DeployMetrics.Phase> phases = metrics.getPhases();
+    assertEquals(2, phases.size());
+    assertEquals(DeployMetrics.EXPORT, phases.get(0).getName());
+    assertTrue(phases.get(0).getDurationMillis() >= 0);
+    assertEquals(DeployMetrics.UNKNOWN, phases.get(1).getDurationMillis());
+  }
+
+  @Test
+  public void testSetOutput_recordedForCurrentPhase() {
+    DeployMetrics metrics = new DeployMetrics();
+    metrics.startPhase(DeployMetrics.EXPORT);
+    metrics.setOutput(3, 4096);
+    metrics.startPhase(DeployMetrics.UPLOAD);
+    metrics.finishPhase();
+
+    List<DeployMetrics.Phase> phases = metrics.getPhases();
+    assertEquals(3, phases.get(0).getFiles());
+    assertEquals(4096, phases.get(0).getBytes());
+    assertEquals(DeployMetrics.UNKNOWN, phases.get(1).getFiles());
+    assertEquals(DeployMetrics.UNKNOWN, phases.get(1).getBytes());
+  }
+
+  @Test
+  public void testAddProcessTime_addsUpForCurrentPhase() {
+    DeployMetrics metrics = new DeployMetrics();
+    metrics.addProcessTime(1000000000L);
+    metrics.startPhase(DeployMetrics.STAGING);
+    metrics.addProcessTime(1000000000L);
+    metrics.addProcessTime(500000000L);
+    metrics.finishPhase();
+
+    assertEquals(1500, metrics.getPhases().get(0).getProcessMillis());
+  }
+
+  @Test
+  public void testFormatTable_rowPerFinishedPhase() {
+    DeployMetrics metrics = new DeployMetrics();
+    metrics.startPhase(DeployMetrics.EXPORT);
+    metrics.setOutput(2, 2048);
+    metrics.startPhase(DeployMetrics.UPLOAD);
+
+    List<String> table = metrics.formatTable();
+    // header, export, total
+    assertEquals(3, table.size());
+    assertThat(table.get(1), CoreMatchers.startsWith(DeployMetrics.EXPORT));
+    assertThat(table.get(1), CoreMatchers.containsString("2.0 KB"));
+  }
+
+  @Test
+  public void testFormatBytes() {
+    assertEquals("512 B", DeployMetrics.formatBytes(512));
+    assertEquals("1.5 KB", DeployMetrics.formatBytes(1536));
+    assertEquals("2.0 MB", DeployMetrics.formatBytes(2 * 1024 * 1024));
+    assertEquals("3.0 GB", DeployMetrics.formatBytes(3L * 1024 * 1024 * 1024));
+  }
+
+  @Test
+  public void testFormatDuration() {
+    assertEquals("1.2 s", DeployMetrics.formatDuration(1234000000L));
+    assertEquals("0.0 s", DeployMetrics.formatDuration(0));
+  }
+}
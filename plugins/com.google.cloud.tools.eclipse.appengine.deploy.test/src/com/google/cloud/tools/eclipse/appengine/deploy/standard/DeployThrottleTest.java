@@ -0,0 +1,94 @@
+/*
+ * Copyright 2016 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.cloud.tools.eclipse.appengine.deploy.standard;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+import static org.mockito.Mockito.when;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.eclipse.core.runtime.IProgressMonitor;
+import org.eclipse.core.runtime.NullProgressMonitor;
+import org.eclipse.core.runtime.OperationCanceledException;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.runners.MockitoJUnitRunner;
+
+@RunWith(MockitoJUnitRunner.class)
+public class DeployThrottleTest {
+
+  @Mock private IProgressMonitor monitor;
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testConstructor_noPreparations() {
+    new DeployThrottle(0, 1);
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testConstructor_noUploads() {
+    new DeployThrottle(1, 0);
+  }
+
+  @Test
+  public void testAcquirePreparation_waitsForRelease() throws InterruptedException {
+    final DeployThrottle throttle = new DeployThrottle(1, 1);
+    throttle.acquirePreparation(new NullProgressMonitor());
+
+    final CountDownLatch acquired = new CountDownLatch(1);
+    Thread waiting = new Thread() {
+      @Override
+      public void run() {
+        throttle.acquirePreparation(new NullProgressMonitor());
+        acquired.countDown();
+      }
+    };
+    waiting.start();
+    assertFalse(acquired.await(300, TimeUnit.MILLISECONDS));
+
+    throttle.releasePreparation();
+    assertTrue(acquired.await(5, TimeUnit.SECONDS));
+  }
+
+  @Test
+  public void testUploadsAreThrottledSeparately() {
+    DeployThrottle throttle = new DeployThrottle(1, 2);
+    throttle.acquirePreparation(monitor);
+    // does not wait for the preparation
+    throttle.acquireUpload(monitor);
+    throttle.acquireUpload(monitor);
+  }
+
+  @Test
+  public void testAcquireUpload_canceledWhileWaiting() {
+    DeployThrottle throttle = new DeployThrottle(1, 1);
+    throttle.acquireUpload(monitor);
+    when(monitor.isCanceled()).thenReturn(true);
+
+    try {
+      throttle.acquireUpload(monitor);
+      fail();
+    } catch (OperationCanceledException ex) {
+      // expected
+    }
+    throttle.releaseUpload();
+    throttle.acquireUpload(monitor);
+  }
+}
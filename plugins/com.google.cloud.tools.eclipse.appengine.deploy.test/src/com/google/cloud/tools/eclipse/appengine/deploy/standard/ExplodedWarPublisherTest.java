@@ -16,15 +16,31 @@
 
 package com.google.cloud.tools.eclipse.appengine.deploy.standard;
 
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.when;
 
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
 import org.eclipse.core.resources.IProject;
 import org.eclipse.core.runtime.CoreException;
 import org.eclipse.core.runtime.IProgressMonitor;
 import org.eclipse.core.runtime.OperationCanceledException;
 import org.eclipse.core.runtime.Path;
+import org.junit.Before;
+import org.junit.Rule;
 import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
 import org.junit.runner.RunWith;
 import org.mockito.Mock;
 import org.mockito.runners.MockitoJUnitRunner;
@@ -32,8 +48,21 @@ import org.mockito.runners.MockitoJUnitRunner;
 @RunWith(MockitoJUnitRunner.class)
 public class ExplodedWarPublisherTest {
 
+  @Rule public TemporaryFolder tempFolder = new TemporaryFolder();
+
   @Mock IProgressMonitor monitor;
-  
+
+  private File sourceDirectory;
+  private File destination;
+  private final Map<String, File> files = new HashMap<>();
+  private final Set<String> folders = new HashSet<>();
+
+  @Before
+  public void setUp() throws IOException {
+    sourceDirectory = tempFolder.newFolder("source");
+    destination = new File(tempFolder.getRoot(), "exploded-war");
+  }
+
   @Test(expected = NullPointerException.class)
   public void testWriteProjectToStageDir_nullProject() throws CoreException {
     new ExplodedWarPublisher().publish(null, null, monitor);
@@ -54,4 +83,161 @@ public class ExplodedWarPublisherTest {
     when(monitor.isCanceled()).thenReturn(true);
     new ExplodedWarPublisher().publish(mock(IProject.class), new Path(""), monitor);
   }
+
+  @Test
+  public void testPublish_copiesAllFilesFirstTime() throws Exception {
+    addFile("index.html", "<html/>");
+    addFile("WEB-INF/web.xml", "<web-app/>");
+
+    PublishResult result = publish();
+
+    assertEquals(2, result.getFilesCopied());
+    assertEquals(17, result.getBytesCopied());
+    assertEquals(0, result.getFilesSkipped());
+    assertContent("<html/>", "index.html");
+    assertContent("<web-app/>", "WEB-INF/web.xml");
+    assertTrue(ExplodedWarManifest.isComplete(ExplodedWarPublisher.getManifestFile(destination)));
+  }
+
+  @Test
+  public void testPublish_canceledPublishLeavesIncompleteManifest() throws Exception {
+    addFile("index.html", "<html/>");
+    publish();
+
+    when(monitor.isCanceled()).thenReturn(true);
+    try {
+      publish();
+      fail("Expected OperationCanceledException");
+    } catch (OperationCanceledException ex) {
+      // expected
+    }
+
+    File manifestFile = ExplodedWarPublisher.getManifestFile(destination);
+    assertTrue(manifestFile.isFile());
+    assertFalse(ExplodedWarManifest.isComplete(manifestFile));
+  }
+
+  @Test
+  public void testPublish_skipsUnchangedFiles() throws Exception {
+    addFile("index.html", "<html/>");
+    addFile("WEB-INF/web.xml", "<web-app/>");
+    publish();
+
+    PublishResult result = publish();
+
+    assertEquals(0, result.getFilesCopied());
+    assertEquals(2, result.getFilesSkipped());
+    assertEquals(17, result.getBytesSkipped());
+  }
+
+  @Test
+  public void testPublish_copiesChangedFile() throws Exception {
+    addFile("index.html", "<html/>");
+    File webXml = addFile("WEB-INF/web.xml", "<web-app/>");
+    publish();
+
+    Files.write(webXml.toPath(), "<web-app version='2.5'/>".getBytes("UTF-8"));
+    webXml.setLastModified(webXml.lastModified() + 2000);
+    PublishResult result = publish();
+
+    assertEquals(1, result.getFilesCopied());
+    assertEquals(1, result.getFilesSkipped());
+    assertContent("<web-app version='2.5'/>", "WEB-INF/web.xml");
+  }
+
+  @Test
+  public void testPublish_skipsTouchedFileWithSameContent() throws Exception {
+    File index = addFile("index.html", "<html/>");
+    publish();
+
+    index.setLastModified(index.lastModified() + 2000);
+    PublishResult result = publish();
+
+    assertEquals(0, result.getFilesCopied());
+    assertEquals(1, result.getFilesSkipped());
+  }
+
+  @Test
+  public void testPublish_recopiesFileChangedInDestination() throws Exception {
+    addFile("index.html", "<html/>");
+    publish();
+
+    // replaced rather than written to, as the published file may be linked into another deploy
+    File published = new File(destination, "index.html");
+    Files.delete(published.toPath());
+    Files.write(published.toPath(), "changed content".getBytes("UTF-8"));
+    PublishResult result = publish();
+
+    assertEquals(1, result.getFilesCopied());
+    assertContent("<html/>", "index.html");
+  }
+
+  @Test
+  public void testPublish_deletesRemovedFiles() throws Exception {
+    addFile("index.html", "<html/>");
+    addFile("css/style.css", "body {}");
+    publish();
+
+    files.remove("css/style.css");
+    PublishResult result = publish();
+
+    assertEquals(1, result.getFilesDeleted());
+    assertEquals(1, result.getFilesSkipped());
+    assertFalse(new File(destination, "css").exists());
+  }
+
+  @Test
+  public void testPublish_keepsEmptyFolders() throws Exception {
+    addFile("css/style.css", "body {}");
+    folders.add("css");
+    publish();
+
+    files.remove("css/style.css");
+    publish();
+
+    assertTrue(new File(destination, "css").isDirectory());
+  }
+
+  @Test
+  public void testPublish_withoutManifestDeletesUnknownFiles() throws Exception {
+    addFile("index.html", "<html/>");
+    File stale = new File(destination, "stale/old.html");
+    stale.getParentFile().mkdirs();
+    Files.write(stale.toPath(), "old".getBytes("UTF-8"));
+
+    PublishResult result = publish();
+
+    assertEquals(1, result.getFilesDeleted());
+    assertFalse(new File(destination, "stale").exists());
+    assertArrayEquals(new String[] {"index.html"}, destination.list());
+  }
+
+  @Test
+  public void testPublish_corruptManifestCopiesAllFiles() throws Exception {
+    addFile("index.html", "<html/>");
+    publish();
+
+    Files.write(ExplodedWarPublisher.getManifestFile(destination).toPath(),
+                "garbage".getBytes("UTF-8"));
+    PublishResult result = publish();
+
+    assertEquals(1, result.getFilesCopied());
+    assertEquals(0, result.getFilesSkipped());
+  }
+
+  private PublishResult publish() throws CoreException {
+    return new ExplodedWarPublisher().publish(files, folders, destination, monitor);
+  }
+
+  private File addFile(String path, String content) throws IOException {
+    File file = new File(sourceDirectory, path);
+    file.getParentFile().mkdirs();
+    Files.write(file.toPath(), content.getBytes("UTF-8"));
+    files.put(path, file);
+    return file;
+  }
+
+  private void assertContent(String expected, String path) throws IOException {
+    assertEquals(expected, new String(Files.readAllBytes(new File(destination, path).toPath()), "UTF-8"));
+  }
 }
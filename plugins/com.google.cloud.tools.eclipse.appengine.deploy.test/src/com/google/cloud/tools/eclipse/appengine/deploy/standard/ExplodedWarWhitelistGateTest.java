@@ -0,0 +1,164 @@
+/*
+ * Copyright 2016 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.cloud.tools.eclipse.appengine.deploy.standard;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.when;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.jar.JarEntry;
+import java.util.jar.JarOutputStream;
+
+import org.eclipse.core.runtime.IProgressMonitor;
+import org.eclipse.core.runtime.NullProgressMonitor;
+import org.eclipse.core.runtime.OperationCanceledException;
+import org.eclipse.core.runtime.Path;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.runners.MockitoJUnitRunner;
+
+import com.google.cloud.tools.eclipse.appengine.whitelist.BlacklistedReference;
+import com.google.cloud.tools.eclipse.appengine.whitelist.JarWhitelistScanner;
+import com.google.common.base.Charsets;
+import com.google.common.io.ByteStreams;
+import com.google.common.io.Files;
+
+@RunWith(MockitoJUnitRunner.class)
+public class ExplodedWarWhitelistGateTest {
+
+  @SuppressWarnings("unused")
+  private static class UsesCookieManager {
+    private final Object manager = new java.net.CookieManager();
+  }
+
+  @SuppressWarnings("unused")
+  private static class UsesString {
+    private final Object builder = new StringBuilder();
+  }
+
+  @Rule public TemporaryFolder temporaryFolder = new TemporaryFolder();
+  @Mock private IProgressMonitor monitor;
+
+  private File explodedWar;
+  private ExplodedWarWhitelistGate gate;
+
+  @Before
+  public void setUp() throws IOException {
+    explodedWar = temporaryFolder.newFolder("exploded-war");
+    gate = new ExplodedWarWhitelistGate(new JarWhitelistScanner(null, 2));
+  }
+
+  @Test(expected = OperationCanceledException.class)
+  public void testCheck_cancelled() {
+    when(monitor.isCanceled()).thenReturn(true);
+    gate.check(new Path(explodedWar.getAbsolutePath()), monitor);
+  }
+
+  @Test
+  public void testCheck_emptyWar() {
+    assertTrue(check().isEmpty());
+  }
+
+  @Test
+  public void testCheck_clean() throws IOException {
+    addClass(UsesString.class);
+    addJar("good.jar", UsesString.class);
+    assertTrue(check().isEmpty());
+  }
+
+  @Test
+  public void testCheck_blacklistedClassInClasses() throws IOException {
+    addClass(UsesCookieManager.class);
+    addJar("good.jar", UsesString.class);
+    Map<String, List<BlacklistedReference>> violations = check();
+    assertThat(violations.keySet().size(), is(1));
+    assertThat(violations.get("WEB-INF/classes"), is(Arrays.asList(new BlacklistedReference(
+        UsesCookieManager.class.getName(), "java.net.CookieManager"))));
+  }
+
+  @Test
+  public void testCheck_blacklistedClassInLib() throws IOException {
+    addClass(UsesString.class);
+    addJar("bad.jar", UsesCookieManager.class);
+    addJar("good.jar", UsesString.class);
+    Map<String, List<BlacklistedReference>> violations = check();
+    assertThat(violations.keySet().size(), is(1));
+    assertThat(violations.get("WEB-INF/lib/bad.jar").size(), is(1));
+  }
+
+  @Test
+  public void testIsBlocking_classes() {
+    assertTrue(ExplodedWarWhitelistGate.isBlocking("WEB-INF/classes"));
+  }
+
+  @Test
+  public void testIsBlocking_lib() {
+    assertFalse(ExplodedWarWhitelistGate.isBlocking("WEB-INF/lib/bad.jar"));
+  }
+
+  @Test
+  public void testCheck_java8RuntimeIsNotChecked() throws IOException {
+    addClass(UsesCookieManager.class);
+    File appEngineWebXml = new File(explodedWar, "WEB-INF/appengine-web.xml");
+    Files.write("<appengine-web-app xmlns='http://appengine.google.com/ns/1.0'>"
+        + "<runtime>java8</runtime></appengine-web-app>", appEngineWebXml, Charsets.UTF_8);
+    assertTrue(check().isEmpty());
+  }
+
+  private Map<String, List<BlacklistedReference>> check() {
+    return gate.check(new Path(explodedWar.getAbsolutePath()), new NullProgressMonitor());
+  }
+
+  private void addClass(Class<?> clazz) throws IOException {
+    File classFile = new File(explodedWar, "WEB-INF/classes/" + getClassFileName(clazz));
+    Files.createParentDirs(classFile);
+    Files.write(getBytes(clazz), classFile);
+  }
+
+  private void addJar(String name, Class<?> clazz) throws IOException {
+    File jar = new File(explodedWar, "WEB-INF/lib/" + name);
+    Files.createParentDirs(jar);
+    try (JarOutputStream output = new JarOutputStream(new FileOutputStream(jar))) {
+      output.putNextEntry(new JarEntry(getClassFileName(clazz)));
+      output.write(getBytes(clazz));
+      output.closeEntry();
+    }
+  }
+
+  private static String getClassFileName(Class<?> clazz) {
+    return clazz.getName().replace('.', '/') + ".class";
+  }
+
+  private static byte[] getBytes(Class<?> clazz) throws IOException {
+    try (InputStream input = clazz.getResourceAsStream("/" + getClassFileName(clazz))) {
+      return ByteStreams.toByteArray(input);
+    }
+  }
+}
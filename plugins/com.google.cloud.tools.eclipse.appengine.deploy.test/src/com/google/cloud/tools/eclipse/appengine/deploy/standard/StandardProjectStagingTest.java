@@ -16,30 +16,183 @@
 
 package com.google.cloud.tools.eclipse.appengine.deploy.standard;
 
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
 import static org.mockito.Mockito.when;
 
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+
+import org.eclipse.core.runtime.CoreException;
 import org.eclipse.core.runtime.IPath;
 import org.eclipse.core.runtime.IProgressMonitor;
 import org.eclipse.core.runtime.OperationCanceledException;
+import org.eclipse.core.runtime.Path;
+import org.junit.Before;
+import org.junit.Rule;
 import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
 import org.junit.runner.RunWith;
 import org.mockito.Mock;
 import org.mockito.runners.MockitoJUnitRunner;
 
+import com.google.cloud.tools.appengine.api.deploy.DefaultStageStandardConfiguration;
 import com.google.cloud.tools.appengine.cloudsdk.CloudSdk;
 
 @RunWith(MockitoJUnitRunner.class)
 public class StandardProjectStagingTest {
 
+  @Rule public TemporaryFolder tempFolder = new TemporaryFolder();
+
   @Mock private IPath warDirectory;
   @Mock private IPath stagingDirectory;
   @Mock private CloudSdk cloudSdk;
   @Mock private IProgressMonitor monitor;
 
+  private File sourceDirectory;
+  private File cloudSdkVersionFile;
+  private IPath explodedWar;
+  private IPath staging;
+  private final Map<String, File> files = new HashMap<>();
+  private final CountingStaging projectStaging = new CountingStaging();
+
+  @Before
+  public void setUp() throws IOException {
+    sourceDirectory = tempFolder.newFolder("source");
+    explodedWar = new Path(tempFolder.getRoot().getPath()).append("exploded-war");
+    staging = new Path(tempFolder.getRoot().getPath()).append("staging");
+    addFile("WEB-INF/appengine-web.xml", "<appengine-web-app/>");
+    addFile("WEB-INF/classes/Servlet.class", "servlet");
+    addFile("WEB-INF/classes/Helper.class", "helper");
+    File cloudSdkDirectory = tempFolder.newFolder("google-cloud-sdk");
+    cloudSdkVersionFile = new File(cloudSdkDirectory, "VERSION");
+    Files.write(cloudSdkVersionFile.toPath(), "140.0.0\n".getBytes("UTF-8"));
+    when(cloudSdk.getSdkPath()).thenReturn(cloudSdkDirectory.toPath());
+  }
+
   @Test(expected = OperationCanceledException.class)
   public void testStage_cancelled() {
     when(monitor.isCanceled()).thenReturn(true);
     new StandardProjectStaging().stage(warDirectory, stagingDirectory, cloudSdk, monitor);
   }
 
+  @Test
+  public void testStage_runsCloudSdk() throws CoreException {
+    publishAndStage();
+
+    assertEquals(1, projectStaging.stagingCount);
+    assertTrue(staging.append("WEB-INF/classes/Servlet.class").toFile().isFile());
+  }
+
+  @Test
+  public void testStage_unchangedReusesOutput() throws CoreException {
+    publishAndStage();
+    projectStaging.saveFingerprint(explodedWar, staging, cloudSdk);
+
+    publishAndStage();
+
+    assertEquals(1, projectStaging.stagingCount);
+    assertTrue(staging.append("WEB-INF/classes/Servlet.class").toFile().isFile());
+  }
+
+  @Test
+  public void testStage_withoutFingerprintRunsCloudSdk() throws CoreException {
+    publishAndStage();
+
+    publishAndStage();
+
+    assertEquals(2, projectStaging.stagingCount);
+  }
+
+  @Test
+  public void testStage_changedClassesAreCopied() throws CoreException, IOException {
+    publishAndStage();
+    projectStaging.saveFingerprint(explodedWar, staging, cloudSdk);
+
+    addFile("WEB-INF/classes/Servlet.class", "changed servlet");
+    files.remove("WEB-INF/classes/Helper.class");
+    addFile("WEB-INF/classes/util/Added.class", "added");
+    publishAndStage();
+
+    assertEquals(1, projectStaging.stagingCount);
+    assertContent("changed servlet", "WEB-INF/classes/Servlet.class");
+    assertContent("added", "WEB-INF/classes/util/Added.class");
+    assertFalse(staging.append("WEB-INF/classes/Helper.class").toFile().exists());
+  }
+
+  @Test
+  public void testStage_changedDescriptorRunsCloudSdk() throws CoreException, IOException {
+    publishAndStage();
+    projectStaging.saveFingerprint(explodedWar, staging, cloudSdk);
+    Files.write(staging.append("stale.txt").toFile().toPath(), new byte[0]);
+
+    addFile("WEB-INF/appengine-web.xml", "<appengine-web-app><threadsafe/></appengine-web-app>");
+    publishAndStage();
+
+    assertEquals(2, projectStaging.stagingCount);
+    assertContent("<appengine-web-app><threadsafe/></appengine-web-app>",
+                  "WEB-INF/appengine-web.xml");
+    assertFalse(staging.append("stale.txt").toFile().exists());
+  }
+
+  @Test
+  public void testStage_updatedCloudSdkRunsCloudSdk() throws CoreException, IOException {
+    publishAndStage();
+    projectStaging.saveFingerprint(explodedWar, staging, cloudSdk);
+
+    Files.write(cloudSdkVersionFile.toPath(), "141.0.0\n".getBytes("UTF-8"));
+    publishAndStage();
+
+    assertEquals(2, projectStaging.stagingCount);
+  }
+
+  private void publishAndStage() throws CoreException {
+    new ExplodedWarPublisher().publish(files, new HashSet<String>(), explodedWar.toFile(), monitor);
+    projectStaging.stage(explodedWar, staging, cloudSdk, monitor);
+  }
+
+  private void addFile(String path, String content) throws IOException {
+    File file = new File(sourceDirectory, path);
+    file.getParentFile().mkdirs();
+    Files.write(file.toPath(), content.getBytes("UTF-8"));
+    files.put(path, file);
+  }
+
+  private void assertContent(String expected, String path) throws IOException {
+    assertEquals(expected, new String(Files.readAllBytes(staging.append(path).toFile().toPath()), "UTF-8"));
+  }
+
+  /**
+   * Counts the staging operations instead of running the Cloud SDK, and copies the exploded WAR
+   * to the staging directory.
+   */
+  private static class CountingStaging extends StandardProjectStaging {
+    private int stagingCount;
+
+    @Override
+    void stageWithCloudSdk(DefaultStageStandardConfiguration stagingConfig, CloudSdk cloudSdk) {
+      stagingCount++;
+      try {
+        copy(stagingConfig.getSourceDirectory(), stagingConfig.getStagingDirectory());
+      } catch (IOException ex) {
+        throw new IllegalStateException(ex);
+      }
+    }
+
+    private static void copy(File source, File target) throws IOException {
+      if (source.isDirectory()) {
+        target.mkdirs();
+        for (String name : source.list()) {
+          copy(new File(source, name), new File(target, name));
+        }
+      } else {
+        Files.copy(source.toPath(), target.toPath());
+      }
+    }
+  }
 }
@@ -0,0 +1,160 @@
+/*
+ * Copyright 2016 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.cloud.tools.eclipse.appengine.deploy.standard;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+
+import org.eclipse.core.runtime.IPath;
+import org.eclipse.core.runtime.NullProgressMonitor;
+import org.eclipse.core.runtime.Path;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import com.google.common.base.Charsets;
+
+public class WorkDirectorySeederTest {
+
+  @Rule public TemporaryFolder tempFolder = new TemporaryFolder();
+
+  private IPath tempDirectory;
+
+  @Before
+  public void setUp() {
+    tempDirectory = new Path(tempFolder.getRoot().getAbsolutePath());
+  }
+
+  @Test
+  public void testFindPreviousWorkDirectory_noPreviousDeploy() throws IOException {
+    IPath workDirectory = createWorkDirectory("1", "project", false, 0);
+    assertNull(WorkDirectorySeeder.findPreviousWorkDirectory(tempDirectory, workDirectory));
+  }
+
+  @Test
+  public void testFindPreviousWorkDirectory_mostRecentOfSameProject() throws IOException {
+    createWorkDirectory("1", "project", true, 1000);
+    createWorkDirectory("2", "project", true, 2000);
+    createWorkDirectory("3", "other", true, 3000);
+    createWorkDirectory("4", "project", false /* export failed */, 4000);
+    IPath workDirectory = createWorkDirectory("5", "project", true, 5000);
+
+    assertEquals(tempDirectory.append("2").append("project"),
+                 WorkDirectorySeeder.findPreviousWorkDirectory(tempDirectory, workDirectory));
+  }
+
+  @Test
+  public void testFindPreviousWorkDirectory_skipsIncompleteExport() throws IOException {
+    createWorkDirectory("1", "project", true, 1000);
+    // failed or still running
+    IPath incomplete = createWorkDirectory("2", "project", true, 2000);
+    ExplodedWarManifest manifest = new ExplodedWarManifest();
+    manifest.setComplete(false);
+    manifest.save(getManifestFile(incomplete));
+    IPath noManifest = createWorkDirectory("3", "project", true, 3000);
+    Files.delete(getManifestFile(noManifest).toPath());
+    IPath workDirectory = createWorkDirectory("4", "project", false, 4000);
+
+    assertEquals(tempDirectory.append("1").append("project"),
+                 WorkDirectorySeeder.findPreviousWorkDirectory(tempDirectory, workDirectory));
+  }
+
+  @Test
+  public void testSeed_linksAllButCredential() throws IOException {
+    File previous = createWorkDirectory("1", "project", true, 1000).toFile();
+    write(new File(previous, "exploded-war/WEB-INF/web.xml"), "<web-app/>");
+    write(new File(previous, "exploded-war.manifest"), "manifest");
+    write(new File(previous, "staging/app.yaml"), "runtime: java7");
+    write(new File(previous, StandardDeployJob.CREDENTIAL_FILENAME), "secret");
+    File workDirectory = createWorkDirectory("2", "project", false, 2000).toFile();
+
+    WorkDirectorySeeder seeder = new WorkDirectorySeeder();
+    seeder.seed(previous, workDirectory, new NullProgressMonitor());
+
+    assertEquals("<web-app/>", read(new File(workDirectory, "exploded-war/WEB-INF/web.xml")));
+    assertEquals("manifest", read(new File(workDirectory, "exploded-war.manifest")));
+    assertEquals("runtime: java7", read(new File(workDirectory, "staging/app.yaml")));
+    assertFalse(new File(workDirectory, StandardDeployJob.CREDENTIAL_FILENAME).exists());
+    assertEquals(3, seeder.getFiles());
+    assertEquals(32, seeder.getBytes());
+  }
+
+  @Test
+  public void testSeed_copiesManifestInsteadOfLinkingIt() throws IOException {
+    File previous = createWorkDirectory("1", "project", true, 1000).toFile();
+    File workDirectory = createWorkDirectory("2", "project", false, 2000).toFile();
+
+    new WorkDirectorySeeder().seed(previous, workDirectory, new NullProgressMonitor());
+
+    File manifest = getManifestFile(new Path(workDirectory.getAbsolutePath()));
+    assertTrue(ExplodedWarManifest.isComplete(manifest));
+    assertFalse(Files.isSameFile(manifest.toPath(),
+                                 getManifestFile(new Path(previous.getAbsolutePath())).toPath()));
+  }
+
+  @Test
+  public void testSeed_keepsCredentialOfNewDeploy() throws IOException {
+    File previous = createWorkDirectory("1", "project", true, 1000).toFile();
+    write(new File(previous, StandardDeployJob.CREDENTIAL_FILENAME), "old");
+    File workDirectory = createWorkDirectory("2", "project", false, 2000).toFile();
+    write(new File(workDirectory, StandardDeployJob.CREDENTIAL_FILENAME), "new");
+
+    new WorkDirectorySeeder().seed(previous, workDirectory, new NullProgressMonitor());
+
+    assertEquals("new", read(new File(workDirectory, StandardDeployJob.CREDENTIAL_FILENAME)));
+    assertTrue(new File(workDirectory, StandardDeployJob.EXPLODED_WAR_DIRECTORY_NAME).isDirectory());
+  }
+
+  /**
+   * @param exported whether the work directory has an exploded WAR with the manifest of a
+   *     completed export
+   */
+  private IPath createWorkDirectory(String deploy, String project, boolean exported,
+                                    long lastModified) throws IOException {
+    File workDirectory = new File(new File(tempFolder.getRoot(), deploy), project);
+    assertTrue(workDirectory.mkdirs());
+    if (exported) {
+      assertTrue(new File(workDirectory, StandardDeployJob.EXPLODED_WAR_DIRECTORY_NAME).mkdir());
+      ExplodedWarManifest manifest = new ExplodedWarManifest();
+      manifest.setComplete(true);
+      manifest.save(getManifestFile(new Path(workDirectory.getAbsolutePath())));
+    }
+    assertTrue(workDirectory.setLastModified(lastModified));
+    return new Path(workDirectory.getAbsolutePath());
+  }
+
+  private static File getManifestFile(IPath workDirectory) {
+    return ExplodedWarPublisher.getManifestFile(
+        workDirectory.append(StandardDeployJob.EXPLODED_WAR_DIRECTORY_NAME).toFile());
+  }
+
+  private static void write(File file, String content) throws IOException {
+    file.getParentFile().mkdirs();
+    Files.write(file.toPath(), content.getBytes(Charsets.UTF_8));
+  }
+
+  private static String read(File file) throws IOException {
+    return new String(Files.readAllBytes(file.toPath()), Charsets.UTF_8);
+  }
+}
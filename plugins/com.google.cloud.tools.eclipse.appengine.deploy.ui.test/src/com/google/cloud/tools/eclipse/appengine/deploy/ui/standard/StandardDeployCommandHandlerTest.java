@@ -68,6 +68,7 @@ public class StandardDeployCommandHandlerTest {
     IStructuredSelection selection = mock(IStructuredSelection.class);
     when(selection.size()).thenReturn(1);
     when(selection.getFirstElement()).thenReturn(project);
+    when(selection.toList()).thenReturn(Collections.singletonList(project));
     when(context.getVariable(ISources.ACTIVE_CURRENT_SELECTION_NAME)).thenReturn(selection);
     when(context.getVariable(ISources.ACTIVE_SHELL_NAME)).thenReturn(mock(Shell.class));
     return new ExecutionEvent(null /*command */, Collections.EMPTY_MAP, null /* trigger */, context);
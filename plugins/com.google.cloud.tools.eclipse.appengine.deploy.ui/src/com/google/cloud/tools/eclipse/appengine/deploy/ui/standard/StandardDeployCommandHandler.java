@@ -20,7 +20,9 @@ import java.io.IOException;
 import java.nio.file.Files;
 import java.text.DateFormat;
 import java.text.MessageFormat;
+import java.util.ArrayList;
 import java.util.Date;
+import java.util.List;
 import java.util.Locale;
 
 import org.eclipse.core.commands.AbstractHandler;
@@ -38,14 +40,19 @@ import org.eclipse.jface.dialogs.MessageDialog;
 import org.eclipse.jface.window.Window;
 import org.eclipse.ui.console.MessageConsoleStream;
 import org.eclipse.ui.handlers.HandlerUtil;
+import org.eclipse.ui.progress.IProgressConstants;
 
 import com.google.api.client.auth.oauth2.Credential;
 import com.google.cloud.tools.appengine.api.deploy.DefaultDeployConfiguration;
 import com.google.cloud.tools.eclipse.appengine.deploy.CleanupOldDeploysJob;
+import com.google.cloud.tools.eclipse.appengine.deploy.standard.DeployThrottle;
+import com.google.cloud.tools.eclipse.appengine.deploy.standard.ExplodedWarWhitelistGate;
 import com.google.cloud.tools.eclipse.appengine.deploy.standard.StandardDeployJob;
 import com.google.cloud.tools.eclipse.appengine.deploy.standard.StandardDeployJobConfig;
 import com.google.cloud.tools.eclipse.appengine.deploy.standard.StandardDeployPreferences;
 import com.google.cloud.tools.eclipse.appengine.deploy.standard.StandardDeployPreferencesConverter;
+import com.google.cloud.tools.eclipse.appengine.deploy.standard.StandardDeployQueue;
+import com.google.cloud.tools.eclipse.appengine.deploy.standard.WorkDirectorySeeder;
 import com.google.cloud.tools.eclipse.appengine.deploy.ui.DeployConsole;
 import com.google.cloud.tools.eclipse.appengine.deploy.ui.DeployPreferencesDialog;
 import com.google.cloud.tools.eclipse.appengine.deploy.ui.Messages;
@@ -64,10 +71,19 @@ import com.google.common.annotations.VisibleForTesting;
  * <p>
  * It copies the project's exploded WAR to a staging directory and then executes
  * the staging and deploy operations provided by the App Engine Plugins Core Library.
+ * <p>
+ * If several projects are selected, the deploy parameters are only asked for the first one, and
+ * the account selected for it is used to deploy all of them with a {@link StandardDeployQueue}.
+ * Every project is deployed by its own job, and writes to its own console.
+ * <p>
+ * The work directory of a project is <code>tmp/&lt;timestamp&gt;/&lt;project&gt;</code> in the
+ * state location of the deploy bundle, and is seeded from the one of the previous deploy of the
+ * project.
  */
 public class StandardDeployCommandHandler extends AbstractHandler {
 
   private static final String CONSOLE_NAME = "App Engine Deploy";
+  private static final String CREDENTIAL_FILENAME = "gcloud-credentials.json";
 
   private ProjectFromSelectionHelper helper;
 
@@ -83,20 +99,29 @@ public class StandardDeployCommandHandler extends AbstractHandler {
   @Override
   public Object execute(ExecutionEvent event) throws ExecutionException {
     try {
-      IProject project = helper.getProject(event);
-      if (project != null) {
-        if (!checkProjectErrors(project)) {
-          MessageDialog.openInformation(HandlerUtil.getActiveShell(event),
-                                        Messages.getString("build.error.dialog.title"),
-                                        Messages.getString("build.error.dialog.message"));
-          return null;
+      List<IProject> projects = helper.getProjects(event);
+      if (!projects.isEmpty()) {
+        for (IProject project : projects) {
+          if (!checkProjectErrors(project)) {
+            String message = projects.size() == 1
+                ? Messages.getString("build.error.dialog.message")
+                : Messages.getString("build.error.dialog.message.withProject", project.getName());
+            MessageDialog.openInformation(HandlerUtil.getActiveShell(event),
+                                          Messages.getString("build.error.dialog.title"),
+                                          message);
+            return null;
+          }
         }
 
         IGoogleLoginService loginService = ServiceUtils.getService(event, IGoogleLoginService.class);
-        DeployPreferencesDialog dialog =
-            new DeployPreferencesDialog(HandlerUtil.getActiveShell(event), project, loginService);
+        DeployPreferencesDialog dialog = new DeployPreferencesDialog(
+            HandlerUtil.getActiveShell(event), projects.get(0), loginService);
         if (dialog.open() == Window.OK) {
-          launchDeployJob(project, dialog.getCredential(), event);
+          if (projects.size() == 1) {
+            launchDeployJob(projects.get(0), dialog.getCredential(), event);
+          } else {
+            launchDeployQueue(projects, dialog.getCredential(), event);
+          }
         }
       }
       // return value must be null, reserved for future use
@@ -115,21 +140,124 @@ public class StandardDeployCommandHandler extends AbstractHandler {
   private void launchDeployJob(IProject project, Credential credential, ExecutionEvent event)
       throws IOException, ExecutionException {
 
+    DefaultDeployConfiguration deployConfiguration = getDeployConfiguration(project, event);
+    final List<IPath> directoriesInUse = new ArrayList<>();
+    boolean scheduled = false;
+    try {
+      IPath deployDirectory = createWorkDirectory(directoriesInUse);
+      IPath workDirectory = deployDirectory.append(project.getName());
+      Files.createDirectories(workDirectory.toFile().toPath());
+
+      StandardDeployJob deploy = createDeployJob(project, credential, event, workDirectory,
+          deployConfiguration, deployConfiguration.getProject(), null /* credentialFile */,
+          null /* throttle */, directoriesInUse);
+      deploy.addJobChangeListener(new JobChangeAdapter() {
+
+        @Override
+        public void done(IJobChangeEvent event) {
+          super.done(event);
+          releaseInUse(directoriesInUse);
+          launchCleanupJob();
+        }
+      });
+      deploy.schedule();
+      scheduled = true;
+    } finally {
+      if (!scheduled) {
+        releaseInUse(directoriesInUse);
+      }
+    }
+  }
+
+  /**
+   * Deploys <code>projects</code> with one job each, sharing a credential file and a
+   * {@link DeployThrottle}. The work directory of every project is in a common work directory,
+   * so the deploy counts as one for {@link CleanupOldDeploysJob}. The directories used by the
+   * jobs are released when the queue is done, as jobs that the queue did not schedule are never
+   * done.
+   */
+  private void launchDeployQueue(List<IProject> projects, Credential credential,
+                                 ExecutionEvent event) throws IOException, ExecutionException {
+    // fail before anything is started if a project cannot be deployed
+    List<DefaultDeployConfiguration> deployConfigurations = new ArrayList<>(projects.size());
+    for (IProject project : projects) {
+      deployConfigurations.add(getDeployConfiguration(project, event));
+    }
+
+    final List<IPath> directoriesInUse = new ArrayList<>();
+    boolean scheduled = false;
+    try {
+      IPath workDirectory = createWorkDirectory(directoriesInUse);
+      IPath credentialFile = workDirectory.append(CREDENTIAL_FILENAME);
+      DeployThrottle throttle = DeployThrottle.fromPreferences();
+
+      List<StandardDeployJob> jobs = new ArrayList<>(projects.size());
+      for (int i = 0; i < projects.size(); i++) {
+        IProject project = projects.get(i);
+        DefaultDeployConfiguration deployConfiguration = deployConfigurations.get(i);
+        IPath projectWorkDirectory = workDirectory.append(project.getName());
+        Files.createDirectories(projectWorkDirectory.toFile().toPath());
+
+        StandardDeployJob deploy = createDeployJob(project, credential, event, projectWorkDirectory,
+            deployConfiguration, deployConfiguration.getProject() + " / " + project.getName(),
+            credentialFile, throttle, directoriesInUse);
+        // the queue reports the errors of all projects together
+        deploy.setProperty(IProgressConstants.NO_IMMEDIATE_ERROR_PROMPT_PROPERTY, Boolean.TRUE);
+        jobs.add(deploy);
+      }
+
+      StandardDeployQueue queue = new StandardDeployQueue(jobs, credential, credentialFile);
+      queue.addJobChangeListener(new JobChangeAdapter() {
+
+        @Override
+        public void done(IJobChangeEvent event) {
+          super.done(event);
+          releaseInUse(directoriesInUse);
+          launchCleanupJob();
+        }
+      });
+      queue.schedule();
+      scheduled = true;
+    } finally {
+      if (!scheduled) {
+        releaseInUse(directoriesInUse);
+      }
+    }
+  }
+
+  /**
+   * @param directoriesInUse gets the previous work directory that the deploy seeds from, marked in
+   *     use for {@link CleanupOldDeploysJob}; the caller releases it once the deploy is done or
+   *     cannot be started
+   */
+  private StandardDeployJob createDeployJob(IProject project, Credential credential,
+      ExecutionEvent event, IPath workDirectory, DefaultDeployConfiguration deployConfiguration,
+      String consoleLabel, IPath credentialFile, DeployThrottle throttle,
+      List<IPath> directoriesInUse) throws IOException {
     AnalyticsPingManager.getInstance().sendPing(
         AnalyticsEvents.APP_ENGINE_DEPLOY, AnalyticsEvents.APP_ENGINE_DEPLOY_STANDARD, null);
 
-    IPath workDirectory = createWorkDirectory();
-
-    DefaultDeployConfiguration deployConfiguration = getDeployConfiguration(project, event);
     DeployConsole messageConsole =
-        MessageConsoleUtilities.createConsole(getConsoleName(deployConfiguration.getProject()),
+        MessageConsoleUtilities.createConsole(getConsoleName(consoleLabel),
                                               new DeployConsole.Factory());
 
     MessageConsoleStream outputStream = messageConsole.newMessageStream();
     StandardDeployJobConfig config = getDeployJobConfig(project, credential, event,
         workDirectory, outputStream, deployConfiguration);
+    IPath previousWorkDirectory =
+        WorkDirectorySeeder.findPreviousWorkDirectory(getTempDir(), workDirectory);
+    config.setCredentialFile(credentialFile)
+        .setPreviousWorkDirectory(previousWorkDirectory);
+    if (previousWorkDirectory != null) {
+      // keep the cleanup of other deploys from deleting it while this deploy seeds from it
+      markInUse(previousWorkDirectory, directoriesInUse);
+    }
 
-    StandardDeployJob deploy = new StandardDeployJob.Builder().config(config).build();
+    StandardDeployJob deploy = new StandardDeployJob.Builder()
+        .config(config)
+        .whitelistGate(ExplodedWarWhitelistGate.fromPreferences())
+        .throttle(throttle)
+        .build();
     messageConsole.setJob(deploy);
     deploy.addJobChangeListener(new JobChangeAdapter() {
 
@@ -138,10 +266,9 @@ public class StandardDeployCommandHandler extends AbstractHandler {
         super.done(event);
         AnalyticsPingManager.getInstance().sendPing(AnalyticsEvents.APP_ENGINE_DEPLOY_SUCCESS,
             AnalyticsEvents.APP_ENGINE_DEPLOY_STANDARD, null);
-        launchCleanupJob();
       }
     });
-    deploy.schedule();
+    return deploy;
   }
 
   private String getConsoleName(String project) {
@@ -173,13 +300,29 @@ public class StandardDeployCommandHandler extends AbstractHandler {
     return new StandardDeployPreferencesConverter(deployPreferences).toDeployConfiguration();
   }
 
-  private IPath createWorkDirectory() throws IOException {
+  /**
+   * Creates the directory of a new deploy, and adds it to <code>directoriesInUse</code> marked in
+   * use for {@link CleanupOldDeploysJob}.
+   */
+  private IPath createWorkDirectory(List<IPath> directoriesInUse) throws IOException {
     String now = Long.toString(System.currentTimeMillis());
     IPath workDirectory = getTempDir().append(now);
     Files.createDirectories(workDirectory.toFile().toPath());
+    markInUse(workDirectory, directoriesInUse);
     return workDirectory;
   }
 
+  private static void markInUse(IPath directory, List<IPath> directoriesInUse) {
+    CleanupOldDeploysJob.markInUse(directory);
+    directoriesInUse.add(directory);
+  }
+
+  private static void releaseInUse(List<IPath> directoriesInUse) {
+    for (IPath directory : directoriesInUse) {
+      CleanupOldDeploysJob.releaseInUse(directory);
+    }
+  }
+
   private void launchCleanupJob() {
     new CleanupOldDeploysJob(getTempDir()).schedule();
   }
@@ -19,31 +19,110 @@ package com.google.cloud.tools.eclipse.appengine.deploy;
 import java.io.File;
 import java.io.IOException;
 import java.nio.file.DirectoryStream;
+import java.nio.file.FileVisitResult;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.attribute.BasicFileAttributes;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.Comparator;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
 
 import org.eclipse.core.runtime.IPath;
 import org.eclipse.core.runtime.IProgressMonitor;
 import org.eclipse.core.runtime.IStatus;
+import org.eclipse.core.runtime.Platform;
 import org.eclipse.core.runtime.Status;
 import org.eclipse.core.runtime.jobs.Job;
 
+import com.google.cloud.tools.eclipse.appengine.deploy.standard.StandardDeployPreferences;
 import com.google.cloud.tools.eclipse.util.io.DeleteAllVisitor;
 import com.google.cloud.tools.eclipse.util.status.StatusUtil;
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.collect.HashMultiset;
+import com.google.common.collect.Multiset;
 
+/**
+ * Deletes the oldest deploy work directories once all of them together take more disk space than
+ * the budget set with the <code>deploy.workDirectories.maximumSize</code> preference (in MB).
+ * <p>
+ * The most recent directory is always kept, as the next deploy seeds its work directory from it.
+ * Directories that a running deploy writes to or seeds from are never deleted; deploys register
+ * them with {@link #markInUse(IPath)} until they finish.
+ * Files that are hard linked between directories are only counted once, for the most recent
+ * directory that contains them, as deleting the older directories does not free them.
+ */
 public class CleanupOldDeploysJob extends Job {
 
-  private static String NAME = Messages.getString("cleanup.deploy.job.name"); //$NON-NLS-1$
-  private static int RECENT_DIRECTORIES_TO_KEEP = 2;
+  static final String PREF_MAXIMUM_SIZE = "deploy.workDirectories.maximumSize"; //$NON-NLS-1$
+  static final long DEFAULT_MAXIMUM_SIZE_MB = 1024;
+
+  private static final String NAME = Messages.getString("cleanup.deploy.job.name"); //$NON-NLS-1$
+  private static final int RECENT_DIRECTORIES_TO_KEEP = 1;
+
+  // absolute paths of the directories used by running deploys, counted per deploy using them
+  private static final Multiset<Path> directoriesInUse = HashMultiset.create();
+
   private IPath parentTempDir;
+  private long maximumSize;
 
   public CleanupOldDeploysJob(IPath parentTempDir) {
+    this(parentTempDir, getMaximumSizePreference() * 1024 * 1024);
+  }
+
+  /**
+   * @param maximumSize the number of bytes the deploy directories may take together
+   */
+  @VisibleForTesting
+  CleanupOldDeploysJob(IPath parentTempDir, long maximumSize) {
     super(NAME);
     this.parentTempDir = parentTempDir;
+    this.maximumSize = maximumSize;
+  }
+
+  /**
+   * Protects <code>directory</code>, and the deploy directory containing it, from being deleted
+   * until {@link #releaseInUse(IPath)} is called for it as many times as it was marked.
+   */
+  public static void markInUse(IPath directory) {
+    synchronized (directoriesInUse) {
+      directoriesInUse.add(toAbsolutePath(directory));
+    }
+  }
+
+  public static void releaseInUse(IPath directory) {
+    synchronized (directoriesInUse) {
+      directoriesInUse.remove(toAbsolutePath(directory));
+    }
+  }
+
+  /**
+   * @return true if <code>directory</code> is, or contains, a directory marked in use
+   */
+  @VisibleForTesting
+  static boolean isInUse(File directory) {
+    Path path = directory.toPath().toAbsolutePath().normalize();
+    synchronized (directoriesInUse) {
+      for (Path inUse : directoriesInUse.elementSet()) {
+        if (inUse.startsWith(path)) {
+          return true;
+        }
+      }
+    }
+    return false;
+  }
+
+  private static Path toAbsolutePath(IPath directory) {
+    return directory.toFile().toPath().toAbsolutePath().normalize();
+  }
+
+  private static long getMaximumSizePreference() {
+    return Platform.getPreferencesService().getLong(
+        StandardDeployPreferences.PREFERENCE_STORE_QUALIFIER, PREF_MAXIMUM_SIZE,
+        DEFAULT_MAXIMUM_SIZE_MB, null);
   }
 
   @Override
@@ -71,10 +150,42 @@ public class CleanupOldDeploysJob extends Job {
   }
 
   private void deleteDirectories(List<File> directories) throws IOException {
-    for (int i = RECENT_DIRECTORIES_TO_KEEP; i < directories.size(); ++i) {
-      Files.walkFileTree(directories.get(i).toPath(), new DeleteAllVisitor());
+    Set<Object> countedFiles = new HashSet<>();
+    long totalSize = 0;
+    for (int i = 0; i < directories.size(); ++i) {
+      totalSize += getSize(directories.get(i).toPath(), countedFiles);
+      if (i >= RECENT_DIRECTORIES_TO_KEEP && totalSize > maximumSize) {
+        // older directories would only add to the size
+        for (int j = i; j < directories.size(); ++j) {
+          if (!isInUse(directories.get(j))) {
+            Files.walkFileTree(directories.get(j).toPath(), new DeleteAllVisitor());
+          }
+        }
+        return;
+      }
     }
   }
+
+  /**
+   * @param countedFiles the keys of the files already counted, see
+   *     {@link BasicFileAttributes#fileKey()}; files that are hard linked into
+   *     <code>directory</code> from a counted file are not counted again
+   */
+  private static long getSize(Path directory, final Set<Object> countedFiles) throws IOException {
+    final long[] size = new long[1];
+    Files.walkFileTree(directory, new SimpleFileVisitor<Path>() {
+      @Override
+      public FileVisitResult visitFile(Path file, BasicFileAttributes attributes) {
+        // file keys are not available on every platform
+        Object fileKey = attributes.fileKey();
+        if (fileKey == null || countedFiles.add(fileKey)) {
+          size[0] += attributes.size();
+        }
+        return FileVisitResult.CONTINUE;
+      }
+    });
+    return size[0];
+  }
   /**
    * Comparator that sorts files on reversed order of last modification, i.e. the file that was modified
    * more recently will be "smaller"
@@ -0,0 +1,200 @@
+/*
+ * Copyright 2016 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.cloud.tools.eclipse.appengine.deploy.standard;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+
+import com.google.cloud.tools.eclipse.appengine.deploy.Messages;
+import com.google.common.annotations.VisibleForTesting;
+
+/**
+ * Records how long each phase of a deploy takes, how much of that time is spent in Cloud SDK
+ * processes, and how many files and bytes a phase produces.
+ */
+public class DeployMetrics {
+
+  public static final String SEED = "seed"; //$NON-NLS-1$
+  public static final String EXPORT = "export"; //$NON-NLS-1$
+  public static final String WHITELIST_CHECK = "whitelist"; //$NON-NLS-1$
+  public static final String STAGING = "staging"; //$NON-NLS-1$
+  /** Waiting for one of the uploads of other projects deployed together to finish. */
+  public static final String WAITING_FOR_UPLOAD = "waiting"; //$NON-NLS-1$
+  public static final String UPLOAD = "upload"; //$NON-NLS-1$
+
+  /** The number of files or bytes of a phase that does not produce files. */
+  public static final long UNKNOWN = -1;
+
+  private static final String TABLE_ROW_FORMAT = "%-10s %10s %10s %8s %10s %12s"; //$NON-NLS-1$
+  private static final String NOT_AVAILABLE = "-"; //$NON-NLS-1$
+
+  /**
+   * The metrics of a single phase.
+   */
+  public static class Phase {
+    private final String name;
+    private final long startTime;
+    private final long startNanos;
+    private long durationNanos = -1;
+    private long processNanos;
+    private long files = UNKNOWN;
+    private long bytes = UNKNOWN;
+
+    private Phase(String name, long startTime, long startNanos) {
+      this.name = name;
+      this.startTime = startTime;
+      this.startNanos = startNanos;
+    }
+
+    public String getName() {
+      return name;
+    }
+
+    /**
+     * @return when the phase started, in milliseconds since the epoch
+     */
+    public long getStartTime() {
+      return startTime;
+    }
+
+    /**
+     * @return the wall time of the phase, or {@link DeployMetrics#UNKNOWN} if it is not finished
+     */
+    public long getDurationMillis() {
+      return durationNanos < 0 ? UNKNOWN : TimeUnit.NANOSECONDS.toMillis(durationNanos);
+    }
+
+    /**
+     * @return the wall time of the Cloud SDK processes run in this phase
+     */
+    public long getProcessMillis() {
+      return TimeUnit.NANOSECONDS.toMillis(processNanos);
+    }
+
+    /**
+     * @return the number of files produced, or {@link DeployMetrics#UNKNOWN}
+     */
+    public long getFiles() {
+      return files;
+    }
+
+    /**
+     * @return the number of bytes produced, or {@link DeployMetrics#UNKNOWN}
+     */
+    public long getBytes() {
+      return bytes;
+    }
+  }
+
+  private final List<Phase> phases = new ArrayList<>();
+  private Phase current;
+
+  /**
+   * Finishes the current phase, if any, and starts timing the next one.
+   */
+  public synchronized void startPhase(String name) {
+    finishPhase();
+    current = new Phase(name, System.currentTimeMillis(), System.nanoTime());
+    phases.add(current);
+  }
+
+  public synchronized void finishPhase() {
+    if (current != null) {
+      current.durationNanos = System.nanoTime() - current.startNanos;
+      current = null;
+    }
+  }
+
+  /**
+   * Records the files and bytes produced by the current phase.
+   */
+  public synchronized void setOutput(long files, long bytes) {
+    if (current != null) {
+      current.files = files;
+      current.bytes = bytes;
+    }
+  }
+
+  /**
+   * Adds the wall time of a Cloud SDK process to the current phase.
+   */
+  public synchronized void addProcessTime(long nanos) {
+    if (current != null) {
+      current.processNanos += nanos;
+    }
+  }
+
+  public synchronized List<Phase> getPhases() {
+    return Collections.unmodifiableList(new ArrayList<>(phases));
+  }
+
+  /**
+   * @return the lines of a table with a row for every finished phase, for the deploy console
+   */
+  public synchronized List<String> formatTable() {
+    List<String> lines = new ArrayList<>();
+    lines.add(String.format(TABLE_ROW_FORMAT,
+                            Messages.getString("deploy.metrics.phase"),
+                            Messages.getString("deploy.metrics.time"),
+                            Messages.getString("deploy.metrics.process.time"),
+                            Messages.getString("deploy.metrics.files"),
+                            Messages.getString("deploy.metrics.bytes"),
+                            Messages.getString("deploy.metrics.throughput")));
+    long totalNanos = 0;
+    for (Phase phase : phases) {
+      if (phase.durationNanos < 0) {
+        continue;
+      }
+      totalNanos += phase.durationNanos;
+      String throughput = NOT_AVAILABLE;
+      if (phase.bytes != UNKNOWN && phase.durationNanos > 0) {
+        throughput = formatBytes(phase.bytes * TimeUnit.SECONDS.toNanos(1) / phase.durationNanos)
+            + "/s"; //$NON-NLS-1$
+      }
+      lines.add(String.format(TABLE_ROW_FORMAT,
+                              phase.name,
+                              formatDuration(phase.durationNanos),
+                              phase.processNanos > 0 ? formatDuration(phase.processNanos) : NOT_AVAILABLE,
+                              phase.files == UNKNOWN ? NOT_AVAILABLE : Long.toString(phase.files),
+                              phase.bytes == UNKNOWN ? NOT_AVAILABLE : formatBytes(phase.bytes),
+                              throughput));
+    }
+    lines.add(String.format(TABLE_ROW_FORMAT, Messages.getString("deploy.metrics.total"),
+                            formatDuration(totalNanos), "", "", "", "")); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$ //$NON-NLS-4$
+    return lines;
+  }
+
+  @VisibleForTesting
+  static String formatDuration(long nanos) {
+    return String.format(Locale.ROOT, "%.1f s", nanos / 1e9); //$NON-NLS-1$
+  }
+
+  @VisibleForTesting
+  static String formatBytes(long bytes) {
+    if (bytes < 1024) {
+      return bytes + " B"; //$NON-NLS-1$
+    } else if (bytes < 1024 * 1024) {
+      return String.format(Locale.ROOT, "%.1f KB", bytes / 1024.0); //$NON-NLS-1$
+    } else if (bytes < 1024L * 1024 * 1024) {
+      return String.format(Locale.ROOT, "%.1f MB", bytes / (1024.0 * 1024)); //$NON-NLS-1$
+    }
+    return String.format(Locale.ROOT, "%.1f GB", bytes / (1024.0 * 1024 * 1024)); //$NON-NLS-1$
+  }
+}
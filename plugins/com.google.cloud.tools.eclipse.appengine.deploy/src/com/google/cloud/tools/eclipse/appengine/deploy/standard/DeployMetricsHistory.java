@@ -0,0 +1,137 @@
+/*
+ * Copyright 2016 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.cloud.tools.eclipse.appengine.deploy.standard;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.base.Charsets;
+import com.google.common.base.Joiner;
+
+/**
+ * Keeps the {@link DeployMetrics} of past deploys in a tab separated file, one line per phase,
+ * so that trends across deploys can be seen. Only the most recent lines are kept.
+ * <p>
+ * Deploy jobs that run at the same time share the history of a file through
+ * {@link #forFile(File)}, which serializes their updates. Updates also hold a lock on a sibling
+ * <code>.lock</code> file, so that other processes cannot interleave their updates either.
+ */
+final class DeployMetricsHistory {
+
+  static final String HEADER =
+      "#start\tproject\tresult\tphase\tmillis\tprocessMillis\tfiles\tbytes"; //$NON-NLS-1$
+  private static final int MAXIMUM_RECORDS = 5000;
+
+  private static final Map<File, DeployMetricsHistory> histories = new HashMap<>();
+
+  private final File file;
+  private final File lockFile;
+  private final int maximumRecords;
+
+  @VisibleForTesting
+  DeployMetricsHistory(File file) {
+    this(file, MAXIMUM_RECORDS);
+  }
+
+  @VisibleForTesting
+  DeployMetricsHistory(File file, int maximumRecords) {
+    this.file = file;
+    this.lockFile = new File(file.getPath() + ".lock"); //$NON-NLS-1$
+    this.maximumRecords = maximumRecords;
+  }
+
+  /**
+   * @return the history kept in <code>file</code>, the same instance for every caller
+   */
+  static DeployMetricsHistory forFile(File file) {
+    File key = file.getAbsoluteFile();
+    synchronized (histories) {
+      DeployMetricsHistory history = histories.get(key);
+      if (history == null) {
+        history = new DeployMetricsHistory(key);
+        histories.put(key, history);
+      }
+      return history;
+    }
+  }
+
+  /**
+   * Appends the finished phases of a deploy, and drops the oldest records if there are too many.
+   *
+   * @param result how the deploy ended, e.g. <code>OK</code>
+   */
+  synchronized void append(String projectName, String result, DeployMetrics metrics)
+      throws IOException {
+    List<String> lines = new ArrayList<>();
+    for (DeployMetrics.Phase phase : metrics.getPhases()) {
+      lines.add(Joiner.on('\t').join(phase.getStartTime(), projectName.replace('\t', ' '), result, phase.getName(),
+                                     phase.getDurationMillis(), phase.getProcessMillis(),
+                                     phase.getFiles(), phase.getBytes()));
+    }
+
+    file.getParentFile().mkdirs();
+    try (FileChannel lockChannel = FileChannel.open(lockFile.toPath(),
+             StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+         FileLock lock = lockChannel.lock()) {
+      appendOrTrim(lines);
+    }
+  }
+
+  private void appendOrTrim(List<String> lines) throws IOException {
+    List<String> records = readRecords();
+    if (records.size() + lines.size() <= maximumRecords) {
+      if (records.isEmpty()) {
+        lines.add(0, HEADER);
+      }
+      Files.write(file.toPath(), lines, Charsets.UTF_8,
+                  StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+    } else {
+      records.addAll(lines);
+      List<String> kept = new ArrayList<>();
+      kept.add(HEADER);
+      kept.addAll(records.subList(Math.max(0, records.size() - maximumRecords), records.size()));
+      File temporaryFile = new File(file.getPath() + ".tmp"); //$NON-NLS-1$
+      Files.write(temporaryFile.toPath(), kept, Charsets.UTF_8);
+      Files.move(temporaryFile.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+    }
+  }
+
+  /**
+   * @return the saved records, oldest first, without the header
+   */
+  synchronized List<String> readRecords() throws IOException {
+    List<String> records = new ArrayList<>();
+    if (file.exists()) {
+      for (String line : Files.readAllLines(file.toPath(), Charsets.UTF_8)) {
+        if (!line.isEmpty() && !line.startsWith("#")) { //$NON-NLS-1$
+          records.add(line);
+        }
+      }
+    }
+    return records;
+  }
+}
@@ -0,0 +1,111 @@
+/*
+ * Copyright 2016 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.cloud.tools.eclipse.appengine.deploy.standard;
+
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+import org.eclipse.core.runtime.IProgressMonitor;
+import org.eclipse.core.runtime.OperationCanceledException;
+import org.eclipse.core.runtime.Platform;
+import org.eclipse.core.runtime.preferences.IPreferencesService;
+
+import com.google.common.base.Preconditions;
+
+/**
+ * Limits how many of the {@link StandardDeployJob}s deploying several projects together export and
+ * stage at the same time, and separately, how many of them upload at the same time.
+ * <p>
+ * The limits can be set with the <code>deploy.concurrent.preparations</code> and
+ * <code>deploy.concurrent.uploads</code> preferences of this bundle, e.g. in
+ * <code>plugin_customization.ini</code>.
+ */
+public class DeployThrottle {
+
+  static final String PREF_CONCURRENT_PREPARATIONS = "deploy.concurrent.preparations"; //$NON-NLS-1$
+  static final String PREF_CONCURRENT_UPLOADS = "deploy.concurrent.uploads"; //$NON-NLS-1$
+
+  static final int DEFAULT_CONCURRENT_PREPARATIONS =
+      Math.min(4, Runtime.getRuntime().availableProcessors());
+  static final int DEFAULT_CONCURRENT_UPLOADS = 2;
+
+  // how often a waiting job checks whether it was canceled
+  private static final long CANCELATION_CHECK_MILLIS = 100;
+
+  private final Semaphore preparations;
+  private final Semaphore uploads;
+
+  public DeployThrottle(int maximumPreparations, int maximumUploads) {
+    Preconditions.checkArgument(maximumPreparations > 0, "maximumPreparations must be positive");
+    Preconditions.checkArgument(maximumUploads > 0, "maximumUploads must be positive");
+    preparations = new Semaphore(maximumPreparations, true /* fair */);
+    uploads = new Semaphore(maximumUploads, true /* fair */);
+  }
+
+  /**
+   * @return a throttle with the limits set in the preferences of this bundle
+   */
+  public static DeployThrottle fromPreferences() {
+    IPreferencesService preferences = Platform.getPreferencesService();
+    int maximumPreparations = preferences.getInt(StandardDeployPreferences.PREFERENCE_STORE_QUALIFIER,
+                                                 PREF_CONCURRENT_PREPARATIONS,
+                                                 DEFAULT_CONCURRENT_PREPARATIONS, null);
+    int maximumUploads = preferences.getInt(StandardDeployPreferences.PREFERENCE_STORE_QUALIFIER,
+                                            PREF_CONCURRENT_UPLOADS,
+                                            DEFAULT_CONCURRENT_UPLOADS, null);
+    return new DeployThrottle(Math.max(1, maximumPreparations), Math.max(1, maximumUploads));
+  }
+
+  /**
+   * Waits until the export and staging of another project can start.
+   *
+   * @throws OperationCanceledException if <code>monitor</code> is canceled while waiting
+   */
+  public void acquirePreparation(IProgressMonitor monitor) {
+    acquire(preparations, monitor);
+  }
+
+  public void releasePreparation() {
+    preparations.release();
+  }
+
+  /**
+   * Waits until the upload of another project can start.
+   *
+   * @throws OperationCanceledException if <code>monitor</code> is canceled while waiting
+   */
+  public void acquireUpload(IProgressMonitor monitor) {
+    acquire(uploads, monitor);
+  }
+
+  public void releaseUpload() {
+    uploads.release();
+  }
+
+  private static void acquire(Semaphore semaphore, IProgressMonitor monitor) {
+    try {
+      while (!semaphore.tryAcquire(CANCELATION_CHECK_MILLIS, TimeUnit.MILLISECONDS)) {
+        if (monitor.isCanceled()) {
+          throw new OperationCanceledException();
+        }
+      }
+    } catch (InterruptedException ex) {
+      Thread.currentThread().interrupt();
+      throw new OperationCanceledException();
+    }
+  }
+}
@@ -0,0 +1,200 @@
+/*
+ * Copyright 2016 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.cloud.tools.eclipse.appengine.deploy.standard;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.StandardCopyOption;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+
+import com.google.common.base.Charsets;
+
+/**
+ * The content hash, size and modification time of the source of every file in an exploded WAR
+ * directory, as of the last time it was published. Saved next to the directory as a text file
+ * with one line per file, so that the next publish can tell which files did not change without
+ * reading them.
+ * <p>
+ * The manifest also records whether the publish that saved it completed. Only the exploded WAR of
+ * a completed publish is used to seed the work directory of a later deploy.
+ */
+final class ExplodedWarManifest {
+
+  private static final String HEADER = "exploded-war-manifest 2"; //$NON-NLS-1$
+  private static final String COMPLETE = "complete"; //$NON-NLS-1$
+  private static final String INCOMPLETE = "incomplete"; //$NON-NLS-1$
+
+  /**
+   * A published file, as described by its source.
+   */
+  static final class Entry {
+    private final String hash;
+    private final long size;
+    private final long lastModified;
+
+    Entry(String hash, long size, long lastModified) {
+      this.hash = hash;
+      this.size = size;
+      this.lastModified = lastModified;
+    }
+
+    String getHash() {
+      return hash;
+    }
+
+    long getSize() {
+      return size;
+    }
+
+    long getLastModified() {
+      return lastModified;
+    }
+
+    /**
+     * @return true if <code>source</code> has the size and modification time of this entry, so
+     *     its content is assumed to be unchanged
+     */
+    boolean matchesMetadataOf(File source) {
+      return size == source.length() && lastModified == source.lastModified();
+    }
+  }
+
+  // by path relative to the exploded WAR directory, using '/' as separator
+  private final Map<String, Entry> entries;
+  private final boolean loaded;
+  private boolean complete;
+
+  ExplodedWarManifest() {
+    this(new HashMap<String, Entry>(), false, false);
+  }
+
+  private ExplodedWarManifest(Map<String, Entry> entries, boolean loaded, boolean complete) {
+    this.entries = entries;
+    this.loaded = loaded;
+    this.complete = complete;
+  }
+
+  /**
+   * @return the manifest saved in <code>file</code>, or an empty manifest if it does not exist or
+   *     is not in the expected format
+   */
+  static ExplodedWarManifest load(File file) throws IOException {
+    Map<String, Entry> entries = new HashMap<>();
+    boolean complete;
+    try (BufferedReader reader = Files.newBufferedReader(file.toPath(), Charsets.UTF_8)) {
+      if (!HEADER.equals(reader.readLine())) {
+        return new ExplodedWarManifest();
+      }
+      String status = reader.readLine();
+      if (!COMPLETE.equals(status) && !INCOMPLETE.equals(status)) {
+        return new ExplodedWarManifest();
+      }
+      complete = COMPLETE.equals(status);
+      String line;
+      while ((line = reader.readLine()) != null) {
+        // <hash> <size> <last modified> <path>, the path may contain spaces
+        String[] fields = line.split(" ", 4); //$NON-NLS-1$
+        if (fields.length != 4) {
+          return new ExplodedWarManifest();
+        }
+        entries.put(fields[3], new Entry(fields[0], Long.parseLong(fields[1]),
+                                         Long.parseLong(fields[2])));
+      }
+    } catch (NoSuchFileException ex) {
+      return new ExplodedWarManifest();
+    } catch (NumberFormatException ex) {
+      return new ExplodedWarManifest();
+    }
+    return new ExplodedWarManifest(entries, true, complete);
+  }
+
+  /**
+   * Reads only the beginning of <code>file</code>.
+   *
+   * @return true if <code>file</code> is a manifest saved by a completed publish
+   */
+  static boolean isComplete(File file) throws IOException {
+    try (BufferedReader reader = Files.newBufferedReader(file.toPath(), Charsets.UTF_8)) {
+      return HEADER.equals(reader.readLine()) && COMPLETE.equals(reader.readLine());
+    } catch (NoSuchFileException ex) {
+      return false;
+    }
+  }
+
+  /**
+   * Writes this manifest to a temporary file first, so that an interrupted save does not leave a
+   * truncated manifest behind.
+   */
+  void save(File file) throws IOException {
+    File temporaryFile = new File(file.getPath() + ".tmp"); //$NON-NLS-1$
+    try (BufferedWriter writer = Files.newBufferedWriter(temporaryFile.toPath(), Charsets.UTF_8)) {
+      writer.write(HEADER);
+      writer.newLine();
+      writer.write(complete ? COMPLETE : INCOMPLETE);
+      writer.newLine();
+      for (Map.Entry<String, Entry> entry : entries.entrySet()) {
+        Entry value = entry.getValue();
+        writer.write(value.hash + ' ' + value.size + ' ' + value.lastModified + ' '
+            + entry.getKey());
+        writer.newLine();
+      }
+    }
+    Files.move(temporaryFile.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+  }
+
+  /**
+   * @return false if this manifest was not read from a file, so the files in the exploded WAR
+   *     directory are not known
+   */
+  boolean isLoaded() {
+    return loaded;
+  }
+
+  /**
+   * @return true if this manifest was saved by a publish that completed
+   */
+  boolean isComplete() {
+    return complete;
+  }
+
+  void setComplete(boolean complete) {
+    this.complete = complete;
+  }
+
+  Entry get(String path) {
+    return entries.get(path);
+  }
+
+  void put(String path, Entry entry) {
+    entries.put(path, entry);
+  }
+
+  void remove(String path) {
+    entries.remove(path);
+  }
+
+  Set<String> getPaths() {
+    return Collections.unmodifiableSet(entries.keySet());
+  }
+}
@@ -16,8 +16,24 @@
 
 package com.google.cloud.tools.eclipse.appengine.deploy.standard;
 
-import com.google.cloud.tools.eclipse.appengine.deploy.Messages;
-import com.google.common.base.Preconditions;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
 
 import org.eclipse.core.resources.IProject;
 import org.eclipse.core.runtime.CoreException;
@@ -27,19 +43,43 @@ import org.eclipse.core.runtime.OperationCanceledException;
 import org.eclipse.core.runtime.SubMonitor;
 import org.eclipse.jst.j2ee.internal.deployables.J2EEFlexProjDeployable;
 import org.eclipse.wst.common.componentcore.ComponentCore;
-import org.eclipse.wst.server.core.util.PublishHelper;
+import org.eclipse.wst.server.core.model.IModuleFile;
+import org.eclipse.wst.server.core.model.IModuleFolder;
+import org.eclipse.wst.server.core.model.IModuleResource;
+
+import com.google.cloud.tools.eclipse.appengine.deploy.Messages;
+import com.google.cloud.tools.eclipse.util.io.ParallelFileCopier;
+import com.google.cloud.tools.eclipse.util.io.ParallelPublishHelper;
+import com.google.cloud.tools.eclipse.util.status.StatusUtil;
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.base.Preconditions;
+import com.google.common.io.BaseEncoding;
+import com.google.common.io.ByteStreams;
 
 /**
  * Writes the exploded WAR file of a project to a staging directory.
+ * <p>
+ * The content hash, size and modification time of every published file are kept in an
+ * {@link ExplodedWarManifest} next to the directory, so publishing to the same directory again
+ * only copies the files whose content changed and deletes the files that were removed from the
+ * WAR. A file whose modification time changed but whose content did not (e.g. after a clean
+ * build) is read to compute its hash, but not copied. The changed files are copied in parallel by
+ * a {@link ParallelFileCopier}. They are never hard linked to their source, since a workspace file
+ * saved in place during a deploy would otherwise change the WAR that is being staged.
  */
 public class ExplodedWarPublisher {
 
+  private static final String MANIFEST_FILE_EXTENSION = ".manifest"; //$NON-NLS-1$
+
   /**
    * It does a smart export, i.e. considers the resources to be copied and
    * if the destination directory already contains resources those will be deleted if they are not part of the
    * exploded WAR.
+   *
+   * @return the number of files and bytes that were copied, skipped because they did not change,
+   *     and deleted
    */
-  public void publish(IProject project, IPath destination, IProgressMonitor monitor) throws CoreException {
+  public PublishResult publish(IProject project, IPath destination, IProgressMonitor monitor) throws CoreException {
     if (monitor.isCanceled()) {
       throw new OperationCanceledException();
     }
@@ -50,8 +90,224 @@ public class ExplodedWarPublisher {
     SubMonitor progress = SubMonitor.convert(monitor, 100);
     progress.setTaskName(Messages.getString("task.name.publish.war"));
 
-    PublishHelper publishHelper = new PublishHelper(null);
     J2EEFlexProjDeployable deployable = new J2EEFlexProjDeployable(project, ComponentCore.createComponent(project));
-    publishHelper.publishSmart(deployable.members(), destination, progress.newChild(100));
+    Map<String, File> files = new LinkedHashMap<>();
+    Set<String> folders = new HashSet<>();
+    collectResources(deployable.members(), files, folders);
+    progress.worked(10);
+
+    return publish(files, folders, destination.toFile(), progress.newChild(90));
+  }
+
+  /**
+   * @param files the source of each file of the WAR, by path relative to the root of the WAR
+   * @param folders the paths of the folders of the WAR, so that empty folders are kept
+   */
+  @VisibleForTesting
+  PublishResult publish(Map<String, File> files, Set<String> folders, File destination,
+                        IProgressMonitor monitor) throws CoreException {
+    SubMonitor progress = SubMonitor.convert(monitor, 10 + 2 * files.size());
+    File manifestFile = getManifestFile(destination);
+    try {
+      ExplodedWarManifest manifest = ExplodedWarManifest.load(manifestFile);
+      PublishResult result = new PublishResult();
+      // the destination changes from here on, it is only complete again once every file is copied
+      manifest.setComplete(false);
+      manifest.save(manifestFile);
+      try {
+        if (manifest.isLoaded()) {
+          deleteRemovedFiles(manifest, files.keySet(), folders, destination, result);
+        } else {
+          deleteUnknownFiles(files.keySet(), folders, destination, result);
+        }
+        progress.worked(10);
+
+        ParallelFileCopier copier = new ParallelFileCopier(false /* useHardLinks */);
+        for (String folder : folders) {
+          copier.createDirectory(new File(destination, folder));
+        }
+        Map<String, ExplodedWarManifest.Entry> copied = new HashMap<>();
+        for (Map.Entry<String, File> file : files.entrySet()) {
+          if (progress.isCanceled()) {
+            throw new OperationCanceledException();
+          }
+          String path = file.getKey();
+          ExplodedWarManifest.Entry entry = getChangedEntry(path, file.getValue(), destination,
+                                                            manifest, result);
+          if (entry != null) {
+            // forget the file while it is copied, so that a failed copy is not taken as published
+            manifest.remove(path);
+            copier.copy(file.getValue(), new File(destination, path));
+            copied.put(path, entry);
+          }
+          progress.worked(1);
+        }
+
+        copier.copyAll(progress.newChild(files.size()));
+        for (Map.Entry<String, ExplodedWarManifest.Entry> entry : copied.entrySet()) {
+          manifest.put(entry.getKey(), entry.getValue());
+          result.copied(entry.getValue().getSize());
+        }
+        manifest.setComplete(true);
+      } finally {
+        // the manifest describes every file published so far, even if publishing did not finish
+        manifest.save(manifestFile);
+      }
+      return result;
+    } catch (IOException ex) {
+      throw new CoreException(StatusUtil.error(this, Messages.getString("publish.war.failed"), ex));
+    }
+  }
+
+  @VisibleForTesting
+  static File getManifestFile(File destination) {
+    return new File(destination.getParentFile(), destination.getName() + MANIFEST_FILE_EXTENSION);
+  }
+
+  private static void collectResources(IModuleResource[] resources, Map<String, File> files,
+                                       Set<String> folders) throws CoreException {
+    for (IModuleResource resource : resources) {
+      String path = resource.getModuleRelativePath().append(resource.getName()).toString();
+      if (resource instanceof IModuleFolder) {
+        folders.add(path);
+        collectResources(((IModuleFolder) resource).members(), files, folders);
+      } else if (resource instanceof IModuleFile) {
+        files.put(path, getSourceFile((IModuleFile) resource, path));
+      }
+    }
+  }
+
+  private static File getSourceFile(IModuleFile moduleFile, String path) throws CoreException {
+    File file = ParallelPublishHelper.getSourceFile(moduleFile);
+    if (file == null) {
+      throw new CoreException(StatusUtil.error(ExplodedWarPublisher.class,
+                                               Messages.getString("publish.war.source.missing", path)));
+    }
+    return file;
+  }
+
+  /**
+   * Checks <code>source</code> against the manifest entry of the published file.
+   *
+   * @return the manifest entry for <code>source</code> if it has to be copied, or
+   *     <code>null</code> if the published file has the same content
+   */
+  private static ExplodedWarManifest.Entry getChangedEntry(String path, File source,
+                                                           File destination,
+                                                           ExplodedWarManifest manifest,
+                                                           PublishResult result)
+      throws IOException {
+    File target = new File(destination, path);
+    ExplodedWarManifest.Entry entry = manifest.get(path);
+    if (entry != null && target.isFile() && target.length() == entry.getSize()
+        && entry.matchesMetadataOf(source)) {
+      result.skipped(entry.getSize());
+      return null;
+    }
+
+    ExplodedWarManifest.Entry current = hash(source);
+    if (entry != null && target.isFile() && target.length() == entry.getSize()
+        && current.getHash().equals(entry.getHash()) && current.getSize() == entry.getSize()) {
+      manifest.put(path, current);
+      result.skipped(current.getSize());
+      return null;
+    }
+    return current;
+  }
+
+  /**
+   * @return the manifest entry for the current content of <code>source</code>
+   */
+  private static ExplodedWarManifest.Entry hash(File source) throws IOException {
+    // taken before the file is read, so that a change while reading is seen by the next publish
+    long lastModified = source.lastModified();
+    MessageDigest digest = newDigest();
+    long size;
+    try (InputStream input = new DigestInputStream(new FileInputStream(source), digest)) {
+      size = ByteStreams.copy(input, ByteStreams.nullOutputStream());
+    }
+    return new ExplodedWarManifest.Entry(BaseEncoding.base16().lowerCase().encode(digest.digest()),
+                                         size, lastModified);
+  }
+
+  private static MessageDigest newDigest() {
+    try {
+      return MessageDigest.getInstance("SHA-1"); //$NON-NLS-1$
+    } catch (NoSuchAlgorithmException ex) {
+      // every Java platform is required to support SHA-1
+      throw new IllegalStateException(ex);
+    }
+  }
+
+  /**
+   * Deletes the published files that are in the manifest but no longer in the WAR.
+   */
+  private static void deleteRemovedFiles(ExplodedWarManifest manifest, Set<String> files,
+                                         Set<String> folders, File destination,
+                                         PublishResult result) throws IOException {
+    for (String path : new ArrayList<>(manifest.getPaths())) {
+      if (!files.contains(path)) {
+        File removed = new File(destination, path);
+        Files.deleteIfExists(removed.toPath());
+        manifest.remove(path);
+        result.deleted();
+        deleteEmptyParents(removed, destination, folders);
+      }
+    }
+  }
+
+  private static void deleteEmptyParents(File file, File destination, Set<String> folders) {
+    Path root = destination.toPath();
+    for (File parent = file.getParentFile(); parent != null && !parent.equals(destination);
+        parent = parent.getParentFile()) {
+      String path = toWarPath(root, parent.toPath());
+      String[] children = parent.list();
+      if (folders.contains(path) || children == null || children.length > 0 || !parent.delete()) {
+        return;
+      }
+    }
+  }
+
+  /**
+   * Deletes the files and empty folders in <code>destination</code> that are not part of the WAR,
+   * when there is no manifest to tell which files were published before.
+   */
+  private static void deleteUnknownFiles(final Set<String> files, final Set<String> folders,
+                                         File destination, final PublishResult result)
+      throws IOException {
+    if (!destination.isDirectory()) {
+      return;
+    }
+    final Path root = destination.toPath();
+    Files.walkFileTree(root, new SimpleFileVisitor<Path>() {
+      @Override
+      public FileVisitResult visitFile(Path file, BasicFileAttributes attributes)
+          throws IOException {
+        if (!files.contains(toWarPath(root, file))) {
+          Files.delete(file);
+          result.deleted();
+        }
+        return FileVisitResult.CONTINUE;
+      }
+
+      @Override
+      public FileVisitResult postVisitDirectory(Path directory, IOException exception)
+          throws IOException {
+        if (exception != null) {
+          throw exception;
+        }
+        if (!directory.equals(root) && !folders.contains(toWarPath(root, directory))) {
+          String[] children = directory.toFile().list();
+          if (children != null && children.length == 0) {
+            Files.delete(directory);
+          }
+        }
+        return FileVisitResult.CONTINUE;
+      }
+    });
+  }
+
+  private static String toWarPath(Path root, Path path) {
+    return root.relativize(path).toString().replace(File.separatorChar, '/');
   }
 }
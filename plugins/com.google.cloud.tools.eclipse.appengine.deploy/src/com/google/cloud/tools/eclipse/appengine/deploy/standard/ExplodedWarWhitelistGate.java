@@ -0,0 +1,143 @@
+/*
+ * Copyright 2016 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.cloud.tools.eclipse.appengine.deploy.standard;
+
+import java.io.File;
+import java.io.FileFilter;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.eclipse.core.runtime.IPath;
+import org.eclipse.core.runtime.IProgressMonitor;
+import org.eclipse.core.runtime.OperationCanceledException;
+import org.eclipse.core.runtime.Platform;
+import org.eclipse.core.runtime.SubMonitor;
+
+import com.google.cloud.tools.eclipse.appengine.deploy.Messages;
+import com.google.cloud.tools.eclipse.appengine.whitelist.AppEngineJreWhitelist;
+import com.google.cloud.tools.eclipse.appengine.whitelist.AppEngineRuntime;
+import com.google.cloud.tools.eclipse.appengine.whitelist.BlacklistedReference;
+import com.google.cloud.tools.eclipse.appengine.whitelist.JarScanResult;
+import com.google.cloud.tools.eclipse.appengine.whitelist.JarWhitelistScanner;
+import com.google.common.annotations.VisibleForTesting;
+
+/**
+ * Checks the classes of an exploded WAR against the App Engine JRE whitelist of the runtime
+ * declared in its <code>appengine-web.xml</code> before it is staged.
+ * App Engine rejects sandbox-violating classes only after the upload, while scanning
+ * <code>WEB-INF/classes</code> and the jars of <code>WEB-INF/lib</code> in parallel takes seconds.
+ * Only references from <code>WEB-INF/classes</code> stop the deploy, since the code of a library
+ * jar that refers to a class outside the whitelist is often never run on App Engine.
+ * <p>
+ * The check is off unless the <code>deploy.whitelistCheck.enabled</code> preference of this bundle
+ * is set to <code>true</code>, e.g. in <code>plugin_customization.ini</code>.
+ */
+public class ExplodedWarWhitelistGate {
+
+  static final String PREF_WHITELIST_CHECK_ENABLED = "deploy.whitelistCheck.enabled"; //$NON-NLS-1$
+  static final boolean DEFAULT_WHITELIST_CHECK_ENABLED = false;
+
+  /** The location of the application classes, relative to the exploded WAR. */
+  public static final String CLASSES_LOCATION = "WEB-INF/classes"; //$NON-NLS-1$
+
+  // null to use the shared scanner of the runtime of the checked WAR, set by tests
+  private final JarWhitelistScanner scanner;
+
+  public ExplodedWarWhitelistGate() {
+    this(null);
+  }
+
+  @VisibleForTesting
+  ExplodedWarWhitelistGate(JarWhitelistScanner scanner) {
+    this.scanner = scanner;
+  }
+
+  /**
+   * @return a gate if the check is enabled in the preferences of this bundle, <code>null</code>
+   *     otherwise
+   */
+  public static ExplodedWarWhitelistGate fromPreferences() {
+    boolean enabled = Platform.getPreferencesService().getBoolean(
+        StandardDeployPreferences.PREFERENCE_STORE_QUALIFIER, PREF_WHITELIST_CHECK_ENABLED,
+        DEFAULT_WHITELIST_CHECK_ENABLED, null);
+    return enabled ? new ExplodedWarWhitelistGate() : null;
+  }
+
+  /**
+   * @param location a key of the map returned by {@link #check}
+   * @return true if references found in <code>location</code> must stop the deploy, false if they
+   *     are only reported as warnings
+   */
+  public static boolean isBlocking(String location) {
+    return CLASSES_LOCATION.equals(location);
+  }
+
+  /**
+   * @param explodedWarDirectory the exploded WAR to check
+   * @return the references to classes that are not on the whitelist, by path of the class folder
+   *     or jar relative to <code>explodedWarDirectory</code>; empty if none were found
+   */
+  public Map<String, List<BlacklistedReference>> check(IPath explodedWarDirectory,
+                                                       IProgressMonitor monitor) {
+    if (monitor.isCanceled()) {
+      throw new OperationCanceledException();
+    }
+
+    SubMonitor progress = SubMonitor.convert(monitor, 1);
+    progress.setTaskName(Messages.getString("task.name.check.whitelist")); //$NON-NLS-1$
+
+    File explodedWar = explodedWarDirectory.toFile();
+    Map<String, List<BlacklistedReference>> violations = new LinkedHashMap<>();
+    AppEngineJreWhitelist whitelist =
+        AppEngineJreWhitelist.forRuntime(AppEngineRuntime.fromExplodedWar(explodedWar));
+    if (!whitelist.isRestricted()) {
+      return violations;
+    }
+    JarWhitelistScanner scanner =
+        this.scanner != null ? this.scanner : JarWhitelistScanner.getWorkspaceScanner(whitelist);
+
+    File webInf = new File(explodedWar, "WEB-INF");
+    List<File> locations = new ArrayList<>();
+    File classes = new File(explodedWar, CLASSES_LOCATION);
+    if (classes.isDirectory()) {
+      locations.add(classes);
+    }
+    File[] jars = new File(webInf, "lib").listFiles(new FileFilter() {
+      @Override
+      public boolean accept(File file) {
+        return file.isFile() && file.getName().endsWith(".jar");
+      }
+    });
+    if (jars != null) {
+      Arrays.sort(jars);
+      locations.addAll(Arrays.asList(jars));
+    }
+
+    for (Map.Entry<File, JarScanResult> result
+        : scanner.scan(locations, progress.newChild(1)).entrySet()) {
+      if (!result.getValue().isClean()) {
+        String location = explodedWar.toPath().relativize(result.getKey().toPath()).toString();
+        violations.put(location.replace(File.separatorChar, '/'),
+                       result.getValue().getBlacklistedReferences());
+      }
+    }
+    return violations;
+  }
+}
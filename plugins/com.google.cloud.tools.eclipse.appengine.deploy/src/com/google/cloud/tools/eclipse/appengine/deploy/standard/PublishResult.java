@@ -0,0 +1,73 @@
+/*
+ * Copyright 2016 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.cloud.tools.eclipse.appengine.deploy.standard;
+
+/**
+ * Describes the work done by {@link ExplodedWarPublisher#publish}.
+ */
+public class PublishResult {
+
+  private int filesCopied;
+  private long bytesCopied;
+  private int filesSkipped;
+  private long bytesSkipped;
+  private int filesDeleted;
+
+  void copied(long bytes) {
+    filesCopied++;
+    bytesCopied += bytes;
+  }
+
+  void skipped(long bytes) {
+    filesSkipped++;
+    bytesSkipped += bytes;
+  }
+
+  void deleted() {
+    filesDeleted++;
+  }
+
+  /**
+   * @return the number of files that were copied because they are new or their content changed
+   */
+  public int getFilesCopied() {
+    return filesCopied;
+  }
+
+  public long getBytesCopied() {
+    return bytesCopied;
+  }
+
+  /**
+   * @return the number of files that were not copied because their content did not change since
+   *     the last publish
+   */
+  public int getFilesSkipped() {
+    return filesSkipped;
+  }
+
+  public long getBytesSkipped() {
+    return bytesSkipped;
+  }
+
+  /**
+   * @return the number of files that were deleted because they are no longer part of the WAR
+   */
+  public int getFilesDeleted() {
+    return filesDeleted;
+  }
+}
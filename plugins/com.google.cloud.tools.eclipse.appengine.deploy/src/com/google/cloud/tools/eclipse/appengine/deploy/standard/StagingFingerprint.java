@@ -0,0 +1,132 @@
+/*
+ * Copyright 2016 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.cloud.tools.eclipse.appengine.deploy.standard;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.StandardCopyOption;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+
+import com.google.common.base.Charsets;
+
+/**
+ * Describes the input of a staging operation: the staging options and the content hash of every
+ * file of the exploded WAR, as recorded in its {@link ExplodedWarManifest}. Saved next to the
+ * staging directory after staging succeeds, so that the next staging operation can tell whether
+ * the staging output is still up to date, and which files of the exploded WAR changed.
+ */
+final class StagingFingerprint {
+
+  private static final String HEADER = "staging-fingerprint 1"; //$NON-NLS-1$
+
+  private final String options;
+  // content hashes by path relative to the exploded WAR directory
+  private final Map<String, String> hashes;
+
+  private StagingFingerprint(String options, Map<String, String> hashes) {
+    this.options = options;
+    this.hashes = hashes;
+  }
+
+  /**
+   * @param options the staging options, in a form that changes whenever an option changes
+   * @return the fingerprint of staging <code>explodedWar</code> with <code>options</code>, or
+   *     <code>null</code> if the exploded WAR has no manifest
+   */
+  static StagingFingerprint of(File explodedWar, String options) throws IOException {
+    ExplodedWarManifest manifest =
+        ExplodedWarManifest.load(ExplodedWarPublisher.getManifestFile(explodedWar));
+    if (!manifest.isLoaded()) {
+      return null;
+    }
+    Map<String, String> hashes = new TreeMap<>();
+    for (String path : manifest.getPaths()) {
+      hashes.put(path, manifest.get(path).getHash());
+    }
+    return new StagingFingerprint(options, hashes);
+  }
+
+  /**
+   * @return the fingerprint saved in <code>file</code>, or <code>null</code> if it does not exist
+   *     or is not in the expected format
+   */
+  static StagingFingerprint load(File file) throws IOException {
+    try (BufferedReader reader = Files.newBufferedReader(file.toPath(), Charsets.UTF_8)) {
+      String options;
+      if (!HEADER.equals(reader.readLine()) || (options = reader.readLine()) == null) {
+        return null;
+      }
+      Map<String, String> hashes = new TreeMap<>();
+      String line;
+      while ((line = reader.readLine()) != null) {
+        // <hash> <path>, the path may contain spaces
+        int separator = line.indexOf(' ');
+        if (separator < 0) {
+          return null;
+        }
+        hashes.put(line.substring(separator + 1), line.substring(0, separator));
+      }
+      return new StagingFingerprint(options, hashes);
+    } catch (NoSuchFileException ex) {
+      return null;
+    }
+  }
+
+  void save(File file) throws IOException {
+    File temporaryFile = new File(file.getPath() + ".tmp"); //$NON-NLS-1$
+    try (BufferedWriter writer = Files.newBufferedWriter(temporaryFile.toPath(), Charsets.UTF_8)) {
+      writer.write(HEADER);
+      writer.newLine();
+      writer.write(options);
+      writer.newLine();
+      for (Map.Entry<String, String> entry : hashes.entrySet()) {
+        writer.write(entry.getValue() + ' ' + entry.getKey());
+        writer.newLine();
+      }
+    }
+    Files.move(temporaryFile.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+  }
+
+  boolean hasSameOptions(StagingFingerprint other) {
+    return options.equals(other.options);
+  }
+
+  /**
+   * @return the paths of the files that were added, changed or removed since <code>previous</code>
+   */
+  Set<String> getChangedPaths(StagingFingerprint previous) {
+    Set<String> changed = new HashSet<>();
+    for (Map.Entry<String, String> entry : hashes.entrySet()) {
+      if (!entry.getValue().equals(previous.hashes.get(entry.getKey()))) {
+        changed.add(entry.getKey());
+      }
+    }
+    for (String path : previous.hashes.keySet()) {
+      if (!hashes.containsKey(path)) {
+        changed.add(path);
+      }
+    }
+    return changed;
+  }
+}
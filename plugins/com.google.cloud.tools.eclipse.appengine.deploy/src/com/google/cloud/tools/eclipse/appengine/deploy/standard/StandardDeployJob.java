@@ -17,8 +17,14 @@
 package com.google.cloud.tools.eclipse.appengine.deploy.standard;
 
 import java.io.IOException;
+import java.nio.file.FileVisitResult;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
@@ -27,16 +33,20 @@ import org.eclipse.core.runtime.CoreException;
 import org.eclipse.core.runtime.IPath;
 import org.eclipse.core.runtime.IProgressMonitor;
 import org.eclipse.core.runtime.IStatus;
+import org.eclipse.core.runtime.OperationCanceledException;
+import org.eclipse.core.runtime.Platform;
 import org.eclipse.core.runtime.Status;
 import org.eclipse.core.runtime.SubMonitor;
 
 import com.google.api.client.auth.oauth2.Credential;
 import com.google.cloud.tools.appengine.cloudsdk.CloudSdk;
+import com.google.cloud.tools.appengine.cloudsdk.process.ProcessOutputLineListener;
 import com.google.cloud.tools.appengine.cloudsdk.process.ProcessExitListener;
 import com.google.cloud.tools.appengine.cloudsdk.process.ProcessStartListener;
 import com.google.cloud.tools.eclipse.appengine.deploy.AppEngineProjectDeployer;
 import com.google.cloud.tools.eclipse.appengine.deploy.Messages;
 import com.google.cloud.tools.eclipse.appengine.login.CredentialHelper;
+import com.google.cloud.tools.eclipse.appengine.whitelist.BlacklistedReference;
 import com.google.cloud.tools.eclipse.util.CloudToolsInfo;
 import com.google.cloud.tools.eclipse.util.status.StatusUtil;
 import com.google.common.base.Charsets;
@@ -48,33 +58,59 @@ import com.google.common.base.Preconditions;
  * Deploy steps:
  * <ol>
  *  <li>export exploded WAR</li>
+ *  <li>optionally, check the exploded WAR against the App Engine JRE whitelist</li>
  *  <li>stage project for deploy</li>
  *  <li>deploy staged project</li>
  * </ol>
  * It uses a work directory where it will create separate directories for the exploded WAR and the
- * staging results.
+ * staging results. If the work directory of an earlier deploy is set in the configuration, the
+ * new work directory is first seeded from it by a {@link WorkDirectorySeeder}.
+ * <p>
+ * Each step is timed by {@link DeployMetrics}. At the end of the deploy a summary table is printed
+ * to the standard output listener of the job, and the metrics are added to a
+ * {@link DeployMetricsHistory} in the state location of this bundle.
+ * <p>
+ * When several projects are deployed together by a {@link StandardDeployQueue}, a
+ * {@link DeployThrottle} limits how many jobs export and stage, and how many upload, at the same
+ * time.
  */
 public class StandardDeployJob extends WorkspaceJob {
 
-  private static final String STAGING_DIRECTORY_NAME = "staging";
-  private static final String EXPLODED_WAR_DIRECTORY_NAME = "exploded-war";
-  private static final String CREDENTIAL_FILENAME = "gcloud-credentials.json";
+  static final String STAGING_DIRECTORY_NAME = "staging";
+  static final String EXPLODED_WAR_DIRECTORY_NAME = "exploded-war";
+  static final String CREDENTIAL_FILENAME = "gcloud-credentials.json";
+  private static final String METRICS_HISTORY_FILENAME = "deploy-metrics.tsv";
 
   private static final Logger logger = Logger.getLogger(StandardDeployJob.class.getName());
 
   private final ExplodedWarPublisher exporter;
   private final StandardProjectStaging staging;
+  private final ExplodedWarWhitelistGate whitelistGate;
   private AppEngineProjectDeployer deployer;
+  private final DeployMetricsHistory metricsHistory;
+  private final DeployThrottle throttle;
   
   //temporary way of error handling, after #439 is fixed, it'll be cleaner
   private IStatus cloudSdkProcessStatus = Status.OK_STATUS;
   private Process process;
+  private volatile DeployMetrics metrics;
+  private long processStartNanos;
 
   private StandardDeployJobConfig config;
 
+  /**
+   * @param whitelistGate checks the exploded WAR before staging, or <code>null</code> to skip the
+   *     check
+   * @param metricsHistory keeps the metrics of every deploy, or <code>null</code> to only print
+   *     them
+   * @param throttle limits concurrent deploys, or <code>null</code> to not wait for other deploys
+   */
   StandardDeployJob(ExplodedWarPublisher exporter,
+                           ExplodedWarWhitelistGate whitelistGate,
                            StandardProjectStaging staging,
                            AppEngineProjectDeployer deployer,
+                           DeployMetricsHistory metricsHistory,
+                           DeployThrottle throttle,
                            StandardDeployJobConfig config) {
     super(Messages.getString("deploy.standard.runnable.name")); //$NON-NLS-1$
 
@@ -84,29 +120,93 @@ public class StandardDeployJob extends WorkspaceJob {
     Preconditions.checkNotNull(config, "config is null");
 
     this.exporter = exporter;
+    this.whitelistGate = whitelistGate;
     this.staging = staging;
     this.deployer = deployer;
+    this.metricsHistory = metricsHistory;
+    this.throttle = throttle;
     this.config = config;
   }
 
   @Override
   public IStatus runInWorkspace(IProgressMonitor monitor) throws CoreException {
+    metrics = new DeployMetrics();
+    IStatus status = null;
+    try {
+      status = deploy(monitor);
+      return status;
+    } catch (OperationCanceledException exception) {
+      status = Status.CANCEL_STATUS;
+      throw exception;
+    } finally {
+      metrics.finishPhase();
+      reportMetrics(status);
+    }
+  }
+
+  private IStatus deploy(IProgressMonitor monitor) throws CoreException {
     SubMonitor progress = SubMonitor.convert(monitor, 100);
     Path credentialFile = null;
+    boolean sharedCredentialFile = config.getCredentialFile() != null;
     try {
       IPath workDirectory = config.getWorkDirectory();
       IPath explodedWarDirectory = workDirectory.append(EXPLODED_WAR_DIRECTORY_NAME);
       IPath stagingDirectory = workDirectory.append(STAGING_DIRECTORY_NAME);
-      credentialFile = workDirectory.append(CREDENTIAL_FILENAME).toFile().toPath();
-      saveCredential(credentialFile, config.getCredential());
+      if (sharedCredentialFile) {
+        credentialFile = config.getCredentialFile().toFile().toPath();
+      } else {
+        credentialFile = workDirectory.append(CREDENTIAL_FILENAME).toFile().toPath();
+        saveCredential(credentialFile, config.getCredential());
+      }
       CloudSdk cloudSdk = getCloudSdk(credentialFile);
 
+      if (throttle != null) {
+        throttle.acquirePreparation(progress);
+      }
       try {
         getJobManager().beginRule(config.getProject(), progress);
-        exporter.publish(config.getProject(), explodedWarDirectory, progress.newChild(10));
+        if (config.getPreviousWorkDirectory() != null && !explodedWarDirectory.toFile().exists()) {
+          metrics.startPhase(DeployMetrics.SEED);
+          seedWorkDirectory(config.getPreviousWorkDirectory(), workDirectory, progress.newChild(5));
+        }
+        metrics.startPhase(DeployMetrics.EXPORT);
+        PublishResult publishResult =
+            exporter.publish(config.getProject(), explodedWarDirectory, progress.newChild(10));
+        metrics.setOutput(publishResult.getFilesCopied() + publishResult.getFilesSkipped(),
+                          publishResult.getBytesCopied() + publishResult.getBytesSkipped());
+        reportPublishResult(publishResult);
+        if (whitelistGate != null) {
+          metrics.startPhase(DeployMetrics.WHITELIST_CHECK);
+          Map<String, List<BlacklistedReference>> violations = new LinkedHashMap<>();
+          Map<String, List<BlacklistedReference>> warnings = new LinkedHashMap<>();
+          for (Map.Entry<String, List<BlacklistedReference>> entry
+              : whitelistGate.check(explodedWarDirectory, progress.newChild(5)).entrySet()) {
+            if (ExplodedWarWhitelistGate.isBlocking(entry.getKey())) {
+              violations.put(entry.getKey(), entry.getValue());
+            } else {
+              warnings.put(entry.getKey(), entry.getValue());
+            }
+          }
+          if (!warnings.isEmpty()) {
+            reportWhitelistReferences(config.getStdoutLineListener(),
+                                      Messages.getString("whitelist.check.warning.header"),
+                                      warnings);
+          }
+          if (!violations.isEmpty()) {
+            reportWhitelistReferences(config.getStderrLineListener(),
+                                      Messages.getString("whitelist.check.report.header"),
+                                      violations);
+            return StatusUtil.error(getClass(), Messages.getString("whitelist.check.failed"));
+          }
+        }
+        metrics.startPhase(DeployMetrics.STAGING);
         staging.stage(explodedWarDirectory, stagingDirectory, cloudSdk, progress.newChild(20));
+        recordStagingOutput(stagingDirectory.toFile().toPath());
       } finally {
         getJobManager().endRule(config.getProject());
+        if (throttle != null) {
+          throttle.releasePreparation();
+        }
       }
 
       if (!cloudSdkProcessStatus.isOK()) {
@@ -116,7 +216,20 @@ public class StandardDeployJob extends WorkspaceJob {
         // temporary way of error handling, after #439 is fixed, it'll be cleaner
         return StatusUtil.error(getClass(), "Staging failed, check the error message in the Console View");
       }
-      deployer.deploy(stagingDirectory, cloudSdk, config.getDeployConfiguration(), progress.newChild(70));
+      staging.saveFingerprint(explodedWarDirectory, stagingDirectory, cloudSdk);
+      if (throttle != null) {
+        metrics.startPhase(DeployMetrics.WAITING_FOR_UPLOAD);
+        throttle.acquireUpload(progress);
+      }
+      try {
+        metrics.startPhase(DeployMetrics.UPLOAD);
+        deployer.deploy(stagingDirectory, cloudSdk, config.getDeployConfiguration(),
+                        progress.newChild(60));
+      } finally {
+        if (throttle != null) {
+          throttle.releaseUpload();
+        }
+      }
       if (!cloudSdkProcessStatus.isOK() && cloudSdkProcessStatus != Status.CANCEL_STATUS) {
         // temporary way of error handling, after #439 is fixed, it'll be cleaner
         return StatusUtil.error(getClass(), "Deploy failed, check the error message in the Console View");
@@ -128,7 +241,7 @@ public class StandardDeployJob extends WorkspaceJob {
                                                Messages.getString("save.credential.failed"),
                                                exception));
     } finally {
-      if (credentialFile != null) {
+      if (credentialFile != null && !sharedCredentialFile) {
         try {
           Files.delete(credentialFile);
         } catch (IOException exception) {
@@ -140,6 +253,10 @@ public class StandardDeployJob extends WorkspaceJob {
   }
 
 
+  String getProjectName() {
+    return config.getProject().getName();
+  }
+
   @Override
   protected void canceling() {
     cloudSdkProcessStatus = Status.CANCEL_STATUS;
@@ -149,7 +266,95 @@ public class StandardDeployJob extends WorkspaceJob {
     super.canceling();
   }
 
-  private void saveCredential(Path destination, Credential credential) throws IOException {
+  private void reportPublishResult(PublishResult result) {
+    String report = Messages.getString("publish.war.result",
+                                       result.getFilesCopied(), result.getBytesCopied(),
+                                       result.getFilesSkipped(), result.getBytesSkipped(),
+                                       result.getFilesDeleted());
+    logger.log(Level.FINE, report);
+    ProcessOutputLineListener listener = config.getStdoutLineListener();
+    if (listener != null) {
+      listener.onOutputLine(report);
+    }
+  }
+
+  private void seedWorkDirectory(IPath previousWorkDirectory, IPath workDirectory,
+                                 IProgressMonitor monitor) {
+    WorkDirectorySeeder seeder = new WorkDirectorySeeder();
+    try {
+      seeder.seed(previousWorkDirectory.toFile(), workDirectory.toFile(), monitor);
+      metrics.setOutput(seeder.getFiles(), seeder.getBytes());
+    } catch (IOException exception) {
+      // not fatal, the deploy exports and stages everything instead
+      logger.log(Level.WARNING, "Cannot seed work directory from " + previousWorkDirectory,
+                 exception);
+    }
+  }
+
+  private void recordStagingOutput(Path stagingDirectory) {
+    if (!Files.isDirectory(stagingDirectory)) {
+      return;
+    }
+    final long[] totals = new long[2];
+    try {
+      Files.walkFileTree(stagingDirectory, new SimpleFileVisitor<Path>() {
+        @Override
+        public FileVisitResult visitFile(Path file, BasicFileAttributes attributes) {
+          totals[0]++;
+          totals[1] += attributes.size();
+          return FileVisitResult.CONTINUE;
+        }
+      });
+      metrics.setOutput(totals[0], totals[1]);
+    } catch (IOException exception) {
+      logger.log(Level.FINE, "Cannot measure staging output in " + stagingDirectory, exception);
+    }
+  }
+
+  private void reportMetrics(IStatus status) {
+    ProcessOutputLineListener listener = config.getStdoutLineListener();
+    if (listener != null) {
+      listener.onOutputLine(Messages.getString("deploy.metrics.title"));
+      for (String line : metrics.formatTable()) {
+        listener.onOutputLine(line);
+      }
+    }
+    if (metricsHistory != null) {
+      String result;
+      if (status == null) {
+        result = "ERROR";
+      } else if (status.getSeverity() == IStatus.CANCEL) {
+        result = "CANCEL";
+      } else if (status.isOK()) {
+        result = "OK";
+      } else {
+        result = "ERROR";
+      }
+      try {
+        metricsHistory.append(config.getProject().getName(), result, metrics);
+      } catch (IOException exception) {
+        logger.log(Level.WARNING, "Cannot save deploy metrics", exception);
+      }
+    }
+  }
+
+  private static void reportWhitelistReferences(ProcessOutputLineListener listener, String header,
+      Map<String, List<BlacklistedReference>> references) {
+    if (listener == null) {
+      return;
+    }
+    listener.onOutputLine(header);
+    for (Map.Entry<String, List<BlacklistedReference>> entry : references.entrySet()) {
+      listener.onOutputLine(Messages.getString("whitelist.check.report.location", entry.getKey()));
+      for (BlacklistedReference reference : entry.getValue()) {
+        listener.onOutputLine(Messages.getString("whitelist.check.report.reference",
+                                                 reference.getReferencingClassName(),
+                                                 reference.getBlacklistedClassName()));
+      }
+    }
+  }
+
+  static void saveCredential(Path destination, Credential credential) throws IOException {
     String jsonCredential = new CredentialHelper().toJson(credential);
     Files.write(destination, jsonCredential.getBytes(Charsets.UTF_8));
   }
@@ -170,6 +375,7 @@ public class StandardDeployJob extends WorkspaceJob {
   private final class StoreProcessObjectListener implements ProcessStartListener {
     @Override
     public void onStart(Process proces) {
+      processStartNanos = System.nanoTime();
       process = proces;
     }
   }
@@ -178,6 +384,7 @@ public class StandardDeployJob extends WorkspaceJob {
     // temporary way of error handling, after #439 is fixed, it'll be cleaner
     @Override
     public void onExit(int exitCode) {
+      metrics.addProcessTime(System.nanoTime() - processStartNanos);
       // if it's cancelled we don't need to record the exit code from the process, it would be the exit code
       // that corresponds to the process.destroy()
       if (cloudSdkProcessStatus != Status.CANCEL_STATUS && exitCode != 0) {
@@ -188,8 +395,11 @@ public class StandardDeployJob extends WorkspaceJob {
 
   public static class Builder {
     private ExplodedWarPublisher exporter;
+    private ExplodedWarWhitelistGate whitelistGate;
     private StandardProjectStaging staging;
     private AppEngineProjectDeployer deployer;
+    private DeployMetricsHistory metricsHistory;
+    private DeployThrottle throttle;
     private StandardDeployJobConfig config;
 
     public Builder exporter(ExplodedWarPublisher exporter) {
@@ -197,6 +407,15 @@ public class StandardDeployJob extends WorkspaceJob {
       return this;
     }
 
+    /**
+     * Enables checking the exploded WAR against the App Engine JRE whitelist before staging. The
+     * check is skipped if no gate is set.
+     */
+    public Builder whitelistGate(ExplodedWarWhitelistGate whitelistGate) {
+      this.whitelistGate = whitelistGate;
+      return this;
+    }
+
     public Builder staging(StandardProjectStaging staging) {
       this.staging = staging;
       return this;
@@ -207,6 +426,20 @@ public class StandardDeployJob extends WorkspaceJob {
       return this;
     }
 
+    Builder metricsHistory(DeployMetricsHistory metricsHistory) {
+      this.metricsHistory = metricsHistory;
+      return this;
+    }
+
+    /**
+     * Makes the job wait for the other jobs sharing <code>throttle</code> before exporting and
+     * before uploading.
+     */
+    public Builder throttle(DeployThrottle throttle) {
+      this.throttle = throttle;
+      return this;
+    }
+
     public Builder config(StandardDeployJobConfig config) {
       this.config = config;
       return this;
@@ -227,7 +460,14 @@ public class StandardDeployJob extends WorkspaceJob {
         deployer = new AppEngineProjectDeployer();
       }
 
-      return new StandardDeployJob(exporter, staging, deployer, config);
+      if (metricsHistory == null) {
+        metricsHistory = DeployMetricsHistory.forFile(
+            Platform.getStateLocation(Platform.getBundle("com.google.cloud.tools.eclipse.appengine.deploy"))
+                .append(METRICS_HISTORY_FILENAME).toFile());
+      }
+
+      return new StandardDeployJob(exporter, whitelistGate, staging, deployer, metricsHistory,
+                                   throttle, config);
     }
 
   }
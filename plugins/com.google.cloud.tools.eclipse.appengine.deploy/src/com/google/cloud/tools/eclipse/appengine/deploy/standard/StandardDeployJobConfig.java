@@ -26,7 +26,9 @@ import com.google.cloud.tools.appengine.cloudsdk.process.ProcessOutputLineListen
 public class StandardDeployJobConfig {
 
   private IPath workDirectory;
+  private IPath previousWorkDirectory;
   private Credential credential;
+  private IPath credentialFile;
   private IProject project;
   private ProcessOutputLineListener stdoutLineListener;
   private ProcessOutputLineListener stderrLineListener;
@@ -41,6 +43,19 @@ public class StandardDeployJobConfig {
     return this;
   }
 
+  public IPath getPreviousWorkDirectory() {
+    return previousWorkDirectory;
+  }
+
+  /**
+   * Makes the job seed its work directory from the work directory of an earlier deploy of the same
+   * project, see {@link WorkDirectorySeeder}.
+   */
+  public StandardDeployJobConfig setPreviousWorkDirectory(IPath previousWorkDirectory) {
+    this.previousWorkDirectory = previousWorkDirectory;
+    return this;
+  }
+
   public Credential getCredential() {
     return credential;
   }
@@ -50,6 +65,19 @@ public class StandardDeployJobConfig {
     return this;
   }
 
+  public IPath getCredentialFile() {
+    return credentialFile;
+  }
+
+  /**
+   * Makes the job use a credential file that is shared with other deploys, instead of saving the
+   * credential in its work directory. The file is not deleted by the job.
+   */
+  public StandardDeployJobConfig setCredentialFile(IPath credentialFile) {
+    this.credentialFile = credentialFile;
+    return this;
+  }
+
   public IProject getProject() {
     return project;
   }
@@ -0,0 +1,185 @@
+/*
+ * Copyright 2016 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.cloud.tools.eclipse.appengine.deploy.standard;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import org.eclipse.core.runtime.IPath;
+import org.eclipse.core.runtime.IProgressMonitor;
+import org.eclipse.core.runtime.IStatus;
+import org.eclipse.core.runtime.MultiStatus;
+import org.eclipse.core.runtime.Status;
+import org.eclipse.core.runtime.jobs.IJobChangeEvent;
+import org.eclipse.core.runtime.jobs.Job;
+import org.eclipse.core.runtime.jobs.JobChangeAdapter;
+
+import com.google.api.client.auth.oauth2.Credential;
+import com.google.cloud.tools.eclipse.appengine.deploy.Messages;
+import com.google.cloud.tools.eclipse.util.status.StatusUtil;
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.base.Preconditions;
+import com.google.common.util.concurrent.Uninterruptibles;
+
+/**
+ * Deploys several projects to App Engine Standard, running one {@link StandardDeployJob} per
+ * project, and reports the results of all of them in a single status.
+ * <p>
+ * The credential of the single login is saved once in a credential file that the jobs share (see
+ * {@link StandardDeployJobConfig#setCredentialFile(IPath)}), and is deleted after the last job
+ * finishes. How many jobs run their steps at the same time is limited by the
+ * {@link DeployThrottle} they were built with.
+ */
+public class StandardDeployQueue extends Job {
+
+  private static final Logger logger = Logger.getLogger(StandardDeployQueue.class.getName());
+
+  private static final String PLUGIN_ID = "com.google.cloud.tools.eclipse.appengine.deploy"; //$NON-NLS-1$
+
+  // how often the progress is updated while waiting for the jobs
+  private static final long PROGRESS_UPDATE_MILLIS = 200;
+
+  private final List<StandardDeployJob> jobs;
+  private final Credential credential;
+  private final IPath credentialFile;
+
+  /**
+   * @param jobs the deploy jobs, all configured to use <code>credentialFile</code>
+   * @param credential saved in <code>credentialFile</code> before the jobs are scheduled
+   */
+  public StandardDeployQueue(List<StandardDeployJob> jobs, Credential credential,
+                             IPath credentialFile) {
+    super(Messages.getString("deploy.queue.job.name", jobs.size())); //$NON-NLS-1$
+    Preconditions.checkArgument(!jobs.isEmpty(), "no jobs to run");
+    Preconditions.checkNotNull(credentialFile, "credentialFile is null");
+    this.jobs = new ArrayList<>(jobs);
+    this.credential = credential;
+    this.credentialFile = credentialFile;
+  }
+
+  @Override
+  protected IStatus run(IProgressMonitor monitor) {
+    Path credentialPath = credentialFile.toFile().toPath();
+    try {
+      saveCredential(credentialPath);
+      return runJobs(monitor);
+    } catch (IOException exception) {
+      return StatusUtil.error(this, Messages.getString("save.credential.failed"), exception); //$NON-NLS-1$
+    } finally {
+      try {
+        Files.deleteIfExists(credentialPath);
+      } catch (IOException exception) {
+        logger.log(Level.WARNING, "Could not delete credential file after deploy", exception); //$NON-NLS-1$
+      }
+      monitor.done();
+    }
+  }
+
+  @VisibleForTesting
+  void saveCredential(Path destination) throws IOException {
+    Files.createDirectories(destination.getParent());
+    StandardDeployJob.saveCredential(destination, credential);
+  }
+
+  private IStatus runJobs(IProgressMonitor monitor) {
+    monitor.beginTask(getName(), jobs.size());
+    final CountDownLatch remaining = new CountDownLatch(jobs.size());
+    JobChangeAdapter doneListener = new JobChangeAdapter() {
+      @Override
+      public void done(IJobChangeEvent event) {
+        remaining.countDown();
+      }
+    };
+    for (StandardDeployJob job : jobs) {
+      job.addJobChangeListener(doneListener);
+      job.schedule();
+    }
+
+    // canceling() cancels the jobs, but the credential file is in use until every job is done
+    long finished = 0;
+    try {
+      while (!remaining.await(PROGRESS_UPDATE_MILLIS, TimeUnit.MILLISECONDS)) {
+        long done = jobs.size() - remaining.getCount();
+        monitor.worked((int) (done - finished));
+        finished = done;
+      }
+    } catch (InterruptedException ex) {
+      cancelJobs();
+      // the canceled jobs may still be running and reading the credential file
+      Uninterruptibles.awaitUninterruptibly(remaining);
+      Thread.currentThread().interrupt();
+    }
+
+    for (StandardDeployJob job : jobs) {
+      job.removeJobChangeListener(doneListener);
+    }
+    return aggregateResults();
+  }
+
+  @Override
+  protected void canceling() {
+    cancelJobs();
+    super.canceling();
+  }
+
+  private void cancelJobs() {
+    for (StandardDeployJob job : jobs) {
+      job.cancel();
+    }
+  }
+
+  @VisibleForTesting
+  IStatus aggregateResults() {
+    List<IStatus> results = new ArrayList<>(jobs.size());
+    int failed = 0;
+    int canceled = 0;
+    for (StandardDeployJob job : jobs) {
+      IStatus result = job.getResult();
+      if (result == null) {
+        failed++;
+        result = StatusUtil.error(this, Messages.getString("deploy.queue.job.not.run", //$NON-NLS-1$
+                                                           job.getProjectName()));
+      } else if (result.getSeverity() == IStatus.CANCEL) {
+        // a canceled child would hide the errors of the others, as CANCEL is the highest severity
+        canceled++;
+        result = new Status(IStatus.INFO, PLUGIN_ID,
+                            Messages.getString("deploy.queue.job.canceled", job.getProjectName())); //$NON-NLS-1$
+      } else if (!result.isOK()) {
+        failed++;
+        result = new MultiStatus(PLUGIN_ID, 0, new IStatus[] {result},
+                                 Messages.getString("deploy.queue.job.failed", job.getProjectName()), //$NON-NLS-1$
+                                 null);
+      }
+      results.add(result);
+    }
+    if (canceled == jobs.size()) {
+      return Status.CANCEL_STATUS;
+    }
+    String message = failed == 0
+        ? Messages.getString("deploy.queue.result.ok", jobs.size()) //$NON-NLS-1$
+        : Messages.getString("deploy.queue.result.failed", failed, jobs.size()); //$NON-NLS-1$
+    return new MultiStatus(PLUGIN_ID, 0, results.toArray(new IStatus[results.size()]), message,
+                           null);
+  }
+}
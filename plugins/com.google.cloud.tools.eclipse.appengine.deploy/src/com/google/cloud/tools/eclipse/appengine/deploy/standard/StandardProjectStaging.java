@@ -16,6 +16,15 @@
 
 package com.google.cloud.tools.eclipse.appengine.deploy.standard;
 
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.Set;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
 import org.eclipse.core.runtime.IPath;
 import org.eclipse.core.runtime.IProgressMonitor;
 import org.eclipse.core.runtime.OperationCanceledException;
@@ -25,12 +34,30 @@ import com.google.cloud.tools.appengine.api.deploy.DefaultStageStandardConfigura
 import com.google.cloud.tools.appengine.cloudsdk.CloudSdk;
 import com.google.cloud.tools.appengine.cloudsdk.CloudSdkAppEngineStandardStaging;
 import com.google.cloud.tools.eclipse.appengine.deploy.Messages;
+import com.google.cloud.tools.eclipse.util.io.DeleteAllVisitor;
+import com.google.common.annotations.VisibleForTesting;
 
 /**
  * Calls the staging operation on an App Engine Standard project using the {@link CloudSdk}
+ * <p>
+ * The Cloud SDK rewrites the whole staging directory in a separate process, so the output of the
+ * previous staging operation into the same directory is reused when possible. Once staging
+ * succeeded, {@link #saveFingerprint(IPath, IPath, CloudSdk)} saves a {@link StagingFingerprint} of
+ * the exploded WAR, the staging options and the Cloud SDK version next to the staging directory.
+ * If nothing changed since,
+ * the next staging operation keeps the output as is. If only files in
+ * <code>WEB-INF/classes</code> changed, which staging copies unchanged, only those files are
+ * copied to the staging directory.
  */
 public class StandardProjectStaging {
 
+  private static final Logger logger = Logger.getLogger(StandardProjectStaging.class.getName());
+
+  private static final String FINGERPRINT_FILE_EXTENSION = ".fingerprint"; //$NON-NLS-1$
+  private static final String CLASSES_DIRECTORY = "WEB-INF/classes/"; //$NON-NLS-1$
+  private static final String CLOUD_SDK_VERSION_FILE = "VERSION"; //$NON-NLS-1$
+  private static final boolean ENABLE_JAR_SPLITTING = true;
+
   /**
    * @param explodedWarDirectory the input of the staging operation
    * @param stagingDirectory where the result of the staging operation will be written
@@ -44,14 +71,133 @@ public class StandardProjectStaging {
     SubMonitor progress = SubMonitor.convert(monitor, 1);
     progress.setTaskName(Messages.getString("task.name.stage.project")); //$NON-NLS-1$
 
+    if (updateStagingOutput(explodedWarDirectory.toFile(), stagingDirectory.toFile(), cloudSdk)) {
+      progress.worked(1);
+      return;
+    }
+
     DefaultStageStandardConfiguration stagingConfig = new DefaultStageStandardConfiguration();
     stagingConfig.setSourceDirectory(explodedWarDirectory.toFile());
     stagingConfig.setStagingDirectory(stagingDirectory.toFile());
-    stagingConfig.setEnableJarSplitting(true);
+    stagingConfig.setEnableJarSplitting(ENABLE_JAR_SPLITTING);
 
+    stageWithCloudSdk(stagingConfig, cloudSdk);
+
+    progress.worked(1);
+  }
+
+  @VisibleForTesting
+  void stageWithCloudSdk(DefaultStageStandardConfiguration stagingConfig, CloudSdk cloudSdk) {
     CloudSdkAppEngineStandardStaging staging = new CloudSdkAppEngineStandardStaging(cloudSdk);
     staging.stageStandard(stagingConfig);
+  }
 
-    progress.worked(1);
+  /**
+   * Marks the output of a successful staging operation as up to date, so that the next staging
+   * operation into <code>stagingDirectory</code> can reuse it.
+   *
+   * @param cloudSdk the Cloud SDK that executed the staging operation
+   */
+  public void saveFingerprint(IPath explodedWarDirectory, IPath stagingDirectory,
+      CloudSdk cloudSdk) {
+    File fingerprintFile = getFingerprintFile(stagingDirectory.toFile());
+    try {
+      StagingFingerprint fingerprint =
+          StagingFingerprint.of(explodedWarDirectory.toFile(), getStagingOptions(cloudSdk));
+      if (fingerprint != null) {
+        fingerprint.save(fingerprintFile);
+      }
+    } catch (IOException ex) {
+      logger.log(Level.WARNING, "Cannot save staging fingerprint " + fingerprintFile, ex); //$NON-NLS-1$
+    }
+  }
+
+  /**
+   * Brings the output of the previous staging operation up to date without the Cloud SDK if
+   * possible, otherwise deletes it.
+   *
+   * @return true if the staging output is up to date
+   */
+  private static boolean updateStagingOutput(File explodedWar, File stagingDirectory,
+      CloudSdk cloudSdk) {
+    File fingerprintFile = getFingerprintFile(stagingDirectory);
+    try {
+      StagingFingerprint previous = StagingFingerprint.load(fingerprintFile);
+      // the output is changed from here on, it is only up to date again once staging succeeded
+      Files.deleteIfExists(fingerprintFile.toPath());
+      StagingFingerprint current =
+          StagingFingerprint.of(explodedWar, getStagingOptions(cloudSdk));
+      if (previous != null && current != null && stagingDirectory.isDirectory()
+          && current.hasSameOptions(previous)) {
+        Set<String> changedPaths = current.getChangedPaths(previous);
+        if (isCopiedUnchanged(changedPaths)) {
+          copyChangedFiles(changedPaths, explodedWar, stagingDirectory);
+          logger.log(Level.FINE, "Reused staging output, " + changedPaths.size() //$NON-NLS-1$
+              + " files changed"); //$NON-NLS-1$
+          return true;
+        }
+      }
+    } catch (IOException ex) {
+      logger.log(Level.WARNING, "Cannot update staging output " + stagingDirectory, ex); //$NON-NLS-1$
+    }
+    deleteStagingOutput(stagingDirectory);
+    return false;
+  }
+
+  private static boolean isCopiedUnchanged(Set<String> paths) {
+    for (String path : paths) {
+      if (!path.startsWith(CLASSES_DIRECTORY)) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  private static void copyChangedFiles(Set<String> paths, File explodedWar, File stagingDirectory)
+      throws IOException {
+    for (String path : paths) {
+      File source = new File(explodedWar, path);
+      File target = new File(stagingDirectory, path);
+      if (source.isFile()) {
+        target.getParentFile().mkdirs();
+        Files.copy(source.toPath(), target.toPath(), StandardCopyOption.REPLACE_EXISTING);
+      } else {
+        Files.deleteIfExists(target.toPath());
+      }
+    }
+  }
+
+  private static void deleteStagingOutput(File stagingDirectory) {
+    if (stagingDirectory.exists()) {
+      try {
+        Files.walkFileTree(stagingDirectory.toPath(), new DeleteAllVisitor());
+      } catch (IOException ex) {
+        logger.log(Level.WARNING, "Cannot delete staging output " + stagingDirectory, ex); //$NON-NLS-1$
+      }
+    }
+  }
+
+  @VisibleForTesting
+  static File getFingerprintFile(File stagingDirectory) {
+    return new File(stagingDirectory.getParentFile(),
+                    stagingDirectory.getName() + FINGERPRINT_FILE_EXTENSION);
+  }
+
+  /**
+   * Includes the version of the Cloud SDK, so that the output of an earlier version is not reused
+   * after the Cloud SDK was updated.
+   */
+  private static String getStagingOptions(CloudSdk cloudSdk) throws IOException {
+    return "enableJarSplitting=" + ENABLE_JAR_SPLITTING //$NON-NLS-1$
+        + ",cloudSdkVersion=" + getCloudSdkVersion(cloudSdk); //$NON-NLS-1$
+  }
+
+  private static String getCloudSdkVersion(CloudSdk cloudSdk) throws IOException {
+    java.nio.file.Path sdkPath = cloudSdk.getSdkPath();
+    if (sdkPath == null) {
+      throw new IOException("Cloud SDK location is unknown"); //$NON-NLS-1$
+    }
+    byte[] version = Files.readAllBytes(sdkPath.resolve(CLOUD_SDK_VERSION_FILE));
+    return new String(version, StandardCharsets.UTF_8).trim();
   }
 }
@@ -0,0 +1,162 @@
+/*
+ * Copyright 2016 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.cloud.tools.eclipse.appengine.deploy.standard;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.BasicFileAttributes;
+
+import org.eclipse.core.runtime.IPath;
+import org.eclipse.core.runtime.IProgressMonitor;
+
+import com.google.cloud.tools.eclipse.util.io.DeleteAllVisitor;
+import com.google.cloud.tools.eclipse.util.io.ParallelFileCopier;
+
+/**
+ * Seeds the work directory of a deploy with the exploded WAR and staging output of the previous
+ * deploy of the same project, so that the incremental export and staging of
+ * {@link StandardDeployJob} only have to apply the changes made since then.
+ * <p>
+ * Work directories are expected to be named after their project, in a directory per deploy, e.g.
+ * <code>tmp/&lt;timestamp&gt;/&lt;project&gt;</code>. Only a work directory whose
+ * {@link ExplodedWarManifest} was saved by a completed export is seeded from, so that the
+ * exploded WAR of a deploy that failed or is still exporting is not used.
+ * <p>
+ * The files of the previous work directory are hard linked where the file system allows it. The
+ * exploded WAR is a copy of the workspace files, never a link to them (see
+ * {@link ExplodedWarPublisher}), and the deploy steps replace the files of a work directory
+ * instead of writing to them, so a linked file does not change after it was seeded. The manifest
+ * is copied last, so that a partially seeded work directory is not taken for a completed export.
+ */
+public class WorkDirectorySeeder {
+
+  private long files;
+  private long bytes;
+
+  /**
+   * @param tempDirectory the directory holding the directories of all deploys
+   * @param workDirectory the work directory of the new deploy
+   * @return the most recently modified work directory of an earlier deploy of the same project
+   *     whose exploded WAR was completely exported, or <code>null</code> if there is none
+   */
+  public static IPath findPreviousWorkDirectory(IPath tempDirectory, IPath workDirectory)
+      throws IOException {
+    String projectName = workDirectory.lastSegment();
+    File current = workDirectory.toFile().getAbsoluteFile();
+    File previous = null;
+    try (DirectoryStream<Path> deploys = Files.newDirectoryStream(tempDirectory.toFile().toPath())) {
+      for (Path deploy : deploys) {
+        File candidate = deploy.resolve(projectName).toFile().getAbsoluteFile();
+        if (!candidate.equals(current)
+            && (previous == null || candidate.lastModified() > previous.lastModified())
+            && isExported(candidate)) {
+          previous = candidate;
+        }
+      }
+    }
+    if (previous == null) {
+      return null;
+    }
+    return tempDirectory.append(previous.getParentFile().getName()).append(projectName);
+  }
+
+  private static boolean isExported(File workDirectory) throws IOException {
+    File explodedWar = new File(workDirectory, StandardDeployJob.EXPLODED_WAR_DIRECTORY_NAME);
+    return explodedWar.isDirectory()
+        && ExplodedWarManifest.isComplete(ExplodedWarPublisher.getManifestFile(explodedWar));
+  }
+
+  /**
+   * Links or copies the content of <code>previousWorkDirectory</code>, except for the credential
+   * file, to <code>workDirectory</code>. If that fails, the partially seeded files are deleted, so
+   * that the deploy starts from an empty work directory.
+   */
+  void seed(File previousWorkDirectory, File workDirectory, IProgressMonitor monitor)
+      throws IOException {
+    final Path source = previousWorkDirectory.toPath();
+    final Path target = workDirectory.toPath();
+    final Path manifest = ExplodedWarPublisher.getManifestFile(
+        new File(previousWorkDirectory, StandardDeployJob.EXPLODED_WAR_DIRECTORY_NAME)).toPath();
+    final ParallelFileCopier copier = new ParallelFileCopier(true /* useHardLinks */);
+    files = 0;
+    bytes = 0;
+    Files.walkFileTree(source, new SimpleFileVisitor<Path>() {
+      @Override
+      public FileVisitResult preVisitDirectory(Path directory, BasicFileAttributes attributes) {
+        copier.createDirectory(target.resolve(source.relativize(directory).toString()).toFile());
+        return FileVisitResult.CONTINUE;
+      }
+
+      @Override
+      public FileVisitResult visitFile(Path file, BasicFileAttributes attributes) {
+        Path relativePath = source.relativize(file);
+        if (!relativePath.toString().equals(StandardDeployJob.CREDENTIAL_FILENAME)
+            && !file.equals(manifest)) {
+          copier.copy(file.toFile(), target.resolve(relativePath.toString()).toFile());
+          files++;
+          bytes += attributes.size();
+        }
+        return FileVisitResult.CONTINUE;
+      }
+    });
+
+    try {
+      copier.copyAll(monitor);
+      if (Files.isRegularFile(manifest)) {
+        Files.copy(manifest, target.resolve(source.relativize(manifest).toString()),
+                   StandardCopyOption.REPLACE_EXISTING);
+        files++;
+        bytes += Files.size(manifest);
+      }
+    } catch (IOException | RuntimeException ex) {
+      deleteSeededFiles(target);
+      throw ex;
+    }
+  }
+
+  /**
+   * @return the number of files seeded by the last call to {@link #seed}
+   */
+  long getFiles() {
+    return files;
+  }
+
+  /**
+   * @return the number of bytes seeded by the last call to {@link #seed}
+   */
+  long getBytes() {
+    return bytes;
+  }
+
+  private static void deleteSeededFiles(Path workDirectory) throws IOException {
+    try (DirectoryStream<Path> children = Files.newDirectoryStream(workDirectory)) {
+      for (Path child : children) {
+        if (Files.isDirectory(child)) {
+          Files.walkFileTree(child, new DeleteAllVisitor());
+        } else if (!child.getFileName().toString().equals(StandardDeployJob.CREDENTIAL_FILENAME)) {
+          Files.delete(child);
+        }
+      }
+    }
+  }
+}
@@ -20,10 +20,11 @@ import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.Future;
 import org.apache.maven.model.Dependency;
 import org.eclipse.core.runtime.IProgressMonitor;
 
-import com.google.cloud.tools.eclipse.util.MavenUtils;
+import com.google.cloud.tools.eclipse.util.ArtifactVersionLookup;
 
 public class MavenAppEngineFacetUtil {
   /**
@@ -79,10 +80,13 @@ public class MavenAppEngineFacetUtil {
    * @return a map where the keys and values are the property fields and values respectively
    */
   public static Map<String, String> getAppEnginePomProperties(IProgressMonitor monitor) {
-    String appengineArtifactVersion = MavenUtils.resolveLatestReleasedArtifactVersion(monitor,
+    ArtifactVersionLookup versionLookup = ArtifactVersionLookup.getDefault();
+    Future<String> appengineVersionLookup = versionLookup.lookupLatestVersion(
         "com.google.appengine", "appengine-api-1.0-sdk", "jar", AppEngineStandardFacet.DEFAULT_APPENGINE_SDK_VERSION);
-    String gcloudArtifactVersion = MavenUtils.resolveLatestReleasedArtifactVersion(monitor,
+    Future<String> gcloudVersionLookup = versionLookup.lookupLatestVersion(
         "com.google.appengine", "gcloud-maven-plugin", "maven-plugin", AppEngineStandardFacet.DEFAULT_GCLOUD_PLUGIN_VERSION);
+    String appengineArtifactVersion = ArtifactVersionLookup.waitFor(appengineVersionLookup, monitor);
+    String gcloudArtifactVersion = ArtifactVersionLookup.waitFor(gcloudVersionLookup, monitor);
 
     Map<String, String> allProperties = new HashMap<String, String>();
     allProperties.put("app.id", "");
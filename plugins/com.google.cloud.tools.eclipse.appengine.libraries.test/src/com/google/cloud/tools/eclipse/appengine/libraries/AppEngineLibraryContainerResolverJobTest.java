@@ -0,0 +1,160 @@
+/*
+ * Copyright 2016 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.cloud.tools.eclipse.appengine.libraries;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+import static org.mockito.Matchers.any;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.google.cloud.tools.eclipse.appengine.libraries.config.ILibraryConfigService;
+import com.google.cloud.tools.eclipse.appengine.libraries.model.Library;
+import com.google.cloud.tools.eclipse.appengine.libraries.model.LibraryFile;
+import com.google.cloud.tools.eclipse.appengine.libraries.model.MavenCoordinates;
+import com.google.cloud.tools.eclipse.appengine.libraries.persistence.LibraryClasspathContainerSerializer;
+import com.google.cloud.tools.eclipse.appengine.libraries.repository.ILibraryRepositoryService;
+import com.google.cloud.tools.eclipse.appengine.libraries.repository.LibraryRepositoryServiceException;
+import java.util.Arrays;
+import org.eclipse.core.runtime.IStatus;
+import org.eclipse.core.runtime.NullProgressMonitor;
+import org.eclipse.core.runtime.Path;
+import org.eclipse.jdt.core.IClasspathEntry;
+import org.eclipse.jdt.core.IJavaProject;
+import org.eclipse.jdt.core.JavaCore;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.runners.MockitoJUnitRunner;
+import org.mockito.stubbing.Answer;
+
+@RunWith(MockitoJUnitRunner.class)
+public class AppEngineLibraryContainerResolverJobTest {
+
+  private static final String TEST_LIBRARY_ID = "libraryId";
+  private static final String TEST_LIBRARY_PATH = "test.appengine.libraries/" + TEST_LIBRARY_ID;
+
+  @Mock private ILibraryConfigService libraryConfigService;
+  @Mock private ILibraryRepositoryService repositoryService;
+  @Mock private LibraryClasspathContainerSerializer serializer;
+
+  @Rule
+  public TestProject testProject = new TestProject().withClasspathContainerPath(TEST_LIBRARY_PATH);
+
+  private AppEngineLibraryContainerResolverJob job;
+
+  @Before
+  public void setUp() {
+    Library library = new Library(TEST_LIBRARY_ID);
+    library.setLibraryFiles(Arrays.asList(newLibraryFile("first"),
+                                          newLibraryFile("second"),
+                                          newLibraryFile("third")));
+    when(libraryConfigService.getLibrary(TEST_LIBRARY_ID)).thenReturn(library);
+    job = new AppEngineLibraryContainerResolverJob(testProject.getJavaProject(),
+                                                   libraryConfigService,
+                                                   repositoryService,
+                                                   serializer);
+  }
+
+  @Test
+  public void testRun_entriesInDeclarationOrder() throws Exception {
+    // the first file takes longest to resolve, so it completes last
+    when(repositoryService.getLibraryClasspathEntry(any(LibraryFile.class)))
+      .thenAnswer(delayedClasspathEntry());
+
+    IStatus status = job.run(new NullProgressMonitor());
+
+    assertThat(status.isOK(), is(true));
+    IClasspathEntry[] resolvedClasspath = testProject.getJavaProject().getResolvedClasspath(false);
+    assertThat(resolvedClasspath.length, is(4));
+    assertThat(resolvedClasspath[1].getPath().toString(), is("/test/path/first.jar"));
+    assertThat(resolvedClasspath[2].getPath().toString(), is("/test/path/second.jar"));
+    assertThat(resolvedClasspath[3].getPath().toString(), is("/test/path/third.jar"));
+    verify(serializer).saveContainer(any(IJavaProject.class), any(LibraryClasspathContainer.class));
+  }
+
+  @Test
+  public void testRun_includesLibraryDependencies() throws Exception {
+    Library dependency = new Library("dependencyId");
+    dependency.setLibraryFiles(Arrays.asList(newLibraryFile("second"), newLibraryFile("fourth")));
+    when(libraryConfigService.getLibrary("dependencyId")).thenReturn(dependency);
+    libraryConfigService.getLibrary(TEST_LIBRARY_ID)
+        .setLibraryDependencies(Arrays.asList("dependencyId"));
+    when(repositoryService.getLibraryClasspathEntry(any(LibraryFile.class)))
+      .thenAnswer(delayedClasspathEntry());
+
+    IStatus status = job.run(new NullProgressMonitor());
+
+    assertThat(status.isOK(), is(true));
+    IClasspathEntry[] resolvedClasspath = testProject.getJavaProject().getResolvedClasspath(false);
+    assertThat(resolvedClasspath.length, is(5));
+    assertThat(resolvedClasspath[4].getPath().toString(), is("/test/path/fourth.jar"));
+    // the file shared with the dependency is resolved once
+    verify(repositoryService, times(4)).getLibraryClasspathEntry(any(LibraryFile.class));
+  }
+
+  @Test
+  public void testRun_resolutionError() throws Exception {
+    when(repositoryService.getLibraryClasspathEntry(any(LibraryFile.class)))
+      .thenThrow(new LibraryRepositoryServiceException("test exception"));
+
+    IStatus status = job.run(new NullProgressMonitor());
+
+    assertThat(status.getSeverity(), is(IStatus.ERROR));
+    verify(serializer, never()).saveContainer(any(IJavaProject.class),
+                                              any(LibraryClasspathContainer.class));
+  }
+
+  @Test
+  public void testRun_canceled() throws Exception {
+    when(repositoryService.getLibraryClasspathEntry(any(LibraryFile.class)))
+      .thenAnswer(delayedClasspathEntry());
+    NullProgressMonitor monitor = new NullProgressMonitor();
+    monitor.setCanceled(true);
+
+    IStatus status = job.run(monitor);
+
+    assertThat(status.getSeverity(), is(IStatus.CANCEL));
+    verify(serializer, never()).saveContainer(any(IJavaProject.class),
+                                              any(LibraryClasspathContainer.class));
+  }
+
+  private static LibraryFile newLibraryFile(String artifactId) {
+    return new LibraryFile(new MavenCoordinates("groupId", artifactId));
+  }
+
+  private static Answer<IClasspathEntry> delayedClasspathEntry() {
+    return new Answer<IClasspathEntry>() {
+      @Override
+      public IClasspathEntry answer(InvocationOnMock invocation) throws Throwable {
+        String artifactId =
+            invocation.getArgumentAt(0, LibraryFile.class).getMavenCoordinates().getArtifactId();
+        if ("first".equals(artifactId)) {
+          Thread.sleep(300);
+        } else if ("second".equals(artifactId)) {
+          Thread.sleep(100);
+        }
+        return JavaCore.newLibraryEntry(new Path("/test/path/" + artifactId + ".jar"), null, null);
+      }
+    };
+  }
+}
@@ -0,0 +1,147 @@
+/*
+ * Copyright 2016 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.cloud.tools.eclipse.appengine.libraries;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.assertTrue;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import org.eclipse.core.runtime.Path;
+import org.eclipse.jdt.core.ElementChangedEvent;
+import org.eclipse.jdt.core.IClasspathContainer;
+import org.eclipse.jdt.core.IClasspathEntry;
+import org.eclipse.jdt.core.IElementChangedListener;
+import org.eclipse.jdt.core.IJavaElementDelta;
+import org.eclipse.jdt.core.IJavaProject;
+import org.eclipse.jdt.core.JavaCore;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+
+public class ClasspathContainerBatchTest {
+
+  private static final String TEST_LIBRARY_PATH = "test.appengine.libraries/libraryId";
+
+  @Rule
+  public TestProject first = new TestProject().withClasspathContainerPath(TEST_LIBRARY_PATH);
+  @Rule
+  public TestProject second = new TestProject().withClasspathContainerPath(TEST_LIBRARY_PATH);
+  @Rule
+  public TestProject third = new TestProject().withClasspathContainerPath(TEST_LIBRARY_PATH);
+
+  private IJavaProject[] javaProjects;
+  private final AtomicInteger deltaCount = new AtomicInteger();
+  // counts the deltas that report resolved classpath changes
+  private final IElementChangedListener deltaCounter = new IElementChangedListener() {
+    @Override
+    public void elementChanged(ElementChangedEvent event) {
+      for (IJavaElementDelta delta : event.getDelta().getAffectedChildren()) {
+        if ((delta.getFlags() & IJavaElementDelta.F_RESOLVED_CLASSPATH_CHANGED) != 0) {
+          deltaCount.incrementAndGet();
+          return;
+        }
+      }
+    }
+  };
+
+  @Before
+  public void setUp() throws Exception {
+    javaProjects = new IJavaProject[] {
+        first.getJavaProject(), second.getJavaProject(), third.getJavaProject()};
+    for (IJavaProject javaProject : javaProjects) {
+      JavaCore.setClasspathContainer(new Path(TEST_LIBRARY_PATH), new IJavaProject[] {javaProject},
+                                     new IClasspathContainer[] {newContainer("initial")}, null);
+      // so that JDT reports the changes of the resolved classpath
+      javaProject.getResolvedClasspath(false);
+    }
+    JavaCore.addElementChangedListener(deltaCounter, ElementChangedEvent.POST_CHANGE);
+  }
+
+  @After
+  public void tearDown() {
+    JavaCore.removeElementChangedListener(deltaCounter);
+  }
+
+  @Test
+  public void testApply_setsContainers() throws Exception {
+    ClasspathContainerBatch batch = new ClasspathContainerBatch();
+    for (IJavaProject javaProject : javaProjects) {
+      batch.add(javaProject, newContainer("updated"));
+    }
+
+    batch.apply(null);
+
+    for (IJavaProject javaProject : javaProjects) {
+      IClasspathEntry[] resolvedClasspath = javaProject.getResolvedClasspath(false);
+      assertThat(resolvedClasspath[resolvedClasspath.length - 1].getPath().toString(),
+                 is("/test/path/updated.jar"));
+    }
+  }
+
+  @Test
+  public void testApply_laterContainerReplacesEarlierOne() throws Exception {
+    ClasspathContainerBatch batch = new ClasspathContainerBatch();
+    batch.add(javaProjects[0], newContainer("replaced"));
+    batch.add(javaProjects[0], newContainer("updated"));
+
+    batch.apply(null);
+
+    IClasspathEntry[] resolvedClasspath = javaProjects[0].getResolvedClasspath(false);
+    assertThat(resolvedClasspath[resolvedClasspath.length - 1].getPath().toString(),
+               is("/test/path/updated.jar"));
+  }
+
+  @Test
+  public void testApply_emptyBatch() throws Exception {
+    ClasspathContainerBatch batch = new ClasspathContainerBatch();
+    assertTrue(batch.isEmpty());
+
+    batch.apply(null);
+
+    assertThat(deltaCount.get(), is(0));
+  }
+
+  /**
+   * Compares the number of Java model deltas of setting the containers of several projects one
+   * by one, as the library jobs used to, with setting them in a batch.
+   */
+  @Test
+  public void testApply_reportsSingleDelta() throws Exception {
+    for (IJavaProject javaProject : javaProjects) {
+      JavaCore.setClasspathContainer(new Path(TEST_LIBRARY_PATH), new IJavaProject[] {javaProject},
+                                     new IClasspathContainer[] {newContainer("separate")}, null);
+    }
+    assertThat(deltaCount.get(), is(javaProjects.length));
+
+    deltaCount.set(0);
+    ClasspathContainerBatch batch = new ClasspathContainerBatch();
+    for (IJavaProject javaProject : javaProjects) {
+      batch.add(javaProject, newContainer("batched"));
+    }
+    batch.apply(null);
+
+    assertThat(deltaCount.get(), is(1));
+  }
+
+  private static IClasspathContainer newContainer(String jarName) {
+    return new LibraryClasspathContainer(new Path(TEST_LIBRARY_PATH), "Test API",
+        new IClasspathEntry[] {
+            JavaCore.newLibraryEntry(new Path("/test/path/" + jarName + ".jar"), null, null)});
+  }
+}
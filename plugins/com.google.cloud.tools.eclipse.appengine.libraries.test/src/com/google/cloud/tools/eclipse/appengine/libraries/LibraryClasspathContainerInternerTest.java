@@ -0,0 +1,123 @@
+/*
+ * Copyright 2016 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.cloud.tools.eclipse.appengine.libraries;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.not;
+import static org.hamcrest.CoreMatchers.sameInstance;
+import static org.junit.Assert.assertThat;
+
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.Set;
+import org.eclipse.core.runtime.Path;
+import org.eclipse.jdt.core.IAccessRule;
+import org.eclipse.jdt.core.IClasspathAttribute;
+import org.eclipse.jdt.core.IClasspathEntry;
+import org.eclipse.jdt.core.JavaCore;
+import org.junit.Test;
+
+public class LibraryClasspathContainerInternerTest {
+
+  private static final int PROJECT_COUNT = 150;
+  private static final int ENTRY_COUNT = 10;
+
+  @Test
+  public void testIntern_equalContainersAreShared() {
+    LibraryClasspathContainer first = newContainer("objectify", "5.1.10");
+    LibraryClasspathContainer second = newContainer("objectify", "5.1.10");
+
+    LibraryClasspathContainer internedFirst = LibraryClasspathContainerInterner.intern(first);
+    LibraryClasspathContainer internedSecond = LibraryClasspathContainerInterner.intern(second);
+
+    assertThat(internedSecond, sameInstance(internedFirst));
+    assertThat(internedFirst.getPath(), is(first.getPath()));
+    assertThat(internedFirst.getDescription(), is(first.getDescription()));
+    assertThat(internedFirst.getClasspathEntries(), is(first.getClasspathEntries()));
+  }
+
+  @Test
+  public void testIntern_differentArtifactsAreNotShared() {
+    LibraryClasspathContainer older =
+        LibraryClasspathContainerInterner.intern(newContainer("objectify", "5.1.9"));
+    LibraryClasspathContainer newer =
+        LibraryClasspathContainerInterner.intern(newContainer("objectify", "5.1.10"));
+
+    assertThat(newer, not(sameInstance(older)));
+    // the artifacts common to both versions are still shared
+    assertThat(newer.getClasspathEntries()[0], sameInstance(older.getClasspathEntries()[0]));
+  }
+
+  @Test
+  public void testIntern_differentLibrariesAreNotShared() {
+    LibraryClasspathContainer objectify =
+        LibraryClasspathContainerInterner.intern(newContainer("objectify", "5.1.10"));
+    LibraryClasspathContainer endpoints =
+        LibraryClasspathContainerInterner.intern(newContainer("appengine-endpoints", "5.1.10"));
+
+    assertThat(endpoints, not(sameInstance(objectify)));
+  }
+
+  /**
+   * Each project of a large workspace loads its own copy of the container. After interning, a
+   * single container and a single copy of its entries remain, so the heap holds
+   * <code>ENTRY_COUNT + 1</code> instead of <code>PROJECT_COUNT * (ENTRY_COUNT + 1)</code>
+   * containers and entries, along with their access rules and attributes.
+   */
+  @Test
+  public void testIntern_heapSavingsForWorkspace() {
+    Set<LibraryClasspathContainer> containers =
+        Collections.newSetFromMap(new IdentityHashMap<LibraryClasspathContainer, Boolean>());
+    Set<IClasspathEntry> entries =
+        Collections.newSetFromMap(new IdentityHashMap<IClasspathEntry, Boolean>());
+    Set<IClasspathEntry> loadedEntries =
+        Collections.newSetFromMap(new IdentityHashMap<IClasspathEntry, Boolean>());
+
+    for (int i = 0; i < PROJECT_COUNT; i++) {
+      LibraryClasspathContainer loaded = newContainer("objectify", "5.1.10");
+      Collections.addAll(loadedEntries, loaded.getClasspathEntries());
+      LibraryClasspathContainer interned = LibraryClasspathContainerInterner.intern(loaded);
+      containers.add(interned);
+      Collections.addAll(entries, interned.getClasspathEntries());
+    }
+
+    assertThat(loadedEntries.size(), is(PROJECT_COUNT * ENTRY_COUNT));
+    assertThat(containers.size(), is(1));
+    assertThat(entries.size(), is(ENTRY_COUNT));
+  }
+
+  private static LibraryClasspathContainer newContainer(String libraryId, String version) {
+    IClasspathEntry[] entries = new IClasspathEntry[ENTRY_COUNT];
+    for (int i = 0; i < ENTRY_COUNT; i++) {
+      // only the last artifact has the version of the library
+      String artifactVersion = i == ENTRY_COUNT - 1 ? version : "1.0";
+      String artifactId = libraryId + "-dependency" + i;
+      entries[i] = JavaCore.newLibraryEntry(
+          new Path("/test/repository/" + artifactId + "-" + artifactVersion + ".jar"),
+          new Path("/test/repository/" + artifactId + "-" + artifactVersion + "-sources.jar"),
+          null /* sourceAttachmentRootPath */,
+          new IAccessRule[] {
+              JavaCore.newAccessRule(new Path("com/example/**"), IAccessRule.K_ACCESSIBLE) },
+          new IClasspathAttribute[] {
+              JavaCore.newClasspathAttribute("artifactId", artifactId),
+              JavaCore.newClasspathAttribute("version", artifactVersion) },
+          true /* isExported */);
+    }
+    return new LibraryClasspathContainer(new Path("test.appengine.libraries/" + libraryId),
+                                         libraryId, entries);
+  }
+}
@@ -0,0 +1,140 @@
+/*
+ * Copyright 2016 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.cloud.tools.eclipse.appengine.libraries;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.sameInstance;
+import static org.junit.Assert.assertThat;
+import static org.mockito.Matchers.any;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.google.cloud.tools.eclipse.appengine.libraries.persistence.LibraryClasspathContainerSerializer;
+import com.google.cloud.tools.eclipse.appengine.libraries.repository.ILibraryRepositoryService;
+import com.google.cloud.tools.eclipse.appengine.libraries.repository.LibraryRepositoryServiceException;
+import java.io.File;
+import org.eclipse.core.runtime.IStatus;
+import org.eclipse.core.runtime.NullProgressMonitor;
+import org.eclipse.core.runtime.Path;
+import org.eclipse.jdt.core.IClasspathContainer;
+import org.eclipse.jdt.core.IClasspathEntry;
+import org.eclipse.jdt.core.IJavaProject;
+import org.eclipse.jdt.core.JavaCore;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.runners.MockitoJUnitRunner;
+
+@RunWith(MockitoJUnitRunner.class)
+public class LibraryContainerValidationJobTest {
+
+  private static final String TEST_LIBRARY_PATH = "test.appengine.libraries/libraryId";
+
+  @Mock private ILibraryRepositoryService repositoryService;
+  @Mock private LibraryClasspathContainerSerializer serializer;
+
+  @Rule
+  public TestProject testProject = new TestProject().withClasspathContainerPath(TEST_LIBRARY_PATH);
+  @Rule
+  public TemporaryFolder repositoryFolder = new TemporaryFolder();
+
+  @Test
+  public void testRun_existingJarsKeepContainer() throws Exception {
+    File jar = repositoryFolder.newFile("existing.jar");
+    LibraryClasspathContainer container = setContainer(new Path(jar.getAbsolutePath()));
+
+    IStatus status = newJob(container).run(new NullProgressMonitor());
+
+    assertThat(status.isOK(), is(true));
+    verify(repositoryService, never()).rebuildClasspathEntry(any(IClasspathEntry.class));
+    verify(serializer, never()).saveContainer(any(IJavaProject.class),
+                                              any(LibraryClasspathContainer.class));
+    assertThat(getCurrentContainer(), sameInstance((IClasspathContainer) container));
+  }
+
+  @Test
+  public void testRun_missingJarIsResolvedAgain() throws Exception {
+    File jar = repositoryFolder.newFile("restored.jar");
+    IClasspathEntry restoredEntry = JavaCore.newLibraryEntry(new Path(jar.getAbsolutePath()),
+                                                             null, null);
+    when(repositoryService.rebuildClasspathEntry(any(IClasspathEntry.class)))
+      .thenReturn(restoredEntry);
+    LibraryClasspathContainer container = setContainer(new Path("/test/path/missing.jar"));
+
+    IStatus status = newJob(container).run(new NullProgressMonitor());
+
+    assertThat(status.isOK(), is(true));
+    IClasspathEntry[] resolvedClasspath = testProject.getJavaProject().getResolvedClasspath(false);
+    assertThat(resolvedClasspath.length, is(2));
+    assertThat(resolvedClasspath[1].getPath(), is(restoredEntry.getPath()));
+    verify(serializer).saveContainer(any(IJavaProject.class), any(LibraryClasspathContainer.class));
+    // the persisted container is not modified
+    assertThat(container.getClasspathEntries()[0].getPath().toString(),
+               is("/test/path/missing.jar"));
+  }
+
+  @Test
+  public void testRun_replacedContainerIsNotOverwritten() throws Exception {
+    when(repositoryService.rebuildClasspathEntry(any(IClasspathEntry.class)))
+      .thenReturn(JavaCore.newLibraryEntry(new Path("/test/path/restored.jar"), null, null));
+    LibraryClasspathContainer staleContainer = setContainer(new Path("/test/path/missing.jar"));
+    LibraryClasspathContainer newerContainer = setContainer(new Path("/test/path/newer.jar"));
+
+    IStatus status = newJob(staleContainer).run(new NullProgressMonitor());
+
+    assertThat(status.isOK(), is(true));
+    assertThat(getCurrentContainer(), sameInstance((IClasspathContainer) newerContainer));
+    verify(serializer, never()).saveContainer(any(IJavaProject.class),
+                                              any(LibraryClasspathContainer.class));
+  }
+
+  @Test
+  public void testRun_resolutionError() throws Exception {
+    when(repositoryService.rebuildClasspathEntry(any(IClasspathEntry.class)))
+      .thenThrow(new LibraryRepositoryServiceException("test exception"));
+    LibraryClasspathContainer container = setContainer(new Path("/test/path/missing.jar"));
+
+    IStatus status = newJob(container).run(new NullProgressMonitor());
+
+    assertThat(status.getSeverity(), is(IStatus.ERROR));
+    assertThat(getCurrentContainer(), sameInstance((IClasspathContainer) container));
+  }
+
+  private LibraryContainerValidationJob newJob(LibraryClasspathContainer container) {
+    return new LibraryContainerValidationJob(testProject.getJavaProject(), container,
+                                             repositoryService, serializer);
+  }
+
+  private LibraryClasspathContainer setContainer(Path jarPath) throws Exception {
+    LibraryClasspathContainer container =
+        new LibraryClasspathContainer(new Path(TEST_LIBRARY_PATH), "Test API",
+                                      new IClasspathEntry[] {
+                                          JavaCore.newLibraryEntry(jarPath, null, null)});
+    JavaCore.setClasspathContainer(container.getPath(),
+                                   new IJavaProject[] {testProject.getJavaProject()},
+                                   new IClasspathContainer[] {container}, null);
+    return container;
+  }
+
+  private IClasspathContainer getCurrentContainer() throws Exception {
+    return JavaCore.getClasspathContainer(new Path(TEST_LIBRARY_PATH),
+                                          testProject.getJavaProject());
+  }
+}
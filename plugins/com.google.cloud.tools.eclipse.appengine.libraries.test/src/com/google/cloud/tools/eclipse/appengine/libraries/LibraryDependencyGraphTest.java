@@ -0,0 +1,169 @@
+/*
+ * Copyright 2016 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.cloud.tools.eclipse.appengine.libraries;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.when;
+
+import com.google.cloud.tools.eclipse.appengine.libraries.config.ILibraryConfigService;
+import com.google.cloud.tools.eclipse.appengine.libraries.model.Library;
+import com.google.cloud.tools.eclipse.appengine.libraries.model.LibraryFile;
+import com.google.cloud.tools.eclipse.appengine.libraries.model.MavenCoordinates;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.runners.MockitoJUnitRunner;
+
+@RunWith(MockitoJUnitRunner.class)
+public class LibraryDependencyGraphTest {
+
+  @Mock private ILibraryConfigService libraryConfigService;
+
+  @Test
+  public void testLibraryWithoutDependencies() {
+    Library library = newLibrary("library", "first:1", "second:1");
+
+    LibraryDependencyGraph graph = newGraph(library);
+
+    assertThat(getArtifacts(graph, library), is(Arrays.asList("first:1", "second:1")));
+    assertThat(graph.getLibraryFileCount(), is(2));
+  }
+
+  @Test
+  public void testTransitiveDependencies() {
+    Library library = newLibrary("library", "first:1");
+    newLibrary("dependency", "second:1");
+    newLibrary("transitiveDependency", "third:1");
+    setDependencies("library", "dependency");
+    setDependencies("dependency", "transitiveDependency");
+
+    LibraryDependencyGraph graph = newGraph(library);
+
+    assertThat(getArtifacts(graph, library),
+               is(Arrays.asList("first:1", "second:1", "third:1")));
+  }
+
+  @Test
+  public void testSharedDependencyIsResolvedOnce() {
+    Library library = newLibrary("library");
+    newLibrary("left", "left:1");
+    newLibrary("right", "right:1");
+    newLibrary("shared", "shared:1");
+    setDependencies("library", "left", "right");
+    setDependencies("left", "shared");
+    setDependencies("right", "shared");
+
+    LibraryDependencyGraph graph = newGraph(library);
+
+    assertThat(getArtifacts(graph, library),
+               is(Arrays.asList("left:1", "shared:1", "right:1")));
+    assertThat(graph.getLibraryFileCount(), is(3));
+  }
+
+  @Test
+  public void testHighestVersionWins() {
+    Library library = newLibrary("library", "artifact:1.9");
+    newLibrary("dependency", "artifact:1.10", "other:2.0");
+    setDependencies("library", "dependency");
+
+    LibraryDependencyGraph graph = newGraph(library);
+
+    assertThat(getArtifacts(graph, library), is(Arrays.asList("artifact:1.10", "other:2.0")));
+  }
+
+  @Test
+  public void testArtifactsAreAssignedToLibraryDeclaringThem() {
+    Library library = newLibrary("library", "first:1");
+    Library dependency = newLibrary("dependency", "second:1");
+    setDependencies("library", "dependency");
+
+    LibraryDependencyGraph graph = newGraph(library, dependency);
+
+    assertThat(getArtifacts(graph, library), is(Arrays.asList("first:1")));
+    assertThat(getArtifacts(graph, dependency), is(Arrays.asList("second:1")));
+  }
+
+  @Test
+  public void testDependencyCycle() {
+    Library library = newLibrary("library", "first:1");
+    newLibrary("dependency", "second:1");
+    setDependencies("library", "dependency");
+    setDependencies("dependency", "library");
+
+    LibraryDependencyGraph graph = newGraph(library);
+
+    assertThat(getArtifacts(graph, library), is(Arrays.asList("first:1", "second:1")));
+  }
+
+  @Test
+  public void testUnknownDependencyIsIgnored() {
+    Library library = newLibrary("library", "first:1");
+    setDependencies("library", "unknown");
+
+    LibraryDependencyGraph graph = newGraph(library);
+
+    assertThat(getArtifacts(graph, library), is(Arrays.asList("first:1")));
+  }
+
+  @Test
+  public void testIsHigherVersion() {
+    assertTrue(LibraryDependencyGraph.isHigherVersion("1.10", "1.9"));
+    assertFalse(LibraryDependencyGraph.isHigherVersion("1.0-SNAPSHOT", "1.0"));
+    assertTrue(LibraryDependencyGraph.isHigherVersion(MavenCoordinates.LATEST_VERSION, "99"));
+    assertFalse(LibraryDependencyGraph.isHigherVersion("99", MavenCoordinates.LATEST_VERSION));
+  }
+
+  private LibraryDependencyGraph newGraph(Library... libraries) {
+    return new LibraryDependencyGraph(libraryConfigService, Arrays.asList(libraries));
+  }
+
+  /**
+   * @param artifacts <code>artifactId:version</code> of the library files
+   */
+  private Library newLibrary(String id, String... artifacts) {
+    Library library = new Library(id);
+    List<LibraryFile> libraryFiles = new ArrayList<>();
+    for (String artifact : artifacts) {
+      String[] parts = artifact.split(":");
+      MavenCoordinates coordinates = new MavenCoordinates("groupId", parts[0]);
+      coordinates.setVersion(parts[1]);
+      libraryFiles.add(new LibraryFile(coordinates));
+    }
+    library.setLibraryFiles(libraryFiles);
+    when(libraryConfigService.getLibrary(id)).thenReturn(library);
+    return library;
+  }
+
+  private void setDependencies(String id, String... dependencyIds) {
+    libraryConfigService.getLibrary(id).setLibraryDependencies(Arrays.asList(dependencyIds));
+  }
+
+  private static List<String> getArtifacts(LibraryDependencyGraph graph, Library library) {
+    List<String> artifacts = new ArrayList<>();
+    for (LibraryFile libraryFile : graph.getLibraryFiles(library)) {
+      MavenCoordinates coordinates = libraryFile.getMavenCoordinates();
+      artifacts.add(coordinates.getArtifactId() + ":" + coordinates.getVersion());
+    }
+    return artifacts;
+  }
+}
@@ -0,0 +1,171 @@
+/*
+ * Copyright 2016 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.cloud.tools.eclipse.appengine.libraries.config;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.hamcrest.CoreMatchers.sameInstance;
+import static org.junit.Assert.assertThat;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.google.cloud.tools.eclipse.appengine.libraries.model.Library;
+import com.google.cloud.tools.eclipse.appengine.libraries.model.LibraryFactory;
+import com.google.cloud.tools.eclipse.appengine.libraries.model.LibraryFactoryException;
+import com.google.cloud.tools.eclipse.appengine.libraries.model.LibraryFile;
+import com.google.cloud.tools.eclipse.appengine.libraries.model.MavenCoordinates;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import org.eclipse.core.runtime.IConfigurationElement;
+import org.eclipse.core.runtime.IExtension;
+import org.eclipse.core.runtime.IExtensionRegistry;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.runners.MockitoJUnitRunner;
+
+@RunWith(MockitoJUnitRunner.class)
+public class LibraryConfigServiceTest {
+
+  @Mock private IExtensionRegistry extensionRegistry;
+  @Mock private LibraryFactory libraryFactory;
+  @Mock private IConfigurationElement first;
+  @Mock private IConfigurationElement second;
+
+  private final Library objectify = newLibrary("objectify", "com.googlecode.objectify", "objectify");
+  private final Library appEngineApi =
+      newLibrary("appengine-api", "com.google.appengine", "appengine-api-1.0-sdk");
+
+  private LibraryConfigService service;
+
+  @Before
+  public void setUp() throws LibraryFactoryException {
+    when(extensionRegistry.getConfigurationElementsFor(ILibraryConfigService.LIBRARIES_EXTENSION_POINT))
+      .thenReturn(new IConfigurationElement[] { first, second });
+    doReturn(appEngineApi).when(libraryFactory).create(first);
+    doReturn(objectify).when(libraryFactory).create(second);
+    service = new LibraryConfigService(libraryFactory);
+  }
+
+  @Test
+  public void testGetLibrary_notInitialized() {
+    assertThat(service.getLibrary("appengine-api"), nullValue());
+  }
+
+  @Test
+  public void testGetLibrary() {
+    service.initialize(extensionRegistry);
+    assertThat(service.getLibrary("appengine-api"), sameInstance(appEngineApi));
+    assertThat(service.getLibrary("objectify"), sameInstance(objectify));
+    assertThat(service.getLibrary("unknown"), nullValue());
+  }
+
+  @Test
+  public void testGetLibraries_declarationOrder() {
+    service.initialize(extensionRegistry);
+    assertThat(service.getLibraries(), is(Arrays.asList(appEngineApi, objectify)));
+  }
+
+  @Test(expected = UnsupportedOperationException.class)
+  public void testGetLibraries_immutable() {
+    service.initialize(extensionRegistry);
+    service.getLibraries().clear();
+  }
+
+  @Test
+  public void testGetLibrariesContaining() {
+    service.initialize(extensionRegistry);
+    List<Library> libraries = service.getLibrariesContaining("com.googlecode.objectify", "objectify");
+    assertThat(libraries, is(Collections.singletonList(objectify)));
+    assertThat(service.getLibrariesContaining("com.googlecode.objectify", "other").size(), is(0));
+  }
+
+  @Test
+  public void testParsedOnlyOnce() throws LibraryFactoryException {
+    service.initialize(extensionRegistry);
+    service.getLibrary("appengine-api");
+    service.getLibrary("objectify");
+    service.getLibraries();
+    verify(libraryFactory, times(2)).create(any(IConfigurationElement.class));
+  }
+
+  @Test
+  public void testLibraryFactoryErrorDoesNotPreventOtherLibraries() throws LibraryFactoryException {
+    doThrow(LibraryFactoryException.class).when(libraryFactory).create(first);
+    service.initialize(extensionRegistry);
+    assertThat(service.getLibrary("appengine-api"), nullValue());
+    assertThat(service.getLibrary("objectify"), sameInstance(objectify));
+  }
+
+  @Test
+  public void testRegistryChangeReloadsLibraries() {
+    service.initialize(extensionRegistry);
+    verify(extensionRegistry).addListener(service, ILibraryConfigService.LIBRARIES_EXTENSION_POINT);
+
+    when(extensionRegistry.getConfigurationElementsFor(anyString()))
+      .thenReturn(new IConfigurationElement[] { second });
+    service.removed(new IExtension[0]);
+    assertThat(service.getLibrary("appengine-api"), nullValue());
+    assertThat(service.getLibraries(), is(Collections.singletonList(objectify)));
+  }
+
+  @Test
+  public void testRegistryChangeNotifiesCatalogListeners() {
+    final List<Library> librariesSeenByListener = new ArrayList<>();
+    ILibraryConfigService.CatalogListener listener = new ILibraryConfigService.CatalogListener() {
+      @Override
+      public void librariesChanged() {
+        librariesSeenByListener.addAll(service.getLibraries());
+      }
+    };
+    service.initialize(extensionRegistry);
+    service.addCatalogListener(listener);
+    service.addCatalogListener(listener);
+
+    when(extensionRegistry.getConfigurationElementsFor(anyString()))
+      .thenReturn(new IConfigurationElement[] { second });
+    service.added(new IExtension[0]);
+    // notified once, after the new definitions are in place
+    assertThat(librariesSeenByListener, is(Collections.singletonList(objectify)));
+
+    service.removeCatalogListener(listener);
+    service.removed(new IExtension[0]);
+    assertThat(librariesSeenByListener.size(), is(1));
+  }
+
+  @Test
+  public void testDeactivateRemovesListener() {
+    service.initialize(extensionRegistry);
+    service.deactivate();
+    verify(extensionRegistry).removeListener(service);
+  }
+
+  private static Library newLibrary(String id, String groupId, String artifactId) {
+    Library library = new Library(id);
+    library.setLibraryFiles(
+        Collections.singletonList(new LibraryFile(new MavenCoordinates(groupId, artifactId))));
+    return library;
+  }
+}
@@ -16,8 +16,12 @@
 
 package com.google.cloud.tools.eclipse.appengine.libraries.persistence;
 
+import static org.junit.Assert.assertArrayEquals;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
 import static org.mockito.Matchers.any;
 import static org.mockito.Matchers.anyBoolean;
 import static org.mockito.Mockito.when;
@@ -26,11 +30,11 @@ import com.google.cloud.tools.eclipse.appengine.libraries.LibraryClasspathContai
 import com.google.cloud.tools.eclipse.appengine.libraries.persistence.LibraryClasspathContainerSerializer.ArtifactBaseLocationProvider;
 import com.google.cloud.tools.eclipse.appengine.libraries.persistence.LibraryClasspathContainerSerializer.LibraryContainerStateLocationProvider;
 import com.google.common.base.Charsets;
-import com.google.gson.JsonParser;
-import java.io.FileReader;
+import java.io.File;
 import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
 import org.eclipse.core.runtime.CoreException;
 import org.eclipse.core.runtime.IPath;
 import org.eclipse.core.runtime.Path;
@@ -145,9 +149,94 @@ public class LibraryClasspathContainerSerializerTest {
         new LibraryClasspathContainerSerializer(stateLocationProvider,
                                                 artifactBaseLocationProvider);
     serializer.saveContainer(javaProject, container);
-    // use JsonObject.equals()
-    assertEquals(new JsonParser().parse(SERIALIZED_CONTAINER),
-                 new JsonParser().parse(new FileReader(stateFilePath.toFile())));
+    String content = new String(Files.readAllBytes(stateFilePath.toFile().toPath()), Charsets.UTF_8);
+    assertTrue(content.startsWith("{\"version\":" + ContainerStateFormat.FORMAT_VERSION + ","));
+    assertFalse(content.contains("\n"));
+    // the jar path is stored relative to the artifact base location
+    assertTrue(content.contains("\"path\":\"path/to/jar\""));
+    assertFalse(content.contains("/test/path/to/jar"));
+  }
+
+  @Test
+  public void testSaveContainer_replacesStateFileWithoutLeavingTemporaryFiles()
+      throws CoreException, IOException {
+    File stateFile = stateFolder.newFile();
+    Files.write(stateFile.toPath(), SERIALIZED_CONTAINER.getBytes(Charsets.UTF_8));
+    when(stateLocationProvider.getContainerStateFile(any(IJavaProject.class), any(IPath.class), anyBoolean()))
+      .thenReturn(new Path(stateFile.getAbsolutePath()));
+    LibraryClasspathContainerSerializer serializer =
+        new LibraryClasspathContainerSerializer(stateLocationProvider,
+                                                artifactBaseLocationProvider);
+    serializer.saveContainer(javaProject, container);
+    serializer.saveContainer(javaProject, container);
+    assertArrayEquals(new String[] { stateFile.getName() }, stateFolder.getRoot().list());
+  }
+
+  @Test
+  public void testLoadContainer_prettyPrintedStateIsCompactedOnSave()
+      throws CoreException, IOException {
+    Path stateFilePath = new Path(stateFolder.newFile().getAbsolutePath());
+    when(stateLocationProvider.getContainerStateFile(any(IJavaProject.class), any(IPath.class), anyBoolean()))
+      .thenReturn(stateFilePath);
+    Files.write(stateFilePath.toFile().toPath(), SERIALIZED_CONTAINER.getBytes(Charsets.UTF_8));
+    LibraryClasspathContainerSerializer serializer =
+        new LibraryClasspathContainerSerializer(stateLocationProvider,
+                                                artifactBaseLocationProvider);
+    LibraryClasspathContainer fromJson = serializer.loadContainer(javaProject, new Path(CONTAINER_PATH));
+    serializer.saveContainer(javaProject, fromJson);
+    String content = new String(Files.readAllBytes(stateFilePath.toFile().toPath()), Charsets.UTF_8);
+    assertTrue(content.startsWith("{\"version\":"));
+    assertFalse(content.contains("  "));
+    compare(container, serializer.loadContainer(javaProject, new Path(CONTAINER_PATH)));
+  }
+
+  @Test
+  public void testLoadContainer_emptyStateFile() throws CoreException, IOException {
+    when(stateLocationProvider.getContainerStateFile(any(IJavaProject.class), any(IPath.class), anyBoolean()))
+      .thenReturn(new Path(stateFolder.newFile().getAbsolutePath()));
+    LibraryClasspathContainerSerializer serializer =
+        new LibraryClasspathContainerSerializer(stateLocationProvider,
+                                                artifactBaseLocationProvider);
+    assertNull(serializer.loadContainer(javaProject, new Path(CONTAINER_PATH)));
+  }
+
+  @Test
+  public void testLoadContainer_truncatedStateFile() throws CoreException, IOException {
+    Path stateFilePath = new Path(stateFolder.newFile().getAbsolutePath());
+    when(stateLocationProvider.getContainerStateFile(any(IJavaProject.class), any(IPath.class), anyBoolean()))
+      .thenReturn(stateFilePath);
+    LibraryClasspathContainerSerializer serializer =
+        new LibraryClasspathContainerSerializer(stateLocationProvider,
+                                                artifactBaseLocationProvider);
+    serializer.saveContainer(javaProject, container);
+    java.nio.file.Path file = stateFilePath.toFile().toPath();
+    byte[] content = Files.readAllBytes(file);
+    Files.write(file, Arrays.copyOf(content, content.length - 4));
+    try {
+      serializer.loadContainer(javaProject, new Path(CONTAINER_PATH));
+      fail("Expected IOException");
+    } catch (IOException ex) {
+      // expected
+    }
+  }
+
+  @Test
+  public void testLoadContainer_newerFormatVersion() throws CoreException, IOException {
+    Path stateFilePath = new Path(stateFolder.newFile().getAbsolutePath());
+    when(stateLocationProvider.getContainerStateFile(any(IJavaProject.class), any(IPath.class), anyBoolean()))
+      .thenReturn(stateFilePath);
+    String newerState = "{\"version\":" + (ContainerStateFormat.FORMAT_VERSION + 1)
+        + ",\"path\":\"container/path\",\"entries\":[]}";
+    Files.write(stateFilePath.toFile().toPath(), newerState.getBytes(Charsets.UTF_8));
+    LibraryClasspathContainerSerializer serializer =
+        new LibraryClasspathContainerSerializer(stateLocationProvider,
+                                                artifactBaseLocationProvider);
+    try {
+      serializer.loadContainer(javaProject, new Path(CONTAINER_PATH));
+      fail("Expected IOException");
+    } catch (IOException ex) {
+      // expected
+    }
   }
 
   @Test
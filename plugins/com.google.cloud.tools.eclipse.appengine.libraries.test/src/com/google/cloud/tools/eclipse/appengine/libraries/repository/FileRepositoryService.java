@@ -0,0 +1,117 @@
+/*
+ * Copyright 2016 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.cloud.tools.eclipse.appengine.libraries.repository;
+
+import com.google.cloud.tools.eclipse.appengine.libraries.model.LibraryFile;
+import com.google.cloud.tools.eclipse.appengine.libraries.model.MavenCoordinates;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.eclipse.core.runtime.IPath;
+import org.eclipse.core.runtime.Path;
+import org.eclipse.jdt.core.IClasspathEntry;
+import org.eclipse.jdt.core.JavaCore;
+
+/**
+ * {@link ILibraryRepositoryService} that resolves artifacts by copying them from a file based
+ * remote repository into a local repository, both using the Maven repository layout.
+ */
+final class FileRepositoryService implements ILibraryRepositoryService {
+
+  private final File remoteRepository;
+  private final File localRepository;
+  private final long delayMillis;
+  private final AtomicInteger activeResolutions = new AtomicInteger();
+  private final AtomicInteger maximumActiveResolutions = new AtomicInteger();
+  private final AtomicInteger resolutionCount = new AtomicInteger();
+
+  /**
+   * @param delayMillis time each resolution takes in addition to copying the artifact
+   */
+  FileRepositoryService(File remoteRepository, File localRepository, long delayMillis) {
+    this.remoteRepository = remoteRepository;
+    this.localRepository = localRepository;
+    this.delayMillis = delayMillis;
+  }
+
+  /**
+   * Adds an artifact with the given coordinates to the remote repository.
+   */
+  static void deploy(File repository, MavenCoordinates coordinates) throws IOException {
+    File artifact = new File(repository, getRelativePath(coordinates));
+    Files.createDirectories(artifact.getParentFile().toPath());
+    Files.write(artifact.toPath(), coordinates.getArtifactId().getBytes("UTF-8"));
+  }
+
+  static String getRelativePath(MavenCoordinates coordinates) {
+    return coordinates.getGroupId().replace('.', '/') + '/' + coordinates.getArtifactId() + '/'
+        + coordinates.getVersion() + '/' + coordinates.getArtifactId() + '-'
+        + coordinates.getVersion() + '.' + coordinates.getType();
+  }
+
+  @Override
+  public IClasspathEntry getLibraryClasspathEntry(LibraryFile libraryFile)
+      throws LibraryRepositoryServiceException {
+    return JavaCore.newLibraryEntry(resolveArtifact(libraryFile), null, null);
+  }
+
+  @Override
+  public IPath resolveArtifact(LibraryFile libraryFile) throws LibraryRepositoryServiceException {
+    int active = activeResolutions.incrementAndGet();
+    try {
+      resolutionCount.incrementAndGet();
+      while (true) {
+        int maximum = maximumActiveResolutions.get();
+        if (active <= maximum || maximumActiveResolutions.compareAndSet(maximum, active)) {
+          break;
+        }
+      }
+      Thread.sleep(delayMillis);
+      String relativePath = getRelativePath(libraryFile.getMavenCoordinates());
+      File source = new File(remoteRepository, relativePath);
+      if (!source.exists()) {
+        throw new LibraryRepositoryServiceException("Not found: " + relativePath);
+      }
+      File target = new File(localRepository, relativePath);
+      Files.createDirectories(target.getParentFile().toPath());
+      Files.copy(source.toPath(), target.toPath());
+      return new Path(target.getAbsolutePath());
+    } catch (IOException | InterruptedException ex) {
+      throw new LibraryRepositoryServiceException(ex.getMessage(), ex);
+    } finally {
+      activeResolutions.decrementAndGet();
+    }
+  }
+
+  @Override
+  public IClasspathEntry rebuildClasspathEntry(IClasspathEntry classpathEntry) {
+    throw new UnsupportedOperationException();
+  }
+
+  boolean isInLocalRepository(MavenCoordinates coordinates) {
+    return new File(localRepository, getRelativePath(coordinates)).exists();
+  }
+
+  int getMaximumActiveResolutions() {
+    return maximumActiveResolutions.get();
+  }
+
+  int getResolutionCount() {
+    return resolutionCount.get();
+  }
+}
@@ -0,0 +1,164 @@
+/*
+ * Copyright 2016 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.cloud.tools.eclipse.appengine.libraries.repository;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.assertTrue;
+
+import com.google.cloud.tools.eclipse.appengine.libraries.model.LibraryFile;
+import com.google.cloud.tools.eclipse.appengine.libraries.model.MavenCoordinates;
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+import org.eclipse.core.runtime.IStatus;
+import org.eclipse.core.runtime.jobs.ISchedulingRule;
+import org.eclipse.core.runtime.jobs.Job;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class LibraryPrefetchJobTest {
+
+  @Rule public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+  private File remoteRepository;
+  private File localRepository;
+
+  @Before
+  public void setUp() throws IOException {
+    remoteRepository = temporaryFolder.newFolder("remote");
+    localRepository = temporaryFolder.newFolder("local");
+  }
+
+  @Test
+  public void testPrefetch_resolvesIntoLocalRepository() throws Exception {
+    List<LibraryFile> libraryFiles = deployLibraryFiles(5);
+    FileRepositoryService repositoryService =
+        new FileRepositoryService(remoteRepository, localRepository, 0);
+    LibraryPrefetchJob job = new LibraryPrefetchJob(repositoryService, 2);
+    AtomicBoolean completed = new AtomicBoolean();
+
+    job.prefetch(libraryFiles, setWhenRun(completed));
+    job.join();
+
+    assertThat(job.getResult().isOK(), is(true));
+    for (LibraryFile libraryFile : libraryFiles) {
+      assertTrue(repositoryService.isInLocalRepository(libraryFile.getMavenCoordinates()));
+    }
+    assertTrue(completed.get());
+  }
+
+  @Test
+  public void testPrefetch_concurrencyIsBounded() throws Exception {
+    FileRepositoryService repositoryService =
+        new FileRepositoryService(remoteRepository, localRepository, 50);
+    LibraryPrefetchJob job = new LibraryPrefetchJob(repositoryService, 3);
+
+    job.prefetch(deployLibraryFiles(12), null);
+    job.join();
+
+    assertThat(repositoryService.getResolutionCount(), is(12));
+    assertTrue(repositoryService.getMaximumActiveResolutions() <= 3);
+    assertTrue(repositoryService.getMaximumActiveResolutions() > 1);
+  }
+
+  @Test
+  public void testPrefetch_sameFileQueuedOnce() throws Exception {
+    List<LibraryFile> libraryFiles = deployLibraryFiles(2);
+    FileRepositoryService repositoryService =
+        new FileRepositoryService(remoteRepository, localRepository, 0);
+    LibraryPrefetchJob job = new LibraryPrefetchJob(repositoryService, 1);
+    LibraryFile duplicate = newLibraryFile("artifact0");
+
+    // keep the job from running until both requests are queued
+    ISchedulingRule rule = new MutexRule();
+    job.setRule(rule);
+    Job.getJobManager().beginRule(rule, null);
+    try {
+      job.prefetch(libraryFiles, null);
+      job.prefetch(Collections.singletonList(duplicate), null);
+      assertThat(job.getQueuedFileCount(), is(2));
+    } finally {
+      Job.getJobManager().endRule(rule);
+    }
+    job.join();
+
+    assertThat(repositoryService.getResolutionCount(), is(2));
+    assertThat(job.getQueuedFileCount(), is(0));
+  }
+
+  @Test
+  public void testPrefetch_failureSkipsCompletionCallback() throws Exception {
+    List<LibraryFile> libraryFiles = new ArrayList<>(deployLibraryFiles(2));
+    libraryFiles.add(newLibraryFile("missing"));
+    FileRepositoryService repositoryService =
+        new FileRepositoryService(remoteRepository, localRepository, 0);
+    LibraryPrefetchJob job = new LibraryPrefetchJob(repositoryService, 2);
+    AtomicBoolean completed = new AtomicBoolean();
+
+    job.prefetch(libraryFiles, setWhenRun(completed));
+    job.join();
+
+    // prefetch failures are not reported, the files are resolved again when used
+    assertThat(job.getResult().getSeverity(), is(IStatus.OK));
+    assertTrue(repositoryService.isInLocalRepository(libraryFiles.get(0).getMavenCoordinates()));
+    assertTrue(repositoryService.isInLocalRepository(libraryFiles.get(1).getMavenCoordinates()));
+    assertThat(completed.get(), is(false));
+  }
+
+  private List<LibraryFile> deployLibraryFiles(int count) throws IOException {
+    LibraryFile[] libraryFiles = new LibraryFile[count];
+    for (int i = 0; i < count; i++) {
+      libraryFiles[i] = newLibraryFile("artifact" + i);
+      FileRepositoryService.deploy(remoteRepository, libraryFiles[i].getMavenCoordinates());
+    }
+    return Arrays.asList(libraryFiles);
+  }
+
+  private static LibraryFile newLibraryFile(String artifactId) {
+    MavenCoordinates coordinates = new MavenCoordinates("com.example", artifactId);
+    coordinates.setVersion("1.0");
+    return new LibraryFile(coordinates);
+  }
+
+  private static Runnable setWhenRun(final AtomicBoolean flag) {
+    return new Runnable() {
+      @Override
+      public void run() {
+        flag.set(true);
+      }
+    };
+  }
+
+  private static final class MutexRule implements ISchedulingRule {
+    @Override
+    public boolean contains(ISchedulingRule rule) {
+      return rule == this;
+    }
+
+    @Override
+    public boolean isConflicting(ISchedulingRule rule) {
+      return rule == this;
+    }
+  }
+}
@@ -0,0 +1,160 @@
+/*
+ * Copyright 2016 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.cloud.tools.eclipse.appengine.libraries.repository;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.notNullValue;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.google.cloud.tools.eclipse.appengine.libraries.config.ILibraryConfigService;
+import com.google.cloud.tools.eclipse.appengine.libraries.model.Library;
+import com.google.cloud.tools.eclipse.appengine.libraries.model.LibraryFile;
+import com.google.cloud.tools.eclipse.appengine.libraries.model.MavenCoordinates;
+import java.io.File;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Collections;
+import org.eclipse.core.runtime.preferences.IEclipsePreferences;
+import org.eclipse.core.runtime.preferences.InstanceScope;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.runners.MockitoJUnitRunner;
+import org.osgi.service.prefs.BackingStoreException;
+
+@RunWith(MockitoJUnitRunner.class)
+public class LibraryPrefetchServiceTest {
+
+  @Mock private ILibraryConfigService libraryConfigService;
+  @Rule public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+  private final Library appEngineApi = new Library("appengine-api");
+  private final Library objectify = new Library("objectify");
+  private final Library endpoints = new Library("appengine-endpoints");
+  private IEclipsePreferences preferences;
+  private File remoteRepository;
+  private FileRepositoryService repositoryService;
+
+  @Before
+  public void setUp() throws IOException {
+    preferences = InstanceScope.INSTANCE.getNode(getClass().getName());
+    remoteRepository = temporaryFolder.newFolder("remote");
+    appEngineApi.setLibraryFiles(Collections.singletonList(newLibraryFile("appengine-api-1.0-sdk")));
+    objectify.setLibraryFiles(Arrays.asList(newLibraryFile("objectify"), newLibraryFile("guava")));
+    objectify.setLibraryDependencies(Collections.singletonList("appengine-api"));
+    endpoints.setLibraryFiles(Collections.singletonList(newLibraryFile("appengine-endpoints")));
+    when(libraryConfigService.getLibraries())
+      .thenReturn(Arrays.asList(appEngineApi, objectify, endpoints));
+    when(libraryConfigService.getLibrary("appengine-api")).thenReturn(appEngineApi);
+    when(libraryConfigService.getLibrary("objectify")).thenReturn(objectify);
+    when(libraryConfigService.getLibrary("appengine-endpoints")).thenReturn(endpoints);
+    repositoryService =
+        new FileRepositoryService(remoteRepository, temporaryFolder.newFolder("local"), 0);
+  }
+
+  @After
+  public void tearDown() throws BackingStoreException {
+    preferences.removeNode();
+  }
+
+  @Test
+  public void testInitialize_firstStartPrefetchesAllLibraries() throws Exception {
+    LibraryPrefetchService service = newService();
+    service.getJob().join();
+
+    assertThat(repositoryService.getResolutionCount(), is(4));
+    assertTrue(repositoryService.isInLocalRepository(
+        objectify.getLibraryFiles().get(1).getMavenCoordinates()));
+    assertThat(preferences.get(LibraryPrefetchService.PREFETCHED_CATALOG, null), notNullValue());
+    verify(libraryConfigService).addCatalogListener(service);
+  }
+
+  @Test
+  public void testInitialize_unchangedCatalogIsNotPrefetchedAgain() throws Exception {
+    newService().getJob().join();
+    LibraryPrefetchService secondSession = newService();
+    secondSession.getJob().join();
+
+    assertThat(repositoryService.getResolutionCount(), is(4));
+  }
+
+  @Test
+  public void testInitialize_incompletePrefetchIsNotRecorded() throws Exception {
+    MavenCoordinates missing = new MavenCoordinates("com.example", "missing");
+    missing.setVersion("1.0");
+    endpoints.setLibraryFiles(Collections.singletonList(new LibraryFile(missing)));
+
+    newService().getJob().join();
+
+    assertThat(preferences.get(LibraryPrefetchService.PREFETCHED_CATALOG, null),
+               is((String) null));
+  }
+
+  @Test
+  public void testLibrariesChanged_prefetchesNewLibraries() throws Exception {
+    LibraryPrefetchService service = newService();
+    service.getJob().join();
+
+    Library newLibrary = new Library("new-library");
+    newLibrary.setLibraryFiles(Collections.singletonList(newLibraryFile("new-artifact")));
+    when(libraryConfigService.getLibraries())
+      .thenReturn(Arrays.asList(appEngineApi, objectify, endpoints, newLibrary));
+    service.librariesChanged();
+    service.getJob().join();
+
+    assertTrue(repositoryService.isInLocalRepository(
+        newLibrary.getLibraryFiles().get(0).getMavenCoordinates()));
+  }
+
+  @Test
+  public void testPrefetch_includesLibraryDependencies() throws Exception {
+    // mark the catalog as prefetched so that only the requested libraries are resolved
+    newService().getJob().join();
+    repositoryService =
+        new FileRepositoryService(remoteRepository, temporaryFolder.newFolder("other"), 0);
+    LibraryPrefetchService service = newService();
+    service.getJob().join();
+
+    service.prefetch(Arrays.asList("objectify", "unknown"));
+    service.getJob().join();
+
+    assertThat(repositoryService.getResolutionCount(), is(3));
+    assertTrue(repositoryService.isInLocalRepository(
+        appEngineApi.getLibraryFiles().get(0).getMavenCoordinates()));
+  }
+
+  private LibraryPrefetchService newService() {
+    LibraryPrefetchService service =
+        new LibraryPrefetchService(libraryConfigService, repositoryService, preferences);
+    service.initialize();
+    return service;
+  }
+
+  private LibraryFile newLibraryFile(String artifactId) throws IOException {
+    MavenCoordinates coordinates = new MavenCoordinates("com.example", artifactId);
+    coordinates.setVersion("1.0");
+    FileRepositoryService.deploy(remoteRepository, coordinates);
+    return new LibraryFile(coordinates);
+  }
+}
@@ -18,12 +18,19 @@ package com.google.cloud.tools.eclipse.appengine.libraries.repository;
 
 import static org.hamcrest.CoreMatchers.allOf;
 import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.nullValue;
 import static org.hamcrest.beans.HasPropertyWithValue.hasProperty;
 import static org.hamcrest.collection.IsArrayContaining.hasItemInArray;
+import static org.junit.Assert.assertArrayEquals;
 import static org.junit.Assert.assertThat;
+import static org.junit.Assert.fail;
 import static org.mockito.Matchers.any;
 import static org.mockito.Matchers.anyListOf;
+import static org.mockito.Matchers.eq;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 import com.google.cloud.tools.eclipse.appengine.libraries.model.LibraryFile;
@@ -32,14 +39,21 @@ import com.google.cloud.tools.eclipse.appengine.libraries.repository.M2Repositor
 import com.google.cloud.tools.eclipse.util.status.StatusUtil;
 import java.io.File;
 import java.net.URI;
+import java.nio.file.Files;
+import java.util.concurrent.Callable;
 import org.apache.maven.artifact.Artifact;
 import org.apache.maven.artifact.repository.ArtifactRepository;
 import org.eclipse.core.runtime.CoreException;
 import org.eclipse.core.runtime.IPath;
 import org.eclipse.core.runtime.IProgressMonitor;
+import org.eclipse.core.runtime.Path;
 import org.eclipse.jdt.core.IClasspathAttribute;
+import org.eclipse.jdt.core.IClasspathEntry;
+import org.junit.Rule;
 import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
 import org.junit.runner.RunWith;
+import org.mockito.ArgumentCaptor;
 import org.mockito.Mock;
 import org.mockito.runners.MockitoJUnitRunner;
 
@@ -50,6 +64,9 @@ public class M2RepositoryServiceTest {
 
   @Mock private MavenHelper mavenHelper;
   @Mock private MavenCoordinatesClasspathAttributesTransformer transformer;
+  @Mock private SourceDownloadManager sourceDownloadManager;
+
+  @Rule public TemporaryFolder temporaryFolder = new TemporaryFolder();
 
   private M2RepositoryService m2RepositoryService;
   
@@ -134,6 +151,121 @@ public class M2RepositoryServiceTest {
                                                             is("http://example.com/javadoc")))));
   }
 
+  @Test
+  public void getLibraryClasspathEntry_resolvesSameCoordinatesOnce() throws Exception {
+    M2RepositoryService m2RepositoryService = new M2RepositoryService();
+    m2RepositoryService.setMavenHelper(mavenHelper);
+    m2RepositoryService.setTransformer(transformer);
+    Artifact artifact = mock(Artifact.class);
+    when(artifact.getFile()).thenReturn(temporaryFolder.newFile("artifactId.jar"));
+    when(mavenHelper.resolveArtifact(any(IProgressMonitor.class),
+                                     any(MavenCoordinates.class),
+                                     anyListOf(ArtifactRepository.class))).thenReturn(artifact);
+
+    m2RepositoryService.getLibraryClasspathEntry(new LibraryFile(new MavenCoordinates("groupId", "artifactId")));
+    m2RepositoryService.getLibraryClasspathEntry(new LibraryFile(new MavenCoordinates("groupId", "artifactId")));
+
+    verify(mavenHelper, times(1)).resolveArtifact(any(IProgressMonitor.class),
+                                                  any(MavenCoordinates.class),
+                                                  anyListOf(ArtifactRepository.class));
+  }
+
+  @Test
+  public void getLibraryClasspathEntry_cachesFailure() throws Exception {
+    M2RepositoryService m2RepositoryService = new M2RepositoryService();
+    m2RepositoryService.setMavenHelper(mavenHelper);
+    when(mavenHelper.resolveArtifact(any(IProgressMonitor.class), any(MavenCoordinates.class),
+                                     anyListOf(ArtifactRepository.class)))
+      .thenThrow(testCoreException());
+
+    for (int i = 0; i < 2; i++) {
+      try {
+        m2RepositoryService.getLibraryClasspathEntry(new LibraryFile(new MavenCoordinates("groupId", "artifactId")));
+        fail("expected LibraryRepositoryServiceException");
+      } catch (LibraryRepositoryServiceException ex) {
+        // expected
+      }
+    }
+    verify(mavenHelper, times(1)).resolveArtifact(any(IProgressMonitor.class),
+                                                  any(MavenCoordinates.class),
+                                                  anyListOf(ArtifactRepository.class));
+  }
+
+  @Test
+  public void getLibraryClasspathEntry_attachesLocalSourceJar() throws Exception {
+    M2RepositoryService m2RepositoryService = newServiceWithSourceDownloads();
+    File jar = temporaryFolder.newFile("artifactId-1.0.jar");
+    File sourceJar = temporaryFolder.newFile("artifactId-1.0-sources.jar");
+    resolveTo(jar);
+
+    IClasspathEntry entry = m2RepositoryService.getLibraryClasspathEntry(
+        new LibraryFile(new MavenCoordinates("groupId", "artifactId")));
+
+    assertThat(entry.getSourceAttachmentPath(), is((IPath) new Path(sourceJar.getAbsolutePath())));
+    verify(sourceDownloadManager, never()).download(any(IPath.class), any(Callable.class));
+  }
+
+  @Test
+  public void getLibraryClasspathEntry_downloadsMissingSourceJarInBackground() throws Exception {
+    M2RepositoryService m2RepositoryService = newServiceWithSourceDownloads();
+    File jar = temporaryFolder.newFile("artifactId-1.0.jar");
+    resolveTo(jar);
+
+    IClasspathEntry entry = m2RepositoryService.getLibraryClasspathEntry(
+        new LibraryFile(new MavenCoordinates("groupId", "artifactId")));
+
+    assertThat(entry.getSourceAttachmentPath(), nullValue());
+    verify(sourceDownloadManager).download(eq((IPath) new Path(jar.getAbsolutePath())),
+                                           any(Callable.class));
+  }
+
+  @Test
+  public void getLibraryClasspathEntry_downloadsSourceUri() throws Exception {
+    M2RepositoryService m2RepositoryService = newServiceWithSourceDownloads();
+    File jar = temporaryFolder.newFile("artifactId-1.0.jar");
+    resolveTo(jar);
+    File remoteSources = temporaryFolder.newFile("remote-sources.zip");
+    Files.write(remoteSources.toPath(), new byte[] {1, 2, 3});
+    LibraryFile libraryFile = new LibraryFile(new MavenCoordinates("groupId", "artifactId"));
+    libraryFile.setSourceUri(remoteSources.toURI());
+
+    IClasspathEntry entry = m2RepositoryService.getLibraryClasspathEntry(libraryFile);
+    assertThat(entry.getSourceAttachmentPath(), nullValue());
+
+    @SuppressWarnings("unchecked")
+    ArgumentCaptor<Callable<File>> download =
+        (ArgumentCaptor<Callable<File>>) (ArgumentCaptor<?>) ArgumentCaptor.forClass(Callable.class);
+    verify(sourceDownloadManager).download(eq((IPath) new Path(jar.getAbsolutePath())),
+                                           download.capture());
+    File downloaded = download.getValue().call();
+    assertArrayEquals(new byte[] {1, 2, 3}, Files.readAllBytes(downloaded.toPath()));
+
+    // the downloaded file is attached right away from now on
+    entry = m2RepositoryService.getLibraryClasspathEntry(libraryFile);
+    assertThat(entry.getSourceAttachmentPath(), is((IPath) new Path(downloaded.getAbsolutePath())));
+  }
+
+  @Test
+  public void resolveArtifact_doesNotDownloadSources() throws Exception {
+    M2RepositoryService m2RepositoryService = newServiceWithSourceDownloads();
+    File jar = temporaryFolder.newFile("artifactId-1.0.jar");
+    resolveTo(jar);
+
+    IPath path = m2RepositoryService.resolveArtifact(
+        new LibraryFile(new MavenCoordinates("groupId", "artifactId")));
+
+    assertThat(path, is((IPath) new Path(jar.getAbsolutePath())));
+    verify(sourceDownloadManager, never()).download(any(IPath.class), any(Callable.class));
+  }
+
+  @Test
+  public void testGetSourceJarLocation() {
+    File sourceJar = M2RepositoryService.getSourceJarLocation(
+        new File("/repo/com/example/artifactId/1.0/artifactId-1.0.jar"));
+
+    assertThat(sourceJar, is(new File("/repo/com/example/artifactId/1.0/artifactId-1.0-sources.jar")));
+  }
+
   @Test(expected = IllegalStateException.class)
   public void testMavenHelperMustBeSet() throws LibraryRepositoryServiceException {
     new M2RepositoryService().getLibraryClasspathEntry(new LibraryFile(new MavenCoordinates("groupId", "artifactId")));
@@ -149,6 +281,23 @@ public class M2RepositoryServiceTest {
     m2RepositoryService.getLibraryClasspathEntry(new LibraryFile(mavenCoordinates));
   }
 
+  private M2RepositoryService newServiceWithSourceDownloads() throws Exception {
+    M2RepositoryService m2RepositoryService = new M2RepositoryService();
+    m2RepositoryService.setMavenHelper(mavenHelper);
+    m2RepositoryService.setTransformer(transformer);
+    m2RepositoryService.setSourceDownloadManager(sourceDownloadManager,
+                                                 temporaryFolder.newFolder("sources"));
+    return m2RepositoryService;
+  }
+
+  private void resolveTo(File jar) throws CoreException {
+    Artifact artifact = mock(Artifact.class);
+    when(artifact.getFile()).thenReturn(jar);
+    when(mavenHelper.resolveArtifact(any(IProgressMonitor.class),
+                                     any(MavenCoordinates.class),
+                                     anyListOf(ArtifactRepository.class))).thenReturn(artifact);
+  }
+
   private Artifact getMockArtifactWithJarPath() {
     Artifact artifact = mock(Artifact.class);
     File file = new File(FAKE_PATH);
@@ -0,0 +1,177 @@
+/*
+ * Copyright 2016 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.cloud.tools.eclipse.appengine.libraries.repository;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.sameInstance;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.fail;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import com.google.cloud.tools.eclipse.appengine.libraries.model.MavenCoordinates;
+import com.google.cloud.tools.eclipse.util.status.StatusUtil;
+import com.google.common.base.Ticker;
+import java.io.File;
+import java.io.IOException;
+import java.util.concurrent.Callable;
+import java.util.concurrent.TimeUnit;
+import org.apache.maven.artifact.Artifact;
+import org.eclipse.core.runtime.CoreException;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class ResolvedArtifactCacheTest {
+
+  @Rule public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+  private final FakeTicker ticker = new FakeTicker();
+  private final ResolvedArtifactCache cache = new ResolvedArtifactCache(ticker);
+  private final MavenCoordinates coordinates = new MavenCoordinates("groupId", "artifactId");
+  private CountingResolver resolver;
+
+  @Before
+  public void setUp() throws IOException {
+    resolver = new CountingResolver(temporaryFolder.newFile("artifactId.jar"));
+  }
+
+  @Test
+  public void testResolve_cached() throws CoreException {
+    Artifact first = cache.resolve(coordinates, resolver);
+    Artifact second = cache.resolve(new MavenCoordinates("groupId", "artifactId"), resolver);
+    assertThat(second, sameInstance(first));
+    assertThat(resolver.count, is(1));
+  }
+
+  @Test
+  public void testResolve_differentVersion() throws CoreException {
+    cache.resolve(coordinates, resolver);
+    MavenCoordinates otherVersion = new MavenCoordinates("groupId", "artifactId");
+    otherVersion.setVersion("1.0");
+    cache.resolve(otherVersion, resolver);
+    assertThat(resolver.count, is(2));
+  }
+
+  @Test
+  public void testResolve_differentRepository() throws CoreException {
+    cache.resolve(coordinates, resolver);
+    MavenCoordinates otherRepository = new MavenCoordinates("groupId", "artifactId");
+    otherRepository.setRepository("http://example.com");
+    cache.resolve(otherRepository, resolver);
+    assertThat(resolver.count, is(2));
+  }
+
+  @Test
+  public void testResolve_expires() throws CoreException {
+    cache.resolve(coordinates, resolver);
+    ticker.advance(ResolvedArtifactCache.RESOLVED_EXPIRATION_MINUTES, TimeUnit.MINUTES);
+    cache.resolve(coordinates, resolver);
+    assertThat(resolver.count, is(2));
+  }
+
+  @Test
+  public void testResolve_fileDeleted() throws CoreException {
+    cache.resolve(coordinates, resolver);
+    resolver.file.delete();
+    cache.resolve(coordinates, resolver);
+    assertThat(resolver.count, is(2));
+  }
+
+  @Test
+  public void testResolve_failureCachedBriefly() throws CoreException {
+    resolver.failure = new CoreException(StatusUtil.error(this, "test exception"));
+    resolveAndExpectFailure();
+    resolveAndExpectFailure();
+    assertThat(resolver.count, is(1));
+
+    ticker.advance(ResolvedArtifactCache.FAILED_EXPIRATION_SECONDS, TimeUnit.SECONDS);
+    resolver.failure = null;
+    cache.resolve(coordinates, resolver);
+    assertThat(resolver.count, is(2));
+  }
+
+  @Test
+  public void testInvalidate() throws CoreException {
+    cache.resolve(coordinates, resolver);
+    cache.invalidate("groupId", "otherArtifactId");
+    cache.resolve(coordinates, resolver);
+    assertThat(resolver.count, is(1));
+
+    cache.invalidate("groupId", "artifactId");
+    cache.resolve(coordinates, resolver);
+    assertThat(resolver.count, is(2));
+  }
+
+  @Test
+  public void testSetLocalRepository_changeInvalidates() throws CoreException {
+    cache.setLocalRepository(new File("/repository"));
+    cache.resolve(coordinates, resolver);
+    cache.setLocalRepository(new File("/repository"));
+    cache.setLocalRepository(null);
+    cache.resolve(coordinates, resolver);
+    assertThat(resolver.count, is(1));
+
+    cache.setLocalRepository(new File("/other/repository"));
+    cache.resolve(coordinates, resolver);
+    assertThat(resolver.count, is(2));
+  }
+
+  private void resolveAndExpectFailure() {
+    try {
+      cache.resolve(coordinates, resolver);
+      fail("expected CoreException");
+    } catch (CoreException ex) {
+      // expected
+    }
+  }
+
+  private static class CountingResolver implements Callable<Artifact> {
+    private final File file;
+    private CoreException failure;
+    private int count;
+
+    private CountingResolver(File file) {
+      this.file = file;
+    }
+
+    @Override
+    public Artifact call() throws CoreException {
+      count++;
+      if (failure != null) {
+        throw failure;
+      }
+      Artifact artifact = mock(Artifact.class);
+      when(artifact.getFile()).thenReturn(file);
+      return artifact;
+    }
+  }
+
+  private static class FakeTicker extends Ticker {
+    private long nanos;
+
+    @Override
+    public long read() {
+      return nanos;
+    }
+
+    private void advance(long duration, TimeUnit unit) {
+      nanos += unit.toNanos(duration);
+    }
+  }
+}
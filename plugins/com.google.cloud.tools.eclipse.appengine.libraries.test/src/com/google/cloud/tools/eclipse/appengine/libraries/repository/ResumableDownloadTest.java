@@ -0,0 +1,213 @@
+/*
+ * Copyright 2016 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.cloud.tools.eclipse.appengine.libraries.repository;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class ResumableDownloadTest {
+
+  @Rule public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+  private final byte[] content = new byte[40000];
+  private TestServer server;
+  private File target;
+  private File partialFile;
+
+  @Before
+  public void setUp() throws IOException {
+    new Random(1).nextBytes(content);
+    server = new TestServer(content);
+    target = new File(temporaryFolder.getRoot(), "sources/artifact-sources.jar");
+    partialFile = new File(target.getPath() + ResumableDownload.PARTIAL_FILE_SUFFIX);
+  }
+
+  @After
+  public void tearDown() throws IOException {
+    server.close();
+  }
+
+  @Test
+  public void testDownload() throws IOException {
+    ResumableDownload.download(server.getUrl(), target);
+
+    assertArrayEquals(content, Files.readAllBytes(target.toPath()));
+    assertFalse(partialFile.exists());
+    assertEquals(1, server.rangeHeaders.size());
+    assertEquals(null, server.rangeHeaders.get(0));
+  }
+
+  @Test
+  public void testDownload_resumesInterruptedDownload() throws IOException {
+    server.truncateNextResponseAfter = 10000;
+    try {
+      ResumableDownload.download(server.getUrl(), target);
+      fail("expected IOException");
+    } catch (IOException ex) {
+      // expected
+    }
+    assertFalse(target.exists());
+    long downloaded = partialFile.length();
+    assertTrue(downloaded > 0);
+
+    ResumableDownload.download(server.getUrl(), target);
+
+    assertArrayEquals(content, Files.readAllBytes(target.toPath()));
+    assertFalse(partialFile.exists());
+    assertEquals("bytes=" + downloaded + "-", server.rangeHeaders.get(1));
+  }
+
+  @Test
+  public void testDownload_restartsIfRangeNotSupported() throws IOException {
+    server.supportsRange = false;
+    Files.createDirectories(target.getParentFile().toPath());
+    Files.write(partialFile.toPath(), new byte[] {1, 2, 3});
+
+    ResumableDownload.download(server.getUrl(), target);
+
+    assertArrayEquals(content, Files.readAllBytes(target.toPath()));
+    assertEquals("bytes=3-", server.rangeHeaders.get(0));
+  }
+
+  @Test
+  public void testDownload_httpError() throws IOException {
+    try {
+      ResumableDownload.download(new URL(server.getUrl(), "/missing"), target);
+      fail("expected IOException");
+    } catch (IOException ex) {
+      // expected
+    }
+    assertFalse(target.exists());
+  }
+
+  @Test
+  public void testDownload_fileUrl() throws IOException {
+    File source = temporaryFolder.newFile("source.jar");
+    Files.write(source.toPath(), content);
+
+    ResumableDownload.download(source.toURI().toURL(), target);
+
+    assertArrayEquals(content, Files.readAllBytes(target.toPath()));
+  }
+
+  /**
+   * Minimal HTTP server for a single resource at <code>/content</code>, with support for
+   * <code>Range: bytes=n-</code> requests.
+   */
+  private static class TestServer implements Runnable {
+
+    private static final Pattern RANGE = Pattern.compile("bytes=(\\d+)-");
+
+    private final ServerSocket serverSocket;
+    private final byte[] content;
+    private final List<String> rangeHeaders = new CopyOnWriteArrayList<>();
+    private volatile boolean supportsRange = true;
+    private volatile int truncateNextResponseAfter = -1;
+
+    private TestServer(byte[] content) throws IOException {
+      this.content = content;
+      serverSocket = new ServerSocket(0, 0, InetAddress.getLoopbackAddress());
+      Thread thread = new Thread(this, "test-http-server");
+      thread.setDaemon(true);
+      thread.start();
+    }
+
+    private URL getUrl() throws IOException {
+      return new URL("http", "127.0.0.1", serverSocket.getLocalPort(), "/content");
+    }
+
+    private void close() throws IOException {
+      serverSocket.close();
+    }
+
+    @Override
+    public void run() {
+      while (!serverSocket.isClosed()) {
+        try (Socket socket = serverSocket.accept()) {
+          handle(socket);
+        } catch (IOException ex) {
+          // closed, or the client went away
+        }
+      }
+    }
+
+    private void handle(Socket socket) throws IOException {
+      BufferedReader reader = new BufferedReader(
+          new InputStreamReader(socket.getInputStream(), StandardCharsets.US_ASCII));
+      String requestLine = reader.readLine();
+      String range = null;
+      for (String line = reader.readLine(); line != null && !line.isEmpty();
+          line = reader.readLine()) {
+        if (line.toLowerCase().startsWith("range:")) {
+          range = line.substring("range:".length()).trim();
+        }
+      }
+      rangeHeaders.add(range);
+
+      OutputStream output = socket.getOutputStream();
+      if (requestLine == null || !requestLine.startsWith("GET /content ")) {
+        output.write(("HTTP/1.1 404 Not Found\r\nContent-Length: 0\r\nConnection: close\r\n\r\n")
+            .getBytes(StandardCharsets.US_ASCII));
+        return;
+      }
+      int offset = 0;
+      Matcher matcher = range == null ? null : RANGE.matcher(range);
+      String header;
+      if (supportsRange && matcher != null && matcher.matches()) {
+        offset = Integer.parseInt(matcher.group(1));
+        header = "HTTP/1.1 206 Partial Content\r\nContent-Range: bytes " + offset + "-"
+            + (content.length - 1) + "/" + content.length + "\r\n";
+      } else {
+        header = "HTTP/1.1 200 OK\r\n";
+      }
+      int length = content.length - offset;
+      header += "Content-Length: " + length + "\r\nConnection: close\r\n\r\n";
+      output.write(header.getBytes(StandardCharsets.US_ASCII));
+      if (truncateNextResponseAfter >= 0) {
+        length = Math.min(length, truncateNextResponseAfter);
+        truncateNextResponseAfter = -1;
+      }
+      output.write(content, offset, length);
+      output.flush();
+    }
+  }
+}
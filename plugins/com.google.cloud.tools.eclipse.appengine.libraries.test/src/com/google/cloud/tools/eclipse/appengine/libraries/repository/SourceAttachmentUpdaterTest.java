@@ -0,0 +1,130 @@
+/*
+ * Copyright 2016 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.cloud.tools.eclipse.appengine.libraries.repository;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.hamcrest.CoreMatchers.sameInstance;
+import static org.junit.Assert.assertThat;
+import static org.mockito.Matchers.any;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+
+import com.google.cloud.tools.eclipse.appengine.libraries.LibraryClasspathContainer;
+import com.google.cloud.tools.eclipse.appengine.libraries.TestProject;
+import com.google.cloud.tools.eclipse.appengine.libraries.persistence.LibraryClasspathContainerSerializer;
+import java.util.Collections;
+import org.eclipse.core.resources.ResourcesPlugin;
+import org.eclipse.core.runtime.IPath;
+import org.eclipse.core.runtime.NullProgressMonitor;
+import org.eclipse.core.runtime.Path;
+import org.eclipse.core.runtime.jobs.ISchedulingRule;
+import org.eclipse.jdt.core.IClasspathAttribute;
+import org.eclipse.jdt.core.IClasspathContainer;
+import org.eclipse.jdt.core.IClasspathEntry;
+import org.eclipse.jdt.core.IJavaProject;
+import org.eclipse.jdt.core.JavaCore;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.runners.MockitoJUnitRunner;
+
+@RunWith(MockitoJUnitRunner.class)
+public class SourceAttachmentUpdaterTest {
+
+  private static final String TEST_CONTAINER_PATH_PREFIX = "test.appengine.libraries";
+  private static final String TEST_LIBRARY_PATH = TEST_CONTAINER_PATH_PREFIX + "/libraryId";
+
+  @Mock private LibraryClasspathContainerSerializer serializer;
+
+  @Rule
+  public TestProject testProject = new TestProject().withClasspathContainerPath(TEST_LIBRARY_PATH);
+
+  private SourceAttachmentUpdater updater;
+  private LibraryClasspathContainer container;
+
+  @Before
+  public void setUp() throws Exception {
+    updater = new SourceAttachmentUpdater(serializer, TEST_CONTAINER_PATH_PREFIX);
+    IClasspathAttribute attribute = JavaCore.newClasspathAttribute("name", "value");
+    container = new LibraryClasspathContainer(new Path(TEST_LIBRARY_PATH), "Test API",
+        new IClasspathEntry[] {
+            JavaCore.newLibraryEntry(new Path("/repo/first.jar"), null, null, null,
+                                     new IClasspathAttribute[] {attribute}, true),
+            JavaCore.newLibraryEntry(new Path("/repo/second.jar"), null, null, null,
+                                     new IClasspathAttribute[0], true)});
+    JavaCore.setClasspathContainer(container.getPath(),
+                                   new IJavaProject[] {testProject.getJavaProject()},
+                                   new IClasspathContainer[] {container}, null);
+  }
+
+  @Test
+  public void testAttachSources() throws Exception {
+    IPath sourcePath = new Path("/repo/first-sources.jar");
+
+    updater.attachSources(new IJavaProject[] {testProject.getJavaProject()},
+                          Collections.<IPath, IPath>singletonMap(new Path("/repo/first.jar"),
+                                                                  sourcePath),
+                          new NullProgressMonitor());
+
+    IClasspathContainer updated = getCurrentContainer();
+    IClasspathEntry[] entries = updated.getClasspathEntries();
+    assertThat(entries[0].getSourceAttachmentPath(), is(sourcePath));
+    assertThat(entries[0].getExtraAttributes()[0].getValue(), is("value"));
+    assertThat(entries[1].getSourceAttachmentPath(), nullValue());
+    assertThat(updated.getDescription(), is("Test API"));
+    verify(serializer).saveContainer(testProject.getJavaProject(),
+                                     (LibraryClasspathContainer) updated);
+  }
+
+  @Test
+  public void testAttachSources_otherJarKeepsContainer() throws Exception {
+    updater.attachSources(new IJavaProject[] {testProject.getJavaProject()},
+                          Collections.<IPath, IPath>singletonMap(new Path("/repo/other.jar"),
+                                                                  new Path("/repo/other-sources.jar")),
+                          new NullProgressMonitor());
+
+    assertThat(getCurrentContainer(), sameInstance((IClasspathContainer) container));
+    verify(serializer, never()).saveContainer(any(IJavaProject.class),
+                                              any(LibraryClasspathContainer.class));
+  }
+
+  @Test
+  public void testAttachSources_otherContainerPrefixIsIgnored() throws Exception {
+    updater = new SourceAttachmentUpdater(serializer, "other.prefix");
+
+    updater.attachSources(new IJavaProject[] {testProject.getJavaProject()},
+                          Collections.<IPath, IPath>singletonMap(new Path("/repo/first.jar"),
+                                                                  new Path("/repo/first-sources.jar")),
+                          new NullProgressMonitor());
+
+    assertThat(getCurrentContainer(), sameInstance((IClasspathContainer) container));
+  }
+
+  @Test
+  public void testRule_workspaceRoot() {
+    assertThat(updater.getRule(),
+               is((ISchedulingRule) ResourcesPlugin.getWorkspace().getRoot()));
+  }
+
+  private IClasspathContainer getCurrentContainer() throws Exception {
+    return JavaCore.getClasspathContainer(new Path(TEST_LIBRARY_PATH),
+                                          testProject.getJavaProject());
+  }
+}
@@ -0,0 +1,184 @@
+/*
+ * Copyright 2016 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.cloud.tools.eclipse.appengine.libraries.repository;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import com.google.cloud.tools.eclipse.appengine.libraries.repository.SourceDownloadManager.SourceAttachmentListener;
+import java.io.File;
+import java.io.IOException;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.eclipse.core.runtime.IPath;
+import org.eclipse.core.runtime.Path;
+import org.junit.After;
+import org.junit.Test;
+
+public class SourceDownloadManagerTest {
+
+  private final Map<IPath, IPath> attached = new ConcurrentHashMap<>();
+  private final SourceAttachmentListener listener = new SourceAttachmentListener() {
+    @Override
+    public void sourceAttachmentDownloaded(IPath jarPath, IPath sourcePath) {
+      attached.put(jarPath, sourcePath);
+    }
+  };
+  private SourceDownloadManager manager;
+
+  @After
+  public void tearDown() {
+    if (manager != null) {
+      manager.shutdown();
+    }
+  }
+
+  @Test
+  public void testDownload_notifiesListener() throws Exception {
+    manager = new SourceDownloadManager(listener);
+    final File sourceFile = new File("/repo/artifact-sources.jar");
+
+    manager.download(new Path("/repo/artifact.jar"), new Callable<File>() {
+      @Override
+      public File call() {
+        return sourceFile;
+      }
+    }).get(10, TimeUnit.SECONDS);
+
+    assertEquals(new Path(sourceFile.getAbsolutePath()), attached.get(new Path("/repo/artifact.jar")));
+  }
+
+  @Test
+  public void testDownload_boundsConcurrentDownloads() throws Exception {
+    manager = new SourceDownloadManager(listener, 2);
+    final AtomicInteger active = new AtomicInteger();
+    final AtomicInteger maximumActive = new AtomicInteger();
+    final CountDownLatch release = new CountDownLatch(1);
+    Future<?>[] downloads = new Future<?>[6];
+    for (int i = 0; i < downloads.length; i++) {
+      downloads[i] = manager.download(new Path("/repo/artifact" + i + ".jar"), new Callable<File>() {
+        @Override
+        public File call() throws InterruptedException {
+          int nowActive = active.incrementAndGet();
+          synchronized (maximumActive) {
+            maximumActive.set(Math.max(maximumActive.get(), nowActive));
+          }
+          release.await(10, TimeUnit.SECONDS);
+          active.decrementAndGet();
+          return new File("/repo/sources.jar");
+        }
+      });
+    }
+    Thread.sleep(100);
+    release.countDown();
+    for (Future<?> download : downloads) {
+      download.get(10, TimeUnit.SECONDS);
+    }
+
+    assertEquals(2, maximumActive.get());
+    assertEquals(downloads.length, attached.size());
+  }
+
+  @Test
+  public void testDownload_ignoresPendingDownloadOfSameJar() throws Exception {
+    manager = new SourceDownloadManager(listener);
+    final CountDownLatch release = new CountDownLatch(1);
+    Callable<File> download = new Callable<File>() {
+      @Override
+      public File call() throws InterruptedException {
+        release.await(10, TimeUnit.SECONDS);
+        return new File("/repo/artifact-sources.jar");
+      }
+    };
+
+    Future<?> first = manager.download(new Path("/repo/artifact.jar"), download);
+    Future<?> second = manager.download(new Path("/repo/artifact.jar"), download);
+    release.countDown();
+
+    assertNotNull(first);
+    assertNull(second);
+    first.get(10, TimeUnit.SECONDS);
+  }
+
+  @Test
+  public void testDownload_doesNotRetryMissingSource() throws Exception {
+    manager = new SourceDownloadManager(listener);
+    final AtomicInteger attempts = new AtomicInteger();
+    Callable<File> download = new Callable<File>() {
+      @Override
+      public File call() {
+        attempts.incrementAndGet();
+        return null;
+      }
+    };
+
+    manager.download(new Path("/repo/artifact.jar"), download).get(10, TimeUnit.SECONDS);
+    assertNull(manager.download(new Path("/repo/artifact.jar"), download));
+
+    assertEquals(1, attempts.get());
+    assertTrue(attached.isEmpty());
+  }
+
+  @Test
+  public void testDownload_retriesIOException() throws Exception {
+    manager = new SourceDownloadManager(listener, 1, 1 /* initialRetryDelayMillis */);
+    final AtomicInteger attempts = new AtomicInteger();
+    Callable<File> download = new Callable<File>() {
+      @Override
+      public File call() throws IOException {
+        if (attempts.incrementAndGet() < SourceDownloadManager.MAXIMUM_ATTEMPTS) {
+          throw new IOException("test exception");
+        }
+        return new File("/repo/artifact-sources.jar");
+      }
+    };
+
+    manager.download(new Path("/repo/artifact.jar"), download).get(10, TimeUnit.SECONDS);
+
+    assertEquals(SourceDownloadManager.MAXIMUM_ATTEMPTS, attempts.get());
+    assertTrue(attached.containsKey(new Path("/repo/artifact.jar")));
+  }
+
+  @Test
+  public void testDownload_triesAgainAfterFailedAttempts() throws Exception {
+    manager = new SourceDownloadManager(listener, 1, 1 /* initialRetryDelayMillis */);
+    final AtomicInteger attempts = new AtomicInteger();
+    Callable<File> download = new Callable<File>() {
+      @Override
+      public File call() throws IOException {
+        attempts.incrementAndGet();
+        throw new IOException("test exception");
+      }
+    };
+
+    manager.download(new Path("/repo/artifact.jar"), download).get(10, TimeUnit.SECONDS);
+    assertEquals(SourceDownloadManager.MAXIMUM_ATTEMPTS, attempts.get());
+
+    Future<?> secondDownload = manager.download(new Path("/repo/artifact.jar"), download);
+    assertNotNull(secondDownload);
+    secondDownload.get(10, TimeUnit.SECONDS);
+    assertEquals(2 * SourceDownloadManager.MAXIMUM_ATTEMPTS, attempts.get());
+    assertTrue(attached.isEmpty());
+  }
+}
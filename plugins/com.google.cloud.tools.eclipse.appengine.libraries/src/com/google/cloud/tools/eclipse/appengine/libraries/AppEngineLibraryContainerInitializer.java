@@ -16,29 +16,29 @@
 
 package com.google.cloud.tools.eclipse.appengine.libraries;
 
+import com.google.cloud.tools.eclipse.appengine.libraries.config.ILibraryConfigService;
 import com.google.cloud.tools.eclipse.appengine.libraries.model.Library;
-import com.google.cloud.tools.eclipse.appengine.libraries.model.LibraryFactory;
-import com.google.cloud.tools.eclipse.appengine.libraries.model.LibraryFactoryException;
 import com.google.cloud.tools.eclipse.appengine.libraries.persistence.LibraryClasspathContainerSerializer;
 import com.google.cloud.tools.eclipse.appengine.libraries.repository.ILibraryRepositoryService;
-import com.google.cloud.tools.eclipse.appengine.libraries.repository.LibraryRepositoryServiceException;
 import com.google.cloud.tools.eclipse.util.status.StatusUtil;
 import com.google.common.annotations.VisibleForTesting;
 import java.io.IOException;
-import java.util.HashMap;
-import java.util.Map;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 import javax.inject.Inject;
+import org.eclipse.core.resources.ResourcesPlugin;
 import org.eclipse.core.runtime.CoreException;
-import org.eclipse.core.runtime.IConfigurationElement;
-import org.eclipse.core.runtime.IExtensionRegistry;
 import org.eclipse.core.runtime.IPath;
 import org.eclipse.jdt.core.ClasspathContainerInitializer;
-import org.eclipse.jdt.core.IClasspathContainer;
 import org.eclipse.jdt.core.IClasspathEntry;
 import org.eclipse.jdt.core.IJavaProject;
 import org.eclipse.jdt.core.JavaCore;
+import org.eclipse.jdt.core.JavaModelException;
 import org.eclipse.osgi.util.NLS;
 
 /**
@@ -46,54 +46,52 @@ import org.eclipse.osgi.util.NLS;
  * <p>
  * The container path is expected to be in the form of
  * &lt;value of {@link Library#CONTAINER_PATH_PREFIX}&gt;/&lt;library ID&gt;
+ * <p>
+ * The container is initialized from its persisted state without checking whether its jars still
+ * exist, which is done later by a {@link LibraryContainerValidationJob}.
+ * <p>
+ * When JDT asks for the container of one project, the containers with the same path of the other
+ * Java projects in the workspace that were not initialized yet are loaded as well and set in the
+ * same {@link ClasspathContainerBatch}. This way a workspace where many projects use the same
+ * library is initialized with one classpath change instead of one per project.
  */
 public class AppEngineLibraryContainerInitializer extends ClasspathContainerInitializer {
 
-  public static final String LIBRARIES_EXTENSION_POINT = "com.google.cloud.tools.eclipse.appengine.libraries"; //$NON-NLS-1$
+  public static final String LIBRARIES_EXTENSION_POINT = ILibraryConfigService.LIBRARIES_EXTENSION_POINT;
 
-  private static final Logger logger = Logger.getLogger(AppEngineLibraryContainerInitializer.class.getName());
+  private static final Logger logger =
+      Logger.getLogger(AppEngineLibraryContainerInitializer.class.getName());
 
   private String containerPath = Library.CONTAINER_PATH_PREFIX;
-  private Map<String, Library> libraries;
+  // "<project name>/<container path>" of the containers set by this initializer
+  private final Set<String> initializedContainers =
+      Collections.synchronizedSet(new HashSet<String>());
 
   @Inject
   private LibraryClasspathContainerSerializer serializer;
   @Inject
   private ILibraryRepositoryService repositoryService;
-  @Inject
-  private IExtensionRegistry extensionRegistry;
 
   public AppEngineLibraryContainerInitializer() {
   }
 
   @VisibleForTesting
-  AppEngineLibraryContainerInitializer(IConfigurationElement[] configurationElements,
-                                       LibraryFactory libraryFactory,
-                                       String containerPath,
+  AppEngineLibraryContainerInitializer(String containerPath,
                                        LibraryClasspathContainerSerializer serializer) {
-    this(configurationElements, libraryFactory, containerPath, serializer, null);
+    this(containerPath, serializer, null);
   }
 
   @VisibleForTesting
-  AppEngineLibraryContainerInitializer(IConfigurationElement[] configurationElements,
-                                       LibraryFactory libraryFactory,
-                                       String containerPath,
+  AppEngineLibraryContainerInitializer(String containerPath,
                                        LibraryClasspathContainerSerializer serializer,
                                        ILibraryRepositoryService repositoryService) {
     this.containerPath = containerPath;
     this.serializer = serializer;
     this.repositoryService = repositoryService;
-    initializeLibraries(configurationElements, libraryFactory);
   }
 
   @Override
   public void initialize(IPath containerPath, IJavaProject project) throws CoreException {
-    if (libraries == null) {
-      // in tests libraries will be initialized via the test constructor, this would override mocks/stubs.
-      IConfigurationElement[] configurationElements =
-          extensionRegistry.getConfigurationElementsFor(LIBRARIES_EXTENSION_POINT);
-      initializeLibraries(configurationElements, new LibraryFactory());
-    }
     if (containerPath.segmentCount() == 2) {
       if (!containerPath.segment(0).equals(this.containerPath)) {
         throw new CoreException(StatusUtil.error(this,
@@ -102,13 +100,29 @@ public class AppEngineLibraryContainerInitializer extends ClasspathContainerInit
                                                           containerPath.segment(0))));
       }
       try {
-        LibraryClasspathContainer container = serializer.loadContainer(project, containerPath);
-        if (container != null) {
-          validateJarPaths(container);
-          JavaCore.setClasspathContainer(containerPath, new IJavaProject[] {project},
-                                         new IClasspathContainer[] {container}, null);
+        List<IJavaProject> projects = new ArrayList<>();
+        projects.add(project);
+        projects.addAll(getUninitializedProjects(containerPath, project));
+        ClasspathContainerBatch batch = new ClasspathContainerBatch();
+        List<LibraryContainerValidationJob> validationJobs = new ArrayList<>();
+        for (IJavaProject javaProject : projects) {
+          LibraryClasspathContainer container = loadContainer(javaProject, containerPath,
+                                                              javaProject == project);
+          if (container != null) {
+            batch.add(javaProject, container);
+            // jars may have been removed from the local repository since the container was saved
+            validationJobs.add(new LibraryContainerValidationJob(javaProject, container,
+                                                                 repositoryService, serializer));
+          }
+        }
+        batch.apply(null);
+        for (IJavaProject javaProject : projects) {
+          initializedContainers.add(getKey(javaProject, containerPath));
+        }
+        for (LibraryContainerValidationJob validationJob : validationJobs) {
+          validationJob.schedule();
         }
-      } catch (IOException | LibraryRepositoryServiceException ex) {
+      } catch (IOException ex) {
         throw new CoreException(StatusUtil.error(this, Messages.LoadContainerFailed, ex));
       }
     } else {
@@ -117,27 +131,49 @@ public class AppEngineLibraryContainerInitializer extends ClasspathContainerInit
     }
   }
 
-  private void validateJarPaths(LibraryClasspathContainer container) throws LibraryRepositoryServiceException {
-    IClasspathEntry[] classpathEntries = container.getClasspathEntries();
-    for (int i = 0; i < classpathEntries.length; i++) {
-      IClasspathEntry classpathEntry = classpathEntries[i];
-      if (!classpathEntry.getPath().toFile().exists()) {
-        classpathEntries[i] = repositoryService.rebuildClasspathEntry(classpathEntry);
+  /**
+   * @param required if false, a container that cannot be loaded is logged and skipped, so that
+   *     JDT initializes it separately
+   */
+  private LibraryClasspathContainer loadContainer(IJavaProject javaProject, IPath containerPath,
+                                                  boolean required) throws IOException, CoreException {
+    try {
+      return serializer.loadContainer(javaProject, containerPath);
+    } catch (IOException | CoreException ex) {
+      if (required) {
+        throw ex;
       }
+      logger.log(Level.FINE, "Cannot load container " + getKey(javaProject, containerPath), ex); //$NON-NLS-1$
+      return null;
     }
   }
 
-  // TODO parse library definition in ILibraryConfigService (or similar) started when the plugin/bundle starts
-  // https://github.com/GoogleCloudPlatform/google-cloud-eclipse/issues/856
-  private void initializeLibraries(IConfigurationElement[] configurationElements, LibraryFactory libraryFactory) {
-    libraries = new HashMap<>(configurationElements.length);
-    for (IConfigurationElement configurationElement : configurationElements) {
-      try {
-        Library library = libraryFactory.create(configurationElement);
-        libraries.put(library.getId(), library);
-      } catch (LibraryFactoryException exception) {
-        logger.log(Level.SEVERE, "Failed to initialize libraries", exception); //$NON-NLS-1$
+  /**
+   * @return the open Java projects other than <code>project</code> that have
+   *     <code>containerPath</code> on their raw classpath and whose container was not set by this
+   *     initializer before
+   */
+  private List<IJavaProject> getUninitializedProjects(IPath containerPath, IJavaProject project)
+      throws JavaModelException {
+    List<IJavaProject> projects = new ArrayList<>();
+    for (IJavaProject javaProject
+        : JavaCore.create(ResourcesPlugin.getWorkspace().getRoot()).getJavaProjects()) {
+      if (javaProject.equals(project) || !javaProject.getProject().isAccessible()
+          || initializedContainers.contains(getKey(javaProject, containerPath))) {
+        continue;
+      }
+      for (IClasspathEntry entry : javaProject.getRawClasspath()) {
+        if (entry.getEntryKind() == IClasspathEntry.CPE_CONTAINER
+            && entry.getPath().equals(containerPath)) {
+          projects.add(javaProject);
+          break;
+        }
       }
     }
+    return projects;
+  }
+
+  private static String getKey(IJavaProject javaProject, IPath containerPath) {
+    return javaProject.getElementName() + '/' + containerPath;
   }
 }
@@ -16,9 +16,8 @@
 
 package com.google.cloud.tools.eclipse.appengine.libraries;
 
+import com.google.cloud.tools.eclipse.appengine.libraries.config.ILibraryConfigService;
 import com.google.cloud.tools.eclipse.appengine.libraries.model.Library;
-import com.google.cloud.tools.eclipse.appengine.libraries.model.LibraryFactory;
-import com.google.cloud.tools.eclipse.appengine.libraries.model.LibraryFactoryException;
 import com.google.cloud.tools.eclipse.appengine.libraries.model.LibraryFile;
 import com.google.cloud.tools.eclipse.appengine.libraries.persistence.LibraryClasspathContainerSerializer;
 import com.google.cloud.tools.eclipse.appengine.libraries.repository.ILibraryRepositoryService;
@@ -28,39 +27,50 @@ import com.google.common.annotations.VisibleForTesting;
 import com.google.common.base.Preconditions;
 import com.google.common.base.Strings;
 import java.io.IOException;
-import java.util.HashMap;
+import java.util.ArrayList;
 import java.util.List;
-import java.util.Map;
-import java.util.logging.Level;
-import java.util.logging.Logger;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 import javax.annotation.PostConstruct;
 import javax.inject.Inject;
 import org.eclipse.core.runtime.CoreException;
-import org.eclipse.core.runtime.IConfigurationElement;
-import org.eclipse.core.runtime.IPath;
 import org.eclipse.core.runtime.IProgressMonitor;
 import org.eclipse.core.runtime.IStatus;
-import org.eclipse.core.runtime.RegistryFactory;
+import org.eclipse.core.runtime.OperationCanceledException;
 import org.eclipse.core.runtime.Status;
 import org.eclipse.core.runtime.SubMonitor;
 import org.eclipse.core.runtime.jobs.Job;
-import org.eclipse.jdt.core.IClasspathContainer;
 import org.eclipse.jdt.core.IClasspathEntry;
 import org.eclipse.jdt.core.IJavaProject;
-import org.eclipse.jdt.core.JavaCore;
 import org.eclipse.osgi.util.NLS;
 
+/**
+ * Resolves the artifacts of all App Engine library containers on the classpath of a project.
+ * <p>
+ * Each container also provides the library files of the libraries its library depends on, as
+ * assigned by a {@link LibraryDependencyGraph}, so that every artifact is resolved only once and
+ * in its highest version. The library files of all containers are resolved concurrently on a
+ * bounded number of threads, as most of the time is spent waiting for the remote repository. The
+ * containers are still assembled in the order they appear on the classpath, with their entries in
+ * the order the library files are declared, and are set in a single
+ * {@link ClasspathContainerBatch}, so that JDT updates the classpath of the project only once.
+ */
 public class AppEngineLibraryContainerResolverJob extends Job {
-  //TODO duplicate of com.google.cloud.tools.eclipse.appengine.libraries.AppEngineLibraryContainerInitializer.LIBRARIES_EXTENSION_POINT
-  public static final String LIBRARIES_EXTENSION_POINT = "com.google.cloud.tools.eclipse.appengine.libraries"; //$NON-NLS-1$
-
-  private static final Logger logger = Logger.getLogger(AppEngineLibraryContainerResolverJob.class.getName());
 
-  private Map<String, Library> libraries;
+  // bounds the number of concurrent requests to the remote repository
+  private static final int MAXIMUM_THREADS = 4;
+  private static final long CANCELLATION_CHECK_INTERVAL_MILLIS = 100;
 
   @Inject
   private IJavaProject javaProject;
   @Inject
+  private ILibraryConfigService libraryConfigService;
+  @Inject
   private ILibraryRepositoryService repositoryService;
   @Inject
   private LibraryClasspathContainerSerializer serializer;
@@ -71,9 +81,16 @@ public class AppEngineLibraryContainerResolverJob extends Job {
   }
 
   @VisibleForTesting
-  AppEngineLibraryContainerResolverJob(LibraryClasspathContainerSerializer serializer) {
+  AppEngineLibraryContainerResolverJob(IJavaProject javaProject,
+                                       ILibraryConfigService libraryConfigService,
+                                       ILibraryRepositoryService repositoryService,
+                                       LibraryClasspathContainerSerializer serializer) {
     super(Messages.AppEngineLibraryContainerResolverJobName);
     Preconditions.checkNotNull(serializer);
+    Preconditions.checkNotNull(libraryConfigService);
+    this.javaProject = javaProject;
+    this.libraryConfigService = libraryConfigService;
+    this.repositoryService = repositoryService;
     this.serializer = serializer;
     setUser(true);
   }
@@ -85,70 +102,105 @@ public class AppEngineLibraryContainerResolverJob extends Job {
 
   @Override
   protected IStatus run(IProgressMonitor monitor) {
-    // TODO parse library definition in ILibraryConfigService (or similar) started when the plugin/bundle starts
-    // https://github.com/GoogleCloudPlatform/google-cloud-eclipse/issues/856
+    ExecutorService executor = null;
     try {
-      if (libraries == null) {
-        // in tests libraries will be initialized via the test constructor, this would override mocks/stubs.
-        IConfigurationElement[] configurationElements =
-            RegistryFactory.getRegistry().getConfigurationElementsFor(LIBRARIES_EXTENSION_POINT);
-        initializeLibraries(configurationElements, new LibraryFactory());
+      List<IClasspathEntry> containerEntries = new ArrayList<>();
+      List<Library> libraries = new ArrayList<>();
+      for (IClasspathEntry classpathEntry : javaProject.getRawClasspath()) {
+        Library library = libraryConfigService.getLibrary(classpathEntry.getPath().segment(1));
+        if (library != null) {
+          containerEntries.add(classpathEntry);
+          libraries.add(library);
+        }
       }
-      IClasspathEntry[] rawClasspath = javaProject.getRawClasspath();
+      LibraryDependencyGraph dependencyGraph =
+          new LibraryDependencyGraph(libraryConfigService, libraries);
+      int libraryFileCount = dependencyGraph.getLibraryFileCount();
       SubMonitor subMonitor = SubMonitor.convert(monitor,
                                                  Messages.TaskResolveLibraries,
-                                                 getTotalwork(rawClasspath));
-      for (int i = 0; i < rawClasspath.length; i++) {
-        IClasspathEntry classpathEntry = rawClasspath[i];
-        String libraryId = classpathEntry.getPath().segment(1);
-        Library library = libraries.get(libraryId);
-        if (library != null) {
-          LibraryClasspathContainer container = resolveLibraryFiles(classpathEntry, library, subMonitor.newChild(1));
-          JavaCore.setClasspathContainer(classpathEntry.getPath(), new IJavaProject[] {javaProject},
-                                         new IClasspathContainer[] {container}, null);
-          serializer.saveContainer(javaProject, container);
+                                                 libraryFileCount);
+      if (libraryFileCount == 0) {
+        return Status.OK_STATUS;
+      }
+
+      // start resolving all files up front, so that the files of later containers do not wait
+      // for the slowest file of an earlier container
+      executor = Executors.newFixedThreadPool(Math.min(MAXIMUM_THREADS, libraryFileCount));
+      List<List<Future<IClasspathEntry>>> resolvedEntries = new ArrayList<>(libraries.size());
+      for (Library library : libraries) {
+        List<Future<IClasspathEntry>> futures = new ArrayList<>();
+        for (final LibraryFile libraryFile : dependencyGraph.getLibraryFiles(library)) {
+          futures.add(executor.submit(new Callable<IClasspathEntry>() {
+            @Override
+            public IClasspathEntry call() throws LibraryRepositoryServiceException {
+              return repositoryService.getLibraryClasspathEntry(libraryFile);
+            }
+          }));
         }
+        resolvedEntries.add(futures);
+      }
+
+      List<LibraryClasspathContainer> containers = new ArrayList<>(libraries.size());
+      ClasspathContainerBatch batch = new ClasspathContainerBatch();
+      for (int i = 0; i < libraries.size(); i++) {
+        LibraryClasspathContainer container = createContainer(
+            containerEntries.get(i), libraries.get(i), resolvedEntries.get(i), subMonitor);
+        containers.add(container);
+        batch.add(javaProject, container);
+      }
+      batch.apply(null);
+      for (LibraryClasspathContainer container : containers) {
+        serializer.saveContainer(javaProject, container);
       }
+    } catch (OperationCanceledException ex) {
+      return Status.CANCEL_STATUS;
     } catch (LibraryRepositoryServiceException | CoreException | IOException ex) {
       return StatusUtil.error(this, Messages.TaskResolveLibrariesError, ex);
+    } finally {
+      if (executor != null) {
+        executor.shutdownNow();
+      }
     }
     return Status.OK_STATUS;
   }
 
-  private LibraryClasspathContainer resolveLibraryFiles(IClasspathEntry classpathEntry,
-                                                        Library library,
-                                                        IProgressMonitor monitor)
-                                                            throws LibraryRepositoryServiceException {
-    List<LibraryFile> libraryFiles = library.getLibraryFiles();
-    SubMonitor subMonitor = SubMonitor.convert(monitor, libraryFiles.size());
-    subMonitor.subTask(NLS.bind(Messages.TaskResolveArtifacts, getLibraryDescription(library)));
-    SubMonitor child = subMonitor.newChild(libraryFiles.size());
-
-    IClasspathEntry[] entries = new IClasspathEntry[libraryFiles.size()];
-    int idx = 0;
-    for (LibraryFile libraryFile : libraryFiles) {
-      entries[idx++] = repositoryService.getLibraryClasspathEntry(libraryFile);
-      child.worked(1);
+  private static LibraryClasspathContainer createContainer(IClasspathEntry classpathEntry,
+                                                           Library library,
+                                                           List<Future<IClasspathEntry>> futures,
+                                                           SubMonitor monitor)
+                                                               throws LibraryRepositoryServiceException {
+    monitor.subTask(NLS.bind(Messages.TaskResolveArtifacts, getLibraryDescription(library)));
+    IClasspathEntry[] entries = new IClasspathEntry[futures.size()];
+    for (int i = 0; i < entries.length; i++) {
+      entries[i] = waitFor(futures.get(i), monitor);
+      monitor.worked(1);
     }
-    monitor.done();
-    LibraryClasspathContainer container = new LibraryClasspathContainer(classpathEntry.getPath(),
-                                                                        getLibraryDescription(library),
-                                                                        entries);
-    return container;
+    return LibraryClasspathContainerInterner.intern(
+        new LibraryClasspathContainer(classpathEntry.getPath(),
+                                      getLibraryDescription(library),
+                                      entries));
   }
 
-  private static int getTotalwork(IClasspathEntry[] rawClasspath) {
-    int sum = 0;
-    for (IClasspathEntry element : rawClasspath) {
-      if (isLibraryClasspathEntry(element.getPath())) {
-        ++sum;
+  private static IClasspathEntry waitFor(Future<IClasspathEntry> future, IProgressMonitor monitor)
+      throws LibraryRepositoryServiceException {
+    while (true) {
+      if (monitor.isCanceled()) {
+        throw new OperationCanceledException();
+      }
+      try {
+        return future.get(CANCELLATION_CHECK_INTERVAL_MILLIS, TimeUnit.MILLISECONDS);
+      } catch (TimeoutException ex) {
+        // check for cancellation and wait again
+      } catch (ExecutionException ex) {
+        if (ex.getCause() instanceof LibraryRepositoryServiceException) {
+          throw (LibraryRepositoryServiceException) ex.getCause();
+        }
+        throw new LibraryRepositoryServiceException(ex.getCause().getMessage(), ex.getCause());
+      } catch (InterruptedException ex) {
+        Thread.currentThread().interrupt();
+        throw new OperationCanceledException();
       }
     }
-    return sum;
-  }
-
-  private static boolean isLibraryClasspathEntry(IPath path) {
-    return path != null && path.segmentCount() == 2 && Library.CONTAINER_PATH_PREFIX.equals(path.segment(0));
   }
 
   private static String getLibraryDescription(Library library) {
@@ -158,16 +210,4 @@ public class AppEngineLibraryContainerResolverJob extends Job {
       return library.getId();
     }
   }
-
-  private void initializeLibraries(IConfigurationElement[] configurationElements, LibraryFactory libraryFactory) {
-    libraries = new HashMap<>(configurationElements.length);
-    for (IConfigurationElement configurationElement : configurationElements) {
-      try {
-        Library library = libraryFactory.create(configurationElement);
-        libraries.put(library.getId(), library);
-      } catch (LibraryFactoryException exception) {
-        logger.log(Level.SEVERE, "Failed to initialize libraries", exception); //$NON-NLS-1$
-      }
-    }
-  }
 }
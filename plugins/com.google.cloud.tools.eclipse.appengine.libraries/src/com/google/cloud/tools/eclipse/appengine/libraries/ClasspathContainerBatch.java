@@ -0,0 +1,88 @@
+/*
+ * Copyright 2016 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.cloud.tools.eclipse.appengine.libraries;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import org.eclipse.core.resources.IWorkspaceRunnable;
+import org.eclipse.core.runtime.CoreException;
+import org.eclipse.core.runtime.IPath;
+import org.eclipse.core.runtime.IProgressMonitor;
+import org.eclipse.jdt.core.IClasspathContainer;
+import org.eclipse.jdt.core.IJavaProject;
+import org.eclipse.jdt.core.JavaCore;
+
+/**
+ * Collects classpath containers to set on Java projects and sets them together.
+ * <p>
+ * Every call of {@link JavaCore#setClasspathContainer(IPath, IJavaProject[], IClasspathContainer[],
+ * IProgressMonitor)} makes JDT report a classpath change and update its index for the affected
+ * projects. A batch groups the containers by container path, so that there is one call per path
+ * for all projects, and makes all calls in a single Java model operation, so that JDT reports
+ * the changes in a single delta.
+ */
+public class ClasspathContainerBatch {
+
+  private final Map<IPath, Map<IJavaProject, IClasspathContainer>> containers =
+      new LinkedHashMap<>();
+
+  /**
+   * Adds <code>container</code> to be set on <code>javaProject</code>, replacing a container with
+   * the same path that was added for it before.
+   */
+  public void add(IJavaProject javaProject, IClasspathContainer container) {
+    Map<IJavaProject, IClasspathContainer> projectContainers = containers.get(container.getPath());
+    if (projectContainers == null) {
+      projectContainers = new LinkedHashMap<>();
+      containers.put(container.getPath(), projectContainers);
+    }
+    projectContainers.put(javaProject, container);
+  }
+
+  public boolean isEmpty() {
+    return containers.isEmpty();
+  }
+
+  /**
+   * Sets all containers of this batch. The operation does not acquire a scheduling rule, so that
+   * it can be applied by jobs holding the rules of the affected projects as well as by classpath
+   * container initializers.
+   */
+  public void apply(IProgressMonitor monitor) throws CoreException {
+    if (isEmpty()) {
+      return;
+    }
+    JavaCore.run(new IWorkspaceRunnable() {
+      @Override
+      public void run(IProgressMonitor monitor) throws CoreException {
+        for (Map.Entry<IPath, Map<IJavaProject, IClasspathContainer>> entry
+            : containers.entrySet()) {
+          Map<IJavaProject, IClasspathContainer> projectContainers = entry.getValue();
+          List<IJavaProject> javaProjects = new ArrayList<>(projectContainers.keySet());
+          List<IClasspathContainer> pathContainers = new ArrayList<>(projectContainers.values());
+          JavaCore.setClasspathContainer(
+              entry.getKey(),
+              javaProjects.toArray(new IJavaProject[javaProjects.size()]),
+              pathContainers.toArray(new IClasspathContainer[pathContainers.size()]),
+              monitor);
+        }
+      }
+    }, null /* rule */, monitor);
+  }
+}
@@ -0,0 +1,105 @@
+/*
+ * Copyright 2016 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.cloud.tools.eclipse.appengine.libraries;
+
+import com.google.common.base.Objects;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.collect.Interner;
+import com.google.common.collect.Interners;
+import java.util.Arrays;
+import org.eclipse.core.runtime.IPath;
+import org.eclipse.jdt.core.IClasspathEntry;
+
+/**
+ * Shares identical {@link LibraryClasspathContainer}s and classpath entries between projects.
+ * <p>
+ * Every project using a library gets its own container, loaded from its state file or resolved
+ * from the repository, although the containers of projects using the same version of a library
+ * are equal. Interning them keeps a single copy of the container, its entries and their access
+ * rules and attributes per library id and set of resolved artifacts. Instances are held weakly,
+ * so they are released once no project uses them anymore.
+ * <p>
+ * Interned containers are shared and must not be modified.
+ */
+public final class LibraryClasspathContainerInterner {
+
+  // the JDT classpath entries implement equals() on all their properties
+  private static final Interner<IClasspathEntry> entries = Interners.newWeakInterner();
+  private static final Cache<ContainerKey, LibraryClasspathContainer> containers =
+      CacheBuilder.newBuilder().weakValues().build();
+
+  private LibraryClasspathContainerInterner() {
+  }
+
+  /**
+   * @return a container equal to <code>container</code>, which is shared with all other projects
+   *     using the same library id, description and classpath entries
+   */
+  public static LibraryClasspathContainer intern(LibraryClasspathContainer container) {
+    IClasspathEntry[] classpathEntries = container.getClasspathEntries();
+    IClasspathEntry[] internedEntries = new IClasspathEntry[classpathEntries.length];
+    for (int i = 0; i < classpathEntries.length; i++) {
+      internedEntries[i] = entries.intern(classpathEntries[i]);
+    }
+    ContainerKey key =
+        new ContainerKey(container.getPath(), container.getDescription(), internedEntries);
+    LibraryClasspathContainer interned = containers.getIfPresent(key);
+    if (interned != null) {
+      return interned;
+    }
+    LibraryClasspathContainer candidate =
+        new LibraryClasspathContainer(container.getPath(), container.getDescription(),
+                                      internedEntries);
+    interned = containers.asMap().putIfAbsent(key, candidate);
+    return interned == null ? candidate : interned;
+  }
+
+  private static final class ContainerKey {
+    private final IPath path;
+    private final String description;
+    private final IClasspathEntry[] classpathEntries;
+    private final int hashCode;
+
+    private ContainerKey(IPath path, String description, IClasspathEntry[] classpathEntries) {
+      this.path = path;
+      this.description = description;
+      this.classpathEntries = classpathEntries;
+      this.hashCode = Objects.hashCode(path, description, Arrays.hashCode(classpathEntries));
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+      if (this == obj) {
+        return true;
+      }
+      if (!(obj instanceof ContainerKey)) {
+        return false;
+      }
+      ContainerKey other = (ContainerKey) obj;
+      return hashCode == other.hashCode
+          && path.equals(other.path)
+          && description.equals(other.description)
+          && Arrays.equals(classpathEntries, other.classpathEntries);
+    }
+
+    @Override
+    public int hashCode() {
+      return hashCode;
+    }
+  }
+}
@@ -0,0 +1,111 @@
+/*
+ * Copyright 2016 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.cloud.tools.eclipse.appengine.libraries;
+
+import com.google.cloud.tools.eclipse.appengine.libraries.persistence.LibraryClasspathContainerSerializer;
+import com.google.cloud.tools.eclipse.appengine.libraries.repository.ILibraryRepositoryService;
+import com.google.cloud.tools.eclipse.appengine.libraries.repository.LibraryRepositoryServiceException;
+import com.google.cloud.tools.eclipse.util.status.StatusUtil;
+import com.google.common.base.Preconditions;
+import java.io.IOException;
+import org.eclipse.core.runtime.CoreException;
+import org.eclipse.core.runtime.IProgressMonitor;
+import org.eclipse.core.runtime.IStatus;
+import org.eclipse.core.runtime.Status;
+import org.eclipse.core.runtime.SubMonitor;
+import org.eclipse.core.runtime.jobs.Job;
+import org.eclipse.jdt.core.IClasspathContainer;
+import org.eclipse.jdt.core.IClasspathEntry;
+import org.eclipse.jdt.core.IJavaProject;
+import org.eclipse.jdt.core.JavaCore;
+import org.eclipse.osgi.util.NLS;
+
+/**
+ * Checks that the jars of a {@link LibraryClasspathContainer} loaded from its persisted state
+ * still exist, e.g. after the local Maven repository was cleaned up. Entries whose jar is missing
+ * are resolved again, and the repaired container replaces the persisted one on the classpath and
+ * on disk.
+ * <p>
+ * {@link AppEngineLibraryContainerInitializer} sets the persisted container right away and leaves
+ * the checks to this job, so that JDT does not wait for the file system or the remote repository
+ * while it initializes the classpath.
+ */
+class LibraryContainerValidationJob extends Job {
+
+  private final IJavaProject javaProject;
+  private final LibraryClasspathContainer container;
+  private final ILibraryRepositoryService repositoryService;
+  private final LibraryClasspathContainerSerializer serializer;
+
+  LibraryContainerValidationJob(IJavaProject javaProject,
+                                LibraryClasspathContainer container,
+                                ILibraryRepositoryService repositoryService,
+                                LibraryClasspathContainerSerializer serializer) {
+    super(NLS.bind(Messages.LibraryContainerValidationJobName, container.getDescription()));
+    Preconditions.checkNotNull(repositoryService);
+    Preconditions.checkNotNull(serializer);
+    this.javaProject = javaProject;
+    this.container = container;
+    this.repositoryService = repositoryService;
+    this.serializer = serializer;
+    setSystem(true);
+    setRule(javaProject.getSchedulingRule());
+  }
+
+  @Override
+  protected IStatus run(IProgressMonitor monitor) {
+    IClasspathEntry[] classpathEntries = container.getClasspathEntries();
+    SubMonitor progress = SubMonitor.convert(monitor, classpathEntries.length);
+    IClasspathEntry[] validatedEntries = null;
+    try {
+      for (int i = 0; i < classpathEntries.length; i++) {
+        if (progress.isCanceled()) {
+          return Status.CANCEL_STATUS;
+        }
+        IClasspathEntry classpathEntry = classpathEntries[i];
+        if (!classpathEntry.getPath().toFile().exists()) {
+          if (validatedEntries == null) {
+            validatedEntries = classpathEntries.clone();
+          }
+          validatedEntries[i] = repositoryService.rebuildClasspathEntry(classpathEntry);
+        }
+        progress.worked(1);
+      }
+      if (validatedEntries == null || !isCurrentContainer()) {
+        return Status.OK_STATUS;
+      }
+
+      LibraryClasspathContainer validatedContainer = LibraryClasspathContainerInterner.intern(
+          new LibraryClasspathContainer(container.getPath(), container.getDescription(),
+                                        validatedEntries));
+      JavaCore.setClasspathContainer(container.getPath(), new IJavaProject[] {javaProject},
+                                     new IClasspathContainer[] {validatedContainer}, null);
+      serializer.saveContainer(javaProject, validatedContainer);
+      return Status.OK_STATUS;
+    } catch (LibraryRepositoryServiceException | CoreException | IOException ex) {
+      return StatusUtil.error(this, Messages.ValidateContainerFailed, ex);
+    }
+  }
+
+  /**
+   * @return false if the container was replaced since this job was scheduled, e.g. by an
+   *     {@link AppEngineLibraryContainerResolverJob}, so that the newer one must not be overwritten
+   */
+  private boolean isCurrentContainer() throws CoreException {
+    return JavaCore.getClasspathContainer(container.getPath(), javaProject) == container;
+  }
+}
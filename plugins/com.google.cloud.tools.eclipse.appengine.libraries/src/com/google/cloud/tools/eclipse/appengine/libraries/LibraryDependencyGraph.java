@@ -0,0 +1,164 @@
+/*
+ * Copyright 2016 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.cloud.tools.eclipse.appengine.libraries;
+
+import com.google.cloud.tools.eclipse.appengine.libraries.config.ILibraryConfigService;
+import com.google.cloud.tools.eclipse.appengine.libraries.model.Library;
+import com.google.cloud.tools.eclipse.appengine.libraries.model.LibraryFile;
+import com.google.cloud.tools.eclipse.appengine.libraries.model.MavenCoordinates;
+import com.google.common.base.Joiner;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.logging.Logger;
+import org.apache.maven.artifact.versioning.ComparableVersion;
+
+/**
+ * Expands the <code>libraryDependency</code> closure of the libraries on a classpath and assigns
+ * every library file of the closure to exactly one of them.
+ * <p>
+ * Library files are identified by their Maven group ID, artifact ID, type and classifier. If
+ * several libraries of the closure declare the same artifact, the highest version is used.
+ * Every artifact is assigned to the first library on the classpath that declares it itself, or
+ * else to the first library on the classpath that depends on a library declaring it, so that the
+ * containers of a classpath never contain the same artifact twice. A dependency cycle in the
+ * library definitions is logged and the dependency closing it is ignored.
+ */
+final class LibraryDependencyGraph {
+
+  private static final Logger logger = Logger.getLogger(LibraryDependencyGraph.class.getName());
+
+  private final ILibraryConfigService libraryConfigService;
+  private final Map<String, LibraryFile> highestVersions = new HashMap<>();
+  private final Map<Library, List<LibraryFile>> libraryFiles = new LinkedHashMap<>();
+
+  /**
+   * @param libraries the libraries on the classpath, in classpath order
+   */
+  LibraryDependencyGraph(ILibraryConfigService libraryConfigService,
+                         Collection<Library> libraries) {
+    this.libraryConfigService = libraryConfigService;
+    List<List<Library>> dependencies = new ArrayList<>(libraries.size());
+    for (Library library : libraries) {
+      Set<Library> closure = new LinkedHashSet<>();
+      collectDependencies(library, new LinkedHashSet<String>(), closure);
+      closure.remove(library);
+      dependencies.add(new ArrayList<>(closure));
+      collectHighestVersions(library);
+      for (Library dependency : closure) {
+        collectHighestVersions(dependency);
+      }
+    }
+
+    Set<String> assigned = new HashSet<>();
+    for (Library library : libraries) {
+      List<LibraryFile> files = new ArrayList<>();
+      assign(library, files, assigned);
+      libraryFiles.put(library, files);
+    }
+    int i = 0;
+    for (Library library : libraries) {
+      for (Library dependency : dependencies.get(i++)) {
+        assign(dependency, libraryFiles.get(library), assigned);
+      }
+    }
+  }
+
+  /**
+   * @return the library files <code>library</code> provides on the classpath, its own files
+   *     first and then the files of its dependencies, each in declaration order
+   */
+  List<LibraryFile> getLibraryFiles(Library library) {
+    return libraryFiles.get(library);
+  }
+
+  /**
+   * @return the number of distinct library files on the classpath
+   */
+  int getLibraryFileCount() {
+    return highestVersions.size();
+  }
+
+  /**
+   * Collects <code>library</code> and the libraries it depends on, depth first.
+   *
+   * @param path the IDs of the libraries that depend on <code>library</code>, to detect cycles
+   */
+  private void collectDependencies(Library library, Set<String> path, Set<Library> closure) {
+    if (!path.add(library.getId())) {
+      logger.warning("Ignoring dependency cycle between libraries " //$NON-NLS-1$
+          + Joiner.on(" -> ").join(path) + " -> " + library.getId()); //$NON-NLS-1$ //$NON-NLS-2$
+      return;
+    }
+    if (closure.add(library)) {
+      for (String dependencyId : library.getLibraryDependencies()) {
+        Library dependency = libraryConfigService.getLibrary(dependencyId);
+        if (dependency == null) {
+          logger.warning("Library " + library.getId() + " depends on unknown library " //$NON-NLS-1$ //$NON-NLS-2$
+              + dependencyId);
+        } else {
+          collectDependencies(dependency, path, closure);
+        }
+      }
+    }
+    path.remove(library.getId());
+  }
+
+  private void collectHighestVersions(Library library) {
+    for (LibraryFile libraryFile : library.getLibraryFiles()) {
+      String key = getKey(libraryFile.getMavenCoordinates());
+      LibraryFile current = highestVersions.get(key);
+      if (current == null || isHigherVersion(libraryFile.getMavenCoordinates().getVersion(),
+                                             current.getMavenCoordinates().getVersion())) {
+        highestVersions.put(key, libraryFile);
+      }
+    }
+  }
+
+  private void assign(Library library, List<LibraryFile> files, Set<String> assigned) {
+    for (LibraryFile libraryFile : library.getLibraryFiles()) {
+      String key = getKey(libraryFile.getMavenCoordinates());
+      if (assigned.add(key)) {
+        files.add(highestVersions.get(key));
+      }
+    }
+  }
+
+  /**
+   * @return true if <code>version</code> is higher than <code>otherVersion</code>, where
+   *     {@link MavenCoordinates#LATEST_VERSION} is higher than any other version
+   */
+  static boolean isHigherVersion(String version, String otherVersion) {
+    if (MavenCoordinates.LATEST_VERSION.equals(otherVersion)) {
+      return false;
+    } else if (MavenCoordinates.LATEST_VERSION.equals(version)) {
+      return true;
+    }
+    return new ComparableVersion(version).compareTo(new ComparableVersion(otherVersion)) > 0;
+  }
+
+  private static String getKey(MavenCoordinates coordinates) {
+    return coordinates.getGroupId() + ':' + coordinates.getArtifactId() + ':'
+        + coordinates.getType() + ':' + coordinates.getClassifier();
+  }
+}
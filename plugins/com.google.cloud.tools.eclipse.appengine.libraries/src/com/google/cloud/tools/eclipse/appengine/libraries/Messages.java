@@ -24,15 +24,20 @@ public class Messages extends NLS {
   public static String ContainerPathInvalidFirstSegment;
   public static String ContainerPathNotTwoSegments;
   public static String CreateLibraryError;
+  public static String LibraryContainerValidationJobName;
+  public static String LibraryPrefetchJobName;
   public static String LoadContainerFailed;
   public static String RepositoryCannotBeLocated;
   public static String RepositoryUriInvalid;
   public static String RepositoryUriNotAbsolute;
   public static String ResolveArtifactError;
+  public static String SourceAttachmentUpdateFailed;
+  public static String SourceAttachmentUpdaterJobName;
   public static String TaskResolveArtifacts;
   public static String TaskResolveLibraries;
   public static String TaskResolveLibrariesError;
   public static String UnexpectedConfigurationElement;
+  public static String ValidateContainerFailed;
 
   static {
     // initialize resource bundle
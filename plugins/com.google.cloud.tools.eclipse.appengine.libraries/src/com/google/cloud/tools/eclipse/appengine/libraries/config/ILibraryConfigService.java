@@ -0,0 +1,65 @@
+/*
+ * Copyright 2016 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.cloud.tools.eclipse.appengine.libraries.config;
+
+import com.google.cloud.tools.eclipse.appengine.libraries.model.Library;
+import java.util.List;
+
+/**
+ * Service interface for looking up the {@link Library} definitions contributed to the
+ * <code>com.google.cloud.tools.eclipse.appengine.libraries</code> extension point.
+ * <p>
+ * The definitions are parsed once and shared by all clients; the returned libraries must not be
+ * modified.
+ */
+public interface ILibraryConfigService {
+
+  String LIBRARIES_EXTENSION_POINT = "com.google.cloud.tools.eclipse.appengine.libraries"; //$NON-NLS-1$
+
+  /**
+   * @return the library with the id <code>libraryId</code>, or <code>null</code> if there is no
+   *     such library
+   */
+  Library getLibrary(String libraryId);
+
+  /**
+   * @return all libraries in the order they are contributed
+   */
+  List<Library> getLibraries();
+
+  /**
+   * @return the libraries that have a library file with the given Maven group and artifact ID,
+   *     regardless of its version, or an empty list if there are none
+   */
+  List<Library> getLibrariesContaining(String groupId, String artifactId);
+
+  /**
+   * Registers <code>listener</code> to be notified after the library definitions changed. Has no
+   * effect if it is already registered.
+   */
+  void addCatalogListener(CatalogListener listener);
+
+  void removeCatalogListener(CatalogListener listener);
+
+  /**
+   * Notified after libraries were added to or removed from the extension point, e.g. because a
+   * bundle contributing libraries was installed.
+   */
+  interface CatalogListener {
+    void librariesChanged();
+  }
+}
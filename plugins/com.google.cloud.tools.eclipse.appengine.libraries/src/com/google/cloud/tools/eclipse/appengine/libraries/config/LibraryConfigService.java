@@ -0,0 +1,192 @@
+/*
+ * Copyright 2016 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.cloud.tools.eclipse.appengine.libraries.config;
+
+import com.google.cloud.tools.eclipse.appengine.libraries.model.Library;
+import com.google.cloud.tools.eclipse.appengine.libraries.model.LibraryFactory;
+import com.google.cloud.tools.eclipse.appengine.libraries.model.LibraryFactoryException;
+import com.google.cloud.tools.eclipse.appengine.libraries.model.LibraryFile;
+import com.google.cloud.tools.eclipse.appengine.libraries.model.MavenCoordinates;
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.base.Preconditions;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableListMultimap;
+import com.google.common.collect.ImmutableMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import org.eclipse.core.runtime.IConfigurationElement;
+import org.eclipse.core.runtime.IExtension;
+import org.eclipse.core.runtime.IExtensionPoint;
+import org.eclipse.core.runtime.IExtensionRegistry;
+import org.eclipse.core.runtime.IRegistryEventListener;
+import org.eclipse.core.runtime.RegistryFactory;
+import org.osgi.service.component.annotations.Activate;
+import org.osgi.service.component.annotations.Component;
+import org.osgi.service.component.annotations.Deactivate;
+
+/**
+ * Implementation of {@link ILibraryConfigService} that parses the library definitions when the
+ * service is activated, and again whenever extensions are added to or removed from the extension
+ * point, e.g. because a bundle contributing libraries was installed.
+ * <p>
+ * Each parse creates a new immutable snapshot of the definitions, so lookups do not need to
+ * synchronize with a concurrent reload. {@link CatalogListener}s are notified after the new
+ * snapshot is in place.
+ */
+@Component
+public class LibraryConfigService implements ILibraryConfigService, IRegistryEventListener {
+
+  private static final Logger logger = Logger.getLogger(LibraryConfigService.class.getName());
+
+  private final LibraryFactory libraryFactory;
+  private IExtensionRegistry extensionRegistry;
+  private volatile Catalog catalog = new Catalog(ImmutableMap.<String, Library>of());
+  private final List<CatalogListener> listeners = new CopyOnWriteArrayList<>();
+
+  public LibraryConfigService() {
+    this(new LibraryFactory());
+  }
+
+  @VisibleForTesting
+  LibraryConfigService(LibraryFactory libraryFactory) {
+    this.libraryFactory = libraryFactory;
+  }
+
+  @Activate
+  protected void activate() {
+    initialize(RegistryFactory.getRegistry());
+  }
+
+  @Deactivate
+  protected void deactivate() {
+    if (extensionRegistry != null) {
+      extensionRegistry.removeListener(this);
+      extensionRegistry = null;
+    }
+  }
+
+  /*
+   * To make sure that the libraries are parsed in production, ensure that the activate() method is
+   * called.
+   */
+  @VisibleForTesting
+  void initialize(IExtensionRegistry extensionRegistry) {
+    Preconditions.checkNotNull(extensionRegistry, "extensionRegistry is null"); //$NON-NLS-1$
+    this.extensionRegistry = extensionRegistry;
+    extensionRegistry.addListener(this, LIBRARIES_EXTENSION_POINT);
+    reload();
+  }
+
+  @Override
+  public Library getLibrary(String libraryId) {
+    return catalog.libraries.get(libraryId);
+  }
+
+  @Override
+  public List<Library> getLibraries() {
+    return catalog.libraries.values().asList();
+  }
+
+  @Override
+  public List<Library> getLibrariesContaining(String groupId, String artifactId) {
+    return catalog.librariesByArtifact.get(artifactKey(groupId, artifactId));
+  }
+
+  @Override
+  public void addCatalogListener(CatalogListener listener) {
+    if (!listeners.contains(listener)) {
+      listeners.add(listener);
+    }
+  }
+
+  @Override
+  public void removeCatalogListener(CatalogListener listener) {
+    listeners.remove(listener);
+  }
+
+  @Override
+  public void added(IExtension[] extensions) {
+    reloadAndNotify();
+  }
+
+  @Override
+  public void removed(IExtension[] extensions) {
+    reloadAndNotify();
+  }
+
+  @Override
+  public void added(IExtensionPoint[] extensionPoints) {
+    reloadAndNotify();
+  }
+
+  @Override
+  public void removed(IExtensionPoint[] extensionPoints) {
+    reloadAndNotify();
+  }
+
+  private void reloadAndNotify() {
+    reload();
+    for (CatalogListener listener : listeners) {
+      listener.librariesChanged();
+    }
+  }
+
+  private synchronized void reload() {
+    if (extensionRegistry == null) {
+      return;
+    }
+    IConfigurationElement[] configurationElements =
+        extensionRegistry.getConfigurationElementsFor(LIBRARIES_EXTENSION_POINT);
+    // a later definition with the same id replaces an earlier one
+    Map<String, Library> libraries = new LinkedHashMap<>(configurationElements.length);
+    for (IConfigurationElement configurationElement : configurationElements) {
+      try {
+        Library library = libraryFactory.create(configurationElement);
+        libraries.put(library.getId(), library);
+      } catch (LibraryFactoryException exception) {
+        logger.log(Level.SEVERE, "Failed to initialize libraries", exception); //$NON-NLS-1$
+      }
+    }
+    catalog = new Catalog(ImmutableMap.copyOf(libraries));
+  }
+
+  private static String artifactKey(String groupId, String artifactId) {
+    return groupId + ':' + artifactId;
+  }
+
+  private static final class Catalog {
+    private final ImmutableMap<String, Library> libraries;
+    private final ImmutableListMultimap<String, Library> librariesByArtifact;
+
+    private Catalog(ImmutableMap<String, Library> libraries) {
+      this.libraries = libraries;
+      ImmutableListMultimap.Builder<String, Library> byArtifact = ImmutableListMultimap.builder();
+      for (Library library : libraries.values()) {
+        for (LibraryFile libraryFile : library.getLibraryFiles()) {
+          MavenCoordinates coordinates = libraryFile.getMavenCoordinates();
+          byArtifact.put(artifactKey(coordinates.getGroupId(), coordinates.getArtifactId()),
+                         library);
+        }
+      }
+      this.librariesByArtifact = byArtifact.build();
+    }
+  }
+}
@@ -0,0 +1,300 @@
+/*
+ * Copyright 2016 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.cloud.tools.eclipse.appengine.libraries.persistence;
+
+import com.google.cloud.tools.eclipse.appengine.libraries.LibraryClasspathContainer;
+import com.google.cloud.tools.eclipse.util.io.PathUtil;
+import com.google.common.base.Charsets;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.google.gson.stream.JsonWriter;
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.util.ArrayList;
+import java.util.List;
+import org.eclipse.core.runtime.IPath;
+import org.eclipse.core.runtime.Path;
+import org.eclipse.jdt.core.IAccessRule;
+import org.eclipse.jdt.core.IClasspathAttribute;
+import org.eclipse.jdt.core.IClasspathEntry;
+import org.eclipse.jdt.core.JavaCore;
+
+/**
+ * JSON format of the state file of a {@link LibraryClasspathContainer}, read and written in a
+ * single pass with a {@link JsonReader} and {@link JsonWriter} instead of building an intermediate
+ * object tree. The files stay small, readable text that can be shared with the project.
+ * <p>
+ * The property names are those of the pretty-printed files written by earlier versions, so that
+ * those files are read by the same code; they have no <code>version</code> property. Entry paths and source attachment paths are stored
+ * relative to the artifact base location if they are below it. Unknown properties are skipped.
+ */
+final class ContainerStateFormat {
+
+  static final int FORMAT_VERSION = 2;
+
+  private static final String VERSION = "version"; //$NON-NLS-1$
+  private static final String DESCRIPTION = "description"; //$NON-NLS-1$
+  private static final String PATH = "path"; //$NON-NLS-1$
+  private static final String ENTRIES = "entries"; //$NON-NLS-1$
+  private static final String SOURCE_ATTACHMENT_PATH = "sourceAttachmentPath"; //$NON-NLS-1$
+  private static final String EXPORTED = "exported"; //$NON-NLS-1$
+  private static final String ACCESS_RULES = "accessRules"; //$NON-NLS-1$
+  private static final String RULE_KIND = "ruleKind"; //$NON-NLS-1$
+  private static final String PATTERN = "pattern"; //$NON-NLS-1$
+  private static final String IGNORE_IF_BETTER = "ignoreIfBetter"; //$NON-NLS-1$
+  private static final String ATTRIBUTES = "attributes"; //$NON-NLS-1$
+  private static final String NAME = "name"; //$NON-NLS-1$
+  private static final String VALUE = "value"; //$NON-NLS-1$
+
+  // names of the access rule kinds, as written by earlier versions
+  private static final String ACCESSIBLE = "ACCESSIBLE"; //$NON-NLS-1$
+  private static final String DISCOURAGED = "DISCOURAGED"; //$NON-NLS-1$
+  private static final String FORBIDDEN = "FORBIDDEN"; //$NON-NLS-1$
+
+  private ContainerStateFormat() {
+  }
+
+  static void write(OutputStream stream, LibraryClasspathContainer container, IPath baseDirectory)
+      throws IOException {
+    JsonWriter writer =
+        new JsonWriter(new BufferedWriter(new OutputStreamWriter(stream, Charsets.UTF_8)));
+    writer.beginObject();
+    writer.name(VERSION).value(FORMAT_VERSION);
+    writer.name(DESCRIPTION).value(container.getDescription());
+    writer.name(PATH).value(container.getPath().toPortableString());
+    writer.name(ENTRIES).beginArray();
+    for (IClasspathEntry entry : container.getClasspathEntries()) {
+      writer.beginObject();
+      writer.name(PATH).value(
+          PathUtil.relativizePath(entry.getPath(), baseDirectory).toPortableString());
+      IPath sourceAttachmentPath = entry.getSourceAttachmentPath();
+      if (sourceAttachmentPath != null) {
+        writer.name(SOURCE_ATTACHMENT_PATH).value(
+            PathUtil.relativizePath(sourceAttachmentPath, baseDirectory).toPortableString());
+      }
+      writer.name(EXPORTED).value(entry.isExported());
+
+      writer.name(ACCESS_RULES).beginArray();
+      for (IAccessRule rule : entry.getAccessRules()) {
+        writer.beginObject();
+        writer.name(RULE_KIND).value(getRuleKindName(rule.getKind()));
+        writer.name(PATTERN).value(rule.getPattern().toPortableString());
+        if (rule.ignoreIfBetter()) {
+          writer.name(IGNORE_IF_BETTER).value(true);
+        }
+        writer.endObject();
+      }
+      writer.endArray();
+
+      writer.name(ATTRIBUTES).beginArray();
+      for (IClasspathAttribute attribute : entry.getExtraAttributes()) {
+        writer.beginObject();
+        writer.name(NAME).value(attribute.getName());
+        writer.name(VALUE).value(attribute.getValue());
+        writer.endObject();
+      }
+      writer.endArray();
+      writer.endObject();
+    }
+    writer.endArray();
+    writer.endObject();
+    writer.flush();
+  }
+
+  /**
+   * @return <code>null</code> if <code>stream</code> is empty
+   * @throws IOException if <code>stream</code> is not a valid state file, e.g. because it is
+   *     truncated or was written by a newer version
+   */
+  static LibraryClasspathContainer read(InputStream stream, IPath baseDirectory)
+      throws IOException {
+    JsonReader reader =
+        new JsonReader(new BufferedReader(new InputStreamReader(stream, Charsets.UTF_8)));
+    try {
+      try {
+        reader.peek();
+      } catch (EOFException ex) {
+        return null;
+      }
+      LibraryClasspathContainer container = readContainer(reader, baseDirectory);
+      if (reader.peek() != JsonToken.END_DOCUMENT) {
+        throw new IOException("Unexpected data after container state"); //$NON-NLS-1$
+      }
+      return container;
+    } catch (IllegalStateException | IllegalArgumentException ex) {
+      // thrown by JsonReader for unexpected tokens, and by readers of the values
+      throw new IOException("Invalid container state: " + ex.getMessage(), ex); //$NON-NLS-1$
+    }
+  }
+
+  private static LibraryClasspathContainer readContainer(JsonReader reader, IPath baseDirectory)
+      throws IOException {
+    String description = null;
+    String containerPath = null;
+    List<IClasspathEntry> entries = new ArrayList<>();
+    reader.beginObject();
+    while (reader.hasNext()) {
+      String name = reader.nextName();
+      if (VERSION.equals(name)) {
+        int version = reader.nextInt();
+        if (version > FORMAT_VERSION) {
+          throw new IOException(
+              "Unsupported container state format version " + version); //$NON-NLS-1$
+        }
+      } else if (DESCRIPTION.equals(name)) {
+        description = reader.nextString();
+      } else if (PATH.equals(name)) {
+        containerPath = reader.nextString();
+      } else if (ENTRIES.equals(name)) {
+        reader.beginArray();
+        while (reader.hasNext()) {
+          entries.add(readEntry(reader, baseDirectory));
+        }
+        reader.endArray();
+      } else {
+        reader.skipValue();
+      }
+    }
+    reader.endObject();
+    if (containerPath == null) {
+      throw new IOException("Container state without a path"); //$NON-NLS-1$
+    }
+    return new LibraryClasspathContainer(Path.fromPortableString(containerPath), description,
+                                         entries.toArray(new IClasspathEntry[entries.size()]));
+  }
+
+  private static IClasspathEntry readEntry(JsonReader reader, IPath baseDirectory)
+      throws IOException {
+    String path = null;
+    String sourceAttachmentPath = null;
+    // earlier versions only saved exported entries
+    boolean exported = true;
+    List<IAccessRule> accessRules = new ArrayList<>();
+    List<IClasspathAttribute> attributes = new ArrayList<>();
+    reader.beginObject();
+    while (reader.hasNext()) {
+      String name = reader.nextName();
+      if (PATH.equals(name)) {
+        path = reader.nextString();
+      } else if (SOURCE_ATTACHMENT_PATH.equals(name) && reader.peek() != JsonToken.NULL) {
+        sourceAttachmentPath = reader.nextString();
+      } else if (EXPORTED.equals(name)) {
+        exported = reader.nextBoolean();
+      } else if (ACCESS_RULES.equals(name)) {
+        reader.beginArray();
+        while (reader.hasNext()) {
+          accessRules.add(readAccessRule(reader));
+        }
+        reader.endArray();
+      } else if (ATTRIBUTES.equals(name)) {
+        reader.beginArray();
+        while (reader.hasNext()) {
+          attributes.add(readAttribute(reader));
+        }
+        reader.endArray();
+      } else {
+        reader.skipValue();
+      }
+    }
+    reader.endObject();
+    if (path == null) {
+      throw new IOException("Container state entry without a path"); //$NON-NLS-1$
+    }
+    return JavaCore.newLibraryEntry(
+        PathUtil.makePathAbsolute(Path.fromPortableString(path), baseDirectory),
+        sourceAttachmentPath == null ? null
+            : PathUtil.makePathAbsolute(Path.fromPortableString(sourceAttachmentPath),
+                                        baseDirectory),
+        null /* sourceAttachmentRootPath */,
+        accessRules.toArray(new IAccessRule[accessRules.size()]),
+        attributes.toArray(new IClasspathAttribute[attributes.size()]),
+        exported);
+  }
+
+  private static IAccessRule readAccessRule(JsonReader reader) throws IOException {
+    int kind = IAccessRule.K_ACCESSIBLE;
+    String pattern = null;
+    boolean ignoreIfBetter = false;
+    reader.beginObject();
+    while (reader.hasNext()) {
+      String name = reader.nextName();
+      if (RULE_KIND.equals(name)) {
+        kind = getRuleKind(reader.nextString());
+      } else if (PATTERN.equals(name)) {
+        pattern = reader.nextString();
+      } else if (IGNORE_IF_BETTER.equals(name)) {
+        ignoreIfBetter = reader.nextBoolean();
+      } else {
+        reader.skipValue();
+      }
+    }
+    reader.endObject();
+    if (pattern == null) {
+      throw new IOException("Access rule without a pattern"); //$NON-NLS-1$
+    }
+    return JavaCore.newAccessRule(Path.fromPortableString(pattern),
+                                  kind | (ignoreIfBetter ? IAccessRule.IGNORE_IF_BETTER : 0));
+  }
+
+  private static IClasspathAttribute readAttribute(JsonReader reader) throws IOException {
+    String attributeName = null;
+    String value = null;
+    reader.beginObject();
+    while (reader.hasNext()) {
+      String name = reader.nextName();
+      if (NAME.equals(name)) {
+        attributeName = reader.nextString();
+      } else if (VALUE.equals(name)) {
+        value = reader.nextString();
+      } else {
+        reader.skipValue();
+      }
+    }
+    reader.endObject();
+    return JavaCore.newClasspathAttribute(attributeName, value);
+  }
+
+  private static String getRuleKindName(int kind) {
+    switch (kind) {
+      case IAccessRule.K_ACCESSIBLE:
+        return ACCESSIBLE;
+      case IAccessRule.K_DISCOURAGED:
+        return DISCOURAGED;
+      case IAccessRule.K_NON_ACCESSIBLE:
+        return FORBIDDEN;
+      default:
+        throw new IllegalArgumentException("Invalid access rule kind value: " + kind); //$NON-NLS-1$
+    }
+  }
+
+  private static int getRuleKind(String name) {
+    if (ACCESSIBLE.equals(name)) {
+      return IAccessRule.K_ACCESSIBLE;
+    } else if (DISCOURAGED.equals(name)) {
+      return IAccessRule.K_DISCOURAGED;
+    } else if (FORBIDDEN.equals(name)) {
+      return IAccessRule.K_NON_ACCESSIBLE;
+    }
+    throw new IllegalArgumentException("Invalid access rule kind: " + name); //$NON-NLS-1$
+  }
+}
@@ -17,22 +17,23 @@
 package com.google.cloud.tools.eclipse.appengine.libraries.persistence;
 
 import com.google.cloud.tools.eclipse.appengine.libraries.LibraryClasspathContainer;
+import com.google.cloud.tools.eclipse.appengine.libraries.LibraryClasspathContainerInterner;
 import com.google.common.annotations.VisibleForTesting;
-import com.google.common.base.Charsets;
-import com.google.gson.Gson;
-import com.google.gson.GsonBuilder;
 import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
 import java.io.File;
-import java.io.FileOutputStream;
-import java.io.FileReader;
 import java.io.IOException;
-import java.io.OutputStreamWriter;
+import java.io.InputStream;
+import java.nio.file.Files;
 import java.util.logging.Logger;
 import org.eclipse.core.resources.IFile;
 import org.eclipse.core.resources.IFolder;
+import org.eclipse.core.resources.IResource;
+import org.eclipse.core.resources.ResourcesPlugin;
 import org.eclipse.core.runtime.CoreException;
 import org.eclipse.core.runtime.IPath;
 import org.eclipse.core.runtime.Path;
+import org.eclipse.core.runtime.Platform;
 import org.eclipse.e4.core.di.annotations.Creatable;
 import org.eclipse.jdt.core.IJavaProject;
 import org.eclipse.m2e.core.MavenPlugin;
@@ -40,6 +41,11 @@ import org.osgi.framework.FrameworkUtil;
 
 /**
  * Provides functionality to save and load {@link LibraryClasspathContainer} instances to disk.
+ * <p>
+ * Containers are saved as compact JSON in the {@link ContainerStateFormat}, through the workspace
+ * if the state file is a workspace resource. State files pretty-printed by earlier versions are
+ * still loaded, and are rewritten the next time the container is saved. Loaded containers are
+ * shared between projects by the {@link LibraryClasspathContainerInterner}.
  */
 @Creatable
 public class LibraryClasspathContainerSerializer {
@@ -91,10 +97,14 @@ public class LibraryClasspathContainerSerializer {
       logger.warning("Container state file cannot be created, save failed");
       return;
     }
-    try (OutputStreamWriter outputStream = new OutputStreamWriter(new FileOutputStream(stateFile), Charsets.UTF_8)) {
-      Gson gson = new GsonBuilder().setPrettyPrinting().create();
-      outputStream.write(gson.toJson(new SerializableLibraryClasspathContainer(container,
-                                                                               artifactBaseLocationProvider.getBaseLocation())));
+    ByteArrayOutputStream contents = new ByteArrayOutputStream();
+    ContainerStateFormat.write(contents, container, artifactBaseLocationProvider.getBaseLocation());
+    IFile file = getWorkspaceFile(stateFile);
+    if (file != null && file.exists()) {
+      // keep the workspace in sync with the file, so that it can be shared with the project
+      file.setContents(new ByteArrayInputStream(contents.toByteArray()), IResource.FORCE, null);
+    } else {
+      Files.write(stateFile.toPath(), contents.toByteArray());
     }
   }
 
@@ -104,12 +114,23 @@ public class LibraryClasspathContainerSerializer {
     if (stateFile == null) {
       return null;
     }
-    try (FileReader fileReader = new FileReader(stateFile)) {
-      Gson gson = new GsonBuilder().create();
-      SerializableLibraryClasspathContainer fromJson =
-          gson.fromJson(fileReader, SerializableLibraryClasspathContainer.class);
-      return fromJson.toLibraryClasspathContainer(artifactBaseLocationProvider.getBaseLocation());
+    IPath baseLocation = artifactBaseLocationProvider.getBaseLocation();
+    try (InputStream input = Files.newInputStream(stateFile.toPath())) {
+      LibraryClasspathContainer container = ContainerStateFormat.read(input, baseLocation);
+      return container == null ? null : LibraryClasspathContainerInterner.intern(container);
+    }
+  }
+
+  /**
+   * @return the workspace file at the location of <code>file</code>, or <code>null</code> if it is
+   *     outside of the workspace or the platform is not running
+   */
+  private static IFile getWorkspaceFile(File file) {
+    if (!Platform.isRunning()) {
+      return null;
     }
+    return ResourcesPlugin.getWorkspace().getRoot()
+        .getFileForLocation(Path.fromOSString(file.getAbsolutePath()));
   }
 
   private File getContainerStateFile(IJavaProject javaProject, IPath containerPath, boolean create) 
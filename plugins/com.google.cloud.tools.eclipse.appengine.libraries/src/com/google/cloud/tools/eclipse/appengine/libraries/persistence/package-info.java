@@ -16,8 +16,5 @@
 
 /**
  * Provides the classes to enable persisting of classpath containers representing App Engine Libraries.
- * <p>
- * The classes from the Eclipse API cannot be easily used to persist as JSON, hence the need for the corresponding
- * classes in this package. 
  */
 package com.google.cloud.tools.eclipse.appengine.libraries.persistence;
@@ -0,0 +1,37 @@
+/*
+ * Copyright 2016 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.cloud.tools.eclipse.appengine.libraries.repository;
+
+import java.util.Collection;
+
+/**
+ * Service interface for resolving the artifacts of libraries into the local repository ahead of
+ * their use, so that adding a library to a project does not wait for downloads.
+ */
+public interface ILibraryPrefetchService {
+
+  /**
+   * Resolves the files of the libraries with the given ids, and of the libraries they depend on,
+   * in the background. Returns immediately; unknown ids are ignored.
+   */
+  void prefetch(Collection<String> libraryIds);
+
+  /**
+   * Resolves the files of all known libraries in the background. Returns immediately.
+   */
+  void prefetchAll();
+}
@@ -18,6 +18,7 @@ package com.google.cloud.tools.eclipse.appengine.libraries.repository;
 
 import com.google.cloud.tools.eclipse.appengine.libraries.model.LibraryFile;
 import com.google.cloud.tools.eclipse.appengine.libraries.model.MavenCoordinates;
+import org.eclipse.core.runtime.IPath;
 import org.eclipse.jdt.core.IClasspathEntry;
 
 /**
@@ -36,6 +37,15 @@ public interface ILibraryRepositoryService {
    */
   IClasspathEntry getLibraryClasspathEntry(LibraryFile libraryFile) throws LibraryRepositoryServiceException;
 
+  /**
+   * Resolves the artifact defined by the <code>libraryFile</code> parameter into the local repository, without
+   * looking for or downloading its source attachment, e.g. to fetch it before a classpath entry is needed.
+   *
+   * @return the local path of the artifact file
+   * @throws LibraryRepositoryServiceException if the artifact cannot be resolved
+   */
+  IPath resolveArtifact(LibraryFile libraryFile) throws LibraryRepositoryServiceException;
+
   /**
    * Returns a new {@link IClasspathEntry} instance with the kind {@link IClasspathEntry#CPE_LIBRARY} which has the
    * same properties as the input, except for the path which is resolved afresh.
@@ -0,0 +1,182 @@
+/*
+ * Copyright 2016 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.cloud.tools.eclipse.appengine.libraries.repository;
+
+import com.google.cloud.tools.eclipse.appengine.libraries.Messages;
+import com.google.cloud.tools.eclipse.appengine.libraries.model.LibraryFile;
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.base.Preconditions;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import org.eclipse.core.runtime.IProgressMonitor;
+import org.eclipse.core.runtime.IStatus;
+import org.eclipse.core.runtime.OperationCanceledException;
+import org.eclipse.core.runtime.Status;
+import org.eclipse.core.runtime.SubMonitor;
+import org.eclipse.core.runtime.jobs.Job;
+
+/**
+ * Resolves library files into the local repository in the background, so that the artifacts are
+ * already available when a library is added to a project.
+ * <p>
+ * Requests are queued and handled by a single low priority system job, which resolves the queued
+ * files on a configurable number of threads. Files already queued are not queued again. Failures
+ * are only logged, as the files will be resolved again when they are actually used.
+ */
+class LibraryPrefetchJob extends Job {
+
+  private static final Logger logger = Logger.getLogger(LibraryPrefetchJob.class.getName());
+
+  private static final long CANCELLATION_CHECK_INTERVAL_MILLIS = 100;
+
+  private final ILibraryRepositoryService repositoryService;
+  private final int concurrency;
+
+  private final Object lock = new Object();
+  // guarded by lock
+  private final Map<String, LibraryFile> queuedFiles = new LinkedHashMap<>();
+  // guarded by lock
+  private final List<Runnable> completionCallbacks = new ArrayList<>();
+
+  LibraryPrefetchJob(ILibraryRepositoryService repositoryService, int concurrency) {
+    super(Messages.LibraryPrefetchJobName);
+    Preconditions.checkNotNull(repositoryService);
+    Preconditions.checkArgument(concurrency > 0, "concurrency must be positive"); //$NON-NLS-1$
+    this.repositoryService = repositoryService;
+    this.concurrency = concurrency;
+    setSystem(true);
+    setPriority(DECORATE);
+  }
+
+  /**
+   * Queues <code>libraryFiles</code> for resolution and schedules this job.
+   *
+   * @param onSuccess run once all files of this request are resolved, or <code>null</code>; not
+   *     run if a file cannot be resolved or the job is canceled
+   */
+  void prefetch(Collection<LibraryFile> libraryFiles, Runnable onSuccess) {
+    synchronized (lock) {
+      for (LibraryFile libraryFile : libraryFiles) {
+        String key = ResolvedArtifactCache.getKey(libraryFile.getMavenCoordinates());
+        if (!queuedFiles.containsKey(key)) {
+          queuedFiles.put(key, libraryFile);
+        }
+      }
+      if (onSuccess != null) {
+        completionCallbacks.add(onSuccess);
+      }
+    }
+    schedule();
+  }
+
+  @Override
+  protected IStatus run(IProgressMonitor monitor) {
+    List<LibraryFile> libraryFiles;
+    List<Runnable> callbacks;
+    synchronized (lock) {
+      libraryFiles = new ArrayList<>(queuedFiles.values());
+      callbacks = new ArrayList<>(completionCallbacks);
+      queuedFiles.clear();
+      completionCallbacks.clear();
+    }
+    if (libraryFiles.isEmpty()) {
+      runCallbacks(callbacks);
+      return Status.OK_STATUS;
+    }
+
+    SubMonitor progress = SubMonitor.convert(monitor, Messages.LibraryPrefetchJobName,
+                                             libraryFiles.size());
+    ExecutorService executor =
+        Executors.newFixedThreadPool(Math.min(concurrency, libraryFiles.size()));
+    try {
+      List<Future<?>> futures = new ArrayList<>(libraryFiles.size());
+      for (final LibraryFile libraryFile : libraryFiles) {
+        futures.add(executor.submit(new Callable<Void>() {
+          @Override
+          public Void call() throws LibraryRepositoryServiceException {
+            // sources are downloaded when the library is added to a project
+            repositoryService.resolveArtifact(libraryFile);
+            return null;
+          }
+        }));
+      }
+      boolean failed = false;
+      for (int i = 0; i < futures.size(); i++) {
+        failed |= !waitFor(futures.get(i), libraryFiles.get(i), progress);
+        progress.worked(1);
+      }
+      if (!failed) {
+        runCallbacks(callbacks);
+      }
+      return Status.OK_STATUS;
+    } catch (OperationCanceledException ex) {
+      return Status.CANCEL_STATUS;
+    } finally {
+      executor.shutdownNow();
+    }
+  }
+
+  /**
+   * @return false if <code>libraryFile</code> could not be resolved
+   */
+  private static boolean waitFor(Future<?> future, LibraryFile libraryFile,
+                                 IProgressMonitor monitor) {
+    while (true) {
+      if (monitor.isCanceled()) {
+        throw new OperationCanceledException();
+      }
+      try {
+        future.get(CANCELLATION_CHECK_INTERVAL_MILLIS, TimeUnit.MILLISECONDS);
+        return true;
+      } catch (TimeoutException ex) {
+        // check for cancellation and wait again
+      } catch (ExecutionException ex) {
+        logger.log(Level.FINE, "Cannot prefetch " + libraryFile.getMavenCoordinates(), //$NON-NLS-1$
+                   ex.getCause());
+        return false;
+      } catch (InterruptedException ex) {
+        Thread.currentThread().interrupt();
+        throw new OperationCanceledException();
+      }
+    }
+  }
+
+  private static void runCallbacks(List<Runnable> callbacks) {
+    for (Runnable callback : callbacks) {
+      callback.run();
+    }
+  }
+
+  @VisibleForTesting
+  int getQueuedFileCount() {
+    synchronized (lock) {
+      return queuedFiles.size();
+    }
+  }
+}
@@ -0,0 +1,191 @@
+/*
+ * Copyright 2016 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.cloud.tools.eclipse.appengine.libraries.repository;
+
+import com.google.cloud.tools.eclipse.appengine.libraries.config.ILibraryConfigService;
+import com.google.cloud.tools.eclipse.appengine.libraries.config.ILibraryConfigService.CatalogListener;
+import com.google.cloud.tools.eclipse.appengine.libraries.model.Library;
+import com.google.cloud.tools.eclipse.appengine.libraries.model.LibraryFile;
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.base.Charsets;
+import com.google.common.hash.Hasher;
+import com.google.common.hash.Hashing;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Deque;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import org.eclipse.core.runtime.preferences.IEclipsePreferences;
+import org.eclipse.core.runtime.preferences.InstanceScope;
+import org.osgi.service.component.annotations.Activate;
+import org.osgi.service.component.annotations.Component;
+import org.osgi.service.component.annotations.Deactivate;
+import org.osgi.service.component.annotations.Reference;
+import org.osgi.service.prefs.BackingStoreException;
+
+/**
+ * Implementation of {@link ILibraryPrefetchService} that resolves the library files with the
+ * {@link ILibraryRepositoryService} in a {@link LibraryPrefetchJob}.
+ * <p>
+ * All libraries are prefetched when the service is activated for the first time, and again
+ * whenever the library definitions changed since the last complete prefetch, either between
+ * sessions or while running. The number of files resolved concurrently can be configured with the
+ * {@value #PREFETCH_CONCURRENCY} preference of this bundle.
+ */
+@Component(immediate = true)
+public class LibraryPrefetchService implements ILibraryPrefetchService, CatalogListener {
+
+  private static final Logger logger = Logger.getLogger(LibraryPrefetchService.class.getName());
+
+  private static final String BUNDLE_ID = "com.google.cloud.tools.eclipse.appengine.libraries"; //$NON-NLS-1$
+
+  /** Number of library files resolved concurrently by the prefetch job. */
+  public static final String PREFETCH_CONCURRENCY = "prefetchConcurrency"; //$NON-NLS-1$
+  @VisibleForTesting
+  static final int DEFAULT_PREFETCH_CONCURRENCY = 2;
+  // fingerprint of the library files that were last prefetched completely
+  @VisibleForTesting
+  static final String PREFETCHED_CATALOG = "prefetchedCatalog"; //$NON-NLS-1$
+
+  private ILibraryConfigService libraryConfigService;
+  private ILibraryRepositoryService repositoryService;
+  private IEclipsePreferences preferences;
+  private LibraryPrefetchJob job;
+
+  public LibraryPrefetchService() {
+  }
+
+  @VisibleForTesting
+  LibraryPrefetchService(ILibraryConfigService libraryConfigService,
+                         ILibraryRepositoryService repositoryService,
+                         IEclipsePreferences preferences) {
+    this.libraryConfigService = libraryConfigService;
+    this.repositoryService = repositoryService;
+    this.preferences = preferences;
+  }
+
+  @Reference
+  protected void setLibraryConfigService(ILibraryConfigService libraryConfigService) {
+    this.libraryConfigService = libraryConfigService;
+  }
+
+  @Reference
+  protected void setRepositoryService(ILibraryRepositoryService repositoryService) {
+    this.repositoryService = repositoryService;
+  }
+
+  @Activate
+  protected void activate() {
+    preferences = InstanceScope.INSTANCE.getNode(BUNDLE_ID);
+    initialize();
+  }
+
+  @Deactivate
+  protected void deactivate() {
+    libraryConfigService.removeCatalogListener(this);
+    job.cancel();
+  }
+
+  /*
+   * To make sure that the libraries are prefetched in production, ensure that the activate()
+   * method is called.
+   */
+  @VisibleForTesting
+  void initialize() {
+    int concurrency = preferences.getInt(PREFETCH_CONCURRENCY, DEFAULT_PREFETCH_CONCURRENCY);
+    job = new LibraryPrefetchJob(repositoryService, Math.max(1, concurrency));
+    libraryConfigService.addCatalogListener(this);
+    prefetchAllIfChanged();
+  }
+
+  @Override
+  public void librariesChanged() {
+    prefetchAllIfChanged();
+  }
+
+  @Override
+  public void prefetch(Collection<String> libraryIds) {
+    Set<String> visited = new HashSet<>();
+    Deque<String> pending = new ArrayDeque<>(libraryIds);
+    List<LibraryFile> libraryFiles = new ArrayList<>();
+    while (!pending.isEmpty()) {
+      String libraryId = pending.pop();
+      Library library = libraryConfigService.getLibrary(libraryId);
+      if (library != null && visited.add(libraryId)) {
+        libraryFiles.addAll(library.getLibraryFiles());
+        pending.addAll(library.getLibraryDependencies());
+      }
+    }
+    if (!libraryFiles.isEmpty()) {
+      job.prefetch(libraryFiles, null);
+    }
+  }
+
+  @Override
+  public void prefetchAll() {
+    List<LibraryFile> libraryFiles = getAllLibraryFiles();
+    final String fingerprint = getFingerprint(libraryFiles);
+    job.prefetch(libraryFiles, new Runnable() {
+      @Override
+      public void run() {
+        preferences.put(PREFETCHED_CATALOG, fingerprint);
+        try {
+          preferences.flush();
+        } catch (BackingStoreException ex) {
+          logger.log(Level.WARNING, ex.getMessage(), ex);
+        }
+      }
+    });
+  }
+
+  private void prefetchAllIfChanged() {
+    String fingerprint = getFingerprint(getAllLibraryFiles());
+    if (!fingerprint.equals(preferences.get(PREFETCHED_CATALOG, null))) {
+      prefetchAll();
+    }
+  }
+
+  private List<LibraryFile> getAllLibraryFiles() {
+    List<LibraryFile> libraryFiles = new ArrayList<>();
+    for (Library library : libraryConfigService.getLibraries()) {
+      libraryFiles.addAll(library.getLibraryFiles());
+    }
+    return libraryFiles;
+  }
+
+  private static String getFingerprint(List<LibraryFile> libraryFiles) {
+    Set<String> keys = new TreeSet<>();
+    for (LibraryFile libraryFile : libraryFiles) {
+      keys.add(ResolvedArtifactCache.getKey(libraryFile.getMavenCoordinates()));
+    }
+    Hasher hasher = Hashing.sha1().newHasher();
+    for (String key : keys) {
+      hasher.putString(key, Charsets.UTF_8).putByte((byte) 0);
+    }
+    return hasher.hash().toString();
+  }
+
+  @VisibleForTesting
+  LibraryPrefetchJob getJob() {
+    return job;
+  }
+}
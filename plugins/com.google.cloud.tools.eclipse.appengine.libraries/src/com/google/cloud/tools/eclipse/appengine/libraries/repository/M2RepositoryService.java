@@ -20,14 +20,21 @@ import com.google.cloud.tools.eclipse.appengine.libraries.Messages;
 import com.google.cloud.tools.eclipse.appengine.libraries.model.Filter;
 import com.google.cloud.tools.eclipse.appengine.libraries.model.LibraryFile;
 import com.google.cloud.tools.eclipse.appengine.libraries.model.MavenCoordinates;
+import com.google.cloud.tools.eclipse.appengine.libraries.persistence.LibraryClasspathContainerSerializer;
 import com.google.cloud.tools.eclipse.util.MavenUtils;
 import com.google.common.annotations.VisibleForTesting;
 import com.google.common.base.Preconditions;
+import com.google.common.base.Strings;
+import com.google.common.hash.Hashing;
+import com.google.common.io.Files;
+import java.io.File;
 import java.net.MalformedURLException;
 import java.net.URI;
 import java.net.URISyntaxException;
+import java.nio.charset.StandardCharsets;
 import java.util.Collections;
 import java.util.List;
+import java.util.concurrent.Callable;
 import org.apache.maven.artifact.Artifact;
 import org.apache.maven.artifact.repository.ArtifactRepository;
 import org.eclipse.core.runtime.CoreException;
@@ -39,32 +46,71 @@ import org.eclipse.jdt.core.IClasspathAttribute;
 import org.eclipse.jdt.core.IClasspathEntry;
 import org.eclipse.jdt.core.JavaCore;
 import org.eclipse.jst.j2ee.classpathdep.UpdateClasspathAttributeUtil;
+import org.eclipse.m2e.core.MavenPlugin;
+import org.eclipse.m2e.core.embedder.ArtifactKey;
+import org.eclipse.m2e.core.embedder.ILocalRepositoryListener;
 import org.eclipse.osgi.util.NLS;
+import org.osgi.framework.FrameworkUtil;
 import org.osgi.service.component.annotations.Activate;
 import org.osgi.service.component.annotations.Component;
+import org.osgi.service.component.annotations.Deactivate;
 
 /**
  * Implementation of {@link ILibraryRepositoryService} that relies on M2Eclipse to download the artifacts and store
  * them in the local Maven repository pointed to by M2Eclipse's M2_REPO variable.
+ * <p>
+ * Resolved artifacts and resolution failures are kept in a {@link ResolvedArtifactCache}, which is
+ * invalidated when the location of the local repository changes, and for an artifact when it is
+ * installed into the local repository.
+ * <p>
+ * Source attachments are never waited for: a classpath entry gets the source attachment if it is
+ * available locally, otherwise the sources are downloaded in the background by a
+ * {@link SourceDownloadManager} and attached to the entry by a {@link SourceAttachmentUpdater}
+ * when the download finishes. Sources given by a {@link LibraryFile#getSourceUri() source URI}
+ * are stored in the data area of this bundle, Maven source artifacts in the local repository.
  */
 @Component
 public class M2RepositoryService implements ILibraryRepositoryService {
 
+  private static final String SOURCES_CLASSIFIER = "sources"; //$NON-NLS-1$
+  private static final String SOURCE_DOWNLOAD_DIRECTORY = "sources"; //$NON-NLS-1$
+
   private MavenHelper mavenHelper;
   private MavenCoordinatesClasspathAttributesTransformer transformer;
+  private final ResolvedArtifactCache artifactCache = new ResolvedArtifactCache();
+  private SourceDownloadManager sourceDownloadManager;
+  private SourceAttachmentUpdater sourceAttachmentUpdater;
+  private File sourceDownloadDirectory;
+
+  private final ILocalRepositoryListener localRepositoryListener = new ILocalRepositoryListener() {
+    @Override
+    public void artifactInstalled(File repositoryBasedir, ArtifactKey baseArtifact,
+                                  ArtifactKey artifact, File artifactFile) {
+      // source jars downloaded for source attachments do not change the resolved artifacts
+      if (!SOURCES_CLASSIFIER.equals(artifact.getClassifier())) {
+        artifactCache.invalidate(artifact.getGroupId(), artifact.getArtifactId());
+      }
+    }
+  };
 
   @Override
   public IClasspathEntry getLibraryClasspathEntry(LibraryFile libraryFile) throws LibraryRepositoryServiceException {
     Artifact artifact = resolveArtifact(libraryFile.getMavenCoordinates());
     IClasspathAttribute[] libraryFileClasspathAttributes = getClasspathAttributes(libraryFile, artifact);
     return JavaCore.newLibraryEntry(new Path(artifact.getFile().getAbsolutePath()),
-                                    getSourceLocation(libraryFile),
+                                    getSourceLocation(libraryFile, artifact),
                                     null /*  sourceAttachmentRootPath */,
                                     getAccessRules(libraryFile.getFilters()),
                                     libraryFileClasspathAttributes,
                                     true /* isExported */);
   }
 
+  @Override
+  public IPath resolveArtifact(LibraryFile libraryFile) throws LibraryRepositoryServiceException {
+    Artifact artifact = resolveArtifact(libraryFile.getMavenCoordinates());
+    return new Path(artifact.getFile().getAbsolutePath());
+  }
+
   @Override
   public IClasspathEntry rebuildClasspathEntry(IClasspathEntry classpathEntry) throws LibraryRepositoryServiceException {
     MavenCoordinates mavenCoordinates = transformer.createMavenCoordinates(classpathEntry.getExtraAttributes());
@@ -77,12 +123,19 @@ public class M2RepositoryService implements ILibraryRepositoryService {
                                     true /* isExported */);
   }
 
-  private Artifact resolveArtifact(MavenCoordinates mavenCoordinates) throws LibraryRepositoryServiceException {
+  private Artifact resolveArtifact(final MavenCoordinates mavenCoordinates)
+      throws LibraryRepositoryServiceException {
     Preconditions.checkState(mavenHelper != null, "mavenHelper is null"); //$NON-NLS-1$
     try {
-      List<ArtifactRepository> repository = getRepository(mavenCoordinates);
+      final List<ArtifactRepository> repository = getRepository(mavenCoordinates);
 
-      return mavenHelper.resolveArtifact(null, mavenCoordinates, repository);
+      artifactCache.setLocalRepository(mavenHelper.getLocalRepositoryBasedir());
+      return artifactCache.resolve(mavenCoordinates, new Callable<Artifact>() {
+        @Override
+        public Artifact call() throws CoreException {
+          return mavenHelper.resolveArtifact(null, mavenCoordinates, repository);
+        }
+      });
     } catch (CoreException ex) {
       throw new LibraryRepositoryServiceException(NLS.bind(Messages.ResolveArtifactError, mavenCoordinates), ex);
     }
@@ -108,14 +161,71 @@ public class M2RepositoryService implements ILibraryRepositoryService {
     }
   }
 
-  private IPath getSourceLocation(LibraryFile libraryFile) {
-    if (libraryFile.getSourceUri() == null) {
-      return getSourceJarLocation(libraryFile.getMavenCoordinates());
-    } else {
-      // download the file and return path to it
-      // TODO https://github.com/GoogleCloudPlatform/google-cloud-eclipse/issues/800
-      return new Path("/downloaded/source/file"); //$NON-NLS-1$
+  /**
+   * @return the source attachment of <code>artifact</code> if it is available locally, otherwise
+   *     <code>null</code>, in which case it is downloaded in the background
+   */
+  private IPath getSourceLocation(final LibraryFile libraryFile, final Artifact artifact) {
+    if (sourceDownloadManager == null) {
+      return null;
     }
+    final File sourceFile = libraryFile.getSourceUri() == null
+        ? getSourceJarLocation(artifact.getFile())
+        : getDownloadedSourceLocation(libraryFile.getSourceUri());
+    if (sourceFile.exists()) {
+      return new Path(sourceFile.getAbsolutePath());
+    }
+    sourceDownloadManager.download(new Path(artifact.getFile().getAbsolutePath()),
+                                   new Callable<File>() {
+      @Override
+      public File call() throws Exception {
+        if (libraryFile.getSourceUri() == null) {
+          return resolveSourceArtifact(libraryFile.getMavenCoordinates(), artifact);
+        } else {
+          return ResumableDownload.download(libraryFile.getSourceUri().toURL(), sourceFile);
+        }
+      }
+    });
+    return null;
+  }
+
+  /**
+   * @return the source jar of <code>artifact</code> from its repository, or <code>null</code> if
+   *     there is none
+   */
+  private File resolveSourceArtifact(MavenCoordinates mavenCoordinates, Artifact artifact)
+      throws LibraryRepositoryServiceException, CoreException {
+    MavenCoordinates sourceCoordinates =
+        new MavenCoordinates(mavenCoordinates.getGroupId(), mavenCoordinates.getArtifactId());
+    sourceCoordinates.setRepository(mavenCoordinates.getRepository());
+    sourceCoordinates.setVersion(artifact.getVersion());
+    sourceCoordinates.setClassifier(SOURCES_CLASSIFIER);
+    Artifact sourceArtifact =
+        mavenHelper.resolveArtifact(null, sourceCoordinates, getRepository(mavenCoordinates));
+    return sourceArtifact == null ? null : sourceArtifact.getFile();
+  }
+
+  /**
+   * @return the location of the source jar of <code>artifactFile</code> in the local repository,
+   *     next to the artifact itself
+   */
+  @VisibleForTesting
+  static File getSourceJarLocation(File artifactFile) {
+    String baseName = Files.getNameWithoutExtension(artifactFile.getName());
+    return new File(artifactFile.getParentFile(),
+                    baseName + "-" + SOURCES_CLASSIFIER + ".jar"); //$NON-NLS-1$ //$NON-NLS-2$
+  }
+
+  /**
+   * @return the file the content of <code>sourceUri</code> is downloaded to, in a directory
+   *     unique to the URI so that source files with the same name do not collide
+   */
+  private File getDownloadedSourceLocation(URI sourceUri) {
+    String directoryName = Hashing.sha1()
+        .hashString(sourceUri.toString(), StandardCharsets.UTF_8).toString();
+    String fileName = new Path(Strings.nullToEmpty(sourceUri.getPath())).lastSegment();
+    return new File(new File(sourceDownloadDirectory, directoryName),
+                    fileName == null ? "sources.jar" : fileName); //$NON-NLS-1$
   }
 
   private static IAccessRule[] getAccessRules(List<Filter> filters) {
@@ -151,14 +261,22 @@ public class M2RepositoryService implements ILibraryRepositoryService {
     }
   }
 
-  private IPath getSourceJarLocation(MavenCoordinates mavenCoordinates) {
-    return new Path("/path/to/source/jar/file/in/m2_repo/" + mavenCoordinates.getArtifactId() + "." + mavenCoordinates.getType()); //$NON-NLS-1$ //$NON-NLS-2$
-  }
-
   @Activate
   protected void activate() {
     mavenHelper = new M2EclipseMavenHelper();
     transformer = new MavenCoordinatesClasspathAttributesTransformer();
+    sourceAttachmentUpdater = new SourceAttachmentUpdater(new LibraryClasspathContainerSerializer());
+    setSourceDownloadManager(new SourceDownloadManager(sourceAttachmentUpdater),
+                             FrameworkUtil.getBundle(getClass()).getDataFile(SOURCE_DOWNLOAD_DIRECTORY));
+    MavenPlugin.getMaven().addLocalRepositoryListener(localRepositoryListener);
+  }
+
+  @Deactivate
+  protected void deactivate() {
+    MavenPlugin.getMaven().removeLocalRepositoryListener(localRepositoryListener);
+    artifactCache.invalidateAll();
+    sourceDownloadManager.shutdown();
+    sourceAttachmentUpdater.cancel();
   }
 
   @VisibleForTesting
@@ -167,6 +285,11 @@ public class M2RepositoryService implements ILibraryRepositoryService {
                              List<ArtifactRepository> repositories) throws CoreException;
 
     ArtifactRepository createArtifactRepository(String host, String string) throws CoreException;
+
+    /**
+     * @return the base directory of the local repository, or <code>null</code> if it is not known
+     */
+    File getLocalRepositoryBasedir();
   }
 
   /*
@@ -177,6 +300,16 @@ public class M2RepositoryService implements ILibraryRepositoryService {
     this.mavenHelper = mavenHelper;
   }
 
+  /**
+   * @param sourceDownloadDirectory where the sources given by a source URI are downloaded to
+   */
+  @VisibleForTesting
+  void setSourceDownloadManager(SourceDownloadManager sourceDownloadManager,
+                                File sourceDownloadDirectory) {
+    this.sourceDownloadManager = sourceDownloadManager;
+    this.sourceDownloadDirectory = sourceDownloadDirectory;
+  }
+
   @VisibleForTesting
   void setTransformer(MavenCoordinatesClasspathAttributesTransformer transformer) {
     this.transformer = transformer;
@@ -197,5 +330,10 @@ public class M2RepositoryService implements ILibraryRepositoryService {
     public ArtifactRepository createArtifactRepository(String id, String url) throws CoreException {
       return MavenUtils.createRepository(id, url);
     }
+
+    @Override
+    public File getLocalRepositoryBasedir() {
+      return MavenPlugin.getRepositoryRegistry().getLocalRepository().getBasedir();
+    }
   }
 }
@@ -0,0 +1,160 @@
+/*
+ * Copyright 2016 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.cloud.tools.eclipse.appengine.libraries.repository;
+
+import com.google.cloud.tools.eclipse.appengine.libraries.model.MavenCoordinates;
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.base.Objects;
+import com.google.common.base.Strings;
+import com.google.common.base.Ticker;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import java.io.File;
+import java.util.Iterator;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import org.apache.maven.artifact.Artifact;
+import org.eclipse.core.runtime.CoreException;
+
+/**
+ * Remembers the artifacts resolved by {@link M2RepositoryService}, so that the same
+ * {@link MavenCoordinates} are resolved only once when e.g. the containers of all projects of a
+ * workspace are initialized.
+ * <p>
+ * Resolved artifacts expire after {@link #RESOLVED_EXPIRATION_MINUTES} so that a
+ * {@link MavenCoordinates#LATEST_VERSION} picks up newly released versions eventually. Failed
+ * resolutions are remembered for {@link #FAILED_EXPIRATION_SECONDS} only, so that a project with
+ * an unresolvable library does not hit the remote repository on every access, but a network
+ * problem is not cached for long.
+ * <p>
+ * Concurrent requests for the same coordinates wait for a single resolution.
+ */
+class ResolvedArtifactCache {
+
+  @VisibleForTesting
+  static final int MAXIMUM_SIZE = 1000;
+  @VisibleForTesting
+  static final long RESOLVED_EXPIRATION_MINUTES = 60;
+  @VisibleForTesting
+  static final long FAILED_EXPIRATION_SECONDS = 30;
+
+  private final Cache<String, Artifact> resolved;
+  private final Cache<String, CoreException> failed;
+  private File localRepository;
+
+  ResolvedArtifactCache() {
+    this(Ticker.systemTicker());
+  }
+
+  @VisibleForTesting
+  ResolvedArtifactCache(Ticker ticker) {
+    resolved = CacheBuilder.newBuilder()
+        .maximumSize(MAXIMUM_SIZE)
+        .expireAfterWrite(RESOLVED_EXPIRATION_MINUTES, TimeUnit.MINUTES)
+        .ticker(ticker)
+        .build();
+    failed = CacheBuilder.newBuilder()
+        .maximumSize(MAXIMUM_SIZE)
+        .expireAfterWrite(FAILED_EXPIRATION_SECONDS, TimeUnit.SECONDS)
+        .ticker(ticker)
+        .build();
+  }
+
+  /**
+   * @param coordinates the coordinates of the artifact, including its repository
+   * @param resolver resolves the artifact if it is not cached
+   * @return the cached artifact, or the one returned by <code>resolver</code>
+   * @throws CoreException if <code>resolver</code> fails now, or failed recently
+   */
+  Artifact resolve(MavenCoordinates coordinates, final Callable<Artifact> resolver)
+      throws CoreException {
+    final String key = getKey(coordinates);
+    Artifact artifact = resolved.getIfPresent(key);
+    if (artifact != null && artifact.getFile() != null && !artifact.getFile().exists()) {
+      // deleted from the local repository since it was resolved
+      resolved.invalidate(key);
+    }
+    CoreException failure = failed.getIfPresent(key);
+    if (failure != null) {
+      throw failure;
+    }
+    try {
+      return resolved.get(key, new Callable<Artifact>() {
+        @Override
+        public Artifact call() throws Exception {
+          try {
+            return resolver.call();
+          } catch (CoreException ex) {
+            failed.put(key, ex);
+            throw ex;
+          }
+        }
+      });
+    } catch (ExecutionException ex) {
+      if (ex.getCause() instanceof CoreException) {
+        throw (CoreException) ex.getCause();
+      }
+      throw new IllegalStateException(ex.getCause());
+    }
+  }
+
+  /**
+   * Drops all entries if <code>localRepository</code> is different from the location of the
+   * local repository the cached artifacts were resolved to.
+   *
+   * @param localRepository the base directory of the local repository, or <code>null</code> if
+   *     it is not known
+   */
+  synchronized void setLocalRepository(File localRepository) {
+    if (localRepository != null && !Objects.equal(localRepository, this.localRepository)) {
+      if (this.localRepository != null) {
+        invalidateAll();
+      }
+      this.localRepository = localRepository;
+    }
+  }
+
+  /**
+   * Drops all entries for the artifact with the given group and artifact ID, e.g. because a new
+   * version of it was installed into the local repository.
+   */
+  void invalidate(String groupId, String artifactId) {
+    String prefix = groupId + ':' + artifactId + ':';
+    invalidateKeysStartingWith(resolved, prefix);
+    invalidateKeysStartingWith(failed, prefix);
+  }
+
+  void invalidateAll() {
+    resolved.invalidateAll();
+    failed.invalidateAll();
+  }
+
+  private static void invalidateKeysStartingWith(Cache<String, ?> cache, String prefix) {
+    for (Iterator<String> iterator = cache.asMap().keySet().iterator(); iterator.hasNext();) {
+      if (iterator.next().startsWith(prefix)) {
+        iterator.remove();
+      }
+    }
+  }
+
+  static String getKey(MavenCoordinates coordinates) {
+    return coordinates.getGroupId() + ':' + coordinates.getArtifactId() + ':'
+        + coordinates.getType() + ':' + Strings.nullToEmpty(coordinates.getClassifier())
+        + ':' + coordinates.getVersion() + '@' + coordinates.getRepository();
+  }
+}
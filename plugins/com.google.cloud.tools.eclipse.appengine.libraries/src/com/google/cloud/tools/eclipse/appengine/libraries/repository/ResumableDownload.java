@@ -0,0 +1,108 @@
+/*
+ * Copyright 2016 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.cloud.tools.eclipse.appengine.libraries.repository;
+
+import com.google.common.io.ByteStreams;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.net.URLConnection;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+
+/**
+ * Downloads the content of a URL to a file.
+ * <p>
+ * The content is streamed to a partial file next to the target file, which is renamed to the
+ * target once the download is complete, so the target never has partial content. If a partial
+ * file was left behind by an interrupted download, only the missing content is requested with an
+ * HTTP range request. Servers that do not support range requests send the whole content, which
+ * then replaces the partial file.
+ */
+final class ResumableDownload {
+
+  static final String PARTIAL_FILE_SUFFIX = ".part"; //$NON-NLS-1$
+
+  private static final int CONNECT_TIMEOUT_MILLIS = 10000;
+  private static final int READ_TIMEOUT_MILLIS = 30000;
+  private static final int HTTP_RANGE_NOT_SATISFIABLE = 416;
+
+  private ResumableDownload() {
+  }
+
+  /**
+   * @return <code>target</code>
+   * @throws IOException if the content cannot be downloaded completely; the content downloaded so
+   *     far is kept, so that the next attempt can resume
+   */
+  static File download(URL url, File target) throws IOException {
+    File partialFile = new File(target.getParentFile(), target.getName() + PARTIAL_FILE_SUFFIX);
+    Files.createDirectories(target.getParentFile().toPath());
+    long offset = partialFile.length();
+
+    URLConnection connection = url.openConnection();
+    connection.setConnectTimeout(CONNECT_TIMEOUT_MILLIS);
+    connection.setReadTimeout(READ_TIMEOUT_MILLIS);
+    boolean append = false;
+    if (connection instanceof HttpURLConnection) {
+      HttpURLConnection httpConnection = (HttpURLConnection) connection;
+      if (offset > 0) {
+        httpConnection.setRequestProperty("Range", "bytes=" + offset + "-"); //$NON-NLS-1$ //$NON-NLS-2$
+      }
+      int responseCode = httpConnection.getResponseCode();
+      if (responseCode == HttpURLConnection.HTTP_PARTIAL) {
+        append = isContentRangeFrom(httpConnection.getHeaderField("Content-Range"), offset); //$NON-NLS-1$
+        if (!append) {
+          httpConnection.disconnect();
+          Files.deleteIfExists(partialFile.toPath());
+          throw new IOException("Unexpected content range from " + url); //$NON-NLS-1$
+        }
+      } else if (responseCode == HTTP_RANGE_NOT_SATISFIABLE) {
+        // the partial file does not match the content anymore
+        Files.deleteIfExists(partialFile.toPath());
+        throw new IOException("Cannot resume download of " + url); //$NON-NLS-1$
+      } else if (responseCode != HttpURLConnection.HTTP_OK) {
+        throw new IOException("Cannot download " + url + ", HTTP status " + responseCode); //$NON-NLS-1$ //$NON-NLS-2$
+      }
+    }
+
+    long expectedLength = connection.getContentLengthLong();
+    long length;
+    try (InputStream input = connection.getInputStream();
+        OutputStream output = new FileOutputStream(partialFile, append)) {
+      length = ByteStreams.copy(input, output);
+    }
+    if (expectedLength >= 0 && length != expectedLength) {
+      throw new IOException("Incomplete download of " + url); //$NON-NLS-1$
+    }
+    Files.move(partialFile.toPath(), target.toPath(),
+               StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    return target;
+  }
+
+  /**
+   * @param contentRange value of a <code>Content-Range</code> header, e.g.
+   *     <code>bytes 100-199/200</code>
+   */
+  private static boolean isContentRangeFrom(String contentRange, long offset) {
+    return contentRange != null && contentRange.startsWith("bytes " + offset + "-"); //$NON-NLS-1$ //$NON-NLS-2$
+  }
+}
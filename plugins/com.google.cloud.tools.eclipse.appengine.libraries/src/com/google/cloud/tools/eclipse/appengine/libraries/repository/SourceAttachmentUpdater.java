@@ -0,0 +1,198 @@
+/*
+ * Copyright 2016 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.cloud.tools.eclipse.appengine.libraries.repository;
+
+import com.google.cloud.tools.eclipse.appengine.libraries.ClasspathContainerBatch;
+import com.google.cloud.tools.eclipse.appengine.libraries.LibraryClasspathContainer;
+import com.google.cloud.tools.eclipse.appengine.libraries.LibraryClasspathContainerInterner;
+import com.google.cloud.tools.eclipse.appengine.libraries.Messages;
+import com.google.cloud.tools.eclipse.appengine.libraries.model.Library;
+import com.google.cloud.tools.eclipse.appengine.libraries.persistence.LibraryClasspathContainerSerializer;
+import com.google.cloud.tools.eclipse.util.status.StatusUtil;
+import com.google.common.annotations.VisibleForTesting;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import org.eclipse.core.resources.ResourcesPlugin;
+import org.eclipse.core.runtime.CoreException;
+import org.eclipse.core.runtime.IPath;
+import org.eclipse.core.runtime.IProgressMonitor;
+import org.eclipse.core.runtime.IStatus;
+import org.eclipse.core.runtime.OperationCanceledException;
+import org.eclipse.core.runtime.Status;
+import org.eclipse.core.runtime.SubMonitor;
+import org.eclipse.core.runtime.jobs.Job;
+import org.eclipse.jdt.core.IClasspathContainer;
+import org.eclipse.jdt.core.IClasspathEntry;
+import org.eclipse.jdt.core.IJavaProject;
+import org.eclipse.jdt.core.JavaCore;
+
+/**
+ * Attaches the sources downloaded by a {@link SourceDownloadManager} to the entries of the
+ * {@link LibraryClasspathContainer}s of all Java projects in the workspace that refer to the jar
+ * of the sources. The updated containers replace the current ones on the classpath and on disk.
+ * <p>
+ * Downloads that finish while the job is waiting or running are collected and attached by the
+ * same or the next run, so that a burst of downloads updates each container only a few times.
+ * The job holds the workspace root rule, as it may update the containers of any project, and
+ * does not replace a container that was replaced by someone else since it was read.
+ */
+class SourceAttachmentUpdater extends Job
+    implements SourceDownloadManager.SourceAttachmentListener {
+
+  // lets the downloads of a library finish before its container is updated
+  private static final long UPDATE_DELAY_MILLIS = 500;
+
+  private final LibraryClasspathContainerSerializer serializer;
+  private final String containerPathPrefix;
+  private final Map<IPath, IPath> sourcePaths = new HashMap<>();
+
+  SourceAttachmentUpdater(LibraryClasspathContainerSerializer serializer) {
+    this(serializer, Library.CONTAINER_PATH_PREFIX);
+  }
+
+  /**
+   * @param containerPathPrefix the first segment of the paths of the containers to update
+   */
+  @VisibleForTesting
+  SourceAttachmentUpdater(LibraryClasspathContainerSerializer serializer,
+                          String containerPathPrefix) {
+    super(Messages.SourceAttachmentUpdaterJobName);
+    this.serializer = serializer;
+    this.containerPathPrefix = containerPathPrefix;
+    setSystem(true);
+    setRule(ResourcesPlugin.getWorkspace().getRoot());
+  }
+
+  @Override
+  public void sourceAttachmentDownloaded(IPath jarPath, IPath sourcePath) {
+    synchronized (sourcePaths) {
+      sourcePaths.put(jarPath, sourcePath);
+    }
+    schedule(UPDATE_DELAY_MILLIS);
+  }
+
+  @Override
+  protected IStatus run(IProgressMonitor monitor) {
+    Map<IPath, IPath> downloaded;
+    synchronized (sourcePaths) {
+      downloaded = new HashMap<>(sourcePaths);
+      sourcePaths.clear();
+    }
+    try {
+      attachSources(JavaCore.create(ResourcesPlugin.getWorkspace().getRoot()).getJavaProjects(),
+                    downloaded, monitor);
+      return Status.OK_STATUS;
+    } catch (OperationCanceledException ex) {
+      return Status.CANCEL_STATUS;
+    } catch (CoreException | IOException ex) {
+      return StatusUtil.error(this, Messages.SourceAttachmentUpdateFailed, ex);
+    }
+  }
+
+  /**
+   * Updates the containers of all <code>javaProjects</code> in one {@link ClasspathContainerBatch},
+   * so that a library shared by many projects does not make JDT update each of them separately.
+   *
+   * @param sourcePaths the source attachments to set, by the path of the jar they belong to
+   */
+  @VisibleForTesting
+  void attachSources(IJavaProject[] javaProjects, Map<IPath, IPath> sourcePaths,
+                     IProgressMonitor monitor) throws CoreException, IOException {
+    SubMonitor progress = SubMonitor.convert(monitor, javaProjects.length + 1);
+    ClasspathContainerBatch batch = new ClasspathContainerBatch();
+    List<IJavaProject> updatedProjects = new ArrayList<>();
+    List<LibraryClasspathContainer> updatedContainers = new ArrayList<>();
+    for (IJavaProject javaProject : javaProjects) {
+      if (progress.isCanceled()) {
+        throw new OperationCanceledException();
+      }
+      for (Map.Entry<IClasspathContainer, LibraryClasspathContainer> update
+          : getUpdatedContainers(javaProject, sourcePaths).entrySet()) {
+        if (isCurrentContainer(javaProject, update.getKey())) {
+          batch.add(javaProject, update.getValue());
+          updatedProjects.add(javaProject);
+          updatedContainers.add(update.getValue());
+        }
+      }
+      progress.worked(1);
+    }
+    batch.apply(progress.newChild(1));
+    for (int i = 0; i < updatedContainers.size(); i++) {
+      serializer.saveContainer(updatedProjects.get(i), updatedContainers.get(i));
+    }
+  }
+
+  /**
+   * @return the containers of <code>javaProject</code> with sources to attach, mapped to their
+   *     replacements
+   */
+  private Map<IClasspathContainer, LibraryClasspathContainer> getUpdatedContainers(
+      IJavaProject javaProject, Map<IPath, IPath> sourcePaths) throws CoreException {
+    if (!javaProject.getProject().isAccessible()) {
+      return Collections.emptyMap();
+    }
+    Map<IClasspathContainer, LibraryClasspathContainer> updatedContainers = new LinkedHashMap<>();
+    for (IClasspathEntry rawEntry : javaProject.getRawClasspath()) {
+      if (rawEntry.getEntryKind() != IClasspathEntry.CPE_CONTAINER
+          || !containerPathPrefix.equals(rawEntry.getPath().segment(0))) {
+        continue;
+      }
+      IClasspathContainer container =
+          JavaCore.getClasspathContainer(rawEntry.getPath(), javaProject);
+      if (!(container instanceof LibraryClasspathContainer)) {
+        continue;
+      }
+      IClasspathEntry[] entries = container.getClasspathEntries();
+      IClasspathEntry[] updatedEntries = null;
+      for (int i = 0; i < entries.length; i++) {
+        IClasspathEntry entry = entries[i];
+        IPath sourcePath = sourcePaths.get(entry.getPath());
+        if (sourcePath != null && !sourcePath.equals(entry.getSourceAttachmentPath())) {
+          if (updatedEntries == null) {
+            updatedEntries = entries.clone();
+          }
+          updatedEntries[i] = JavaCore.newLibraryEntry(entry.getPath(),
+                                                       sourcePath,
+                                                       null /*  sourceAttachmentRootPath */,
+                                                       entry.getAccessRules(),
+                                                       entry.getExtraAttributes(),
+                                                       entry.isExported());
+        }
+      }
+      if (updatedEntries != null) {
+        updatedContainers.put(container, LibraryClasspathContainerInterner.intern(
+            new LibraryClasspathContainer(container.getPath(), container.getDescription(),
+                                          updatedEntries)));
+      }
+    }
+    return updatedContainers;
+  }
+
+  /**
+   * @return false if <code>container</code> was replaced since it was read, e.g. by a job that
+   *     resolved the libraries of the project again, so that the newer one must not be overwritten
+   */
+  private static boolean isCurrentContainer(IJavaProject javaProject,
+                                            IClasspathContainer container) throws CoreException {
+    return JavaCore.getClasspathContainer(container.getPath(), javaProject) == container;
+  }
+}
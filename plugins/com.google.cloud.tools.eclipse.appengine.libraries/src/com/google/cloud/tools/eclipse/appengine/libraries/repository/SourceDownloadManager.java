@@ -0,0 +1,145 @@
+/*
+ * Copyright 2016 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.cloud.tools.eclipse.appengine.libraries.repository;
+
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import java.io.File;
+import java.io.IOException;
+import java.util.Collections;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import org.eclipse.core.runtime.IPath;
+import org.eclipse.core.runtime.Path;
+
+/**
+ * Downloads the source attachments of library jars in the background, on a bounded number of
+ * threads, and reports the downloaded files to a {@link SourceAttachmentListener}.
+ * <p>
+ * There is at most one download per jar at a time. A download that fails with an
+ * {@link IOException} is retried a few times with increasing delays, which resumes a partially
+ * downloaded file. Jars without a source artifact are not tried again in this session; jars whose
+ * download failed otherwise are tried again when they are next requested.
+ */
+class SourceDownloadManager {
+
+  private static final Logger logger = Logger.getLogger(SourceDownloadManager.class.getName());
+
+  static final int MAXIMUM_CONCURRENT_DOWNLOADS = 3;
+  static final int MAXIMUM_ATTEMPTS = 3;
+  private static final long INITIAL_RETRY_DELAY_MILLIS = 1000;
+
+  /**
+   * Notified on a download thread when the source attachment of a jar was downloaded.
+   */
+  interface SourceAttachmentListener {
+    void sourceAttachmentDownloaded(IPath jarPath, IPath sourcePath);
+  }
+
+  private final SourceAttachmentListener listener;
+  private final ExecutorService executor;
+  private final long initialRetryDelayMillis;
+  private final Set<IPath> pendingJars =
+      Collections.newSetFromMap(new ConcurrentHashMap<IPath, Boolean>());
+  private final Set<IPath> failedJars =
+      Collections.newSetFromMap(new ConcurrentHashMap<IPath, Boolean>());
+
+  SourceDownloadManager(SourceAttachmentListener listener) {
+    this(listener, MAXIMUM_CONCURRENT_DOWNLOADS);
+  }
+
+  @VisibleForTesting
+  SourceDownloadManager(SourceAttachmentListener listener, int maximumConcurrentDownloads) {
+    this(listener, maximumConcurrentDownloads, INITIAL_RETRY_DELAY_MILLIS);
+  }
+
+  /**
+   * @param initialRetryDelayMillis delay before the second attempt of a download; the delay is
+   *     doubled for each further attempt
+   */
+  @VisibleForTesting
+  SourceDownloadManager(SourceAttachmentListener listener, int maximumConcurrentDownloads,
+      long initialRetryDelayMillis) {
+    this.listener = listener;
+    this.initialRetryDelayMillis = initialRetryDelayMillis;
+    executor = Executors.newFixedThreadPool(maximumConcurrentDownloads,
+        new ThreadFactoryBuilder().setDaemon(true).setNameFormat("source-download-%d").build()); //$NON-NLS-1$
+  }
+
+  /**
+   * Starts downloading the source attachment of <code>jarPath</code> with <code>download</code>
+   * in the background, unless it is already being downloaded or has no source artifact.
+   *
+   * @param download returns the downloaded source attachment, or <code>null</code> if there is
+   *     none; is called again if it throws an {@link IOException}
+   * @return the pending download, or <code>null</code> if no download was started
+   */
+  Future<?> download(final IPath jarPath, final Callable<File> download) {
+    if (failedJars.contains(jarPath) || !pendingJars.add(jarPath)) {
+      return null;
+    }
+    return executor.submit(new Runnable() {
+      @Override
+      public void run() {
+        try {
+          File sourceFile = callWithRetries(download);
+          if (sourceFile == null) {
+            failedJars.add(jarPath);
+          } else {
+            listener.sourceAttachmentDownloaded(jarPath, new Path(sourceFile.getAbsolutePath()));
+          }
+        } catch (InterruptedException ex) {
+          Thread.currentThread().interrupt();
+        } catch (Exception ex) {
+          logger.log(Level.FINE, "Cannot download source attachment of " + jarPath, ex); //$NON-NLS-1$
+        } finally {
+          pendingJars.remove(jarPath);
+        }
+      }
+    });
+  }
+
+  private File callWithRetries(Callable<File> download) throws Exception {
+    long retryDelayMillis = initialRetryDelayMillis;
+    for (int attempt = 1; ; attempt++) {
+      try {
+        return download.call();
+      } catch (IOException ex) {
+        if (attempt >= MAXIMUM_ATTEMPTS) {
+          throw ex;
+        }
+        logger.log(Level.FINE, "Retrying source attachment download", ex); //$NON-NLS-1$
+      }
+      TimeUnit.MILLISECONDS.sleep(retryDelayMillis);
+      retryDelayMillis *= 2;
+    }
+  }
+
+  /**
+   * Stops all downloads. Interrupted downloads are resumed by the next download of the same file.
+   */
+  void shutdown() {
+    executor.shutdownNow();
+  }
+}
@@ -33,6 +33,7 @@ import org.eclipse.wst.server.core.model.PublishOperation;
 import org.eclipse.wst.server.core.model.ServerBehaviourDelegate;
 import org.eclipse.wst.server.core.util.PublishHelper;
 
+import com.google.cloud.tools.eclipse.util.io.ParallelPublishHelper;
 import com.google.common.collect.Lists;
 
 /**
@@ -56,7 +57,7 @@ public class LocalAppEnginePublishOperation extends PublishOperation {
   private IModule[] modules;
   private int kind;
   private int deltaKind;
-  private PublishHelper helper;
+  private ParallelPublishHelper helper = new ParallelPublishHelper();
 
   @Override
   public int getKind() {
@@ -78,8 +79,6 @@ public class LocalAppEnginePublishOperation extends PublishOperation {
     this.server = server;
     this.kind = kind;
     this.deltaKind = deltaKind;
-    IPath base = server.getRuntimeBaseDirectory();
-    helper = new PublishHelper(base.toFile());
 
     if (modules != null) {
       this.modules = Arrays.copyOf(modules, modules.length);
@@ -18,11 +18,12 @@ package com.google.cloud.tools.eclipse.appengine.newproject.maven;
 
 import com.google.cloud.tools.eclipse.appengine.facets.AppEngineStandardFacet;
 import com.google.cloud.tools.eclipse.appengine.libraries.model.Library;
-import com.google.cloud.tools.eclipse.util.MavenUtils;
+import com.google.cloud.tools.eclipse.util.ArtifactVersionLookup;
 import java.lang.reflect.InvocationTargetException;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Properties;
+import java.util.concurrent.Future;
 import org.apache.maven.archetype.catalog.Archetype;
 import org.eclipse.core.resources.IProject;
 import org.eclipse.core.runtime.CoreException;
@@ -56,12 +57,17 @@ public class CreateMavenBasedAppEngineStandardProject extends WorkspaceModifyOpe
     SubMonitor progress = SubMonitor.convert(monitor);
     monitor.beginTask("Creating Maven AppEngine archetype", 100);
 
-    String appengineArtifactVersion = MavenUtils.resolveLatestReleasedArtifactVersion(
-        progress.newChild(20), "com.google.appengine", "appengine-api-1.0-sdk", "jar",
+    ArtifactVersionLookup versionLookup = ArtifactVersionLookup.getDefault();
+    Future<String> appengineVersionLookup = versionLookup.lookupLatestVersion(
+        "com.google.appengine", "appengine-api-1.0-sdk", "jar",
         AppEngineStandardFacet.DEFAULT_APPENGINE_SDK_VERSION);
-    String gcloudArtifactVersion = MavenUtils.resolveLatestReleasedArtifactVersion(
-        progress.newChild(20), "com.google.appengine", "gcloud-maven-plugin", "maven-plugin",
+    Future<String> gcloudVersionLookup = versionLookup.lookupLatestVersion(
+        "com.google.appengine", "gcloud-maven-plugin", "maven-plugin",
         AppEngineStandardFacet.DEFAULT_GCLOUD_PLUGIN_VERSION);
+    String appengineArtifactVersion =
+        ArtifactVersionLookup.waitFor(appengineVersionLookup, progress.newChild(20));
+    String gcloudArtifactVersion =
+        ArtifactVersionLookup.waitFor(gcloudVersionLookup, progress.newChild(20));
 
     Properties properties = new Properties();
     properties.put("appengine-version", appengineArtifactVersion);
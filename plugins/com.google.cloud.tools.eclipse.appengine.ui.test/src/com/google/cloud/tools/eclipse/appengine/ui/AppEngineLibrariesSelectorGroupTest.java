@@ -23,6 +23,10 @@ import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.fail;
 
 import com.google.cloud.tools.eclipse.appengine.libraries.model.Library;
+import com.google.cloud.tools.eclipse.appengine.libraries.repository.ILibraryPrefetchService;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
 import java.util.Collections;
 import java.util.Comparator;
 import java.util.List;
@@ -42,6 +46,18 @@ public class AppEngineLibrariesSelectorGroupTest {
   private SWTBotCheckBox appengineButton;
   private SWTBotCheckBox endpointsButton;
   private SWTBotCheckBox objectifyButton;
+  private final List<String> prefetchedLibraries = new ArrayList<>();
+  private final ILibraryPrefetchService prefetchService = new ILibraryPrefetchService() {
+    @Override
+    public void prefetch(Collection<String> libraryIds) {
+      prefetchedLibraries.addAll(libraryIds);
+    }
+
+    @Override
+    public void prefetchAll() {
+      throw new AssertionError("prefetchAll() should not be called");
+    }
+  };
 
   @Before
   public void setUp() throws Exception {
@@ -54,7 +70,7 @@ public class AppEngineLibrariesSelectorGroupTest {
         // (Remove shell.dispose() in tearDown() too.)
         shell = new Shell(Display.getDefault());
         shell.setLayout(new FillLayout());
-        librariesSelector = new AppEngineLibrariesSelectorGroup(shell);
+        librariesSelector = new AppEngineLibrariesSelectorGroup(shell, prefetchService);
         shell.open();
         appengineButton = getButton("appengine-api");
         endpointsButton = getButton("appengine-endpoints");
@@ -102,6 +118,21 @@ public class AppEngineLibrariesSelectorGroupTest {
     });
   }
 
+  @Test
+  public void testSelectingLibraryPrefetchesIt() {
+    syncExec(new Runnable() {
+
+      @Override
+      public void run() {
+        objectifyButton.click();
+        endpointsButton.click();
+        // unselecting does not prefetch
+        objectifyButton.click();
+        assertThat(prefetchedLibraries, is(Arrays.asList("objectify", "appengine-endpoints")));
+      }
+    });
+  }
+
   @Test
   public void testSelectEndpointsSelectsAppEngineApiAsWell() {
     syncExec(new Runnable() {
@@ -17,6 +17,7 @@
 package com.google.cloud.tools.eclipse.appengine.ui;
 
 import com.google.cloud.tools.eclipse.appengine.libraries.model.Library;
+import com.google.cloud.tools.eclipse.appengine.libraries.repository.ILibraryPrefetchService;
 import com.google.common.annotations.VisibleForTesting;
 import com.google.common.base.Preconditions;
 import com.google.common.base.Strings;
@@ -43,6 +44,10 @@ import org.eclipse.swt.events.SelectionListener;
 import org.eclipse.swt.widgets.Button;
 import org.eclipse.swt.widgets.Composite;
 import org.eclipse.swt.widgets.Group;
+import org.osgi.framework.Bundle;
+import org.osgi.framework.BundleContext;
+import org.osgi.framework.FrameworkUtil;
+import org.osgi.framework.ServiceReference;
 
 // TODO https://github.com/GoogleCloudPlatform/google-cloud-eclipse/issues/911
 public class AppEngineLibrariesSelectorGroup {
@@ -53,10 +58,40 @@ public class AppEngineLibrariesSelectorGroup {
   private final List<Button> libraryButtons;
   private DataBindingContext bindingContext;
   private final IObservableList selectedLibraries;
+  private final ILibraryPrefetchService prefetchService;
+  // the context and reference to release on dispose if the prefetch service was obtained from
+  // the registry
+  private BundleContext bundleContext;
+  private ServiceReference<ILibraryPrefetchService> prefetchServiceReference;
 
   public AppEngineLibrariesSelectorGroup(Composite parentContainer) {
+    this(parentContainer, getLibrariesBundleContext());
+  }
+
+  private AppEngineLibrariesSelectorGroup(Composite parentContainer, BundleContext bundleContext) {
+    this(parentContainer, bundleContext, bundleContext == null ? null
+        : bundleContext.getServiceReference(ILibraryPrefetchService.class));
+  }
+
+  private AppEngineLibrariesSelectorGroup(Composite parentContainer, BundleContext bundleContext,
+      ServiceReference<ILibraryPrefetchService> prefetchServiceReference) {
+    this(parentContainer,
+         prefetchServiceReference == null ? null
+             : bundleContext.getService(prefetchServiceReference));
+    this.bundleContext = bundleContext;
+    this.prefetchServiceReference = prefetchServiceReference;
+  }
+
+  /**
+   * @param prefetchService starts downloading the artifacts of a library as soon as it is selected,
+   *     so that creating the project does not wait for them; may be <code>null</code>
+   */
+  @VisibleForTesting
+  AppEngineLibrariesSelectorGroup(Composite parentContainer,
+                                  ILibraryPrefetchService prefetchService) {
     Preconditions.checkNotNull(parentContainer, "parentContainer is null");
     this.parentContainer = parentContainer;
+    this.prefetchService = prefetchService;
     selectedLibraries = new WritableList(getDisplayRealm());
     libraryButtons = new LinkedList<>();
     createContents();
@@ -97,6 +132,17 @@ public class AppEngineLibrariesSelectorGroup {
     return Arrays.asList(appEngine, endpoints, objectify);
   }
 
+  /**
+   * Returns the context of the libraries bundle, which provides the prefetch service. This bundle
+   * has no activator and is never started, so its own context would be <code>null</code>; the
+   * libraries bundle is lazily activated and has been started by loading
+   * {@link ILibraryPrefetchService}.
+   */
+  private static BundleContext getLibrariesBundleContext() {
+    Bundle bundle = FrameworkUtil.getBundle(ILibraryPrefetchService.class);
+    return bundle == null ? null : bundle.getBundleContext();
+  }
+
   private static String getLibraryName(Library library) {
     if (!Strings.isNullOrEmpty(library.getName())) {
       return library.getName();
@@ -162,6 +208,10 @@ public class AppEngineLibrariesSelectorGroup {
     if (bindingContext != null) {
       bindingContext.dispose();
     }
+    if (prefetchServiceReference != null) {
+      bundleContext.ungetService(prefetchServiceReference);
+      prefetchServiceReference = null;
+    }
   }
 
   private Realm getDisplayRealm() {
@@ -174,9 +224,10 @@ public class AppEngineLibrariesSelectorGroup {
   }
 
   /**
-   * Tracks if the checkbox has been explicitly clicked by the user.
+   * Tracks if the checkbox has been explicitly clicked by the user, and prefetches the library
+   * when it gets selected.
    */
-  private static final class ManualSelectionTracker implements SelectionListener {
+  private final class ManualSelectionTracker implements SelectionListener {
     @Override
     public void widgetSelected(SelectionEvent event) {
       setManualSelection(event);
@@ -192,6 +243,10 @@ public class AppEngineLibrariesSelectorGroup {
       if (event.getSource() instanceof Button && (source.getStyle() & SWT.CHECK) != 0) {
         Button button = source;
         button.setData(BUTTON_MANUAL_SELECTION_KEY, button.getSelection() ? new Object() : null);
+        if (button.getSelection() && prefetchService != null) {
+          Library library = (Library) button.getData();
+          prefetchService.prefetch(Collections.singletonList(library.getId()));
+        }
       }
     }
   }
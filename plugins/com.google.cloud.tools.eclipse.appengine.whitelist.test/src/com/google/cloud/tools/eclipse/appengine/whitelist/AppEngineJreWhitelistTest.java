@@ -56,5 +56,97 @@ public class AppEngineJreWhitelistTest {
     Assert.assertFalse(AppEngineJreWhitelist.contains("javax.swing.JFrame"));
   }
   
-}
+  @Test
+  public void testWhitelisted_prefixOfRestrictedPackage() {
+    Assert.assertTrue(AppEngineJreWhitelist.contains("javax.swingx.JXFrame"));
+    Assert.assertTrue(AppEngineJreWhitelist.contains("javafoo.Bar"));
+    Assert.assertTrue(AppEngineJreWhitelist.contains("java"));
+  }
+
+  @Test
+  public void testWhitelisted_slashSeparated() {
+    Assert.assertTrue(AppEngineJreWhitelist.contains("java/lang/String"));
+    Assert.assertFalse(AppEngineJreWhitelist.contains("java/net/CookieManager"));
+  }
 
+  @Test
+  public void testWhitelisted_nestedClass() {
+    Assert.assertTrue(AppEngineJreWhitelist.contains("java.util.Map$Entry"));
+  }
+
+  @Test
+  public void testWhitelisted_charArrayRange() {
+    char[] names = "Ljava/lang/String;Ljava/net/CookieManager;Lcom/google/Bar;".toCharArray();
+    Assert.assertTrue(AppEngineJreWhitelist.contains(names, 1, "java/lang/String".length()));
+    Assert.assertFalse(AppEngineJreWhitelist.contains(names, 19, "java/net/CookieManager".length()));
+    Assert.assertTrue(AppEngineJreWhitelist.contains(names, 43, "com/google/Bar".length()));
+  }
+
+  @Test
+  public void testWhitelisted_charArrayRangeIsNotPrefixMatch() {
+    char[] name = "java.lang.StringBuilder".toCharArray();
+    Assert.assertFalse(AppEngineJreWhitelist.contains(name, 0, "java.lang.Str".length()));
+  }
+
+  @Test
+  public void testForRuntime_java7() {
+    AppEngineJreWhitelist whitelist =
+        AppEngineJreWhitelist.forRuntime(AppEngineJreWhitelist.JAVA7_RUNTIME);
+    Assert.assertTrue(whitelist.isRestricted());
+    Assert.assertFalse(whitelist.allows("java.net.CookieManager"));
+    Assert.assertTrue(whitelist.allows("java.lang.String"));
+  }
+
+  @Test
+  public void testForRuntime_defaultIsJava7() {
+    Assert.assertSame(AppEngineJreWhitelist.forRuntime(AppEngineJreWhitelist.JAVA7_RUNTIME),
+                      AppEngineJreWhitelist.forRuntime(null));
+    Assert.assertSame(AppEngineJreWhitelist.forRuntime(AppEngineJreWhitelist.JAVA7_RUNTIME),
+                      AppEngineJreWhitelist.forRuntime("unknown"));
+  }
+
+  @Test
+  public void testForRuntime_java8AllowsEverything() {
+    AppEngineJreWhitelist whitelist =
+        AppEngineJreWhitelist.forRuntime(AppEngineJreWhitelist.JAVA8_RUNTIME);
+    Assert.assertFalse(whitelist.isRestricted());
+    Assert.assertTrue(whitelist.allows("java.net.CookieManager"));
+    Assert.assertTrue(whitelist.allows("javax.swing.JFrame"));
+  }
+
+  @Test
+  public void testGetVersion() {
+    Assert.assertEquals("jre7-2",
+        AppEngineJreWhitelist.forRuntime(AppEngineJreWhitelist.JAVA7_RUNTIME).getVersion());
+    Assert.assertEquals("jre8-2",
+        AppEngineJreWhitelist.forRuntime(AppEngineJreWhitelist.JAVA8_RUNTIME).getVersion());
+  }
+
+  @Test
+  public void testAllowsMember() {
+    AppEngineJreWhitelist whitelist =
+        AppEngineJreWhitelist.forRuntime(AppEngineJreWhitelist.JAVA7_RUNTIME);
+    Assert.assertFalse(whitelist.allowsMember("java.lang.Runtime", "exec"));
+    Assert.assertFalse(whitelist.allowsMember("java.lang.System", "exit"));
+    Assert.assertFalse(whitelist.allowsMember("java.lang.Thread", "<init>"));
+    Assert.assertTrue(whitelist.allowsMember("java.lang.Runtime", "availableProcessors"));
+    Assert.assertTrue(whitelist.allowsMember("java.lang.String", "length"));
+  }
+
+  @Test
+  public void testRestrictsMembersOf() {
+    AppEngineJreWhitelist whitelist =
+        AppEngineJreWhitelist.forRuntime(AppEngineJreWhitelist.JAVA7_RUNTIME);
+    Assert.assertTrue(whitelist.restrictsMembersOf("java.lang.Runtime"));
+    Assert.assertFalse(whitelist.restrictsMembersOf("java.lang.String"));
+  }
+
+  @Test
+  public void testAllowsMember_java8() {
+    AppEngineJreWhitelist whitelist =
+        AppEngineJreWhitelist.forRuntime(AppEngineJreWhitelist.JAVA8_RUNTIME);
+    Assert.assertTrue(whitelist.allowsMember("java.lang.Runtime", "exec"));
+    Assert.assertFalse(whitelist.restrictsMembersOf("java.lang.Runtime"));
+  }
+
+}
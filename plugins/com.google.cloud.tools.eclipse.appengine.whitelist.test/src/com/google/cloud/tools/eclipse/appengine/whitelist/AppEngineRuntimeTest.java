@@ -0,0 +1,79 @@
+/*
+ * Copyright 2016 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.cloud.tools.eclipse.appengine.whitelist;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.junit.Assert.assertThat;
+
+import com.google.common.base.Charsets;
+import com.google.common.io.Files;
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.IOException;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class AppEngineRuntimeTest {
+
+  @Rule public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+  @Test
+  public void testFromAppEngineWebXml_java8() throws IOException {
+    assertThat(parse("<appengine-web-app xmlns='http://appengine.google.com/ns/1.0'>"
+        + "<threadsafe>true</threadsafe><runtime> java8 </runtime></appengine-web-app>"),
+        is("java8"));
+  }
+
+  @Test
+  public void testFromAppEngineWebXml_noRuntime() throws IOException {
+    assertThat(parse("<appengine-web-app xmlns='http://appengine.google.com/ns/1.0'>"
+        + "<threadsafe>true</threadsafe></appengine-web-app>"), nullValue());
+  }
+
+  @Test
+  public void testFromAppEngineWebXml_otherNamespace() throws IOException {
+    assertThat(parse("<appengine-web-app><runtime>java8</runtime></appengine-web-app>"),
+        nullValue());
+  }
+
+  @Test
+  public void testFromAppEngineWebXml_malformed() throws IOException {
+    assertThat(parse("<appengine-web-app"), nullValue());
+  }
+
+  @Test
+  public void testFromExplodedWar() throws IOException {
+    File explodedWar = temporaryFolder.newFolder("war");
+    File appEngineWebXml = new File(explodedWar, "WEB-INF/appengine-web.xml");
+    Files.createParentDirs(appEngineWebXml);
+    Files.write("<appengine-web-app xmlns='http://appengine.google.com/ns/1.0'>"
+        + "<runtime>java8</runtime></appengine-web-app>", appEngineWebXml, Charsets.UTF_8);
+    assertThat(AppEngineRuntime.fromExplodedWar(explodedWar), is("java8"));
+  }
+
+  @Test
+  public void testFromExplodedWar_noAppEngineWebXml() throws IOException {
+    assertThat(AppEngineRuntime.fromExplodedWar(temporaryFolder.newFolder("war")), nullValue());
+  }
+
+  private static String parse(String appEngineWebXml) throws IOException {
+    return AppEngineRuntime.fromAppEngineWebXml(
+        new ByteArrayInputStream(appEngineWebXml.getBytes(Charsets.UTF_8)));
+  }
+}
@@ -0,0 +1,122 @@
+/*
+ * Copyright 2016 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.cloud.tools.eclipse.appengine.whitelist;
+
+import static org.hamcrest.CoreMatchers.hasItems;
+import static org.hamcrest.CoreMatchers.not;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.fail;
+
+import com.google.common.io.ByteStreams;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.Test;
+
+public class ClassFileReferenceReaderTest {
+
+  @SuppressWarnings("unused")
+  private static class UsesCookieManager {
+    private final Object manager = new java.net.CookieManager();
+    private long count = 42L;
+    private double ratio = 0.5;
+
+    private Object parse() {
+      // java.util.List only appears in the descriptor of HttpCookie.parse
+      return java.net.HttpCookie.parse("name=value");
+    }
+
+    private Object[] getFrames() {
+      return new javax.swing.JFrame[0];
+    }
+  }
+
+  private final ClassFileReferenceReader reader = new ClassFileReferenceReader();
+
+  @Test
+  public void testRead() throws IOException {
+    List<String> references = readReferences(UsesCookieManager.class);
+    assertThat(references, hasItems("java/net/CookieManager", "java/lang/Object",
+        "com/google/cloud/tools/eclipse/appengine/whitelist/ClassFileReferenceReaderTest$UsesCookieManager"));
+  }
+
+  @Test
+  public void testRead_descriptors() throws IOException {
+    List<String> references = readReferences(UsesCookieManager.class);
+    assertThat(references, hasItems("java/net/HttpCookie", "java/util/List"));
+  }
+
+  @Test
+  public void testRead_arrayClass() throws IOException {
+    List<String> references = readReferences(UsesCookieManager.class);
+    assertThat(references, hasItems("javax/swing/JFrame"));
+  }
+
+  @Test
+  public void testRead_reusedBetweenClasses() throws IOException {
+    readReferences(UsesCookieManager.class);
+    List<String> references = readReferences(ClassFileReferenceReaderTest.class);
+    assertThat(references, hasItems("org/junit/Test", "java/util/ArrayList"));
+    assertThat(references, not(hasItems("java/net/CookieManager")));
+  }
+
+  @Test
+  public void testRead_notAClassFile() {
+    byte[] bytes = "not a class file".getBytes();
+    try {
+      reader.read(bytes, bytes.length, new RecordingVisitor());
+      fail();
+    } catch (IOException ex) {
+      // expected
+    }
+  }
+
+  @Test
+  public void testRead_truncated() throws IOException {
+    byte[] bytes = getBytes(UsesCookieManager.class);
+    try {
+      reader.read(bytes, 20, new RecordingVisitor());
+      fail();
+    } catch (IOException ex) {
+      // expected
+    }
+  }
+
+  private List<String> readReferences(Class<?> clazz) throws IOException {
+    byte[] bytes = getBytes(clazz);
+    RecordingVisitor visitor = new RecordingVisitor();
+    reader.read(bytes, bytes.length, visitor);
+    return visitor.references;
+  }
+
+  static byte[] getBytes(Class<?> clazz) throws IOException {
+    String resource = "/" + clazz.getName().replace('.', '/') + ".class";
+    try (InputStream input = clazz.getResourceAsStream(resource)) {
+      return ByteStreams.toByteArray(input);
+    }
+  }
+
+  private static class RecordingVisitor implements ClassFileReferenceReader.Visitor {
+    private final List<String> references = new ArrayList<>();
+
+    @Override
+    public void visitClassReference(char[] name, int offset, int length) {
+      references.add(new String(name, offset, length));
+    }
+  }
+}
@@ -0,0 +1,83 @@
+/*
+ * Copyright 2016 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.cloud.tools.eclipse.appengine.whitelist;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import org.junit.Test;
+
+public class ClassNameSetTest {
+
+  private final ClassNameSet set =
+      new ClassNameSet(Arrays.asList("java.lang.String", "java.util.Map$Entry", "java/io/File"));
+
+  @Test
+  public void testContains() {
+    assertTrue(set.contains("java.lang.String"));
+    assertTrue(set.contains("java.util.Map$Entry"));
+    assertTrue(set.contains("java.io.File"));
+    assertFalse(set.contains("java.lang.Strin"));
+    assertFalse(set.contains("java.lang.StringBuilder"));
+    assertFalse(set.contains(""));
+  }
+
+  @Test
+  public void testContains_slashSeparator() {
+    assertTrue(set.contains("java/lang/String"));
+    assertTrue(set.contains("java/io/File"));
+  }
+
+  @Test
+  public void testContains_charArrayRange() {
+    char[] names = "java/lang/Stringjava.io.File".toCharArray();
+    assertTrue(set.contains(names, 0, 16));
+    assertTrue(set.contains(names, 16, 12));
+    assertFalse(set.contains(names, 0, 15));
+    assertFalse(set.contains(names, 1, 16));
+  }
+
+  @Test
+  public void testSize_ignoresDuplicates() {
+    assertEquals(2, new ClassNameSet(Arrays.asList("a.B", "a/B", "a.C")).size());
+  }
+
+  @Test
+  public void testEmpty() {
+    ClassNameSet empty = new ClassNameSet(new ArrayList<String>());
+    assertFalse(empty.contains("java.lang.String"));
+    assertEquals(0, empty.size());
+  }
+
+  @Test
+  public void testManyNames() {
+    List<String> names = new ArrayList<>();
+    for (int i = 0; i < 5000; i++) {
+      names.add("com.example.Class" + i);
+    }
+    ClassNameSet large = new ClassNameSet(names);
+    assertEquals(5000, large.size());
+    for (String name : names) {
+      assertTrue(name, large.contains(name));
+    }
+    assertFalse(large.contains("com.example.Class5000"));
+  }
+}
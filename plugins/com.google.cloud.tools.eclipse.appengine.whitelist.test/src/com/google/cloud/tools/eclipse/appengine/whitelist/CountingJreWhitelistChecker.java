@@ -0,0 +1,40 @@
+/*
+ * Copyright 2016 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.cloud.tools.eclipse.appengine.whitelist;
+
+import org.eclipse.jdt.core.ICompilationUnit;
+import org.eclipse.jdt.core.IJavaProject;
+import org.eclipse.jdt.core.dom.ASTRequestor;
+
+/**
+ * {@link JreWhitelistChecker} that counts the compilation units it parses.
+ */
+public class CountingJreWhitelistChecker extends JreWhitelistChecker {
+
+  private int parsedFiles;
+
+  @Override
+  void createASTs(IJavaProject javaProject, ICompilationUnit[] compilationUnits,
+                  ASTRequestor requestor) {
+    parsedFiles += compilationUnits.length;
+    super.createASTs(javaProject, compilationUnits, requestor);
+  }
+
+  public int getParsedFiles() {
+    return parsedFiles;
+  }
+}
@@ -0,0 +1,189 @@
+/*
+ * Copyright 2016 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.cloud.tools.eclipse.appengine.whitelist;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.assertTrue;
+
+import com.google.common.base.Charsets;
+import com.google.common.hash.Hashing;
+import com.google.common.io.ByteStreams;
+import com.google.common.io.Files;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Map;
+import java.util.jar.JarEntry;
+import java.util.jar.JarFile;
+import java.util.jar.JarOutputStream;
+import org.eclipse.core.runtime.NullProgressMonitor;
+import org.eclipse.core.runtime.OperationCanceledException;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class JarWhitelistScannerTest {
+
+  @SuppressWarnings("unused")
+  private static class UsesCookieManager {
+    private final Object manager = new java.net.CookieManager();
+  }
+
+  @SuppressWarnings("unused")
+  private static class UsesString {
+    private final Object builder = new StringBuilder();
+  }
+
+  @Rule public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+  private File cacheDirectory;
+  private JarWhitelistScanner scanner;
+
+  @Before
+  public void setUp() throws IOException {
+    cacheDirectory = temporaryFolder.newFolder("cache");
+    scanner = new JarWhitelistScanner(cacheDirectory, 2);
+  }
+
+  @Test
+  public void testScan_blacklistedReference() throws IOException {
+    File jar = createJar("bad.jar", UsesCookieManager.class, UsesString.class);
+    JarScanResult result = scanner.scan(jar);
+    assertFalse(result.isClean());
+    assertThat(result.getBlacklistedReferences(), is(Arrays.asList(new BlacklistedReference(
+        UsesCookieManager.class.getName(), "java.net.CookieManager"))));
+  }
+
+  @Test
+  public void testScan_clean() throws IOException {
+    File jar = createJar("good.jar", UsesString.class);
+    assertTrue(scanner.scan(jar).isClean());
+  }
+
+  @Test
+  public void testScan_ignoresClassesDefinedInJar() throws IOException {
+    File jar = createJar("bundled.jar", UsesCookieManager.class);
+    addEntry(jar, "java/net/CookieManager.class", UsesString.class);
+    assertTrue(scanner.scan(jar).isClean());
+  }
+
+  @Test
+  public void testScan_resultCachedBySha256() throws IOException {
+    File jar = createJar("bad.jar", UsesCookieManager.class);
+    JarScanResult result = scanner.scan(jar);
+    File cacheFile = new File(cacheDirectory, result.getSha256());
+    assertTrue(cacheFile.isFile());
+
+    // a new scanner reads the cached result instead of scanning the jar again
+    Files.append("com.example.Cached java.net.Socket\n", cacheFile, Charsets.UTF_8);
+    File copy = new File(temporaryFolder.getRoot(), "copy.jar");
+    Files.copy(jar, copy);
+    JarScanResult cachedResult = new JarWhitelistScanner(cacheDirectory, 2).scan(copy);
+    assertThat(cachedResult.getSha256(), is(result.getSha256()));
+    assertThat(cachedResult.getBlacklistedReferences().size(), is(2));
+  }
+
+  @Test
+  public void testScan_ignoresCacheWithOtherHeader() throws IOException {
+    File jar = createJar("bad.jar", UsesCookieManager.class);
+    String sha256 = Files.hash(jar, Hashing.sha256()).toString();
+    Files.write("# some older format\n", new File(cacheDirectory, sha256), Charsets.UTF_8);
+    assertThat(scanner.scan(jar).getBlacklistedReferences().size(), is(1));
+  }
+
+  @Test
+  public void testScan_noCacheDirectory() throws IOException {
+    File jar = createJar("bad.jar", UsesCookieManager.class);
+    assertThat(new JarWhitelistScanner(null).scan(jar).getBlacklistedReferences().size(), is(1));
+  }
+
+  @Test
+  public void testScan_parallel() throws IOException {
+    File bad = createJar("bad.jar", UsesCookieManager.class);
+    File good = createJar("good.jar", UsesString.class);
+    File missing = new File(temporaryFolder.getRoot(), "missing.jar");
+    Map<File, JarScanResult> results =
+        scanner.scan(Arrays.asList(bad, missing, good), new NullProgressMonitor());
+    assertThat(results.size(), is(2));
+    assertFalse(results.get(bad).isClean());
+    assertNotNull(results.get(good));
+    assertTrue(results.get(good).isClean());
+  }
+
+  @Test
+  public void testScan_classFolder() throws IOException {
+    File folder = temporaryFolder.newFolder("classes");
+    for (Class<?> clazz : Arrays.asList(UsesCookieManager.class, UsesString.class)) {
+      File classFile = new File(folder, clazz.getName().replace('.', '/') + ".class");
+      Files.createParentDirs(classFile);
+      Files.write(ClassFileReferenceReaderTest.getBytes(clazz), classFile);
+    }
+    File jar = createJar("good.jar", UsesString.class);
+
+    Map<File, JarScanResult> results =
+        scanner.scan(Arrays.asList(folder, jar), new NullProgressMonitor());
+    assertThat(results.get(folder).getBlacklistedReferences(), is(Arrays.asList(
+        new BlacklistedReference(UsesCookieManager.class.getName(), "java.net.CookieManager"))));
+    assertThat(results.get(folder).getSha256(), is((String) null));
+    assertTrue(results.get(jar).isClean());
+    // class folders are not cached
+    assertThat(cacheDirectory.list().length, is(1));
+  }
+
+  @Test(expected = OperationCanceledException.class)
+  public void testScan_canceled() throws IOException {
+    File jar = createJar("bad.jar", UsesCookieManager.class);
+    NullProgressMonitor monitor = new NullProgressMonitor();
+    monitor.setCanceled(true);
+    scanner.scan(Arrays.asList(jar), monitor);
+  }
+
+  private File createJar(String name, Class<?>... classes) throws IOException {
+    File jar = temporaryFolder.newFile(name);
+    try (JarOutputStream output = new JarOutputStream(new FileOutputStream(jar))) {
+      for (Class<?> clazz : classes) {
+        output.putNextEntry(new JarEntry(clazz.getName().replace('.', '/') + ".class"));
+        output.write(ClassFileReferenceReaderTest.getBytes(clazz));
+        output.closeEntry();
+      }
+    }
+    return jar;
+  }
+
+  /** Rewrites <code>jar</code> with an additional entry holding the bytes of <code>clazz</code>. */
+  private void addEntry(File jar, String entryName, Class<?> clazz) throws IOException {
+    File original = new File(jar.getPath() + ".orig");
+    Files.move(jar, original);
+    try (JarOutputStream output = new JarOutputStream(new FileOutputStream(jar));
+        JarFile input = new JarFile(original)) {
+      for (JarEntry entry : Collections.list(input.entries())) {
+        output.putNextEntry(new JarEntry(entry.getName()));
+        output.write(ByteStreams.toByteArray(input.getInputStream(entry)));
+        output.closeEntry();
+      }
+      output.putNextEntry(new JarEntry(entryName));
+      output.write(ClassFileReferenceReaderTest.getBytes(clazz));
+      output.closeEntry();
+    }
+  }
+}
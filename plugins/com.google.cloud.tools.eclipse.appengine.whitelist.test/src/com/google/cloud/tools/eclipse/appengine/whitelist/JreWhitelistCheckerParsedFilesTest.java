@@ -0,0 +1,102 @@
+/*
+ * Copyright 2016 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.cloud.tools.eclipse.appengine.whitelist;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+
+import org.eclipse.core.resources.IFile;
+import org.eclipse.core.resources.IncrementalProjectBuilder;
+import org.eclipse.jdt.core.compiler.BuildContext;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+
+/**
+ * Checks which files the {@link JreWhitelistChecker} parses in the builds of a project with
+ * {@value #FILE_COUNT} source files: a full build parses every file, an incremental build after
+ * changing one file only parses that file, although JDT recompiles the files depending on it.
+ */
+public class JreWhitelistCheckerParsedFilesTest {
+
+  private static final int FILE_COUNT = 300;
+  private static final int BLACKLISTED_EVERY = 10;
+
+  @Rule public TestJavaProject testProject = new TestJavaProject();
+
+  private IFile[] files = new IFile[FILE_COUNT];
+
+  @Before
+  public void setUp() throws Exception {
+    for (int i = 0; i < FILE_COUNT; i++) {
+      files[i] = testProject.setSource("Class" + i, source(i, 0));
+    }
+  }
+
+  @Test
+  public void testIncrementalBuild_parsesOnlyChangedFile() throws Exception {
+    testProject.getJavaProject().getProject().build(IncrementalProjectBuilder.FULL_BUILD, null);
+
+    CountingJreWhitelistChecker checker = new CountingJreWhitelistChecker();
+    TestBuildContext[] contexts = createContexts();
+    checker.buildStarting(contexts, true);
+    assertThat(checker.getParsedFiles(), is(FILE_COUNT));
+    assertThat(countProblems(contexts), is(FILE_COUNT / BLACKLISTED_EVERY));
+
+    // JDT recompiles the changed file and, in the worst case, every file that depends on it
+    testProject.setSource("Class0", source(0, 1));
+    testProject.getJavaProject().getProject()
+        .build(IncrementalProjectBuilder.INCREMENTAL_BUILD, null);
+
+    contexts = createContexts();
+    checker.buildStarting(contexts, false);
+    assertThat(checker.getParsedFiles(), is(FILE_COUNT + 1));
+    assertThat(countProblems(contexts), is(FILE_COUNT / BLACKLISTED_EVERY));
+  }
+
+  private TestBuildContext[] createContexts() {
+    TestBuildContext[] contexts = new TestBuildContext[FILE_COUNT];
+    for (int i = 0; i < FILE_COUNT; i++) {
+      contexts[i] = new TestBuildContext(files[i]);
+    }
+    return contexts;
+  }
+
+  private static int countProblems(TestBuildContext[] contexts) {
+    int count = 0;
+    for (TestBuildContext context : contexts) {
+      count += context.getProblems().size();
+    }
+    return count;
+  }
+
+  private static String source(int index, int revision) {
+    StringBuilder source = new StringBuilder();
+    source.append("import java.util.*;\n")
+        .append("public class Class").append(index).append(" {\n")
+        .append("  private final List<String> names = new ArrayList<>();\n")
+        .append("  private final Map<String, Integer> counts = new HashMap<>();\n")
+        .append("  public int revision() { return ").append(revision).append("; }\n");
+    if (index > 0) {
+      source.append("  Class").append(index - 1).append(" previous;\n");
+    }
+    if (index % BLACKLISTED_EVERY == 0) {
+      source.append("  Object manager() { return new java.net.CookieManager(); }\n");
+    }
+    return source.append("}\n").toString();
+  }
+}
@@ -16,11 +16,44 @@
 
 package com.google.cloud.tools.eclipse.appengine.whitelist;
 
+import static org.hamcrest.CoreMatchers.containsString;
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.junit.Assert.assertThat;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import org.eclipse.core.resources.IFile;
+import org.eclipse.core.resources.IFolder;
+import org.eclipse.core.resources.IProject;
+import org.eclipse.core.runtime.CoreException;
+import org.eclipse.jdt.core.compiler.BuildContext;
+import org.eclipse.jdt.core.compiler.CategorizedProblem;
 import org.junit.Assert;
+import org.junit.Rule;
 import org.junit.Test;
 
 public class JreWhitelistCheckerTest {
 
+  private static final String BLACKLISTED_SOURCE =
+      "import java.net.CookieManager;\n"
+      + "public class Blacklisted {\n"
+      + "  CookieManager manager = new CookieManager();\n"
+      + "}\n";
+  private static final String UNSUPPORTED_MEMBER_SOURCE =
+      "public class UnsupportedMember {\n"
+      + "  void run() throws Exception {\n"
+      + "    Runtime.getRuntime().exec(\"ls\");\n"
+      + "  }\n"
+      + "}\n";
+  private static final String WHITELISTED_SOURCE =
+      "public class Whitelisted {\n"
+      + "  String name;\n"
+      + "}\n";
+
+  @Rule public TestJavaProject testProject = new TestJavaProject();
+
   private JreWhitelistChecker checker = new JreWhitelistChecker();
 
   @Test
@@ -28,4 +61,157 @@ public class JreWhitelistCheckerTest {
     Assert.assertFalse(checker.isActive(null));
   }
 
+  @Test
+  public void testBuildStarting_reportsBlacklistedClass() throws Exception {
+    IFile file = testProject.setSource("Blacklisted", BLACKLISTED_SOURCE);
+    TestBuildContext context = new TestBuildContext(file);
+
+    checker.buildStarting(new BuildContext[] {context}, true);
+
+    List<CategorizedProblem> problems = context.getProblems();
+    // the import and the two references in the field declaration
+    assertThat(problems.size(), is(3));
+    CategorizedProblem problem = problems.get(0);
+    assertThat(problem.getMarkerType(), is(WhitelistProblem.MARKER_TYPE));
+    assertThat(problem.getMessage(), containsString("java.net.CookieManager"));
+    assertThat(problem.getSourceLineNumber(), is(1));
+    assertThat(problem.getSourceStart(), is(BLACKLISTED_SOURCE.indexOf("CookieManager")));
+    assertThat(problem.getSourceEnd(), is(BLACKLISTED_SOURCE.indexOf(";") - 1));
+    Assert.assertTrue(problem.isError());
+  }
+
+  @Test
+  public void testBuildStarting_reportsUnsupportedMember() throws Exception {
+    IFile file = testProject.setSource("UnsupportedMember", UNSUPPORTED_MEMBER_SOURCE);
+    TestBuildContext context = new TestBuildContext(file);
+
+    checker.buildStarting(new BuildContext[] {context}, true);
+
+    List<CategorizedProblem> problems = context.getProblems();
+    // Runtime and getRuntime are supported
+    assertThat(problems.size(), is(1));
+    CategorizedProblem problem = problems.get(0);
+    assertThat(problem.getMessage(), containsString("java.lang.Runtime.exec"));
+    assertThat(problem.getSourceLineNumber(), is(3));
+    assertThat(problem.getSourceStart(), is(UNSUPPORTED_MEMBER_SOURCE.indexOf("exec")));
+    assertThat(problem.getSourceEnd(), is(UNSUPPORTED_MEMBER_SOURCE.indexOf("exec") + 3));
+  }
+
+  @Test
+  public void testBuildStarting_whitelistedClassHasNoProblems() throws Exception {
+    IFile file = testProject.setSource("Whitelisted", WHITELISTED_SOURCE);
+    TestBuildContext context = new TestBuildContext(file);
+
+    checker.buildStarting(new BuildContext[] {context}, true);
+
+    assertThat(context.getProblems().size(), is(0));
+  }
+
+  @Test
+  public void testBuildStarting_unchangedFileIsServedFromIndex() throws Exception {
+    IFile file = testProject.setSource("Blacklisted", BLACKLISTED_SOURCE);
+    checker.buildStarting(new BuildContext[] {new TestBuildContext(file)}, true);
+    TypeReferences indexed =
+        checker.getIndex(file.getProject()).get(file.getFullPath(), file.getModificationStamp());
+    Assert.assertNotNull(indexed);
+
+    TestBuildContext context = new TestBuildContext(file);
+    checker.buildStarting(new BuildContext[] {context}, false);
+
+    assertThat(context.getProblems().size(), is(3));
+    Assert.assertSame(indexed, checker.getIndex(file.getProject())
+        .get(file.getFullPath(), file.getModificationStamp()));
+  }
+
+  @Test
+  public void testBuildStarting_changedFileIsReindexed() throws Exception {
+    IFile file = testProject.setSource("Changing", BLACKLISTED_SOURCE.replace("Blacklisted", "Changing"));
+    checker.buildStarting(new BuildContext[] {new TestBuildContext(file)}, true);
+
+    testProject.setSource("Changing", WHITELISTED_SOURCE.replace("Whitelisted", "Changing"));
+    TestBuildContext context = new TestBuildContext(file);
+    checker.buildStarting(new BuildContext[] {context}, false);
+
+    assertThat(context.getProblems().size(), is(0));
+  }
+
+  @Test
+  public void testBuildStarting_batchBuildDropsDeletedFiles() throws Exception {
+    IFile deleted = testProject.setSource("Blacklisted", BLACKLISTED_SOURCE);
+    IFile kept = testProject.setSource("Whitelisted", WHITELISTED_SOURCE);
+    checker.buildStarting(new BuildContext[] {new TestBuildContext(deleted),
+                                              new TestBuildContext(kept)}, true);
+    assertThat(checker.getIndex(kept.getProject()).size(), is(2));
+
+    deleted.delete(true, null);
+    checker.buildStarting(new BuildContext[] {new TestBuildContext(kept)}, true);
+
+    assertThat(checker.getIndex(kept.getProject()).size(), is(1));
+  }
+
+  @Test
+  public void testCleanStarting_keepsIndexedContent() throws Exception {
+    IFile file = testProject.setSource("Blacklisted", BLACKLISTED_SOURCE);
+    checker.buildStarting(new BuildContext[] {new TestBuildContext(file)}, true);
+
+    checker.cleanStarting(testProject.getJavaProject());
+
+    assertThat(checker.getIndex(file.getProject()).size(), is(1));
+    assertThat(checker.getIndex(file.getProject())
+        .get(file.getFullPath(), file.getModificationStamp()), nullValue());
+  }
+
+  @Test
+  public void testCleanStarting_reloadedIndexParsesNoFiles() throws Exception {
+    IFile file = testProject.setSource("Blacklisted", BLACKLISTED_SOURCE);
+    checker.buildStarting(new BuildContext[] {new TestBuildContext(file)}, true);
+    checker.buildFinished(testProject.getJavaProject());
+
+    // a new session loads the saved index
+    CountingJreWhitelistChecker newChecker = new CountingJreWhitelistChecker();
+    newChecker.cleanStarting(testProject.getJavaProject());
+    TestBuildContext context = new TestBuildContext(file);
+    newChecker.buildStarting(new BuildContext[] {context}, true);
+
+    assertThat(newChecker.getParsedFiles(), is(0));
+    assertThat(context.getProblems().size(), is(3));
+  }
+
+  @Test
+  public void testGetRuntime_noDescriptor() {
+    assertThat(checker.getRuntime(testProject.getJavaProject().getProject()), nullValue());
+  }
+
+  @Test
+  public void testGetRuntime_descriptorChanged() throws CoreException {
+    IProject project = testProject.getJavaProject().getProject();
+    IFile appEngineWebXml = AppEngineRuntime.getAppEngineWebXml(project);
+    createParents(appEngineWebXml);
+    appEngineWebXml.create(appEngineWebXml("java8"), true, null);
+    assertThat(checker.getRuntime(project), is("java8"));
+
+    appEngineWebXml.setContents(appEngineWebXml("java7"), true, false, null);
+    assertThat(checker.getRuntime(project), is("java7"));
+  }
+
+  private static ByteArrayInputStream appEngineWebXml(String runtime) {
+    String content = "<appengine-web-app xmlns='http://appengine.google.com/ns/1.0'>"
+        + "<runtime>" + runtime + "</runtime></appengine-web-app>";
+    return new ByteArrayInputStream(content.getBytes(StandardCharsets.UTF_8));
+  }
+
+  private static void createParents(IFile file) throws CoreException {
+    if (file.getParent() instanceof IFolder) {
+      createFolder((IFolder) file.getParent());
+    }
+  }
+
+  private static void createFolder(IFolder folder) throws CoreException {
+    if (!folder.exists()) {
+      if (folder.getParent() instanceof IFolder) {
+        createFolder((IFolder) folder.getParent());
+      }
+      folder.create(true, true, null);
+    }
+  }
 }
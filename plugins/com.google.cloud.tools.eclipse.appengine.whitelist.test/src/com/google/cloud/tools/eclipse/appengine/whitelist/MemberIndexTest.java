@@ -0,0 +1,98 @@
+/*
+ * Copyright 2016 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.cloud.tools.eclipse.appengine.whitelist;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import org.junit.Test;
+
+public class MemberIndexTest {
+
+  @Test
+  public void testEmpty() {
+    MemberIndex index = new MemberIndex(Collections.<String>emptyList());
+    assertThat(index.size(), is(0));
+    assertFalse(index.contains("java.lang.Runtime", "exec"));
+    assertFalse(index.containsMembersOf("java.lang.Runtime"));
+  }
+
+  @Test
+  public void testContains() {
+    MemberIndex index = new MemberIndex(Arrays.asList(
+        "java.lang.Runtime#exec", "java.lang.System#exit", "java.lang.Thread#<init>"));
+    assertTrue(index.contains("java.lang.Runtime", "exec"));
+    assertTrue(index.contains("java.lang.System", "exit"));
+    assertTrue(index.contains("java.lang.Thread", "<init>"));
+    assertFalse(index.contains("java.lang.Runtime", "exe"));
+    assertFalse(index.contains("java.lang.Runtime", "execute"));
+    assertFalse(index.contains("java.lang.Runtim", "exec"));
+    assertFalse(index.contains("java.lang.System", "exec"));
+    assertFalse(index.contains("a.B", "c"));
+    assertFalse(index.contains("z.Z", "z"));
+  }
+
+  @Test
+  public void testContains_slashSeparated() {
+    MemberIndex index = new MemberIndex(Arrays.asList("java/lang/Runtime#exec"));
+    assertTrue(index.contains("java.lang.Runtime", "exec"));
+    assertTrue(index.contains("java/lang/Runtime", "exec"));
+  }
+
+  @Test
+  public void testContainsMembersOf() {
+    MemberIndex index = new MemberIndex(Arrays.asList("java.lang.Runtime#exec"));
+    assertTrue(index.containsMembersOf("java.lang.Runtime"));
+    assertFalse(index.containsMembersOf("java.lang.System"));
+  }
+
+  @Test
+  public void testContains_manyBuckets() {
+    List<String> keys = new ArrayList<>();
+    for (int i = 0; i < 1000; i += 2) {
+      keys.add("com.example.Class" + (i % 7) + "#member" + i);
+    }
+    MemberIndex index = new MemberIndex(keys);
+    assertThat(index.size(), is(500));
+    for (int i = 0; i < 1000; i++) {
+      assertThat(index.contains("com.example.Class" + (i % 7), "member" + i), is(i % 2 == 0));
+    }
+  }
+
+  @Test
+  public void testContains_keysThatArePrefixesOfOthers() {
+    MemberIndex index = new MemberIndex(Arrays.asList("a.B#c", "a.B#cd", "a.B#cde", "a.BC#c"));
+    assertTrue(index.contains("a.B", "c"));
+    assertTrue(index.contains("a.B", "cd"));
+    assertTrue(index.contains("a.B", "cde"));
+    assertTrue(index.contains("a.BC", "c"));
+    assertFalse(index.contains("a.B", "cdef"));
+    assertFalse(index.contains("a.B", "ce"));
+    assertFalse(index.contains("a.BC", "cd"));
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testInvalidKey() {
+    new MemberIndex(Arrays.asList("java.lang.Runtime"));
+  }
+}
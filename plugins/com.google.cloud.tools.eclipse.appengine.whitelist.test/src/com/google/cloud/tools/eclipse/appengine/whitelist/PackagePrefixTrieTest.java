@@ -0,0 +1,65 @@
+/*
+ * Copyright 2016 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.cloud.tools.eclipse.appengine.whitelist;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Arrays;
+import org.junit.Test;
+
+public class PackagePrefixTrieTest {
+
+  private final PackagePrefixTrie trie =
+      new PackagePrefixTrie(Arrays.asList("java.", "javax.swing.", "javax.sql.", "org.omg."));
+
+  @Test
+  public void testMatchesPrefix() {
+    assertTrue(trie.matchesPrefixOf("java.lang.String"));
+    assertTrue(trie.matchesPrefixOf("javax.swing.JFrame"));
+    assertTrue(trie.matchesPrefixOf("javax.sql.DataSource"));
+    assertTrue(trie.matchesPrefixOf("org.omg.CORBA.ORB"));
+  }
+
+  @Test
+  public void testDoesNotMatchOtherPackages() {
+    assertFalse(trie.matchesPrefixOf("javax.servlet.Servlet"));
+    assertFalse(trie.matchesPrefixOf("javax.swingx.JXFrame"));
+    assertFalse(trie.matchesPrefixOf("com.google.Bar"));
+    assertFalse(trie.matchesPrefixOf("java"));
+    assertFalse(trie.matchesPrefixOf(""));
+  }
+
+  @Test
+  public void testSlashSeparator() {
+    assertTrue(trie.matchesPrefixOf("javax/swing/JFrame"));
+    assertFalse(trie.matchesPrefixOf("javax/servlet/Servlet"));
+  }
+
+  @Test
+  public void testCharArrayRange() {
+    char[] name = "xxjavax/swing/JFramexx".toCharArray();
+    assertTrue(trie.matchesPrefixOf(name, 2, 18));
+    assertFalse(trie.matchesPrefixOf(name, 0, 20));
+    assertFalse(trie.matchesPrefixOf(name, 2, 8));
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testEmptyPrefix() {
+    new PackagePrefixTrie(Arrays.asList(""));
+  }
+}
@@ -0,0 +1,51 @@
+/*
+ * Copyright 2016 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.cloud.tools.eclipse.appengine.whitelist;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import org.eclipse.core.resources.IFile;
+import org.eclipse.jdt.core.compiler.BuildContext;
+import org.eclipse.jdt.core.compiler.CategorizedProblem;
+
+/**
+ * {@link BuildContext} for a single file that records the problems reported for it.
+ */
+public class TestBuildContext extends BuildContext {
+
+  private final IFile file;
+  private final List<CategorizedProblem> problems = new ArrayList<>();
+
+  public TestBuildContext(IFile file) {
+    this.file = file;
+  }
+
+  @Override
+  public IFile getFile() {
+    return file;
+  }
+
+  @Override
+  public void recordNewProblems(CategorizedProblem[] newProblems) {
+    problems.addAll(Arrays.asList(newProblems));
+  }
+
+  public List<CategorizedProblem> getProblems() {
+    return problems;
+  }
+}
@@ -0,0 +1,86 @@
+/*
+ * Copyright 2016 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.cloud.tools.eclipse.appengine.whitelist;
+
+import static org.junit.Assert.fail;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import org.eclipse.core.resources.IFile;
+import org.eclipse.core.resources.IFolder;
+import org.eclipse.core.resources.IProject;
+import org.eclipse.core.resources.IProjectDescription;
+import org.eclipse.core.resources.ResourcesPlugin;
+import org.eclipse.core.runtime.CoreException;
+import org.eclipse.jdt.core.IClasspathEntry;
+import org.eclipse.jdt.core.IJavaProject;
+import org.eclipse.jdt.core.JavaCore;
+import org.eclipse.jdt.launching.JavaRuntime;
+import org.junit.rules.ExternalResource;
+
+/**
+ * Creates a Java project with a <code>src</code> source folder and the default JRE on its
+ * classpath, and deletes it after the test.
+ */
+public final class TestJavaProject extends ExternalResource {
+
+  private IJavaProject javaProject;
+
+  @Override
+  protected void before() throws Throwable {
+    String projectName = "test" + Math.random();
+    IProjectDescription description = ResourcesPlugin.getWorkspace().newProjectDescription(projectName);
+    description.setNatureIds(new String[] {JavaCore.NATURE_ID});
+    IProject project = ResourcesPlugin.getWorkspace().getRoot().getProject(projectName);
+    project.create(description, null);
+    project.open(null);
+    IFolder sourceFolder = project.getFolder("src");
+    sourceFolder.create(true, true, null);
+    javaProject = JavaCore.create(project);
+    javaProject.setRawClasspath(new IClasspathEntry[] {
+        JavaCore.newSourceEntry(sourceFolder.getFullPath()),
+        JavaRuntime.getDefaultJREContainerEntry()}, null);
+  }
+
+  @Override
+  protected void after() {
+    try {
+      javaProject.getProject().delete(true, null);
+    } catch (CoreException e) {
+      fail("Could not delete project");
+    }
+  }
+
+  public IJavaProject getJavaProject() {
+    return javaProject;
+  }
+
+  /**
+   * Creates or overwrites <code>src/&lt;className&gt;.java</code> in the default package.
+   */
+  public IFile setSource(String className, String contents) throws CoreException {
+    IFile file = javaProject.getProject().getFolder("src").getFile(className + ".java");
+    ByteArrayInputStream stream =
+        new ByteArrayInputStream(contents.getBytes(StandardCharsets.UTF_8));
+    if (file.exists()) {
+      file.setContents(stream, true, false, null);
+    } else {
+      file.create(stream, true, null);
+    }
+    return file;
+  }
+}
@@ -0,0 +1,174 @@
+/*
+ * Copyright 2016 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.cloud.tools.eclipse.appengine.whitelist;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.hamcrest.CoreMatchers.sameInstance;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.Collections;
+import org.eclipse.core.runtime.IPath;
+import org.eclipse.core.runtime.Path;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class TypeReferenceIndexTest {
+
+  private static final IPath FILE = new Path("/project/src/Foo.java");
+
+  @Rule public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+  private TypeReferenceIndex index = new TypeReferenceIndex();
+
+  @Test
+  public void testGet_notIndexed() {
+    assertThat(index.get(FILE, 1L), nullValue());
+  }
+
+  @Test
+  public void testGet_sameModificationStamp() {
+    TypeReferences references = new TypeReferences.Builder().add("java.lang.String", 0, 5, 1).build();
+    index.put(FILE, 1L, references);
+    assertThat(index.get(FILE, 1L), sameInstance(references));
+  }
+
+  @Test
+  public void testGet_differentModificationStamp() {
+    index.put(FILE, 1L, TypeReferences.EMPTY);
+    assertThat(index.get(FILE, 2L), nullValue());
+  }
+
+  @Test
+  public void testGet_differentModificationStampSameContentHash() {
+    TypeReferences references = new TypeReferences.Builder().add("java.lang.String", 0, 5, 1).build();
+    index.put(FILE, 1L, "hash", references);
+    assertThat(index.get(FILE, 2L, "hash"), sameInstance(references));
+    assertThat(index.get(FILE, 2L), sameInstance(references));
+  }
+
+  @Test
+  public void testGet_differentContentHash() {
+    index.put(FILE, 1L, "hash", TypeReferences.EMPTY);
+    assertThat(index.get(FILE, 2L, "other"), nullValue());
+    assertThat(index.get(FILE, 2L, null), nullValue());
+  }
+
+  @Test
+  public void testSetWhitelistVersion_differentVersionClearsIndex() {
+    index.setWhitelistVersion("jre7-2");
+    index.put(FILE, 1L, TypeReferences.EMPTY);
+    index.setWhitelistVersion("jre7-2");
+    assertThat(index.size(), is(1));
+    index.setWhitelistVersion("jre7-3");
+    assertThat(index.size(), is(0));
+  }
+
+  @Test
+  public void testSaveAndLoad() throws IOException {
+    TypeReferences references = new TypeReferences.Builder()
+        .add("java.lang.Runtime", "exec", 10, 20, 3)
+        .add("java.lang.Runtime", 0, 7, 2)
+        .build();
+    index.setWhitelistVersion("jre7-2");
+    index.put(FILE, 1L, "hash", references);
+    index.put(new Path("/project/src/Bar.java"), 5L, TypeReferences.EMPTY);
+    File file = new File(temporaryFolder.getRoot(), "index/typeReferences.bin");
+    index.save(file);
+    assertFalse(index.isModified());
+
+    TypeReferenceIndex loaded = TypeReferenceIndex.load(file);
+    assertFalse(loaded.isModified());
+    assertThat(loaded.size(), is(2));
+    assertThat(loaded.get(new Path("/project/src/Bar.java"), 5L).size(), is(0));
+    TypeReferences loadedReferences = loaded.get(FILE, 2L, "hash");
+    assertThat(loadedReferences.size(), is(2));
+    assertThat(loadedReferences.getTypeName(0), is("java.lang.Runtime"));
+    assertThat(loadedReferences.getMemberName(0), is("exec"));
+    assertThat(loadedReferences.getSourceStart(0), is(10));
+    assertThat(loadedReferences.getSourceEnd(0), is(20));
+    assertThat(loadedReferences.getLineNumber(0), is(3));
+    assertThat(loadedReferences.getMemberName(1), nullValue());
+    assertThat(loadedReferences.getTypeName(1), sameInstance(loadedReferences.getTypeName(0)));
+    assertTrue(loaded.isModified());
+
+    loaded.setWhitelistVersion("jre7-2");
+    assertThat(loaded.size(), is(2));
+  }
+
+  @Test
+  public void testLoad_missingFile() throws IOException {
+    File file = new File(temporaryFolder.getRoot(), "none");
+    TypeReferenceIndex loaded = TypeReferenceIndex.load(file);
+    assertThat(loaded.size(), is(0));
+  }
+
+  @Test(expected = IOException.class)
+  public void testLoad_corruptFile() throws IOException {
+    File file = temporaryFolder.newFile();
+    Files.write(file.toPath(), new byte[] {1, 2, 3, 4, 5});
+    TypeReferenceIndex.load(file);
+  }
+
+  @Test
+  public void testRetainAll() {
+    index.put(FILE, 1L, TypeReferences.EMPTY);
+    index.put(new Path("/project/src/Bar.java"), 1L, TypeReferences.EMPTY);
+    index.retainAll(Collections.singleton(FILE));
+    assertThat(index.size(), is(1));
+    assertThat(index.get(FILE, 1L), sameInstance(TypeReferences.EMPTY));
+  }
+
+  @Test
+  public void testClearModificationStamps() {
+    TypeReferences references = new TypeReferences.Builder().add("java.lang.String", 0, 5, 1).build();
+    index.put(FILE, 1L, "hash", references);
+    index.put(new Path("/project/src/Bar.java"), 1L, TypeReferences.EMPTY);
+
+    index.clearModificationStamps();
+
+    assertThat(index.size(), is(1));
+    assertThat(index.get(FILE, 1L), nullValue());
+    assertThat(index.get(FILE, 1L, "hash"), sameInstance(references));
+  }
+
+  @Test
+  public void testInternTypeName() {
+    String first = index.internTypeName(new String("java.lang.String"));
+    String second = index.internTypeName(new String("java.lang.String"));
+    assertThat(second, sameInstance(first));
+  }
+
+  @Test
+  public void testBuilder_growsBeyondInitialCapacity() {
+    TypeReferences.Builder builder = new TypeReferences.Builder();
+    for (int i = 0; i < 100; i++) {
+      builder.add("java.lang.String", i, i + 5, i + 1);
+    }
+    TypeReferences references = builder.build();
+    assertThat(references.size(), is(100));
+    assertThat(references.getSourceStart(99), is(99));
+    assertThat(references.getSourceEnd(99), is(104));
+    assertThat(references.getLineNumber(99), is(100));
+  }
+}
@@ -0,0 +1,120 @@
+/*
+ * Copyright 2016 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.cloud.tools.eclipse.appengine.whitelist;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import org.junit.Test;
+
+public class WhitelistFormatTest {
+
+  @Test
+  public void testRoundTrip() throws IOException {
+    AppEngineJreWhitelist whitelist = roundTrip("test-1", Arrays.asList("java.", "javax.swing."),
+        Arrays.asList("java.lang.String", "java.lang.StringBuilder", "java.lang.Integer",
+                      "javax.swing.JFrame", "java.util.Map$Entry"),
+        Arrays.asList("java.lang.Runtime#exec", "java.lang.Runtime#exit"));
+    assertThat(whitelist.getVersion(), is("test-1"));
+    assertTrue(whitelist.isRestricted());
+    assertTrue(whitelist.allows("java.lang.String"));
+    assertTrue(whitelist.allows("java.lang.StringBuilder"));
+    assertTrue(whitelist.allows("java.lang.Integer"));
+    assertTrue(whitelist.allows("java.util.Map$Entry"));
+    assertTrue(whitelist.allows("javax.swing.JFrame"));
+    assertTrue(whitelist.allows("javax.servlet.Servlet"));
+    assertFalse(whitelist.allows("java.lang.Str"));
+    assertFalse(whitelist.allows("java.net.CookieManager"));
+    assertFalse(whitelist.allows("javax.swing.JPanel"));
+    assertFalse(whitelist.allowsMember("java.lang.Runtime", "exec"));
+    assertFalse(whitelist.allowsMember("java.lang.Runtime", "exit"));
+    assertTrue(whitelist.allowsMember("java.lang.Runtime", "halt"));
+  }
+
+  @Test
+  public void testWrite_oneEntryPerLine() throws IOException {
+    ByteArrayOutputStream output = new ByteArrayOutputStream();
+    WhitelistFormat.write(output, "test-1", Arrays.asList("java."),
+                          Arrays.asList("java.lang.String", "java.lang.Integer"),
+                          Arrays.asList("java.lang.Runtime#exec"));
+    assertThat(output.toString("UTF-8"), is("version test-1\n"
+        + "package java.\n"
+        + "class java.lang.Integer\n"
+        + "class java.lang.String\n"
+        + "member java.lang.Runtime#exec\n"));
+  }
+
+  @Test
+  public void testRead_commentsAndBlankLines() throws IOException {
+    AppEngineJreWhitelist whitelist = read("# a whitelist\n"
+        + "version test-1\n"
+        + "\n"
+        + "package java.\n"
+        + "  # indented comment\n"
+        + "class java.lang.String\n");
+    assertThat(whitelist.getVersion(), is("test-1"));
+    assertTrue(whitelist.allows("java.lang.String"));
+    assertFalse(whitelist.allows("java.lang.Integer"));
+  }
+
+  @Test
+  public void testRoundTrip_unrestricted() throws IOException {
+    AppEngineJreWhitelist whitelist = roundTrip("test-1", Collections.<String>emptyList(),
+        Collections.<String>emptyList(), Collections.<String>emptyList());
+    assertFalse(whitelist.isRestricted());
+    assertTrue(whitelist.allows("java.net.CookieManager"));
+  }
+
+  @Test(expected = IOException.class)
+  public void testRead_notAWhitelist() throws IOException {
+    read("java.lang.String");
+  }
+
+  @Test(expected = IOException.class)
+  public void testRead_noVersion() throws IOException {
+    read("package java.\nclass java.lang.String\n");
+  }
+
+  @Test(expected = IOException.class)
+  public void testRead_duplicateVersion() throws IOException {
+    read("version test-1\nversion test-2\n");
+  }
+
+  @Test(expected = IOException.class)
+  public void testRead_unknownEntry() throws IOException {
+    read("version test-1\nmethod java.lang.Runtime#exec\n");
+  }
+
+  private static AppEngineJreWhitelist read(String content) throws IOException {
+    return WhitelistFormat.read(new ByteArrayInputStream(content.getBytes("UTF-8")));
+  }
+
+  private static AppEngineJreWhitelist roundTrip(String version, Collection<String> jrePackages,
+      Collection<String> classNames, Collection<String> unsupportedMembers) throws IOException {
+    ByteArrayOutputStream output = new ByteArrayOutputStream();
+    WhitelistFormat.write(output, version, jrePackages, classNames, unsupportedMembers);
+    return WhitelistFormat.read(new ByteArrayInputStream(output.toByteArray()));
+  }
+}
@@ -0,0 +1,136 @@
+/*
+ * Copyright 2016 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.cloud.tools.eclipse.appengine.whitelist;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import javax.xml.parsers.DocumentBuilderFactory;
+import javax.xml.parsers.ParserConfigurationException;
+import org.eclipse.core.resources.IFile;
+import org.eclipse.core.resources.IFolder;
+import org.eclipse.core.resources.IProject;
+import org.eclipse.core.runtime.CoreException;
+import org.eclipse.wst.common.componentcore.ComponentCore;
+import org.eclipse.wst.common.componentcore.resources.IVirtualComponent;
+import org.eclipse.wst.common.componentcore.resources.IVirtualFolder;
+import org.w3c.dom.Document;
+import org.w3c.dom.NodeList;
+import org.xml.sax.SAXException;
+
+/**
+ * Determines the App Engine Java runtime of an application from the <code>&lt;runtime&gt;</code>
+ * element of its <code>appengine-web.xml</code>, to select the matching
+ * {@link AppEngineJreWhitelist}.
+ */
+public class AppEngineRuntime {
+
+  private static final Logger logger = Logger.getLogger(AppEngineRuntime.class.getName());
+
+  private static final String APPENGINE_WEB_XML_NAMESPACE_URI = "http://appengine.google.com/ns/1.0"; //$NON-NLS-1$
+  private static final String APPENGINE_WEB_XML = "WEB-INF/appengine-web.xml"; //$NON-NLS-1$
+  private static final String DEFAULT_WEB_PATH = "src/main/webapp"; //$NON-NLS-1$
+
+  private AppEngineRuntime() {
+  }
+
+  /**
+   * @return the runtime declared in <code>WEB-INF/appengine-web.xml</code> of the web content of
+   *     <code>project</code>, or <code>null</code> if none is declared
+   */
+  public static String fromProject(IProject project) {
+    return fromAppEngineWebXml(getAppEngineWebXml(project));
+  }
+
+  /**
+   * @return the <code>WEB-INF/appengine-web.xml</code> file of the web content of
+   *     <code>project</code>, which may not exist
+   */
+  public static IFile getAppEngineWebXml(IProject project) {
+    return getWebContentFolder(project).getFile(APPENGINE_WEB_XML);
+  }
+
+  /**
+   * @return the runtime declared in <code>appEngineWebXml</code>, or <code>null</code> if the file
+   *     does not exist or declares none
+   */
+  public static String fromAppEngineWebXml(IFile appEngineWebXml) {
+    if (!appEngineWebXml.exists()) {
+      return null;
+    }
+    try (InputStream input = appEngineWebXml.getContents()) {
+      return fromAppEngineWebXml(input);
+    } catch (CoreException | IOException ex) {
+      logger.log(Level.WARNING, "Cannot read " + appEngineWebXml, ex); //$NON-NLS-1$
+      return null;
+    }
+  }
+
+  /**
+   * @return the runtime declared in <code>WEB-INF/appengine-web.xml</code> of an exploded WAR, or
+   *     <code>null</code> if none is declared
+   */
+  public static String fromExplodedWar(File explodedWarDirectory) {
+    File appEngineWebXml = new File(explodedWarDirectory, APPENGINE_WEB_XML);
+    if (!appEngineWebXml.isFile()) {
+      return null;
+    }
+    try (InputStream input = new FileInputStream(appEngineWebXml)) {
+      return fromAppEngineWebXml(input);
+    } catch (IOException ex) {
+      logger.log(Level.WARNING, "Cannot read " + appEngineWebXml, ex); //$NON-NLS-1$
+      return null;
+    }
+  }
+
+  /**
+   * @return the trimmed content of the top level <code>&lt;runtime&gt;</code> element, or
+   *     <code>null</code> if there is none or the content cannot be parsed
+   */
+  public static String fromAppEngineWebXml(InputStream appEngineWebXml) throws IOException {
+    try {
+      DocumentBuilderFactory documentBuilderFactory = DocumentBuilderFactory.newInstance();
+      documentBuilderFactory.setNamespaceAware(true);
+      Document document = documentBuilderFactory.newDocumentBuilder().parse(appEngineWebXml);
+      NodeList runtimes = document.getDocumentElement()
+          .getElementsByTagNameNS(APPENGINE_WEB_XML_NAMESPACE_URI, "runtime"); //$NON-NLS-1$
+      if (runtimes.getLength() == 0) {
+        return null;
+      }
+      String runtime = runtimes.item(0).getTextContent().trim();
+      return runtime.isEmpty() ? null : runtime;
+    } catch (SAXException | ParserConfigurationException ex) {
+      logger.log(Level.FINE, "Cannot parse appengine-web.xml", ex); //$NON-NLS-1$
+      return null;
+    }
+  }
+
+  private static IFolder getWebContentFolder(IProject project) {
+    // Try to obtain the directory as if it was a Dynamic Web Project
+    IVirtualComponent component = ComponentCore.createComponent(project);
+    if (component != null && component.exists()) {
+      IVirtualFolder root = component.getRootFolder();
+      if (root.exists() && root.getUnderlyingFolder() instanceof IFolder) {
+        return (IFolder) root.getUnderlyingFolder();
+      }
+    }
+    return project.getFolder(DEFAULT_WEB_PATH);
+  }
+}
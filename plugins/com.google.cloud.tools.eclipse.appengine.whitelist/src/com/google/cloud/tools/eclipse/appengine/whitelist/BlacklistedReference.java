@@ -0,0 +1,77 @@
+/*
+ * Copyright 2016 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.cloud.tools.eclipse.appengine.whitelist;
+
+import com.google.common.base.Preconditions;
+
+/**
+ * A reference from a class in a library or a class folder to a class that is not on the
+ * {@link AppEngineJreWhitelist}.
+ */
+public final class BlacklistedReference implements Comparable<BlacklistedReference> {
+
+  private final String referencingClassName;
+  private final String blacklistedClassName;
+
+  public BlacklistedReference(String referencingClassName, String blacklistedClassName) {
+    this.referencingClassName = Preconditions.checkNotNull(referencingClassName);
+    this.blacklistedClassName = Preconditions.checkNotNull(blacklistedClassName);
+  }
+
+  /**
+   * @return the fully qualified name of the class that contains the reference
+   */
+  public String getReferencingClassName() {
+    return referencingClassName;
+  }
+
+  /**
+   * @return the fully qualified name of the class that is not on the whitelist
+   */
+  public String getBlacklistedClassName() {
+    return blacklistedClassName;
+  }
+
+  @Override
+  public int compareTo(BlacklistedReference other) {
+    int result = blacklistedClassName.compareTo(other.blacklistedClassName);
+    return result != 0 ? result : referencingClassName.compareTo(other.referencingClassName);
+  }
+
+  @Override
+  public boolean equals(Object obj) {
+    if (this == obj) {
+      return true;
+    }
+    if (!(obj instanceof BlacklistedReference)) {
+      return false;
+    }
+    BlacklistedReference other = (BlacklistedReference) obj;
+    return referencingClassName.equals(other.referencingClassName)
+        && blacklistedClassName.equals(other.blacklistedClassName);
+  }
+
+  @Override
+  public int hashCode() {
+    return 31 * referencingClassName.hashCode() + blacklistedClassName.hashCode();
+  }
+
+  @Override
+  public String toString() {
+    return referencingClassName + " -> " + blacklistedClassName; //$NON-NLS-1$
+  }
+}
@@ -0,0 +1,222 @@
+/*
+ * Copyright 2016 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.cloud.tools.eclipse.appengine.whitelist;
+
+import java.io.IOException;
+
+/**
+ * Finds the classes referenced from the constant pool of a class file: the
+ * <code>CONSTANT_Class</code> entries, and the types in the descriptors of the fields and
+ * methods it uses.
+ * <p>
+ * Names are decoded into a buffer that is reused between calls and passed to a
+ * {@link Visitor} in internal form (<code>java/lang/String</code>), so reading a class file does
+ * not allocate per reference. Instances are not thread safe.
+ */
+final class ClassFileReferenceReader {
+
+  /**
+   * Receives the class references found by {@link ClassFileReferenceReader#read}. The name is
+   * only valid for the duration of the call.
+   */
+  interface Visitor {
+    void visitClassReference(char[] name, int offset, int length);
+  }
+
+  private static final int MAGIC = 0xCAFEBABE;
+
+  private static final int CONSTANT_UTF8 = 1;
+  private static final int CONSTANT_INTEGER = 3;
+  private static final int CONSTANT_FLOAT = 4;
+  private static final int CONSTANT_LONG = 5;
+  private static final int CONSTANT_DOUBLE = 6;
+  private static final int CONSTANT_CLASS = 7;
+  private static final int CONSTANT_STRING = 8;
+  private static final int CONSTANT_FIELDREF = 9;
+  private static final int CONSTANT_METHODREF = 10;
+  private static final int CONSTANT_INTERFACE_METHODREF = 11;
+  private static final int CONSTANT_NAME_AND_TYPE = 12;
+  private static final int CONSTANT_METHOD_HANDLE = 15;
+  private static final int CONSTANT_METHOD_TYPE = 16;
+  private static final int CONSTANT_DYNAMIC = 17;
+  private static final int CONSTANT_INVOKE_DYNAMIC = 18;
+  private static final int CONSTANT_MODULE = 19;
+  private static final int CONSTANT_PACKAGE = 20;
+
+  // offsets of the Utf8 entries in the class file, indexed by constant pool index
+  private int[] utf8Offsets = new int[256];
+  // constant pool indices of the class names and descriptors to report
+  private int[] classNameIndices = new int[64];
+  private int[] descriptorIndices = new int[64];
+  private char[] chars = new char[256];
+
+  /**
+   * Reports the classes referenced by the class file held in <code>classFile[0, length)</code>.
+   *
+   * @throws IOException if the data is not a valid class file
+   */
+  void read(byte[] classFile, int length, Visitor visitor) throws IOException {
+    try {
+      if (readInt(classFile, 0) != MAGIC) {
+        throw new IOException("Not a class file"); //$NON-NLS-1$
+      }
+      int constantPoolCount = readUnsignedShort(classFile, 8);
+      if (utf8Offsets.length < constantPoolCount) {
+        utf8Offsets = new int[constantPoolCount];
+      }
+      int classNameCount = 0;
+      int descriptorCount = 0;
+      int offset = 10;
+      for (int index = 1; index < constantPoolCount; index++) {
+        int tag = classFile[offset] & 0xFF;
+        switch (tag) {
+          case CONSTANT_UTF8:
+            utf8Offsets[index] = offset + 1;
+            offset += 3 + readUnsignedShort(classFile, offset + 1);
+            break;
+          case CONSTANT_CLASS:
+            if (classNameCount == classNameIndices.length) {
+              classNameIndices = grow(classNameIndices);
+            }
+            classNameIndices[classNameCount++] = readUnsignedShort(classFile, offset + 1);
+            offset += 3;
+            break;
+          case CONSTANT_NAME_AND_TYPE:
+            if (descriptorCount == descriptorIndices.length) {
+              descriptorIndices = grow(descriptorIndices);
+            }
+            descriptorIndices[descriptorCount++] = readUnsignedShort(classFile, offset + 3);
+            offset += 5;
+            break;
+          case CONSTANT_METHOD_TYPE:
+            if (descriptorCount == descriptorIndices.length) {
+              descriptorIndices = grow(descriptorIndices);
+            }
+            descriptorIndices[descriptorCount++] = readUnsignedShort(classFile, offset + 1);
+            offset += 3;
+            break;
+          case CONSTANT_STRING:
+          case CONSTANT_MODULE:
+          case CONSTANT_PACKAGE:
+            offset += 3;
+            break;
+          case CONSTANT_METHOD_HANDLE:
+            offset += 4;
+            break;
+          case CONSTANT_INTEGER:
+          case CONSTANT_FLOAT:
+          case CONSTANT_FIELDREF:
+          case CONSTANT_METHODREF:
+          case CONSTANT_INTERFACE_METHODREF:
+          case CONSTANT_DYNAMIC:
+          case CONSTANT_INVOKE_DYNAMIC:
+            offset += 5;
+            break;
+          case CONSTANT_LONG:
+          case CONSTANT_DOUBLE:
+            offset += 9;
+            index++; // 8-byte constants take two entries
+            break;
+          default:
+            throw new IOException("Unknown constant pool tag " + tag); //$NON-NLS-1$
+        }
+        if (offset > length) {
+          throw new IOException("Truncated class file"); //$NON-NLS-1$
+        }
+      }
+
+      for (int i = 0; i < classNameCount; i++) {
+        int nameLength = decodeUtf8(classFile, utf8Offsets[classNameIndices[i]]);
+        if (nameLength > 0 && chars[0] == '[') {
+          visitDescriptor(nameLength, visitor);
+        } else {
+          visitor.visitClassReference(chars, 0, nameLength);
+        }
+      }
+      for (int i = 0; i < descriptorCount; i++) {
+        visitDescriptor(decodeUtf8(classFile, utf8Offsets[descriptorIndices[i]]), visitor);
+      }
+    } catch (ArrayIndexOutOfBoundsException ex) {
+      throw new IOException("Malformed class file", ex); //$NON-NLS-1$
+    }
+  }
+
+  /**
+   * Reports the object types of the field, method or array descriptor held in
+   * <code>chars[0, length)</code>, e.g. <code>(ILjava/lang/String;)[Ljava/io/File;</code>.
+   */
+  private void visitDescriptor(int length, Visitor visitor) {
+    int i = 0;
+    while (i < length) {
+      if (chars[i] == 'L') {
+        int start = i + 1;
+        int end = start;
+        while (end < length && chars[end] != ';') {
+          end++;
+        }
+        visitor.visitClassReference(chars, start, end - start);
+        i = end + 1;
+      } else {
+        i++;
+      }
+    }
+  }
+
+  /**
+   * Decodes the modified UTF-8 string whose length field is at <code>offset</code> into
+   * {@link #chars}.
+   *
+   * @return the number of decoded characters
+   */
+  private int decodeUtf8(byte[] classFile, int offset) {
+    int byteLength = readUnsignedShort(classFile, offset);
+    if (chars.length < byteLength) {
+      chars = new char[Math.max(byteLength, chars.length * 2)];
+    }
+    int position = offset + 2;
+    int end = position + byteLength;
+    int charCount = 0;
+    while (position < end) {
+      int c = classFile[position++] & 0xFF;
+      if (c < 0x80) {
+        chars[charCount++] = (char) c;
+      } else if ((c & 0xE0) == 0xC0) {
+        chars[charCount++] = (char) (((c & 0x1F) << 6) | (classFile[position++] & 0x3F));
+      } else {
+        chars[charCount++] = (char) (((c & 0x0F) << 12)
+            | ((classFile[position++] & 0x3F) << 6)
+            | (classFile[position++] & 0x3F));
+      }
+    }
+    return charCount;
+  }
+
+  private static int[] grow(int[] array) {
+    int[] grown = new int[array.length * 2];
+    System.arraycopy(array, 0, grown, 0, array.length);
+    return grown;
+  }
+
+  private static int readUnsignedShort(byte[] bytes, int offset) {
+    return ((bytes[offset] & 0xFF) << 8) | (bytes[offset + 1] & 0xFF);
+  }
+
+  private static int readInt(byte[] bytes, int offset) {
+    return ((bytes[offset] & 0xFF) << 24) | ((bytes[offset + 1] & 0xFF) << 16)
+        | ((bytes[offset + 2] & 0xFF) << 8) | (bytes[offset + 3] & 0xFF);
+  }
+}
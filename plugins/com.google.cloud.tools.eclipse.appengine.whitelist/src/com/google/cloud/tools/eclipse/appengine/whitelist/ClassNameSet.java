@@ -0,0 +1,116 @@
+/*
+ * Copyright 2016 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.cloud.tools.eclipse.appengine.whitelist;
+
+import java.util.Collection;
+
+/**
+ * An immutable set of fully qualified class names backed by an open addressing hash table, that
+ * can be queried with a {@link String} or with a range of a <code>char[]</code> without
+ * allocating.
+ * <p>
+ * As in {@link PackagePrefixTrie}, <code>/</code> is treated as <code>.</code> in queries, so
+ * <code>java/lang/String</code> and <code>java.lang.String</code> are the same name.
+ */
+final class ClassNameSet {
+
+  private final String[] names;
+  private final int[] hashes;
+  private final int mask;
+  private final int size;
+
+  ClassNameSet(Collection<String> classNames) {
+    int capacity = Integer.highestOneBit(Math.max(classNames.size(), 1) * 2) * 2;
+    names = new String[capacity];
+    hashes = new int[capacity];
+    mask = capacity - 1;
+    int count = 0;
+    for (String className : classNames) {
+      String name = className.replace('/', '.');
+      int hash = hash(name);
+      int slot = hash & mask;
+      while (names[slot] != null && !names[slot].equals(name)) {
+        slot = (slot + 1) & mask;
+      }
+      if (names[slot] == null) {
+        names[slot] = name;
+        hashes[slot] = hash;
+        count++;
+      }
+    }
+    size = count;
+  }
+
+  int size() {
+    return size;
+  }
+
+  boolean contains(String className) {
+    int hash = hash(className);
+    for (int slot = hash & mask; names[slot] != null; slot = (slot + 1) & mask) {
+      if (hashes[slot] == hash && equal(names[slot], className)) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  boolean contains(char[] className, int offset, int length) {
+    int hash = 0;
+    for (int i = offset; i < offset + length; i++) {
+      hash = 31 * hash + PackagePrefixTrie.normalize(className[i]);
+    }
+    for (int slot = hash & mask; names[slot] != null; slot = (slot + 1) & mask) {
+      if (hashes[slot] == hash && equal(names[slot], className, offset, length)) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  private static int hash(String className) {
+    int hash = 0;
+    for (int i = 0; i < className.length(); i++) {
+      hash = 31 * hash + PackagePrefixTrie.normalize(className.charAt(i));
+    }
+    return hash;
+  }
+
+  private static boolean equal(String name, String className) {
+    if (name.length() != className.length()) {
+      return false;
+    }
+    for (int i = 0; i < name.length(); i++) {
+      if (name.charAt(i) != PackagePrefixTrie.normalize(className.charAt(i))) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  private static boolean equal(String name, char[] className, int offset, int length) {
+    if (name.length() != length) {
+      return false;
+    }
+    for (int i = 0; i < length; i++) {
+      if (name.charAt(i) != PackagePrefixTrie.normalize(className[offset + i])) {
+        return false;
+      }
+    }
+    return true;
+  }
+}
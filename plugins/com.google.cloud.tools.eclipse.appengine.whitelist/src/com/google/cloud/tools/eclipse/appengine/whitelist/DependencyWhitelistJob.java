@@ -0,0 +1,177 @@
+/*
+ * Copyright 2016 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.cloud.tools.eclipse.appengine.whitelist;
+
+import com.google.cloud.tools.eclipse.util.status.StatusUtil;
+import com.google.common.annotations.VisibleForTesting;
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import org.eclipse.core.resources.IMarker;
+import org.eclipse.core.resources.IProject;
+import org.eclipse.core.resources.IResource;
+import org.eclipse.core.resources.IWorkspace;
+import org.eclipse.core.resources.IWorkspaceRunnable;
+import org.eclipse.core.runtime.CoreException;
+import org.eclipse.core.runtime.IPath;
+import org.eclipse.core.runtime.IProgressMonitor;
+import org.eclipse.core.runtime.IStatus;
+import org.eclipse.core.runtime.OperationCanceledException;
+import org.eclipse.core.runtime.Status;
+import org.eclipse.core.runtime.SubMonitor;
+import org.eclipse.core.runtime.jobs.Job;
+import org.eclipse.jdt.core.IClasspathContainer;
+import org.eclipse.jdt.core.IClasspathEntry;
+import org.eclipse.jdt.core.IJavaProject;
+import org.eclipse.jdt.core.JavaCore;
+import org.eclipse.jdt.core.JavaModelException;
+import org.eclipse.osgi.util.NLS;
+
+/**
+ * Scans the jars on the classpath of an App Engine Standard project, which end up in
+ * <code>WEB-INF/lib</code>, with the {@link JarWhitelistScanner} of the runtime of the project and
+ * reports the references to classes that are not on the whitelist as {@link #MARKER_TYPE} markers
+ * on the project.
+ */
+class DependencyWhitelistJob extends Job {
+
+  static final String MARKER_TYPE = "com.google.cloud.tools.eclipse.appengine.whitelist.blacklistedDependencyClass"; //$NON-NLS-1$
+
+  // the server runtime libraries are provided by App Engine and not deployed with the application
+  private static final String SERVER_RUNTIME_CONTAINER = "org.eclipse.jst.server.core.container"; //$NON-NLS-1$
+
+  private final IJavaProject javaProject;
+
+  // the results the current markers were created from, only accessed by the job
+  private Map<File, JarScanResult> reportedResults;
+
+  DependencyWhitelistJob(IJavaProject javaProject) {
+    super(NLS.bind(Messages.DependencyWhitelistJobName, javaProject.getElementName()));
+    this.javaProject = javaProject;
+    setPriority(Job.DECORATE);
+  }
+
+  @Override
+  protected IStatus run(IProgressMonitor monitor) {
+    if (!javaProject.getProject().isAccessible()) {
+      return Status.OK_STATUS;
+    }
+    SubMonitor progress = SubMonitor.convert(monitor, 10);
+    try {
+      AppEngineJreWhitelist whitelist =
+          AppEngineJreWhitelist.forRuntime(AppEngineRuntime.fromProject(javaProject.getProject()));
+      Map<File, JarScanResult> results = Collections.emptyMap();
+      if (whitelist.isRestricted()) {
+        List<File> jars = getDependencyJars(javaProject);
+        results = JarWhitelistScanner.getWorkspaceScanner(whitelist)
+            .scan(jars, progress.newChild(9));
+      }
+      if (!results.equals(reportedResults)) {
+        updateMarkers(javaProject.getProject(), results, progress.newChild(1));
+        reportedResults = results;
+      }
+      return Status.OK_STATUS;
+    } catch (OperationCanceledException ex) {
+      return Status.CANCEL_STATUS;
+    } catch (CoreException ex) {
+      return StatusUtil.error(this, NLS.bind(Messages.DependencyWhitelistJobFailed,
+                                             javaProject.getElementName()), ex);
+    }
+  }
+
+  /**
+   * @return the jars of the libraries and application classpath containers of
+   *     <code>javaProject</code>, leaving out the JRE and the server runtime
+   */
+  @VisibleForTesting
+  static List<File> getDependencyJars(IJavaProject javaProject) throws JavaModelException {
+    Set<File> jars = new LinkedHashSet<>();
+    for (IClasspathEntry entry : javaProject.getRawClasspath()) {
+      switch (entry.getEntryKind()) {
+        case IClasspathEntry.CPE_CONTAINER:
+          if (SERVER_RUNTIME_CONTAINER.equals(entry.getPath().segment(0))) {
+            break;
+          }
+          IClasspathContainer container =
+              JavaCore.getClasspathContainer(entry.getPath(), javaProject);
+          if (container != null && container.getKind() == IClasspathContainer.K_APPLICATION) {
+            for (IClasspathEntry containerEntry : container.getClasspathEntries()) {
+              addJar(containerEntry, javaProject, jars);
+            }
+          }
+          break;
+        case IClasspathEntry.CPE_LIBRARY:
+        case IClasspathEntry.CPE_VARIABLE:
+          addJar(JavaCore.getResolvedClasspathEntry(entry), javaProject, jars);
+          break;
+        default:
+          break;
+      }
+    }
+    return new ArrayList<>(jars);
+  }
+
+  private static void addJar(IClasspathEntry entry, IJavaProject javaProject, Set<File> jars) {
+    if (entry == null || entry.getEntryKind() != IClasspathEntry.CPE_LIBRARY) {
+      return;
+    }
+    IPath path = entry.getPath();
+    // workspace paths, e.g. of jars in WEB-INF/lib, have to be mapped to the file system
+    IResource resource = javaProject.getProject().getWorkspace().getRoot().findMember(path);
+    File file = resource != null && resource.getLocation() != null
+        ? resource.getLocation().toFile() : path.toFile();
+    if (file.isFile() && file.getName().endsWith(".jar")) { //$NON-NLS-1$
+      jars.add(file);
+    }
+  }
+
+  private static void updateMarkers(final IProject project, final Map<File, JarScanResult> results,
+                                    IProgressMonitor monitor) throws CoreException {
+    IWorkspace workspace = project.getWorkspace();
+    workspace.run(new IWorkspaceRunnable() {
+      @Override
+      public void run(IProgressMonitor monitor) throws CoreException {
+        project.deleteMarkers(MARKER_TYPE, false, IResource.DEPTH_ZERO);
+        for (Map.Entry<File, JarScanResult> entry : results.entrySet()) {
+          String jarName = entry.getKey().getName();
+          // one marker per blacklisted class and jar; a single referencing class is enough to
+          // find the problem
+          Set<String> reportedClasses = new HashSet<>();
+          for (BlacklistedReference reference : entry.getValue().getBlacklistedReferences()) {
+            if (reportedClasses.add(reference.getBlacklistedClassName())) {
+              IMarker marker = project.createMarker(MARKER_TYPE);
+              marker.setAttributes(
+                  new String[] {IMarker.MESSAGE, IMarker.SEVERITY, IMarker.LOCATION},
+                  new Object[] {
+                      NLS.bind(Messages.DependencyClassNotWhitelisted, new Object[] {
+                          reference.getBlacklistedClassName().replace('$', '.'),
+                          jarName,
+                          reference.getReferencingClassName().replace('$', '.')}),
+                      IMarker.SEVERITY_WARNING,
+                      entry.getKey().getPath()});
+            }
+          }
+        }
+      }
+    }, workspace.getRuleFactory().markerRule(project), IWorkspace.AVOID_UPDATE, monitor);
+  }
+}
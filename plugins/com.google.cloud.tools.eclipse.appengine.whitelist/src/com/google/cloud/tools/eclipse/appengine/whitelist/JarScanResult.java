@@ -0,0 +1,80 @@
+/*
+ * Copyright 2016 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.cloud.tools.eclipse.appengine.whitelist;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * The references to classes that are not on the {@link AppEngineJreWhitelist} found in a jar or
+ * a class folder by {@link JarWhitelistScanner}.
+ */
+public final class JarScanResult {
+
+  private final String sha256;
+  private final List<BlacklistedReference> blacklistedReferences;
+
+  JarScanResult(String sha256, Collection<BlacklistedReference> blacklistedReferences) {
+    this.sha256 = sha256;
+    List<BlacklistedReference> sorted = new ArrayList<>(blacklistedReferences);
+    Collections.sort(sorted);
+    this.blacklistedReferences = Collections.unmodifiableList(sorted);
+  }
+
+  /**
+   * @return the SHA-256 digest of the jar, as a lower case hexadecimal string, or
+   *     <code>null</code> for a class folder
+   */
+  public String getSha256() {
+    return sha256;
+  }
+
+  /**
+   * @return the references found in the jar, sorted by blacklisted class name
+   */
+  public List<BlacklistedReference> getBlacklistedReferences() {
+    return blacklistedReferences;
+  }
+
+  /**
+   * @return true if the jar only references whitelisted classes
+   */
+  public boolean isClean() {
+    return blacklistedReferences.isEmpty();
+  }
+
+  @Override
+  public boolean equals(Object obj) {
+    if (this == obj) {
+      return true;
+    }
+    if (!(obj instanceof JarScanResult)) {
+      return false;
+    }
+    JarScanResult other = (JarScanResult) obj;
+    return Objects.equals(sha256, other.sha256)
+        && blacklistedReferences.equals(other.blacklistedReferences);
+  }
+
+  @Override
+  public int hashCode() {
+    return Objects.hash(sha256, blacklistedReferences);
+  }
+}
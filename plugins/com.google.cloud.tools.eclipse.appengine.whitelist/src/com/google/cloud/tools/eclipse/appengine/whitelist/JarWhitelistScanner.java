@@ -0,0 +1,408 @@
+/*
+ * Copyright 2016 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.cloud.tools.eclipse.appengine.whitelist;
+
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.base.Charsets;
+import com.google.common.hash.Hashing;
+import com.google.common.io.Files;
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.FileVisitResult;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.Enumeration;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+import org.eclipse.core.runtime.IProgressMonitor;
+import org.eclipse.core.runtime.OperationCanceledException;
+import org.eclipse.core.runtime.Platform;
+import org.eclipse.core.runtime.SubMonitor;
+
+/**
+ * Checks the classes referenced by the class files of jars against an
+ * {@link AppEngineJreWhitelist}.
+ * <p>
+ * Jars are scanned in parallel on a bounded number of threads. The result for each jar is
+ * cached in a file named after the SHA-256 digest of the jar, so a jar is only scanned once no
+ * matter where it is or which project uses it. The digest of a jar is recomputed only when its
+ * size or modification time change.
+ */
+public class JarWhitelistScanner {
+
+  private static final Logger logger = Logger.getLogger(JarWhitelistScanner.class.getName());
+
+  /**
+   * First line of the cache files; change it when the file format changes. Results of different
+   * whitelist versions must be cached in different directories.
+   */
+  @VisibleForTesting
+  static final String CACHE_HEADER = "# App Engine JRE whitelist scan 1"; //$NON-NLS-1$
+
+  private static final String CLASS_SUFFIX = ".class"; //$NON-NLS-1$
+  private static final long CANCELLATION_CHECK_INTERVAL_MILLIS = 100;
+
+  private static final Map<String, JarWhitelistScanner> workspaceScanners = new HashMap<>();
+
+  private final File cacheDirectory;
+  private final AppEngineJreWhitelist whitelist;
+  private final int maximumThreads;
+  private final Map<String, FileDigest> digests = new ConcurrentHashMap<>();
+
+  /**
+   * Creates a scanner for the Java 7 runtime whitelist.
+   *
+   * @param cacheDirectory the directory holding the cached scan results, or <code>null</code> to
+   *     not cache results
+   */
+  public JarWhitelistScanner(File cacheDirectory) {
+    this(cacheDirectory, Runtime.getRuntime().availableProcessors());
+  }
+
+  /**
+   * Creates a scanner for the Java 7 runtime whitelist.
+   *
+   * @param cacheDirectory the directory holding the cached scan results, or <code>null</code> to
+   *     not cache results
+   * @param maximumThreads the maximum number of jars scanned at the same time
+   */
+  public JarWhitelistScanner(File cacheDirectory, int maximumThreads) {
+    this(cacheDirectory, AppEngineJreWhitelist.forRuntime(AppEngineJreWhitelist.JAVA7_RUNTIME),
+         maximumThreads);
+  }
+
+  /**
+   * @param cacheDirectory the directory holding the cached scan results, or <code>null</code> to
+   *     not cache results; must only hold results for <code>whitelist</code>
+   * @param whitelist the whitelist the referenced classes are checked against
+   * @param maximumThreads the maximum number of jars scanned at the same time
+   */
+  public JarWhitelistScanner(File cacheDirectory, AppEngineJreWhitelist whitelist,
+                             int maximumThreads) {
+    this.cacheDirectory = cacheDirectory;
+    this.whitelist = whitelist;
+    this.maximumThreads = Math.max(1, maximumThreads);
+  }
+
+  /**
+   * @return the scanner for <code>whitelist</code> shared in the workspace, which caches its
+   *     results in the state location of this bundle, separately for each whitelist version
+   */
+  public static JarWhitelistScanner getWorkspaceScanner(AppEngineJreWhitelist whitelist) {
+    synchronized (workspaceScanners) {
+      JarWhitelistScanner scanner = workspaceScanners.get(whitelist.getVersion());
+      if (scanner == null) {
+        File stateLocation = Platform.getStateLocation(
+            Platform.getBundle("com.google.cloud.tools.eclipse.appengine.whitelist")).toFile(); //$NON-NLS-1$
+        File cacheDirectory = new File(new File(stateLocation, "jarScans"), whitelist.getVersion()); //$NON-NLS-1$
+        scanner = new JarWhitelistScanner(cacheDirectory, whitelist,
+                                          Runtime.getRuntime().availableProcessors());
+        workspaceScanners.put(whitelist.getVersion(), scanner);
+      }
+      return scanner;
+    }
+  }
+
+  public AppEngineJreWhitelist getWhitelist() {
+    return whitelist;
+  }
+
+  /**
+   * Scans <code>jars</code> in parallel. Jars that cannot be read are logged and left out of the
+   * result. Class folders, e.g. <code>WEB-INF/classes</code>, can be passed too; their results
+   * are not cached.
+   *
+   * @return the result for each jar or class folder, in the order of <code>jars</code>
+   * @throws OperationCanceledException if <code>monitor</code> is canceled
+   */
+  public Map<File, JarScanResult> scan(List<File> jars, IProgressMonitor monitor) {
+    SubMonitor progress = SubMonitor.convert(monitor, jars.size());
+    Map<File, JarScanResult> results = new LinkedHashMap<>();
+    if (jars.isEmpty()) {
+      return results;
+    }
+
+    ExecutorService executor = Executors.newFixedThreadPool(Math.min(maximumThreads, jars.size()));
+    try {
+      Map<File, Future<JarScanResult>> futures = new LinkedHashMap<>();
+      for (final File jar : jars) {
+        futures.put(jar, executor.submit(new Callable<JarScanResult>() {
+          @Override
+          public JarScanResult call() throws IOException {
+            return jar.isDirectory() ? scanClassFolder(jar) : scan(jar);
+          }
+        }));
+      }
+      for (Map.Entry<File, Future<JarScanResult>> entry : futures.entrySet()) {
+        progress.subTask(entry.getKey().getName());
+        JarScanResult result = waitFor(entry.getKey(), entry.getValue(), progress);
+        if (result != null) {
+          results.put(entry.getKey(), result);
+        }
+        progress.worked(1);
+      }
+      return results;
+    } finally {
+      executor.shutdownNow();
+    }
+  }
+
+  /**
+   * Scans a single jar in the calling thread, or returns the cached result for its content.
+   */
+  public JarScanResult scan(File jar) throws IOException {
+    String sha256 = getSha256(jar);
+    JarScanResult result = readCachedResult(sha256);
+    if (result == null) {
+      result = scanJar(jar, sha256);
+      writeCachedResult(result);
+    }
+    return result;
+  }
+
+  private static JarScanResult waitFor(File jar, Future<JarScanResult> future,
+                                       IProgressMonitor monitor) {
+    while (true) {
+      if (monitor.isCanceled()) {
+        throw new OperationCanceledException();
+      }
+      try {
+        return future.get(CANCELLATION_CHECK_INTERVAL_MILLIS, TimeUnit.MILLISECONDS);
+      } catch (TimeoutException ex) {
+        // check for cancellation and wait again
+      } catch (ExecutionException ex) {
+        logger.log(Level.WARNING, "Cannot scan " + jar, ex.getCause()); //$NON-NLS-1$
+        return null;
+      } catch (InterruptedException ex) {
+        Thread.currentThread().interrupt();
+        throw new OperationCanceledException();
+      }
+    }
+  }
+
+  private String getSha256(File jar) throws IOException {
+    String key = jar.getAbsolutePath();
+    long length = jar.length();
+    long lastModified = jar.lastModified();
+    FileDigest digest = digests.get(key);
+    if (digest == null || digest.length != length || digest.lastModified != lastModified) {
+      digest = new FileDigest(length, lastModified, Files.hash(jar, Hashing.sha256()).toString());
+      digests.put(key, digest);
+    }
+    return digest.sha256;
+  }
+
+  private JarScanResult scanJar(File jar, String sha256) throws IOException {
+    ClassScan scan = new ClassScan(whitelist);
+    byte[] buffer = new byte[16 * 1024];
+    try (ZipFile zipFile = new ZipFile(jar)) {
+      for (Enumeration<? extends ZipEntry> entries = zipFile.entries();
+          entries.hasMoreElements();) {
+        ZipEntry entry = entries.nextElement();
+        if (entry.isDirectory() || !isClassFile(entry.getName())) {
+          continue;
+        }
+        int classFileLength = 0;
+        try (InputStream input = zipFile.getInputStream(entry)) {
+          if (entry.getSize() > buffer.length) {
+            buffer = new byte[(int) entry.getSize()];
+          }
+          int read;
+          while ((read = input.read(buffer, classFileLength, buffer.length - classFileLength)) != -1) {
+            classFileLength += read;
+            if (classFileLength == buffer.length) {
+              byte[] grown = new byte[buffer.length * 2];
+              System.arraycopy(buffer, 0, grown, 0, classFileLength);
+              buffer = grown;
+            }
+          }
+        }
+        scan.scanClass(entry.getName(), buffer, classFileLength);
+      }
+    }
+    return scan.getResult(sha256);
+  }
+
+  private JarScanResult scanClassFolder(File folder) throws IOException {
+    final ClassScan scan = new ClassScan(whitelist);
+    final java.nio.file.Path root = folder.toPath();
+    java.nio.file.Files.walkFileTree(root, new SimpleFileVisitor<java.nio.file.Path>() {
+      @Override
+      public FileVisitResult visitFile(java.nio.file.Path file, BasicFileAttributes attributes)
+          throws IOException {
+        String name = root.relativize(file).toString().replace(File.separatorChar, '/');
+        if (isClassFile(name)) {
+          byte[] bytes = java.nio.file.Files.readAllBytes(file);
+          scan.scanClass(name, bytes, bytes.length);
+        }
+        return FileVisitResult.CONTINUE;
+      }
+    });
+    return scan.getResult(null);
+  }
+
+  private static boolean isClassFile(String name) {
+    return name.endsWith(CLASS_SUFFIX) && !name.endsWith("module-info.class"); //$NON-NLS-1$
+  }
+
+  private static String toClassName(String entryName) {
+    return entryName.substring(0, entryName.length() - CLASS_SUFFIX.length()).replace('/', '.');
+  }
+
+  private JarScanResult readCachedResult(String sha256) {
+    if (cacheDirectory == null) {
+      return null;
+    }
+    File cacheFile = new File(cacheDirectory, sha256);
+    if (!cacheFile.isFile()) {
+      return null;
+    }
+    try (BufferedReader reader = Files.newReader(cacheFile, Charsets.UTF_8)) {
+      if (!CACHE_HEADER.equals(reader.readLine())) {
+        return null;
+      }
+      List<BlacklistedReference> references = new ArrayList<>();
+      String line;
+      while ((line = reader.readLine()) != null) {
+        int separator = line.indexOf(' ');
+        if (separator < 0) {
+          return null;
+        }
+        references.add(new BlacklistedReference(line.substring(0, separator),
+                                                line.substring(separator + 1)));
+      }
+      return new JarScanResult(sha256, references);
+    } catch (IOException ex) {
+      logger.log(Level.WARNING, "Cannot read " + cacheFile, ex); //$NON-NLS-1$
+      return null;
+    }
+  }
+
+  private void writeCachedResult(JarScanResult result) {
+    if (cacheDirectory == null) {
+      return;
+    }
+    try {
+      java.nio.file.Path directory = cacheDirectory.toPath();
+      java.nio.file.Files.createDirectories(directory);
+      // write to a temporary file first, so that concurrent readers never see a partial result
+      java.nio.file.Path temporaryFile =
+          java.nio.file.Files.createTempFile(directory, result.getSha256(), ".tmp"); //$NON-NLS-1$
+      try {
+        try (BufferedWriter writer =
+            java.nio.file.Files.newBufferedWriter(temporaryFile, Charsets.UTF_8)) {
+          writer.write(CACHE_HEADER);
+          writer.newLine();
+          for (BlacklistedReference reference : result.getBlacklistedReferences()) {
+            writer.write(reference.getReferencingClassName());
+            writer.write(' ');
+            writer.write(reference.getBlacklistedClassName());
+            writer.newLine();
+          }
+        }
+        java.nio.file.Files.move(temporaryFile, directory.resolve(result.getSha256()),
+            StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+      } finally {
+        java.nio.file.Files.deleteIfExists(temporaryFile);
+      }
+    } catch (IOException ex) {
+      logger.log(Level.WARNING, "Cannot cache the scan result of " + result.getSha256(), ex); //$NON-NLS-1$
+    }
+  }
+
+  /**
+   * Collects the blacklisted references of the class files of a jar or class folder.
+   */
+  private static class ClassScan {
+    private final AppEngineJreWhitelist whitelist;
+    private final ClassFileReferenceReader reader = new ClassFileReferenceReader();
+    private final Set<BlacklistedReference> references = new TreeSet<>();
+    private final Set<String> classFileNames = new HashSet<>();
+
+    private ClassScan(AppEngineJreWhitelist whitelist) {
+      this.whitelist = whitelist;
+    }
+
+    /**
+     * @param name path of the class file relative to the root of the jar or class folder, with
+     *     <code>/</code> as separator
+     */
+    private void scanClass(final String name, byte[] classFile, int length) {
+      classFileNames.add(name);
+      try {
+        reader.read(classFile, length, new ClassFileReferenceReader.Visitor() {
+          @Override
+          public void visitClassReference(char[] className, int offset, int length) {
+            if (!whitelist.allows(className, offset, length)) {
+              references.add(new BlacklistedReference(toClassName(name),
+                  new String(className, offset, length).replace('/', '.')));
+            }
+          }
+        });
+      } catch (IOException ex) {
+        logger.log(Level.FINE, "Skipping " + name, ex); //$NON-NLS-1$
+      }
+    }
+
+    private JarScanResult getResult(String sha256) {
+      // jars that bundle their own copy of classes in JRE packages (e.g. javax.annotation) use
+      // those copies
+      for (Iterator<BlacklistedReference> iterator = references.iterator(); iterator.hasNext();) {
+        String blacklistedClassName = iterator.next().getBlacklistedClassName();
+        if (classFileNames.contains(blacklistedClassName.replace('.', '/') + CLASS_SUFFIX)) {
+          iterator.remove();
+        }
+      }
+      return new JarScanResult(sha256, references);
+    }
+  }
+
+  private static class FileDigest {
+    private final long length;
+    private final long lastModified;
+    private final String sha256;
+
+    private FileDigest(long length, long lastModified, String sha256) {
+      this.length = length;
+      this.lastModified = lastModified;
+      this.sha256 = sha256;
+    }
+  }
+}
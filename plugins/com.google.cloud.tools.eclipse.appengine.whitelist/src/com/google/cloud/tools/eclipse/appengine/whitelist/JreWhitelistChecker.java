@@ -16,15 +16,341 @@
 
 package com.google.cloud.tools.eclipse.appengine.whitelist;
 
+import com.google.cloud.tools.eclipse.util.FacetedProjectHelper;
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.hash.Hashing;
+import com.google.common.io.ByteStreams;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import org.eclipse.core.resources.IFile;
+import org.eclipse.core.resources.IProject;
+import org.eclipse.core.runtime.CoreException;
+import org.eclipse.core.runtime.IPath;
+import org.eclipse.jdt.core.ICompilationUnit;
 import org.eclipse.jdt.core.IJavaProject;
+import org.eclipse.jdt.core.JavaCore;
+import org.eclipse.jdt.core.compiler.BuildContext;
+import org.eclipse.jdt.core.compiler.CategorizedProblem;
 import org.eclipse.jdt.core.compiler.CompilationParticipant;
+import org.eclipse.jdt.core.dom.AST;
+import org.eclipse.jdt.core.dom.ASTParser;
+import org.eclipse.jdt.core.dom.ASTRequestor;
+import org.eclipse.jdt.core.dom.CompilationUnit;
+import org.eclipse.wst.common.project.facet.core.IFacetedProject;
+import org.eclipse.wst.common.project.facet.core.ProjectFacetsManager;
 
-// see JavaCompilationParticipant.java in old plugin
+/**
+ * Reports references to classes that are not on the {@link AppEngineJreWhitelist} of the runtime
+ * declared in <code>appengine-web.xml</code>, and to unsupported members of whitelisted classes,
+ * in App Engine Standard projects as {@link WhitelistProblem}s.
+ * <p>
+ * Only the compilation units of each build are checked. The types referenced by every compilation
+ * unit are kept in a per-project {@link TypeReferenceIndex}, so files that JDT recompiles without
+ * them having changed (e.g. because a type they depend on changed) are not parsed again. The index
+ * is saved in the working location of the project after each build, so the first build of a new
+ * session only parses the files whose content changed. The runtime declared in
+ * <code>appengine-web.xml</code> is cached per project as well, and only read again when the
+ * modification stamp of the descriptor changes.
+ * <p>
+ * After each build, the jars on the classpath of the project are checked in the background by a
+ * {@link DependencyWhitelistJob}.
+ */
 public class JreWhitelistChecker extends CompilationParticipant {
 
+  private static final Logger logger = Logger.getLogger(JreWhitelistChecker.class.getName());
+
+  // duplicate of AppEngineStandardFacet.ID, the facets bundle is not a dependency of this bundle
+  private static final String APPENGINE_STANDARD_FACET_ID = "com.google.cloud.tools.eclipse.appengine.facets.standard"; //$NON-NLS-1$
+
+  // lets the builds of a burst of saves finish before the dependencies are checked
+  private static final long DEPENDENCY_SCAN_DELAY_MILLIS = 1000;
+
+  private static final String BUNDLE_ID = "com.google.cloud.tools.eclipse.appengine.whitelist"; //$NON-NLS-1$
+  private static final String INDEX_FILE_NAME = "typeReferences.bin"; //$NON-NLS-1$
+
+  private final FacetedProjectHelper facetedProjectHelper;
+  private final Map<String, TypeReferenceIndex> indexes = new HashMap<>();
+  private final Map<String, DependencyWhitelistJob> dependencyJobs = new HashMap<>();
+  private final Map<String, DeclaredRuntime> runtimes = new HashMap<>();
+
+  public JreWhitelistChecker() {
+    this(new FacetedProjectHelper());
+  }
+
+  @VisibleForTesting
+  JreWhitelistChecker(FacetedProjectHelper facetedProjectHelper) {
+    this.facetedProjectHelper = facetedProjectHelper;
+  }
+
   @Override
   public boolean isActive(IJavaProject project) {
-    return false;
+    if (project == null || !ProjectFacetsManager.isProjectFacetDefined(APPENGINE_STANDARD_FACET_ID)) {
+      return false;
+    }
+    try {
+      IFacetedProject facetedProject = facetedProjectHelper.getFacetedProject(project.getProject());
+      return facetedProject != null
+          && facetedProjectHelper.projectHasFacet(facetedProject, APPENGINE_STANDARD_FACET_ID);
+    } catch (CoreException ex) {
+      logger.log(Level.WARNING, "Cannot determine facets of " + project.getElementName(), ex); //$NON-NLS-1$
+      return false;
+    }
+  }
+
+  /**
+   * Keeps the indexed references, which are matched by content hash, so that the full build that
+   * follows a clean (e.g. the first build of a fresh checkout) does not parse unchanged files.
+   */
+  @Override
+  public void cleanStarting(IJavaProject project) {
+    getIndex(project.getProject()).clearModificationStamps();
+  }
+
+  @Override
+  public void buildStarting(BuildContext[] files, boolean isBatch) {
+    if (files.length == 0) {
+      return;
+    }
+    IProject project = files[0].getFile().getProject();
+    AppEngineJreWhitelist whitelist = AppEngineJreWhitelist.forRuntime(getRuntime(project));
+    if (!whitelist.isRestricted()) {
+      return;
+    }
+    TypeReferenceIndex index = getIndex(project);
+    index.setWhitelistVersion(whitelist.getVersion());
+
+    List<BuildContext> changedFiles = new ArrayList<>();
+    Map<IFile, String> contentHashes = new HashMap<>();
+    for (BuildContext context : files) {
+      IFile file = context.getFile();
+      TypeReferences references = index.get(file.getFullPath(), file.getModificationStamp());
+      if (references == null) {
+        // the stamp changes on restore from history, checkout etc. even if the content does not
+        String contentHash = contentHash(file);
+        contentHashes.put(file, contentHash);
+        references = index.get(file.getFullPath(), file.getModificationStamp(), contentHash);
+      }
+      if (references == null) {
+        changedFiles.add(context);
+      } else {
+        reportProblems(context, references, whitelist);
+      }
+    }
+
+    if (!changedFiles.isEmpty()) {
+      Map<IFile, TypeReferences> collected =
+          collectTypeReferences(JavaCore.create(project), changedFiles, index, whitelist);
+      for (BuildContext context : changedFiles) {
+        IFile file = context.getFile();
+        TypeReferences references = collected.get(file);
+        if (references == null) {
+          index.remove(file.getFullPath());
+        } else {
+          index.put(file.getFullPath(), file.getModificationStamp(), contentHashes.get(file),
+                    references);
+          reportProblems(context, references, whitelist);
+        }
+      }
+    }
+
+    if (isBatch) {
+      Set<IPath> compiledFiles = new HashSet<>(files.length);
+      for (BuildContext context : files) {
+        compiledFiles.add(context.getFile().getFullPath());
+      }
+      index.retainAll(compiledFiles);
+    }
+  }
+
+  @Override
+  public void buildFinished(IJavaProject project) {
+    saveIndex(project.getProject());
+    getDependencyJob(project).schedule(DEPENDENCY_SCAN_DELAY_MILLIS);
+  }
+
+  /**
+   * @return the runtime declared in <code>appengine-web.xml</code> of <code>project</code>, only
+   *     parsing the descriptor if it changed since it was last parsed
+   */
+  @VisibleForTesting
+  String getRuntime(IProject project) {
+    IFile appEngineWebXml = AppEngineRuntime.getAppEngineWebXml(project);
+    // NULL_STAMP if the descriptor does not exist
+    long modificationStamp = appEngineWebXml.getModificationStamp();
+    synchronized (runtimes) {
+      DeclaredRuntime cached = runtimes.get(project.getName());
+      if (cached != null && cached.isDeclaredBy(appEngineWebXml.getFullPath(), modificationStamp)) {
+        return cached.runtime;
+      }
+    }
+    String runtime = AppEngineRuntime.fromAppEngineWebXml(appEngineWebXml);
+    synchronized (runtimes) {
+      runtimes.put(project.getName(),
+                   new DeclaredRuntime(appEngineWebXml.getFullPath(), modificationStamp, runtime));
+    }
+    return runtime;
+  }
+
+  private DependencyWhitelistJob getDependencyJob(IJavaProject project) {
+    synchronized (dependencyJobs) {
+      DependencyWhitelistJob job = dependencyJobs.get(project.getElementName());
+      if (job == null) {
+        job = new DependencyWhitelistJob(project);
+        dependencyJobs.put(project.getElementName(), job);
+      }
+      return job;
+    }
+  }
+
+  @VisibleForTesting
+  TypeReferenceIndex getIndex(IProject project) {
+    synchronized (indexes) {
+      TypeReferenceIndex index = indexes.get(project.getName());
+      if (index == null) {
+        index = loadIndex(project);
+        indexes.put(project.getName(), index);
+      }
+      return index;
+    }
+  }
+
+  private static TypeReferenceIndex loadIndex(IProject project) {
+    File indexFile = getIndexFile(project);
+    if (indexFile != null) {
+      try {
+        return TypeReferenceIndex.load(indexFile);
+      } catch (IOException ex) {
+        logger.log(Level.INFO, "Cannot read type reference index " + indexFile, ex); //$NON-NLS-1$
+      }
+    }
+    return new TypeReferenceIndex();
+  }
+
+  private void saveIndex(IProject project) {
+    TypeReferenceIndex index;
+    synchronized (indexes) {
+      index = indexes.get(project.getName());
+    }
+    File indexFile = getIndexFile(project);
+    if (index != null && indexFile != null && index.isModified()) {
+      try {
+        index.save(indexFile);
+      } catch (IOException ex) {
+        logger.log(Level.WARNING, "Cannot save type reference index " + indexFile, ex); //$NON-NLS-1$
+      }
+    }
+  }
+
+  /**
+   * @return the file the index of <code>project</code> is saved in, or <code>null</code> if the
+   *     project has no working location (e.g. because it is not open)
+   */
+  private static File getIndexFile(IProject project) {
+    IPath workingLocation = project.getWorkingLocation(BUNDLE_ID);
+    return workingLocation == null ? null : workingLocation.append(INDEX_FILE_NAME).toFile();
+  }
+
+  /**
+   * @return a hash of the content of <code>file</code>, or <code>null</code> if it cannot be read
+   */
+  private static String contentHash(IFile file) {
+    try (InputStream input = file.getContents()) {
+      return Hashing.sha1().hashBytes(ByteStreams.toByteArray(input)).toString();
+    } catch (CoreException | IOException ex) {
+      logger.log(Level.FINE, "Cannot read " + file.getFullPath(), ex); //$NON-NLS-1$
+      return null;
+    }
+  }
+
+  /**
+   * Parses the compilation units of <code>files</code> in a single batch, so that the binding
+   * environment is shared between them.
+   */
+  private Map<IFile, TypeReferences> collectTypeReferences(
+      IJavaProject javaProject, List<BuildContext> files, final TypeReferenceIndex index,
+      final AppEngineJreWhitelist whitelist) {
+    List<ICompilationUnit> compilationUnits = new ArrayList<>(files.size());
+    for (BuildContext context : files) {
+      ICompilationUnit compilationUnit = JavaCore.createCompilationUnitFrom(context.getFile());
+      if (compilationUnit != null) {
+        compilationUnits.add(compilationUnit);
+      }
+    }
+
+    final Map<IFile, TypeReferences> references = new HashMap<>(compilationUnits.size());
+    createASTs(javaProject,
+               compilationUnits.toArray(new ICompilationUnit[compilationUnits.size()]),
+               new ASTRequestor() {
+                 @Override
+                 public void acceptAST(ICompilationUnit source, CompilationUnit ast) {
+                   TypeReferenceCollector collector = new TypeReferenceCollector(ast, index, whitelist);
+                   ast.accept(collector);
+                   references.put((IFile) source.getResource(), collector.getReferences());
+                 }
+               });
+    return references;
+  }
+
+  /**
+   * Parses <code>compilationUnits</code> with resolved bindings and passes their ASTs to
+   * <code>requestor</code>. Tests override this to count the files parsed by a build.
+   */
+  @VisibleForTesting
+  void createASTs(IJavaProject javaProject, ICompilationUnit[] compilationUnits,
+                  ASTRequestor requestor) {
+    ASTParser parser = ASTParser.newParser(AST.JLS8);
+    parser.setProject(javaProject);
+    parser.setResolveBindings(true);
+    parser.createASTs(compilationUnits, new String[0], requestor, null);
+  }
+
+  private static void reportProblems(BuildContext context, TypeReferences references,
+                                     AppEngineJreWhitelist whitelist) {
+    List<CategorizedProblem> problems = null;
+    for (int i = 0; i < references.size(); i++) {
+      String typeName = references.getTypeName(i);
+      String memberName = references.getMemberName(i);
+      boolean allowed = memberName == null
+          ? whitelist.allows(typeName) : whitelist.allowsMember(typeName, memberName);
+      if (!allowed) {
+        if (problems == null) {
+          problems = new ArrayList<>();
+        }
+        problems.add(new WhitelistProblem(typeName, memberName,
+                                          context.getFile().getFullPath().toString().toCharArray(),
+                                          references.getSourceStart(i),
+                                          references.getSourceEnd(i),
+                                          references.getLineNumber(i)));
+      }
+    }
+    if (problems != null) {
+      context.recordNewProblems(problems.toArray(new CategorizedProblem[problems.size()]));
+    }
+  }
+
+  /** The runtime declared by a version of <code>appengine-web.xml</code>. */
+  private static class DeclaredRuntime {
+    private final IPath descriptor;
+    private final long modificationStamp;
+    private final String runtime;
+
+    private DeclaredRuntime(IPath descriptor, long modificationStamp, String runtime) {
+      this.descriptor = descriptor;
+      this.modificationStamp = modificationStamp;
+      this.runtime = runtime;
+    }
+
+    private boolean isDeclaredBy(IPath descriptor, long modificationStamp) {
+      return this.descriptor.equals(descriptor) && this.modificationStamp == modificationStamp;
+    }
   }
-  
 }
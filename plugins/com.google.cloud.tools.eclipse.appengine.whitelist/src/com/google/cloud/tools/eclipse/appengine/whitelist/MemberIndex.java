@@ -0,0 +1,192 @@
+/*
+ * Copyright 2016 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.cloud.tools.eclipse.appengine.whitelist;
+
+import com.google.common.base.Preconditions;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.TreeSet;
+
+/**
+ * An immutable sorted set of class members, each identified by a key of the form
+ * <code>java.lang.Runtime#exec</code>, i.e. the binary name of the declaring class and the name of
+ * the member separated by <code>#</code>. Constructors are named <code>&lt;init&gt;</code>.
+ * Overloads are not distinguished.
+ * <p>
+ * The keys are front coded in buckets of {@value #BUCKET_SIZE}: every key is stored as the length
+ * of the prefix it shares with the previous key in its bucket and the remaining characters, all in
+ * a single <code>char[]</code>. Only the first key of each bucket is stored in full, so that the
+ * buckets can be binary searched. Lookups compare the query with the encoded keys directly and do
+ * not allocate.
+ */
+final class MemberIndex {
+
+  static final char SEPARATOR = '#';
+
+  private static final int BUCKET_SIZE = 16;
+
+  // per key: shared prefix length, suffix length, suffix characters
+  private final char[] data;
+  // offset in data of the first key of each bucket
+  private final int[] buckets;
+  private final int size;
+  private final ClassNameSet declaringClasses;
+
+  MemberIndex(Collection<String> keys) {
+    TreeSet<String> sortedKeys = new TreeSet<>();
+    List<String> classNames = new ArrayList<>();
+    for (String key : keys) {
+      int separator = key.indexOf(SEPARATOR);
+      Preconditions.checkArgument(separator > 0 && separator < key.length() - 1,
+          "invalid member key %s", key);
+      sortedKeys.add(key.replace('/', '.'));
+      classNames.add(key.substring(0, separator));
+    }
+    declaringClasses = new ClassNameSet(classNames);
+
+    StringBuilder encoded = new StringBuilder();
+    List<Integer> bucketOffsets = new ArrayList<>();
+    String previous = ""; //$NON-NLS-1$
+    int count = 0;
+    for (String key : sortedKeys) {
+      Preconditions.checkArgument(key.length() <= Character.MAX_VALUE, "key too long");
+      int shared = 0;
+      if (count % BUCKET_SIZE == 0) {
+        bucketOffsets.add(encoded.length());
+      } else {
+        int limit = Math.min(previous.length(), key.length());
+        while (shared < limit && previous.charAt(shared) == key.charAt(shared)) {
+          shared++;
+        }
+      }
+      encoded.append((char) shared).append((char) (key.length() - shared))
+          .append(key, shared, key.length());
+      previous = key;
+      count++;
+    }
+
+    data = new char[encoded.length()];
+    encoded.getChars(0, encoded.length(), data, 0);
+    buckets = new int[bucketOffsets.size()];
+    for (int i = 0; i < buckets.length; i++) {
+      buckets[i] = bucketOffsets.get(i);
+    }
+    size = count;
+  }
+
+  int size() {
+    return size;
+  }
+
+  /**
+   * @return true if the index holds any member of <code>className</code>, so that references to
+   *     the members of other classes need not be looked up or recorded
+   */
+  boolean containsMembersOf(String className) {
+    return declaringClasses.contains(className);
+  }
+
+  /**
+   * @param className binary name of the declaring class, using either <code>.</code> or
+   *     <code>/</code> as the package separator
+   * @param memberName name of the field or method, <code>&lt;init&gt;</code> for constructors
+   */
+  boolean contains(String className, String memberName) {
+    int queryLength = className.length() + 1 + memberName.length();
+
+    // the last bucket whose first key is less than or equal to the query
+    int low = 0;
+    int high = buckets.length - 1;
+    int bucket = -1;
+    while (low <= high) {
+      int middle = (low + high) >>> 1;
+      int offset = buckets[middle];
+      int comparison =
+          compare(className, memberName, queryLength, data, offset + 2, data[offset + 1]);
+      if (comparison == 0) {
+        return true;
+      } else if (comparison > 0) {
+        bucket = middle;
+        low = middle + 1;
+      } else {
+        high = middle - 1;
+      }
+    }
+    if (bucket < 0) {
+      return false;
+    }
+
+    int end = bucket + 1 < buckets.length ? buckets[bucket + 1] : data.length;
+    // length of the prefix shared by the query and the previous key, which is less than the query
+    int commonLength = 0;
+    for (int offset = buckets[bucket]; offset < end; ) {
+      int shared = data[offset];
+      int suffixLength = data[offset + 1];
+      int suffixStart = offset + 2;
+      offset = suffixStart + suffixLength;
+
+      if (shared > commonLength) {
+        // differs from the query where the previous key does, so it is less than the query too
+        continue;
+      } else if (shared < commonLength) {
+        // greater than the previous key where that one equals the query
+        return false;
+      }
+      int keyLength = shared + suffixLength;
+      int i = commonLength;
+      while (i < queryLength && i < keyLength
+          && queryChar(className, memberName, i) == data[suffixStart + i - shared]) {
+        i++;
+      }
+      if (i == queryLength) {
+        return i == keyLength;
+      } else if (i < keyLength
+          && data[suffixStart + i - shared] > queryChar(className, memberName, i)) {
+        return false;
+      }
+      commonLength = i;
+    }
+    return false;
+  }
+
+  /**
+   * Compares the query with the key of <code>length</code> characters at
+   * <code>keyStart</code>.
+   */
+  private static int compare(String className, String memberName, int queryLength, char[] key,
+                             int keyStart, int length) {
+    int limit = Math.min(queryLength, length);
+    for (int i = 0; i < limit; i++) {
+      char c = queryChar(className, memberName, i);
+      if (c != key[keyStart + i]) {
+        return c - key[keyStart + i];
+      }
+    }
+    return queryLength - length;
+  }
+
+  private static char queryChar(String className, String memberName, int index) {
+    int classNameLength = className.length();
+    if (index < classNameLength) {
+      return PackagePrefixTrie.normalize(className.charAt(index));
+    } else if (index == classNameLength) {
+      return SEPARATOR;
+    }
+    return memberName.charAt(index - classNameLength - 1);
+  }
+}
@@ -0,0 +1,145 @@
+/*
+ * Copyright 2016 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.cloud.tools.eclipse.appengine.whitelist;
+
+import com.google.common.base.Preconditions;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.TreeSet;
+
+/**
+ * An immutable set of package prefixes (e.g. <code>java.</code> or <code>javax.swing.</code>)
+ * compiled into a character trie, so that testing whether a class name starts with any of them
+ * takes a single pass over the name and does not allocate.
+ * <p>
+ * Both <code>.</code> and <code>/</code> are accepted as package separators in the class names
+ * being tested, so that names from class files can be checked without converting them first.
+ */
+final class PackagePrefixTrie {
+
+  // node n has the children at indices [firstChild[n], firstChild[n + 1]) of labels and targets,
+  // sorted by label
+  private final int[] firstChild;
+  private final char[] labels;
+  private final int[] targets;
+  private final boolean[] terminal;
+
+  PackagePrefixTrie(Collection<String> prefixes) {
+    List<Node> nodes = new ArrayList<>();
+    nodes.add(new Node());
+    for (String prefix : new TreeSet<>(prefixes)) {
+      Preconditions.checkArgument(!prefix.isEmpty(), "prefix is empty");
+      int current = 0;
+      for (int i = 0; i < prefix.length(); i++) {
+        char label = normalize(prefix.charAt(i));
+        Node node = nodes.get(current);
+        Integer child = node.children.get(label);
+        if (child == null) {
+          child = nodes.size();
+          nodes.add(new Node());
+          node.children.put(label, child);
+        }
+        current = child;
+      }
+      nodes.get(current).terminal = true;
+    }
+
+    firstChild = new int[nodes.size() + 1];
+    terminal = new boolean[nodes.size()];
+    int edgeCount = 0;
+    for (Node node : nodes) {
+      edgeCount += node.children.size();
+    }
+    labels = new char[edgeCount];
+    targets = new int[edgeCount];
+    int edge = 0;
+    for (int n = 0; n < nodes.size(); n++) {
+      Node node = nodes.get(n);
+      firstChild[n] = edge;
+      terminal[n] = node.terminal;
+      for (Map.Entry<Character, Integer> child : node.children.entrySet()) {
+        labels[edge] = child.getKey();
+        targets[edge] = child.getValue();
+        edge++;
+      }
+    }
+    firstChild[nodes.size()] = edge;
+  }
+
+  /**
+   * @return true if <code>className</code> starts with one of the prefixes of this trie
+   */
+  boolean matchesPrefixOf(String className) {
+    int node = 0;
+    for (int i = 0; i < className.length(); i++) {
+      node = child(node, normalize(className.charAt(i)));
+      if (node < 0) {
+        return false;
+      } else if (terminal[node]) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  /**
+   * @return true if the class name stored in <code>className[offset, offset + length)</code>
+   *     starts with one of the prefixes of this trie
+   */
+  boolean matchesPrefixOf(char[] className, int offset, int length) {
+    int node = 0;
+    for (int i = offset; i < offset + length; i++) {
+      node = child(node, normalize(className[i]));
+      if (node < 0) {
+        return false;
+      } else if (terminal[node]) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  private int child(int node, char label) {
+    int low = firstChild[node];
+    int high = firstChild[node + 1] - 1;
+    while (low <= high) {
+      int middle = (low + high) >>> 1;
+      char middleLabel = labels[middle];
+      if (middleLabel < label) {
+        low = middle + 1;
+      } else if (middleLabel > label) {
+        high = middle - 1;
+      } else {
+        return targets[middle];
+      }
+    }
+    return -1;
+  }
+
+  static char normalize(char c) {
+    return c == '/' ? '.' : c;
+  }
+
+  private static final class Node {
+    private final SortedMap<Character, Integer> children = new TreeMap<>();
+    private boolean terminal;
+  }
+}
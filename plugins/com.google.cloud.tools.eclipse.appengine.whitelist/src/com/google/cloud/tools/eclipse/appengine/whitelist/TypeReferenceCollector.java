@@ -0,0 +1,121 @@
+/*
+ * Copyright 2016 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.cloud.tools.eclipse.appengine.whitelist;
+
+import org.eclipse.jdt.core.dom.ASTVisitor;
+import org.eclipse.jdt.core.dom.ClassInstanceCreation;
+import org.eclipse.jdt.core.dom.CompilationUnit;
+import org.eclipse.jdt.core.dom.IBinding;
+import org.eclipse.jdt.core.dom.IMethodBinding;
+import org.eclipse.jdt.core.dom.ITypeBinding;
+import org.eclipse.jdt.core.dom.IVariableBinding;
+import org.eclipse.jdt.core.dom.SimpleName;
+
+/**
+ * Collects the binary names of all binary (i.e. not declared in source) types referenced by name
+ * in a compilation unit. The AST must have been created with bindings resolved.
+ * <p>
+ * References to the methods, fields and constructors of binary types are collected too, but only
+ * for the types the whitelist {@link AppEngineJreWhitelist#restrictsMembersOf restricts members
+ * of}, so the index does not grow with every method call.
+ */
+class TypeReferenceCollector extends ASTVisitor {
+
+  private static final String CONSTRUCTOR_NAME = "<init>"; //$NON-NLS-1$
+
+  private final CompilationUnit compilationUnit;
+  private final TypeReferenceIndex index;
+  private final AppEngineJreWhitelist whitelist;
+  private final TypeReferences.Builder references = new TypeReferences.Builder();
+
+  TypeReferenceCollector(CompilationUnit compilationUnit, TypeReferenceIndex index,
+                         AppEngineJreWhitelist whitelist) {
+    this.compilationUnit = compilationUnit;
+    this.index = index;
+    this.whitelist = whitelist;
+  }
+
+  TypeReferences getReferences() {
+    return references.build();
+  }
+
+  @Override
+  public boolean visit(SimpleName node) {
+    IBinding binding = node.resolveBinding();
+    if (binding == null) {
+      return false;
+    }
+    switch (binding.getKind()) {
+      case IBinding.TYPE:
+        record((ITypeBinding) binding, null, node.getStartPosition(), node.getLength());
+        break;
+      case IBinding.METHOD:
+        IMethodBinding method = ((IMethodBinding) binding).getMethodDeclaration();
+        if (!method.isConstructor()) {
+          record(method.getDeclaringClass(), method.getName(), node.getStartPosition(),
+                 node.getLength());
+        }
+        break;
+      case IBinding.VARIABLE:
+        IVariableBinding variable = ((IVariableBinding) binding).getVariableDeclaration();
+        // the declaring class of the length field of arrays is null
+        if (variable.isField() && variable.getDeclaringClass() != null) {
+          record(variable.getDeclaringClass(), variable.getName(), node.getStartPosition(),
+                 node.getLength());
+        }
+        break;
+      default:
+        break;
+    }
+    return false;
+  }
+
+  @Override
+  public boolean visit(ClassInstanceCreation node) {
+    IMethodBinding constructor = node.resolveConstructorBinding();
+    if (constructor != null) {
+      record(constructor.getMethodDeclaration().getDeclaringClass(), CONSTRUCTOR_NAME,
+             node.getType().getStartPosition(), node.getType().getLength());
+    }
+    return true;
+  }
+
+  /**
+   * @param memberName the name of the referenced member of <code>type</code>, or
+   *     <code>null</code> for a reference to the type itself
+   */
+  private void record(ITypeBinding type, String memberName, int start, int length) {
+    if (type == null) {
+      return;
+    }
+    if (type.isArray()) {
+      type = type.getElementType();
+    }
+    if (type.isPrimitive() || type.isTypeVariable() || type.isWildcardType() || type.isCapture()
+        || type.isFromSource()) {
+      return;
+    }
+    String binaryName = type.getErasure().getBinaryName();
+    if (binaryName == null
+        || (memberName != null && !whitelist.restrictsMembersOf(binaryName))) {
+      return;
+    }
+    references.add(index.internTypeName(binaryName),
+                   memberName == null ? null : index.internTypeName(memberName),
+                   start, start + length - 1, compilationUnit.getLineNumber(start));
+  }
+}
@@ -0,0 +1,331 @@
+/*
+ * Copyright 2016 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.cloud.tools.eclipse.appengine.whitelist;
+
+import com.google.common.base.Preconditions;
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import org.eclipse.core.runtime.IPath;
+import org.eclipse.core.runtime.Path;
+
+/**
+ * Per-project index of the types referenced by each compilation unit. An entry is valid for the
+ * modification stamp of the file it was computed from, and for any file with the same content
+ * hash, so that an incremental build has to re-parse only the files that actually changed since
+ * they were last indexed.
+ * <p>
+ * The index can be {@link #save saved} and {@link #load loaded}, so that the first build after a
+ * restart, or on a fresh checkout of the same sources, does not have to parse unchanged files
+ * again. Modification stamps do not survive a checkout, which is why entries are also matched by
+ * content hash.
+ * <p>
+ * Which member references are recorded depends on the whitelist, so all entries are dropped when
+ * the index is used with a different whitelist version.
+ * <p>
+ * Type names are interned per index, since the same JRE types are referenced from most files.
+ */
+class TypeReferenceIndex {
+
+  private static final int MAGIC = 0x54524958; // TRIX
+  private static final int FORMAT_VERSION = 1;
+  // same as IResource.NULL_STAMP, which is never the stamp of an existing file
+  private static final long NO_MODIFICATION_STAMP = -1;
+
+  private final Map<IPath, Entry> entries = new HashMap<>();
+  private final Map<String, String> typeNames = new HashMap<>();
+  private String whitelistVersion;
+  // whether the index changed since it was last saved or loaded
+  private boolean modified;
+
+  /**
+   * Drops all entries if they were computed for a different whitelist version.
+   */
+  synchronized void setWhitelistVersion(String version) {
+    if (!version.equals(whitelistVersion)) {
+      clear();
+      whitelistVersion = version;
+      modified = true;
+    }
+  }
+
+  /**
+   * @return the references recorded for <code>file</code>, or <code>null</code> if the file is not
+   *     indexed or was indexed at a different modification stamp
+   */
+  synchronized TypeReferences get(IPath file, long modificationStamp) {
+    Entry entry = entries.get(file);
+    if (entry == null || entry.modificationStamp != modificationStamp) {
+      return null;
+    }
+    return entry.references;
+  }
+
+  /**
+   * Like {@link #get(IPath, long)}, but also accepts an entry recorded at a different
+   * modification stamp if it was computed from the same content. Such an entry is updated to
+   * <code>modificationStamp</code>.
+   *
+   * @param contentHash the hash of the current content of <code>file</code>, or
+   *     <code>null</code> if it is not known
+   */
+  synchronized TypeReferences get(IPath file, long modificationStamp, String contentHash) {
+    Entry entry = entries.get(file);
+    if (entry == null) {
+      return null;
+    } else if (entry.modificationStamp == modificationStamp) {
+      return entry.references;
+    } else if (contentHash == null || !contentHash.equals(entry.contentHash)) {
+      return null;
+    }
+    entries.put(file, new Entry(modificationStamp, contentHash, entry.references));
+    modified = true;
+    return entry.references;
+  }
+
+  synchronized void put(IPath file, long modificationStamp, TypeReferences references) {
+    put(file, modificationStamp, null, references);
+  }
+
+  /**
+   * @param contentHash the hash of the content the references were collected from, or
+   *     <code>null</code> if it is not known
+   */
+  synchronized void put(IPath file, long modificationStamp, String contentHash,
+                        TypeReferences references) {
+    Preconditions.checkNotNull(file, "file is null");
+    Preconditions.checkNotNull(references, "references is null");
+    entries.put(file, new Entry(modificationStamp, contentHash, references));
+    modified = true;
+  }
+
+  synchronized void remove(IPath file) {
+    if (entries.remove(file) != null) {
+      modified = true;
+    }
+  }
+
+  /**
+   * Drops the entries of all files that are not in <code>files</code>, e.g. because they were
+   * deleted since the last full build.
+   */
+  synchronized void retainAll(Set<IPath> files) {
+    for (Iterator<IPath> iterator = entries.keySet().iterator(); iterator.hasNext();) {
+      if (!files.contains(iterator.next())) {
+        iterator.remove();
+        modified = true;
+      }
+    }
+  }
+
+  /**
+   * Forgets the modification stamps of all entries, so that every file is matched by its content
+   * hash again. Entries without a content hash are dropped, as nothing can match them any more.
+   */
+  synchronized void clearModificationStamps() {
+    for (Iterator<Map.Entry<IPath, Entry>> iterator = entries.entrySet().iterator();
+        iterator.hasNext();) {
+      Map.Entry<IPath, Entry> mapEntry = iterator.next();
+      Entry entry = mapEntry.getValue();
+      if (entry.contentHash == null) {
+        iterator.remove();
+        modified = true;
+      } else if (entry.modificationStamp != NO_MODIFICATION_STAMP) {
+        mapEntry.setValue(new Entry(NO_MODIFICATION_STAMP, entry.contentHash, entry.references));
+        modified = true;
+      }
+    }
+  }
+
+  synchronized void clear() {
+    if (!entries.isEmpty()) {
+      modified = true;
+    }
+    entries.clear();
+    typeNames.clear();
+  }
+
+  synchronized int size() {
+    return entries.size();
+  }
+
+  /**
+   * @return true if the index changed since it was created, loaded or last saved
+   */
+  synchronized boolean isModified() {
+    return modified;
+  }
+
+  /**
+   * @return a canonical instance of <code>typeName</code>, or of a member name, shared by all
+   *     entries of this index
+   */
+  synchronized String internTypeName(String typeName) {
+    String interned = typeNames.get(typeName);
+    if (interned == null) {
+      typeNames.put(typeName, typeName);
+      interned = typeName;
+    }
+    return interned;
+  }
+
+  /**
+   * Writes the index to <code>file</code>, replacing it atomically so that a crash never leaves
+   * a partially written index behind.
+   */
+  synchronized void save(File file) throws IOException {
+    java.nio.file.Path directory = file.getParentFile().toPath();
+    Files.createDirectories(directory);
+    java.nio.file.Path temporaryFile =
+        Files.createTempFile(directory, file.getName(), ".tmp"); //$NON-NLS-1$
+    try {
+      try (OutputStream output = Files.newOutputStream(temporaryFile)) {
+        write(output);
+      }
+      Files.move(temporaryFile, file.toPath(),
+          StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+      modified = false;
+    } finally {
+      Files.deleteIfExists(temporaryFile);
+    }
+  }
+
+  /**
+   * @return the index saved in <code>file</code>, or an empty index if there is none
+   * @throws IOException if the file cannot be read or was written in a different format
+   */
+  static TypeReferenceIndex load(File file) throws IOException {
+    TypeReferenceIndex index = new TypeReferenceIndex();
+    if (file.isFile()) {
+      try (InputStream input = new FileInputStream(file)) {
+        index.read(input);
+      }
+    }
+    return index;
+  }
+
+  private void write(OutputStream stream) throws IOException {
+    DataOutputStream output = new DataOutputStream(new BufferedOutputStream(stream));
+    output.writeInt(MAGIC);
+    output.writeByte(FORMAT_VERSION);
+    output.writeUTF(whitelistVersion == null ? "" : whitelistVersion); //$NON-NLS-1$
+
+    // type and member names are written once and referred to by their position
+    Map<String, Integer> nameIndexes = new HashMap<>();
+    List<String> names = new ArrayList<>();
+    for (Entry entry : entries.values()) {
+      for (int i = 0; i < entry.references.size(); i++) {
+        addName(entry.references.getTypeName(i), nameIndexes, names);
+        addName(entry.references.getMemberName(i), nameIndexes, names);
+      }
+    }
+    output.writeInt(names.size());
+    for (String name : names) {
+      output.writeUTF(name);
+    }
+
+    output.writeInt(entries.size());
+    for (Map.Entry<IPath, Entry> mapEntry : entries.entrySet()) {
+      Entry entry = mapEntry.getValue();
+      output.writeUTF(mapEntry.getKey().toPortableString());
+      output.writeLong(entry.modificationStamp);
+      output.writeUTF(entry.contentHash == null ? "" : entry.contentHash); //$NON-NLS-1$
+      TypeReferences references = entry.references;
+      output.writeInt(references.size());
+      for (int i = 0; i < references.size(); i++) {
+        output.writeInt(nameIndexes.get(references.getTypeName(i)));
+        String memberName = references.getMemberName(i);
+        output.writeInt(memberName == null ? -1 : nameIndexes.get(memberName));
+        output.writeInt(references.getSourceStart(i));
+        output.writeInt(references.getSourceEnd(i));
+        output.writeInt(references.getLineNumber(i));
+      }
+    }
+    output.flush();
+  }
+
+  private static void addName(String name, Map<String, Integer> nameIndexes, List<String> names) {
+    if (name != null && !nameIndexes.containsKey(name)) {
+      nameIndexes.put(name, names.size());
+      names.add(name);
+    }
+  }
+
+  private void read(InputStream stream) throws IOException {
+    DataInputStream input = new DataInputStream(new BufferedInputStream(stream));
+    if (input.readInt() != MAGIC || input.readUnsignedByte() != FORMAT_VERSION) {
+      throw new IOException("Unsupported type reference index format"); //$NON-NLS-1$
+    }
+    String version = input.readUTF();
+    whitelistVersion = version.isEmpty() ? null : version;
+
+    String[] names = new String[input.readInt()];
+    for (int i = 0; i < names.length; i++) {
+      names[i] = internTypeName(input.readUTF());
+    }
+
+    int entryCount = input.readInt();
+    for (int i = 0; i < entryCount; i++) {
+      IPath file = Path.fromPortableString(input.readUTF());
+      long modificationStamp = input.readLong();
+      String contentHash = input.readUTF();
+      int referenceCount = input.readInt();
+      TypeReferences.Builder references = new TypeReferences.Builder();
+      for (int j = 0; j < referenceCount; j++) {
+        String typeName = name(names, input.readInt());
+        int memberIndex = input.readInt();
+        String memberName = memberIndex == -1 ? null : name(names, memberIndex);
+        references.add(typeName, memberName, input.readInt(), input.readInt(), input.readInt());
+      }
+      entries.put(file, new Entry(modificationStamp, contentHash.isEmpty() ? null : contentHash,
+                                  references.build()));
+    }
+  }
+
+  private static String name(String[] names, int index) throws IOException {
+    if (index < 0 || index >= names.length) {
+      throw new IOException("Corrupt type reference index"); //$NON-NLS-1$
+    }
+    return names[index];
+  }
+
+  private static final class Entry {
+    private final long modificationStamp;
+    private final String contentHash;
+    private final TypeReferences references;
+
+    private Entry(long modificationStamp, String contentHash, TypeReferences references) {
+      this.modificationStamp = modificationStamp;
+      this.contentHash = contentHash;
+      this.references = references;
+    }
+  }
+}
@@ -0,0 +1,125 @@
+/*
+ * Copyright 2016 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.cloud.tools.eclipse.appengine.whitelist;
+
+import com.google.common.base.Preconditions;
+import java.util.Arrays;
+
+/**
+ * The types and members of types referenced from a single compilation unit, in source order,
+ * together with the location of every reference. Stored as parallel arrays to keep the per-file footprint small,
+ * since an index holds one instance for every source file of a project.
+ */
+final class TypeReferences {
+
+  static final TypeReferences EMPTY = new Builder().build();
+
+  private final String[] typeNames;
+  private final String[] memberNames;
+  private final int[] sourceStarts;
+  private final int[] sourceEnds;
+  private final int[] lineNumbers;
+
+  private TypeReferences(String[] typeNames, String[] memberNames, int[] sourceStarts,
+                         int[] sourceEnds, int[] lineNumbers) {
+    this.typeNames = typeNames;
+    this.memberNames = memberNames;
+    this.sourceStarts = sourceStarts;
+    this.sourceEnds = sourceEnds;
+    this.lineNumbers = lineNumbers;
+  }
+
+  int size() {
+    return typeNames.length;
+  }
+
+  /**
+   * @return the binary name of the referenced type, e.g. <code>java.util.Map$Entry</code>, or of
+   *     the type declaring the referenced member
+   */
+  String getTypeName(int index) {
+    return typeNames[index];
+  }
+
+  /**
+   * @return the name of the referenced field or method, <code>&lt;init&gt;</code> for
+   *     constructors, or <code>null</code> if the reference is to the type itself
+   */
+  String getMemberName(int index) {
+    return memberNames[index];
+  }
+
+  int getSourceStart(int index) {
+    return sourceStarts[index];
+  }
+
+  /**
+   * @return the inclusive end offset of the reference
+   */
+  int getSourceEnd(int index) {
+    return sourceEnds[index];
+  }
+
+  int getLineNumber(int index) {
+    return lineNumbers[index];
+  }
+
+  static class Builder {
+    private String[] typeNames = new String[16];
+    private String[] memberNames = new String[16];
+    private int[] sourceStarts = new int[16];
+    private int[] sourceEnds = new int[16];
+    private int[] lineNumbers = new int[16];
+    private int size;
+
+    Builder add(String typeName, int sourceStart, int sourceEnd, int lineNumber) {
+      return add(typeName, null, sourceStart, sourceEnd, lineNumber);
+    }
+
+    /**
+     * @param memberName the name of the referenced member of <code>typeName</code>, or
+     *     <code>null</code> for a reference to the type itself
+     */
+    Builder add(String typeName, String memberName, int sourceStart, int sourceEnd,
+                int lineNumber) {
+      Preconditions.checkNotNull(typeName, "typeName is null");
+      if (size == typeNames.length) {
+        int capacity = size * 2;
+        typeNames = Arrays.copyOf(typeNames, capacity);
+        memberNames = Arrays.copyOf(memberNames, capacity);
+        sourceStarts = Arrays.copyOf(sourceStarts, capacity);
+        sourceEnds = Arrays.copyOf(sourceEnds, capacity);
+        lineNumbers = Arrays.copyOf(lineNumbers, capacity);
+      }
+      typeNames[size] = typeName;
+      memberNames[size] = memberName;
+      sourceStarts[size] = sourceStart;
+      sourceEnds[size] = sourceEnd;
+      lineNumbers[size] = lineNumber;
+      size++;
+      return this;
+    }
+
+    TypeReferences build() {
+      return new TypeReferences(Arrays.copyOf(typeNames, size),
+                                Arrays.copyOf(memberNames, size),
+                                Arrays.copyOf(sourceStarts, size),
+                                Arrays.copyOf(sourceEnds, size),
+                                Arrays.copyOf(lineNumbers, size));
+    }
+  }
+}
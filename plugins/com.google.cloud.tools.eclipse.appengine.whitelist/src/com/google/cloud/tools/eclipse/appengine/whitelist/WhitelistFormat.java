@@ -0,0 +1,134 @@
+/*
+ * Copyright 2016 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.cloud.tools.eclipse.appengine.whitelist;
+
+import com.google.common.base.Charsets;
+import com.google.common.base.Preconditions;
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.TreeSet;
+
+/**
+ * Reads and writes the whitelist resources bundled with this plugin (e.g. <code>jre7.txt</code>),
+ * which are parsed in a single pass on first use instead of being built by a static initializer
+ * when the bundle is loaded.
+ * <p>
+ * The resources are UTF-8 text with one entry per line, so that changes to a whitelist can be
+ * reviewed as ordinary diffs. Blank lines and lines starting with <code>#</code> are ignored.
+ * <pre>
+ * version jre7-2                  identifies the content of the whitelist, exactly once
+ * package java.                   prefix of the packages whose classes are bundled in the JRE
+ * class java.lang.String          a whitelisted class
+ * member java.lang.Runtime#exec   {@link MemberIndex} key of an unsupported member of a
+ *                                 whitelisted class
+ * </pre>
+ */
+final class WhitelistFormat {
+
+  private static final String COMMENT = "#"; //$NON-NLS-1$
+  private static final String VERSION = "version"; //$NON-NLS-1$
+  private static final String PACKAGE = "package"; //$NON-NLS-1$
+  private static final String CLASS = "class"; //$NON-NLS-1$
+  private static final String MEMBER = "member"; //$NON-NLS-1$
+
+  private WhitelistFormat() {
+  }
+
+  static AppEngineJreWhitelist read(InputStream stream) throws IOException {
+    BufferedReader reader = new BufferedReader(new InputStreamReader(stream, Charsets.UTF_8));
+    String version = null;
+    List<String> jrePackages = new ArrayList<>();
+    List<String> classNames = new ArrayList<>(2048);
+    List<String> unsupportedMembers = new ArrayList<>();
+    int lineNumber = 0;
+    for (String line = reader.readLine(); line != null; line = reader.readLine()) {
+      lineNumber++;
+      line = line.trim();
+      if (line.isEmpty() || line.startsWith(COMMENT)) {
+        continue;
+      }
+      int separator = line.indexOf(' ');
+      if (separator < 0) {
+        throw new IOException("Malformed whitelist entry on line " + lineNumber); //$NON-NLS-1$
+      }
+      String kind = line.substring(0, separator);
+      String value = line.substring(separator + 1).trim();
+      if (VERSION.equals(kind)) {
+        if (version != null) {
+          throw new IOException("Duplicate whitelist version on line " + lineNumber); //$NON-NLS-1$
+        }
+        version = value;
+      } else if (PACKAGE.equals(kind)) {
+        jrePackages.add(value);
+      } else if (CLASS.equals(kind)) {
+        classNames.add(value);
+      } else if (MEMBER.equals(kind)) {
+        unsupportedMembers.add(value);
+      } else {
+        throw new IOException(
+            "Unknown whitelist entry " + kind + " on line " + lineNumber); //$NON-NLS-1$ //$NON-NLS-2$
+      }
+    }
+    if (version == null) {
+      throw new IOException("Not a whitelist resource: no version"); //$NON-NLS-1$
+    }
+    return new AppEngineJreWhitelist(version, jrePackages, classNames, unsupportedMembers);
+  }
+
+  /**
+   * Writes the classes and members in sorted order, and the package prefixes in the given order.
+   *
+   * @param version identifies the content of the whitelist, so that results computed with it can
+   *     be invalidated when it changes
+   * @param jrePackages prefixes of the packages whose classes are bundled in the JRE
+   * @param classNames the whitelisted classes in those packages
+   * @param unsupportedMembers the {@link MemberIndex} keys of the members of whitelisted classes
+   *     that are not supported
+   */
+  static void write(OutputStream stream, String version, Collection<String> jrePackages,
+      Collection<String> classNames, Collection<String> unsupportedMembers) throws IOException {
+    Preconditions.checkNotNull(version, "version is null");
+    Writer writer = new BufferedWriter(new OutputStreamWriter(stream, Charsets.UTF_8));
+    writeEntry(writer, VERSION, version);
+    for (String prefix : jrePackages) {
+      writeEntry(writer, PACKAGE, prefix);
+    }
+    for (String className : new TreeSet<>(classNames)) {
+      writeEntry(writer, CLASS, className);
+    }
+    for (String member : new TreeSet<>(unsupportedMembers)) {
+      writeEntry(writer, MEMBER, member);
+    }
+    writer.flush();
+  }
+
+  private static void writeEntry(Writer writer, String kind, String value) throws IOException {
+    writer.write(kind);
+    writer.write(' ');
+    writer.write(value);
+    writer.write('\n');
+  }
+}
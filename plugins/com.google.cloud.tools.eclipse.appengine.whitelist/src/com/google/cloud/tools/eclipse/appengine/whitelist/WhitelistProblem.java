@@ -0,0 +1,132 @@
+/*
+ * Copyright 2016 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.cloud.tools.eclipse.appengine.whitelist;
+
+import org.eclipse.jdt.core.compiler.CategorizedProblem;
+import org.eclipse.jdt.core.compiler.IProblem;
+import org.eclipse.osgi.util.NLS;
+
+/**
+ * A reference to a class that is not on the App Engine JRE whitelist, or to an unsupported member
+ * of a whitelisted class. Reported by the
+ * {@link JreWhitelistChecker} and persisted by JDT as a {@link #MARKER_TYPE} marker.
+ */
+class WhitelistProblem extends CategorizedProblem {
+
+  static final String MARKER_TYPE = "com.google.cloud.tools.eclipse.appengine.whitelist.blacklistedClass"; //$NON-NLS-1$
+
+  private final String className;
+  private final String memberName;
+  private final char[] originatingFileName;
+  private int sourceStart;
+  private int sourceEnd;
+  private int lineNumber;
+
+  /**
+   * @param memberName the name of the unsupported field or method of <code>className</code>,
+   *     <code>&lt;init&gt;</code> for a constructor, or <code>null</code> if the class itself is
+   *     not supported
+   */
+  WhitelistProblem(String className, String memberName, char[] originatingFileName,
+                   int sourceStart, int sourceEnd, int lineNumber) {
+    this.className = className;
+    this.memberName = memberName;
+    this.originatingFileName = originatingFileName;
+    this.sourceStart = sourceStart;
+    this.sourceEnd = sourceEnd;
+    this.lineNumber = lineNumber;
+  }
+
+  @Override
+  public String[] getArguments() {
+    if (memberName == null) {
+      return new String[] {className};
+    }
+    return new String[] {className, memberName};
+  }
+
+  @Override
+  public int getID() {
+    return IProblem.ExternalProblemNotFixable;
+  }
+
+  @Override
+  public String getMessage() {
+    String displayName = className.replace('$', '.');
+    if (memberName == null) {
+      return NLS.bind(Messages.ClassNotWhitelisted, displayName);
+    } else if ("<init>".equals(memberName)) { //$NON-NLS-1$
+      return NLS.bind(Messages.ConstructorNotWhitelisted, displayName);
+    }
+    return NLS.bind(Messages.MemberNotWhitelisted, displayName, memberName);
+  }
+
+  @Override
+  public char[] getOriginatingFileName() {
+    return originatingFileName;
+  }
+
+  @Override
+  public int getSourceEnd() {
+    return sourceEnd;
+  }
+
+  @Override
+  public int getSourceLineNumber() {
+    return lineNumber;
+  }
+
+  @Override
+  public int getSourceStart() {
+    return sourceStart;
+  }
+
+  @Override
+  public boolean isError() {
+    return true;
+  }
+
+  @Override
+  public boolean isWarning() {
+    return false;
+  }
+
+  @Override
+  public void setSourceEnd(int sourceEnd) {
+    this.sourceEnd = sourceEnd;
+  }
+
+  @Override
+  public void setSourceLineNumber(int lineNumber) {
+    this.lineNumber = lineNumber;
+  }
+
+  @Override
+  public void setSourceStart(int sourceStart) {
+    this.sourceStart = sourceStart;
+  }
+
+  @Override
+  public int getCategoryID() {
+    return CAT_RESTRICTION;
+  }
+
+  @Override
+  public String getMarkerType() {
+    return MARKER_TYPE;
+  }
+}
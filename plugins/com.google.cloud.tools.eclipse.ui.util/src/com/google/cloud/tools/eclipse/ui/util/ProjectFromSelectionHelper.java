@@ -16,6 +16,10 @@
 
 package com.google.cloud.tools.eclipse.ui.util;
 
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
 import org.eclipse.core.commands.ExecutionEvent;
 import org.eclipse.core.commands.ExecutionException;
 import org.eclipse.core.resources.IProject;
@@ -55,4 +59,30 @@ public class ProjectFromSelectionHelper {
     }
     return null;
   }
+
+  /**
+   * @return the selected projects, or an empty list if any of the selected elements is not an App
+   *     Engine Standard project
+   */
+  public List<IProject> getProjects(ExecutionEvent event) throws CoreException, ExecutionException {
+    ISelection selection = HandlerUtil.getCurrentSelectionChecked(event);
+    List<IProject> projects = new ArrayList<>();
+    if (selection instanceof IStructuredSelection) {
+      for (Object element : ((IStructuredSelection) selection).toList()) {
+        IProject project = AdapterUtil.adapt(element, IProject.class);
+        if (project == null) {
+          return Collections.emptyList();
+        }
+
+        IFacetedProject facetedProject = facetedProjectHelper.getFacetedProject(project);
+        if (!AppEngineStandardFacet.hasAppEngineFacet(facetedProject)) {
+          return Collections.emptyList();
+        }
+        if (!projects.contains(project)) {
+          projects.add(project);
+        }
+      }
+    }
+    return projects;
+  }
 }
@@ -0,0 +1,158 @@
+/*
+ * Copyright 2016 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.cloud.tools.eclipse.util;
+
+import static org.hamcrest.CoreMatchers.containsString;
+import static org.hamcrest.CoreMatchers.endsWith;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.assertTrue;
+
+import com.google.cloud.tools.eclipse.util.ArtifactVersionLookup.VersionResolver;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.eclipse.core.runtime.CoreException;
+import org.eclipse.core.runtime.IStatus;
+import org.eclipse.core.runtime.NullProgressMonitor;
+import org.eclipse.core.runtime.OperationCanceledException;
+import org.eclipse.core.runtime.Status;
+import org.eclipse.core.runtime.preferences.ConfigurationScope;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.osgi.service.prefs.BackingStoreException;
+import org.osgi.service.prefs.Preferences;
+
+public class ArtifactVersionLookupTest {
+
+  private static final String KEY = "com.example:artifact:jar";
+
+  private final AtomicInteger resolveCount = new AtomicInteger();
+  private final CountDownLatch resolveAllowed = new CountDownLatch(1);
+  private String resolvedVersion = "2.0";
+  private Preferences cache;
+
+  private final VersionResolver resolver = new VersionResolver() {
+    @Override
+    public String resolveLatestVersion(String groupId, String artifactId, String type)
+        throws CoreException {
+      resolveCount.incrementAndGet();
+      try {
+        resolveAllowed.await(10, TimeUnit.SECONDS);
+      } catch (InterruptedException ex) {
+        Thread.currentThread().interrupt();
+      }
+      if (resolvedVersion == null) {
+        throw new CoreException(new Status(IStatus.ERROR, "test", "unresolvable"));
+      }
+      return resolvedVersion;
+    }
+  };
+
+  @Before
+  public void setUp() {
+    cache = ConfigurationScope.INSTANCE.getNode("com.google.cloud.tools.eclipse.util.test")
+        .node(getClass().getSimpleName());
+  }
+
+  @After
+  public void tearDown() throws BackingStoreException {
+    cache.removeNode();
+  }
+
+  @Test
+  public void testLookup_notCached() throws Exception {
+    ArtifactVersionLookup lookup = new ArtifactVersionLookup(cache, resolver, 1000000);
+    resolveAllowed.countDown();
+
+    Future<String> version = lookup.lookupLatestVersion("com.example", "artifact", "jar", "1.0");
+    assertEquals("2.0", version.get(10, TimeUnit.SECONDS));
+    assertEquals(1, resolveCount.get());
+    assertThat(cache.get(KEY, null), endsWith(" 2.0"));
+  }
+
+  @Test
+  public void testLookup_cached() throws Exception {
+    cache.put(KEY, System.currentTimeMillis() + " 1.5");
+    ArtifactVersionLookup lookup = new ArtifactVersionLookup(cache, resolver, 1000000);
+
+    Future<String> version = lookup.lookupLatestVersion("com.example", "artifact", "jar", "1.0");
+    assertTrue(version.isDone());
+    assertEquals("1.5", version.get());
+    assertEquals(0, resolveCount.get());
+  }
+
+  @Test
+  public void testLookup_expiredIsReturnedAndRefreshed() throws Exception {
+    cache.put(KEY, "0 1.5");
+    ArtifactVersionLookup lookup = new ArtifactVersionLookup(cache, resolver, 1000000);
+
+    Future<String> version = lookup.lookupLatestVersion("com.example", "artifact", "jar", "1.0");
+    assertTrue(version.isDone());
+    assertEquals("1.5", version.get());
+
+    resolveAllowed.countDown();
+    for (int i = 0; i < 100 && cache.get(KEY, "").endsWith(" 1.5"); i++) {
+      Thread.sleep(100);
+    }
+    assertThat(cache.get(KEY, null), endsWith(" 2.0"));
+    assertEquals(1, resolveCount.get());
+  }
+
+  @Test
+  public void testLookup_failureReturnsDefaultVersion() throws Exception {
+    resolvedVersion = null;
+    ArtifactVersionLookup lookup = new ArtifactVersionLookup(cache, resolver, 1000000);
+    resolveAllowed.countDown();
+
+    Future<String> version = lookup.lookupLatestVersion("com.example", "artifact", "jar", "1.0");
+    assertEquals("1.0", version.get(10, TimeUnit.SECONDS));
+    assertNull(cache.get(KEY, null));
+  }
+
+  @Test
+  public void testLookup_concurrentLookupsShareRequest() throws Exception {
+    ArtifactVersionLookup lookup = new ArtifactVersionLookup(cache, resolver, 1000000);
+
+    Future<String> first = lookup.lookupLatestVersion("com.example", "artifact", "jar", "1.0");
+    Future<String> second = lookup.lookupLatestVersion("com.example", "artifact", "jar", "1.0");
+    Future<String> other = lookup.lookupLatestVersion("com.example", "other", "jar", "1.0");
+    resolveAllowed.countDown();
+
+    assertEquals("2.0", first.get(10, TimeUnit.SECONDS));
+    assertEquals("2.0", second.get(10, TimeUnit.SECONDS));
+    assertEquals("2.0", other.get(10, TimeUnit.SECONDS));
+    assertEquals(2, resolveCount.get());
+    assertThat(cache.get("com.example:other:jar", null), containsString("2.0"));
+  }
+
+  @Test(expected = OperationCanceledException.class)
+  public void testWaitFor_canceled() {
+    ArtifactVersionLookup lookup = new ArtifactVersionLookup(cache, resolver, 1000000);
+    Future<String> version = lookup.lookupLatestVersion("com.example", "artifact", "jar", "1.0");
+    NullProgressMonitor monitor = new NullProgressMonitor();
+    monitor.setCanceled(true);
+    try {
+      ArtifactVersionLookup.waitFor(version, monitor);
+    } finally {
+      resolveAllowed.countDown();
+    }
+  }
+}
@@ -0,0 +1,145 @@
+/*
+ * Copyright 2016 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.cloud.tools.eclipse.util.io;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.Random;
+import org.eclipse.core.runtime.NullProgressMonitor;
+import org.eclipse.core.runtime.OperationCanceledException;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class ParallelFileCopierTest {
+
+  @Rule public TemporaryFolder tempFolder = new TemporaryFolder();
+
+  private File source;
+  private File target;
+
+  @Before
+  public void setUp() throws IOException {
+    source = tempFolder.newFolder("source");
+    target = new File(tempFolder.getRoot(), "target");
+  }
+
+  @Test
+  public void testCopyAll_copiesFilesAndCreatesDirectories() throws IOException {
+    File index = createFile("index.html", "<html/>");
+    File webXml = createFile("WEB-INF/web.xml", "<web-app/>");
+
+    ParallelFileCopier copier = new ParallelFileCopier(2, false);
+    copier.copy(index, new File(target, "index.html"));
+    copier.copy(webXml, new File(target, "WEB-INF/web.xml"));
+    copier.createDirectory(new File(target, "WEB-INF/lib"));
+    copier.createDirectory(new File(target, "css"));
+    assertEquals(2, copier.getQueuedCopies());
+    copier.copyAll(new NullProgressMonitor());
+
+    assertEquals("<html/>", readFile(new File(target, "index.html")));
+    assertEquals("<web-app/>", readFile(new File(target, "WEB-INF/web.xml")));
+    assertFalse(Files.isSameFile(index.toPath(), new File(target, "index.html").toPath()));
+    assertTrue(new File(target, "WEB-INF/lib").isDirectory());
+    assertTrue(new File(target, "css").isDirectory());
+    assertEquals(0, copier.getQueuedCopies());
+  }
+
+  @Test
+  public void testCopyAll_copiesLargeFile() throws IOException {
+    byte[] content = new byte[3 * 1024 * 1024 + 17];
+    new Random(42).nextBytes(content);
+    File file = new File(source, "large.jar");
+    Files.write(file.toPath(), content);
+
+    ParallelFileCopier copier = new ParallelFileCopier(2, false);
+    copier.copy(file, new File(target, "large.jar"));
+    copier.copyAll(new NullProgressMonitor());
+
+    assertArrayEquals(content, Files.readAllBytes(new File(target, "large.jar").toPath()));
+  }
+
+  @Test
+  public void testCopyAll_hardLinksOnSameFileStore() throws IOException {
+    File index = createFile("index.html", "<html/>");
+
+    ParallelFileCopier copier = new ParallelFileCopier(2, true);
+    copier.copy(index, new File(target, "index.html"));
+    copier.copyAll(new NullProgressMonitor());
+
+    assertTrue(Files.isSameFile(index.toPath(), new File(target, "index.html").toPath()));
+  }
+
+  @Test
+  public void testCopyAll_replacesHardLinkWithoutChangingItsSource() throws IOException {
+    File index = createFile("index.html", "<html/>");
+    File changed = createFile("changed/index.html", "<html><body/></html>");
+    File copy = new File(target, "index.html");
+    copy.getParentFile().mkdirs();
+    Files.createLink(copy.toPath(), index.toPath());
+
+    ParallelFileCopier copier = new ParallelFileCopier(2, false);
+    copier.copy(changed, copy);
+    copier.copyAll(new NullProgressMonitor());
+
+    assertEquals("<html><body/></html>", readFile(copy));
+    assertEquals("<html/>", readFile(index));
+  }
+
+  @Test
+  public void testCopyAll_reportsFailureAfterOtherCopies() throws IOException {
+    File index = createFile("index.html", "<html/>");
+
+    ParallelFileCopier copier = new ParallelFileCopier(1, false);
+    copier.copy(new File(source, "missing.html"), new File(target, "missing.html"));
+    copier.copy(index, new File(target, "index.html"));
+    try {
+      copier.copyAll(new NullProgressMonitor());
+      fail("missing file copied");
+    } catch (IOException ex) {
+      assertTrue(new File(target, "index.html").isFile());
+    }
+  }
+
+  @Test(expected = OperationCanceledException.class)
+  public void testCopyAll_canceled() throws IOException {
+    ParallelFileCopier copier = new ParallelFileCopier(1, false);
+    copier.copy(createFile("index.html", "<html/>"), new File(target, "index.html"));
+    NullProgressMonitor monitor = new NullProgressMonitor();
+    monitor.setCanceled(true);
+    copier.copyAll(monitor);
+  }
+
+  private File createFile(String path, String content) throws IOException {
+    File file = new File(source, path);
+    file.getParentFile().mkdirs();
+    Files.write(file.toPath(), content.getBytes("UTF-8"));
+    return file;
+  }
+
+  private static String readFile(File file) throws IOException {
+    return new String(Files.readAllBytes(file.toPath()), "UTF-8");
+  }
+}
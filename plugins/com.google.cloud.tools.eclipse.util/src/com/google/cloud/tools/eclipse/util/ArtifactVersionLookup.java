@@ -0,0 +1,217 @@
+/*
+ * Copyright 2016 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.cloud.tools.eclipse.util;
+
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.util.concurrent.Futures;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import java.text.MessageFormat;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import org.eclipse.core.runtime.CoreException;
+import org.eclipse.core.runtime.IProgressMonitor;
+import org.eclipse.core.runtime.OperationCanceledException;
+import org.eclipse.core.runtime.preferences.ConfigurationScope;
+import org.osgi.service.prefs.BackingStoreException;
+import org.osgi.service.prefs.Preferences;
+
+/**
+ * Looks up the latest released versions of Maven artifacts, as
+ * {@link MavenUtils#resolveLatestReleasedArtifactVersion(IProgressMonitor, String, String, String, String)}
+ * does, without making callers wait for the remote repository every time.
+ * <p>
+ * Lookups run concurrently on a bounded number of threads, so that callers can start all the
+ * lookups they need before waiting for the first one. Looked up versions are kept in the
+ * configuration scope, so that they are shared by all workspaces, and are returned right away
+ * by later lookups. A version older than the time to live is still returned right away, and
+ * looked up again in the background for the next caller.
+ */
+public class ArtifactVersionLookup {
+
+  private static final Logger logger = Logger.getLogger(ArtifactVersionLookup.class.getName());
+
+  private static final String BUNDLE_ID = "com.google.cloud.tools.eclipse.util"; //$NON-NLS-1$
+  private static final String CACHE_NODE = "latestArtifactVersions"; //$NON-NLS-1$
+  private static final long TIME_TO_LIVE_MILLIS = TimeUnit.DAYS.toMillis(1);
+  private static final int MAXIMUM_CONCURRENT_LOOKUPS = 4;
+  private static final long CANCELLATION_CHECK_INTERVAL_MILLIS = 100;
+
+  private static ArtifactVersionLookup defaultLookup;
+
+  /**
+   * Looks up the latest released version of an artifact in the remote repository.
+   */
+  @VisibleForTesting
+  interface VersionResolver {
+    String resolveLatestVersion(String groupId, String artifactId, String type)
+        throws CoreException;
+  }
+
+  private final Preferences cache;
+  private final VersionResolver resolver;
+  private final long timeToLiveMillis;
+  private final ExecutorService executor = Executors.newFixedThreadPool(MAXIMUM_CONCURRENT_LOOKUPS,
+      new ThreadFactoryBuilder().setDaemon(true).setNameFormat("artifact-version-lookup-%d").build()); //$NON-NLS-1$
+  // lookups in progress, so that concurrent lookups of the same artifact share one request
+  private final Map<String, Future<String>> pendingLookups = new HashMap<>();
+
+  @VisibleForTesting
+  ArtifactVersionLookup(Preferences cache, VersionResolver resolver, long timeToLiveMillis) {
+    this.cache = cache;
+    this.resolver = resolver;
+    this.timeToLiveMillis = timeToLiveMillis;
+  }
+
+  public static synchronized ArtifactVersionLookup getDefault() {
+    if (defaultLookup == null) {
+      Preferences cache = ConfigurationScope.INSTANCE.getNode(BUNDLE_ID).node(CACHE_NODE);
+      defaultLookup = new ArtifactVersionLookup(cache, new VersionResolver() {
+        @Override
+        public String resolveLatestVersion(String groupId, String artifactId, String type)
+            throws CoreException {
+          return MavenUtils.resolveArtifact(null, groupId, artifactId, type, "LATEST") //$NON-NLS-1$
+              .getVersion();
+        }
+      }, TIME_TO_LIVE_MILLIS);
+    }
+    return defaultLookup;
+  }
+
+  /**
+   * Starts looking up the latest released version of an artifact, unless it is known already.
+   *
+   * @param defaultVersion the version to return if the version is not known and cannot be looked
+   *     up
+   * @return the latest released version, which is available right away if the version was
+   *     looked up before
+   */
+  public Future<String> lookupLatestVersion(final String groupId, final String artifactId,
+                                            final String type, final String defaultVersion) {
+    final String key = groupId + ':' + artifactId + ':' + type;
+    CachedVersion cachedVersion = CachedVersion.parse(cache.get(key, null));
+    if (cachedVersion != null) {
+      if (System.currentTimeMillis() - cachedVersion.timestamp >= timeToLiveMillis) {
+        lookup(key, groupId, artifactId, type, defaultVersion);
+      }
+      return Futures.immediateFuture(cachedVersion.version);
+    }
+    return lookup(key, groupId, artifactId, type, defaultVersion);
+  }
+
+  private Future<String> lookup(final String key, final String groupId, final String artifactId,
+                                final String type, final String defaultVersion) {
+    synchronized (pendingLookups) {
+      Future<String> pending = pendingLookups.get(key);
+      if (pending != null) {
+        return pending;
+      }
+      Future<String> lookup = executor.submit(new Callable<String>() {
+        @Override
+        public String call() {
+          try {
+            String version = resolver.resolveLatestVersion(groupId, artifactId, type);
+            cache.put(key, new CachedVersion(version, System.currentTimeMillis()).toString());
+            flush();
+            return version;
+          } catch (CoreException ex) {
+            logger.log(Level.WARNING, MessageFormat.format(
+                "Unable to resolve artifact {0}:{1}", groupId, artifactId), ex); //$NON-NLS-1$
+            return defaultVersion;
+          } finally {
+            synchronized (pendingLookups) {
+              pendingLookups.remove(key);
+            }
+          }
+        }
+      });
+      pendingLookups.put(key, lookup);
+      return lookup;
+    }
+  }
+
+  private void flush() {
+    try {
+      cache.flush();
+    } catch (BackingStoreException ex) {
+      logger.log(Level.WARNING, "Cannot save artifact versions", ex); //$NON-NLS-1$
+    }
+  }
+
+  /**
+   * Waits for a version returned by {@link #lookupLatestVersion(String, String, String, String)}.
+   *
+   * @throws OperationCanceledException if <code>monitor</code> is canceled while waiting
+   */
+  public static String waitFor(Future<String> version, IProgressMonitor monitor) {
+    while (true) {
+      if (monitor != null && monitor.isCanceled()) {
+        throw new OperationCanceledException();
+      }
+      try {
+        return version.get(CANCELLATION_CHECK_INTERVAL_MILLIS, TimeUnit.MILLISECONDS);
+      } catch (TimeoutException ex) {
+        // check for cancellation and wait again
+      } catch (ExecutionException ex) {
+        // lookups return the default version instead of failing
+        throw new IllegalStateException(ex.getCause());
+      } catch (InterruptedException ex) {
+        Thread.currentThread().interrupt();
+        throw new OperationCanceledException();
+      }
+    }
+  }
+
+  /**
+   * A version and the time it was looked up, stored as <code>&lt;time&gt; &lt;version&gt;</code>.
+   */
+  private static class CachedVersion {
+    private final String version;
+    private final long timestamp;
+
+    private CachedVersion(String version, long timestamp) {
+      this.version = version;
+      this.timestamp = timestamp;
+    }
+
+    private static CachedVersion parse(String value) {
+      if (value == null) {
+        return null;
+      }
+      int separator = value.indexOf(' ');
+      try {
+        return separator < 0 ? null : new CachedVersion(value.substring(separator + 1),
+                                                        Long.parseLong(value.substring(0, separator)));
+      } catch (NumberFormatException ex) {
+        return null;
+      }
+    }
+
+    @Override
+    public String toString() {
+      return timestamp + " " + version; //$NON-NLS-1$
+    }
+  }
+}
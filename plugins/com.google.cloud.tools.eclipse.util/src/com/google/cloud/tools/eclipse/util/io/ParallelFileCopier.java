@@ -0,0 +1,252 @@
+/*
+ * Copyright 2016 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.cloud.tools.eclipse.util.io;
+
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import java.io.File;
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.FileStore;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import org.eclipse.core.runtime.IProgressMonitor;
+import org.eclipse.core.runtime.OperationCanceledException;
+import org.eclipse.core.runtime.SubMonitor;
+
+/**
+ * Copies many files at once, e.g. to publish a web application to a directory.
+ * <p>
+ * Copying thousands of small files one after the other is dominated by the latency of each file
+ * system operation, so the queued copies run on a bounded number of threads. The directories that
+ * the copies need are created first, in one batch, so that no copy has to check for its parent
+ * directory. A file is hard linked to its copy when both are on the same file store, and
+ * otherwise copied with {@link FileChannel#transferTo(long, long, java.nio.channels.WritableByteChannel)}
+ * so that its content does not pass through the Java heap.
+ * <p>
+ * An existing target file is always deleted before it is replaced, and never written to, as it
+ * may be a hard link to a source file.
+ * <p>
+ * Each instance copies the files queued since it was created, or since the last call to
+ * {@link #copyAll(IProgressMonitor)}.
+ */
+public class ParallelFileCopier {
+
+  private static final Logger logger = Logger.getLogger(ParallelFileCopier.class.getName());
+
+  private static final int MAXIMUM_CONCURRENT_COPIES =
+      Math.max(2, Math.min(8, Runtime.getRuntime().availableProcessors()));
+  private static final long CANCELLATION_CHECK_INTERVAL_MILLIS = 100;
+
+  private final int maximumConcurrentCopies;
+  private final boolean useHardLinks;
+  private final List<Path[]> copies = new ArrayList<>();
+  private final TreeSet<Path> directories = new TreeSet<>();
+  // file stores by directory, so that each directory is only looked up once
+  private final Map<Path, FileStore> fileStores = new ConcurrentHashMap<>();
+  // set once a hard link fails, e.g. because the file system does not support them
+  private volatile boolean hardLinksFailed;
+
+  /**
+   * @param useHardLinks whether files on the same file store as their copies may be hard linked
+   *     instead of copied; only appropriate if the copies are not modified in place
+   */
+  public ParallelFileCopier(boolean useHardLinks) {
+    this(MAXIMUM_CONCURRENT_COPIES, useHardLinks);
+  }
+
+  @VisibleForTesting
+  ParallelFileCopier(int maximumConcurrentCopies, boolean useHardLinks) {
+    this.maximumConcurrentCopies = maximumConcurrentCopies;
+    this.useHardLinks = useHardLinks;
+  }
+
+  /**
+   * Queues copying <code>source</code> to <code>target</code>, replacing <code>target</code> if
+   * it exists.
+   */
+  public void copy(File source, File target) {
+    Path targetPath = target.toPath().toAbsolutePath();
+    copies.add(new Path[] {source.toPath().toAbsolutePath(), targetPath});
+    directories.add(targetPath.getParent());
+  }
+
+  /**
+   * Queues creating <code>directory</code>, e.g. for an empty folder of a web application.
+   */
+  public void createDirectory(File directory) {
+    directories.add(directory.toPath().toAbsolutePath());
+  }
+
+  /**
+   * @return the number of queued copies
+   */
+  public int getQueuedCopies() {
+    return copies.size();
+  }
+
+  /**
+   * Creates the queued directories, then runs the queued copies and waits for them to finish.
+   *
+   * @throws IOException the first copy that failed, with the other failures
+   *     {@link Throwable#getSuppressed() suppressed}; the other copies are still run
+   * @throws OperationCanceledException if <code>monitor</code> is canceled, in which case some of
+   *     the files may not have been copied
+   */
+  public void copyAll(IProgressMonitor monitor) throws IOException {
+    SubMonitor progress = SubMonitor.convert(monitor, 1 + copies.size());
+    createDirectories();
+    progress.worked(1);
+    if (copies.isEmpty()) {
+      return;
+    }
+
+    ExecutorService executor = Executors.newFixedThreadPool(
+        Math.min(maximumConcurrentCopies, copies.size()),
+        new ThreadFactoryBuilder().setDaemon(true).setNameFormat("file-copy-%d").build()); //$NON-NLS-1$
+    try {
+      List<Future<Void>> results = new ArrayList<>(copies.size());
+      for (final Path[] copy : copies) {
+        results.add(executor.submit(new Callable<Void>() {
+          @Override
+          public Void call() throws IOException {
+            copyFile(copy[0], copy[1]);
+            return null;
+          }
+        }));
+      }
+      copies.clear();
+
+      IOException failure = null;
+      for (Future<Void> result : results) {
+        try {
+          waitFor(result, progress);
+        } catch (IOException ex) {
+          if (failure == null) {
+            failure = ex;
+          } else {
+            failure.addSuppressed(ex);
+          }
+        }
+        progress.worked(1);
+      }
+      if (failure != null) {
+        throw failure;
+      }
+    } finally {
+      executor.shutdownNow();
+    }
+  }
+
+  private static void waitFor(Future<Void> result, IProgressMonitor monitor) throws IOException {
+    while (true) {
+      if (monitor.isCanceled()) {
+        throw new OperationCanceledException();
+      }
+      try {
+        result.get(CANCELLATION_CHECK_INTERVAL_MILLIS, TimeUnit.MILLISECONDS);
+        return;
+      } catch (TimeoutException ex) {
+        // check for cancellation and wait again
+      } catch (ExecutionException ex) {
+        if (ex.getCause() instanceof IOException) {
+          throw (IOException) ex.getCause();
+        }
+        throw new IOException(ex.getCause());
+      } catch (InterruptedException ex) {
+        Thread.currentThread().interrupt();
+        throw new OperationCanceledException();
+      }
+    }
+  }
+
+  /**
+   * Creates the queued directories, skipping the ones that were created as the parent of another
+   * directory.
+   */
+  private void createDirectories() throws IOException {
+    Path created = null;
+    // in reverse order, so a directory comes right after its last subdirectory
+    for (Path directory : directories.descendingSet()) {
+      if (created == null || !created.startsWith(directory)) {
+        Files.createDirectories(directory);
+        created = directory;
+      }
+    }
+    directories.clear();
+  }
+
+  private void copyFile(Path source, Path target) throws IOException {
+    Files.deleteIfExists(target);
+    if (useHardLinks && !hardLinksFailed && isSameFileStore(source, target)) {
+      try {
+        Files.createLink(target, source);
+        return;
+      } catch (IOException | UnsupportedOperationException ex) {
+        logger.log(Level.FINE, "Cannot create hard link, copying files instead", ex); //$NON-NLS-1$
+        hardLinksFailed = true;
+      }
+    }
+    transfer(source, target);
+  }
+
+  private boolean isSameFileStore(Path source, Path target) throws IOException {
+    return getFileStore(source.getParent()).equals(getFileStore(target.getParent()));
+  }
+
+  private FileStore getFileStore(Path directory) throws IOException {
+    FileStore fileStore = fileStores.get(directory);
+    if (fileStore == null) {
+      fileStore = Files.getFileStore(directory);
+      fileStores.put(directory, fileStore);
+    }
+    return fileStore;
+  }
+
+  @VisibleForTesting
+  static void transfer(Path source, Path target) throws IOException {
+    try (FileChannel input = FileChannel.open(source, StandardOpenOption.READ);
+        FileChannel output = FileChannel.open(target, StandardOpenOption.CREATE_NEW,
+                                              StandardOpenOption.WRITE)) {
+      long size = input.size();
+      long position = 0;
+      while (position < size) {
+        long transferred = input.transferTo(position, size - position, output);
+        if (transferred <= 0) {
+          // the source got shorter while it was copied
+          break;
+        }
+        position += transferred;
+      }
+    }
+  }
+}
@@ -0,0 +1,159 @@
+/*
+ * Copyright 2016 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.cloud.tools.eclipse.util.io;
+
+import com.google.cloud.tools.eclipse.util.status.StatusUtil;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import org.eclipse.core.resources.IFile;
+import org.eclipse.core.runtime.IPath;
+import org.eclipse.core.runtime.IProgressMonitor;
+import org.eclipse.core.runtime.IStatus;
+import org.eclipse.core.runtime.SubMonitor;
+import org.eclipse.wst.server.core.model.IModuleFile;
+import org.eclipse.wst.server.core.model.IModuleFolder;
+import org.eclipse.wst.server.core.model.IModuleResource;
+import org.eclipse.wst.server.core.model.IModuleResourceDelta;
+import org.eclipse.wst.server.core.util.PublishHelper;
+
+/**
+ * Publishes module resources to a directory, as the full and delta publishing of
+ * {@link PublishHelper} do, with the files copied in parallel by a {@link ParallelFileCopier}.
+ * Files are always copied rather than hard linked, since the published directory is served by a
+ * running server that may write to it, which would otherwise change the files of the workspace.
+ */
+public class ParallelPublishHelper {
+
+  /**
+   * Copies all <code>resources</code> to <code>path</code>.
+   *
+   * @return the errors that occurred, if any
+   */
+  public IStatus[] publishFull(IModuleResource[] resources, IPath path, IProgressMonitor monitor) {
+    SubMonitor progress = SubMonitor.convert(monitor, 10);
+    ParallelFileCopier copier = new ParallelFileCopier(false /* useHardLinks */);
+    List<IStatus> errors = new ArrayList<>();
+    queueResources(resources, path.toFile(), copier, errors);
+    progress.worked(1);
+    copyAll(copier, errors, progress.newChild(9));
+    return errors.toArray(new IStatus[errors.size()]);
+  }
+
+  /**
+   * Applies the changes of <code>delta</code> to the resources published to <code>path</code>.
+   *
+   * @return the errors that occurred, if any
+   */
+  public IStatus[] publishDelta(IModuleResourceDelta delta, IPath path, IProgressMonitor monitor) {
+    SubMonitor progress = SubMonitor.convert(monitor, 10);
+    ParallelFileCopier copier = new ParallelFileCopier(false /* useHardLinks */);
+    List<IStatus> errors = new ArrayList<>();
+    queueDelta(delta, path.toFile(), copier, errors, progress.newChild(1));
+    copyAll(copier, errors, progress.newChild(9));
+    return errors.toArray(new IStatus[errors.size()]);
+  }
+
+  private void queueResources(IModuleResource[] resources, File root, ParallelFileCopier copier,
+                              List<IStatus> errors) {
+    for (IModuleResource resource : resources) {
+      File target = getTarget(root, resource);
+      if (resource instanceof IModuleFolder) {
+        copier.createDirectory(target);
+        queueResources(((IModuleFolder) resource).members(), root, copier, errors);
+      } else if (resource instanceof IModuleFile) {
+        queueFile((IModuleFile) resource, target, copier, errors);
+      }
+    }
+  }
+
+  /**
+   * Deletes the removed resources right away, and queues copying the added and changed files.
+   */
+  private void queueDelta(IModuleResourceDelta delta, File root, ParallelFileCopier copier,
+                          List<IStatus> errors, IProgressMonitor monitor) {
+    IModuleResource resource = delta.getModuleResource();
+    File target = getTarget(root, resource);
+    switch (delta.getKind()) {
+      case IModuleResourceDelta.REMOVED:
+        if (target.isDirectory()) {
+          errors.addAll(Arrays.asList(PublishHelper.deleteDirectory(target, monitor)));
+        } else {
+          try {
+            Files.deleteIfExists(target.toPath());
+          } catch (IOException ex) {
+            errors.add(StatusUtil.error(this, "Cannot delete " + target, ex)); //$NON-NLS-1$
+          }
+        }
+        return;
+      case IModuleResourceDelta.ADDED:
+      case IModuleResourceDelta.CHANGED:
+        if (resource instanceof IModuleFolder) {
+          copier.createDirectory(target);
+        } else if (resource instanceof IModuleFile) {
+          queueFile((IModuleFile) resource, target, copier, errors);
+        }
+        break;
+      default:
+        break;
+    }
+    for (IModuleResourceDelta child : delta.getAffectedChildren()) {
+      queueDelta(child, root, copier, errors, monitor);
+    }
+  }
+
+  private void queueFile(IModuleFile file, File target, ParallelFileCopier copier,
+                         List<IStatus> errors) {
+    File source = getSourceFile(file);
+    if (source == null) {
+      errors.add(StatusUtil.error(this, "Cannot find the file to publish as " + target)); //$NON-NLS-1$
+    } else {
+      copier.copy(source, target);
+    }
+  }
+
+  private void copyAll(ParallelFileCopier copier, List<IStatus> errors, IProgressMonitor monitor) {
+    try {
+      copier.copyAll(monitor);
+    } catch (IOException ex) {
+      errors.add(StatusUtil.error(this, "Cannot publish files", ex)); //$NON-NLS-1$
+    }
+  }
+
+  private static File getTarget(File root, IModuleResource resource) {
+    return new File(root, resource.getModuleRelativePath().append(resource.getName()).toString());
+  }
+
+  /**
+   * @return the file in the file system that <code>file</code> is published from, or
+   *     <code>null</code> if there is none
+   */
+  public static File getSourceFile(IModuleFile file) {
+    File source = (File) file.getAdapter(File.class);
+    if (source != null) {
+      return source;
+    }
+    IFile workspaceFile = (IFile) file.getAdapter(IFile.class);
+    if (workspaceFile != null && workspaceFile.getLocation() != null) {
+      return workspaceFile.getLocation().toFile();
+    }
+    return null;
+  }
+}